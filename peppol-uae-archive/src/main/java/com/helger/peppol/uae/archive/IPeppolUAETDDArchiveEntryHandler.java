@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.archive;
+
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Callback interface for sequential scans over a {@link PeppolUAETDDArchive}.
+ *
+ * @author Philip Helger
+ */
+@FunctionalInterface
+public interface IPeppolUAETDDArchiveEntryHandler
+{
+  /**
+   * Called for each record of the archive in the order in which the records were appended.
+   *
+   * @param aEntry
+   *        The index entry of the record. Never <code>null</code>.
+   * @param aTDDBytes
+   *        The uncompressed serialized TDD. Never <code>null</code>.
+   */
+  void onEntry (@NonNull PeppolUAETDDArchiveEntry aEntry, @NonNull byte [] aTDDBytes);
+}
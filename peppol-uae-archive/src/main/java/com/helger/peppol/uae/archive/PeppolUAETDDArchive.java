@@ -0,0 +1,914 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.archive;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.CommonsHashMap;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.collection.commons.ICommonsMap;
+import com.helger.peppol.uae.tdd.jaxb.PeppolUAETDD10Header;
+import com.helger.peppol.uae.tdd.jaxb.PeppolUAETDD10HeaderReader;
+import com.helger.peppol.uae.tdd.jaxb.PeppolUAETDD10Marshaller;
+import com.helger.peppol.uae.tdd.v100.TaxDataType;
+
+/**
+ * A local, append-only archive for serialized TDDs. Instead of using one file per TDD, the TDDs
+ * are stored compressed in a small number of segment files. A segment is closed and a new one is
+ * started once it reaches the configured maximum size. Existing records are never modified.<br>
+ * Each record is additionally described by an entry in an append-only index log, containing the
+ * record location as well as the UUID, ID and seller tax ID of the reported document of the first
+ * reported transaction. The keys are hashed into a memory-mapped hash table (see
+ * {@link PeppolUAETDDArchiveIndex}) pointing to the index log entries, so that lookups by any of
+ * these keys are O(1) and no per record data is kept on the Java heap. Upon opening, only index log
+ * entries that are not yet part of the hash table are read. If the process was terminated while
+ * appending, the incomplete tail of the index log and the segment files is discarded when opening
+ * the archive, and the hash table is rebuilt from the index log if it covers discarded data.<br>
+ * Segment file layout: a sequence of records, each consisting of a 16 byte header (magic, compressed
+ * length, uncompressed length, CRC32 of the uncompressed data) followed by the deflated TDD.<br>
+ * Index file layout: a sequence of entries, each consisting of the payload length, the payload
+ * (segment, offset, length and the three keys) and the CRC32 of the payload.
+ *
+ * @author Philip Helger
+ */
+@ThreadSafe
+public final class PeppolUAETDDArchive implements AutoCloseable
+{
+  /** The default maximum size of a single segment file: 256 MiB */
+  public static final long DEFAULT_MAX_SEGMENT_SIZE = 256L * 1024 * 1024;
+  /** The default compression level */
+  public static final int DEFAULT_COMPRESSION_LEVEL = Deflater.BEST_SPEED;
+  /** The filename of the index file inside the archive directory */
+  public static final String INDEX_FILENAME = "index.log";
+  /** The filename of the hash table of the index inside the archive directory */
+  public static final String INDEX_HASH_FILENAME = "index.hash";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (PeppolUAETDDArchive.class);
+
+  // "TDDA"
+  private static final int RECORD_MAGIC = 0x54444441;
+  private static final int RECORD_HEADER_SIZE = 16;
+  private static final String SEGMENT_PREFIX = "segment-";
+  private static final String SEGMENT_SUFFIX = ".dat";
+  // Upper bound for a single index entry - 3 keys with max 32K bytes each
+  private static final int MAX_INDEX_ENTRY_SIZE = 16 + 3 * (2 + Short.MAX_VALUE);
+  private static final int INDEX_MAP_WINDOW = 64 * 1024 * 1024;
+  private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+  private static final int KEY_TYPE_UUID = 1;
+  private static final int KEY_TYPE_INVOICE_ID = 2;
+  private static final int KEY_TYPE_SELLER_TAX_ID = 3;
+
+  private final Path m_aDirectory;
+  private final long m_nMaxSegmentSize;
+  private final int m_nCompressionLevel;
+  private final PeppolUAETDD10HeaderReader m_aHeaderReader = new PeppolUAETDD10HeaderReader ();
+
+  private final FileChannel m_aIndexChannel;
+  private final PeppolUAETDDArchiveIndex m_aIndex;
+  private final ICommonsMap <Integer, FileChannel> m_aSegments = new CommonsHashMap <> ();
+  private int m_nActiveSegment;
+  private long m_nActiveSegmentSize;
+  private long m_nIndexLogSize;
+  private long m_nEntryCount;
+  private boolean m_bClosed = false;
+
+  /**
+   * Open or create an archive with the default settings.
+   *
+   * @param aDirectory
+   *        The directory of the archive. Created if it does not exist. May not be
+   *        <code>null</code>.
+   * @throws IOException
+   *         If the archive could not be opened
+   */
+  public PeppolUAETDDArchive (@NonNull final Path aDirectory) throws IOException
+  {
+    this (aDirectory, DEFAULT_MAX_SEGMENT_SIZE, DEFAULT_COMPRESSION_LEVEL);
+  }
+
+  /**
+   * Open or create an archive.
+   *
+   * @param aDirectory
+   *        The directory of the archive. Created if it does not exist. May not be
+   *        <code>null</code>.
+   * @param nMaxSegmentSize
+   *        The size in bytes after which a new segment file is started. Must be &gt; 0. A single
+   *        record larger than this size is still stored in a segment of its own.
+   * @param nCompressionLevel
+   *        The {@link Deflater} compression level to use for new records. Must be between 0 and 9.
+   * @throws IOException
+   *         If the archive could not be opened
+   */
+  public PeppolUAETDDArchive (@NonNull final Path aDirectory,
+                              @Nonnegative final long nMaxSegmentSize,
+                              final int nCompressionLevel) throws IOException
+  {
+    ValueEnforcer.notNull (aDirectory, "Directory");
+    ValueEnforcer.isGT0 (nMaxSegmentSize, "MaxSegmentSize");
+    ValueEnforcer.isBetweenInclusive (nCompressionLevel,
+                                      "CompressionLevel",
+                                      Deflater.NO_COMPRESSION,
+                                      Deflater.BEST_COMPRESSION);
+    m_aDirectory = aDirectory;
+    m_nMaxSegmentSize = nMaxSegmentSize;
+    m_nCompressionLevel = nCompressionLevel;
+
+    Files.createDirectories (aDirectory);
+
+    // Open all existing segments, ordered by number
+    final TreeMap <Integer, Path> aSegmentPaths = new TreeMap <> ();
+    try (final DirectoryStream <Path> aDS = Files.newDirectoryStream (aDirectory,
+                                                                       SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX))
+    {
+      for (final Path aPath : aDS)
+      {
+        final String sName = aPath.getFileName ().toString ();
+        try
+        {
+          final int nSegment = Integer.parseInt (sName.substring (SEGMENT_PREFIX.length (),
+                                                                  sName.length () - SEGMENT_SUFFIX.length ()));
+          aSegmentPaths.put (Integer.valueOf (nSegment), aPath);
+        }
+        catch (final NumberFormatException ex)
+        {
+          LOGGER.warn ("Ignoring unexpected file '" + aPath + "' in TDD archive");
+        }
+      }
+    }
+    for (final Map.Entry <Integer, Path> aEntry : aSegmentPaths.entrySet ())
+      m_aSegments.put (aEntry.getKey (),
+                       FileChannel.open (aEntry.getValue (), StandardOpenOption.READ, StandardOpenOption.WRITE));
+
+    m_aIndexChannel = FileChannel.open (aDirectory.resolve (INDEX_FILENAME),
+                                        StandardOpenOption.CREATE,
+                                        StandardOpenOption.READ,
+                                        StandardOpenOption.WRITE);
+    final long nIndexSize = m_aIndexChannel.size ();
+    m_aIndex = _openIndex (aDirectory.resolve (INDEX_HASH_FILENAME), nIndexSize);
+    m_nEntryCount = m_aIndex.getEntryCount ();
+
+    // Only the entries not yet contained in the hash table need to be read
+    final long nValidIndexSize = _replayIndex (m_aIndex.getIndexedLogSize (), nIndexSize);
+    if (nValidIndexSize < nIndexSize)
+    {
+      LOGGER.warn ("Discarding " + (nIndexSize - nValidIndexSize) + " bytes of incomplete TDD archive index data");
+      m_aIndexChannel.truncate (nValidIndexSize);
+    }
+    m_nIndexLogSize = nValidIndexSize;
+
+    // Determine the segment to append to
+    final long nLastEntryOffset = m_aIndex.getLastEntryOffset ();
+    final PeppolUAETDDArchiveEntry aLast = nLastEntryOffset < 0 ? null : _readIndexEntry (nLastEntryOffset);
+    m_nActiveSegment = aSegmentPaths.isEmpty () ? 0 : aSegmentPaths.lastKey ().intValue ();
+    if (aLast != null && aLast.getLocation ().getSegment () > m_nActiveSegment)
+      m_nActiveSegment = aLast.getLocation ().getSegment ();
+    m_nActiveSegmentSize = aLast != null && aLast.getLocation ().getSegment () == m_nActiveSegment ? aLast.getLocation ()
+                                                                                                         .getEndOffset ()
+                                                                                                   : 0;
+    final FileChannel aActive = _getOrCreateSegmentChannel (m_nActiveSegment);
+    if (aActive.size () > m_nActiveSegmentSize)
+    {
+      LOGGER.warn ("Discarding " +
+                   (aActive.size () - m_nActiveSegmentSize) +
+                   " bytes of unindexed TDD archive data in segment " +
+                   m_nActiveSegment);
+      aActive.truncate (m_nActiveSegmentSize);
+    }
+  }
+
+  @NonNull
+  private Path _getSegmentPath (final int nSegment)
+  {
+    return m_aDirectory.resolve (SEGMENT_PREFIX + String.format ("%06d", Integer.valueOf (nSegment)) + SEGMENT_SUFFIX);
+  }
+
+  @NonNull
+  private FileChannel _getOrCreateSegmentChannel (final int nSegment) throws IOException
+  {
+    final Integer aKey = Integer.valueOf (nSegment);
+    FileChannel ret = m_aSegments.get (aKey);
+    if (ret == null)
+    {
+      ret = FileChannel.open (_getSegmentPath (nSegment),
+                              StandardOpenOption.CREATE,
+                              StandardOpenOption.READ,
+                              StandardOpenOption.WRITE);
+      m_aSegments.put (aKey, ret);
+    }
+    return ret;
+  }
+
+  @Nullable
+  private static String _readKey (@NonNull final ByteBuffer aBuf)
+  {
+    final int nLen = aBuf.getShort ();
+    if (nLen < 0)
+      return null;
+    final byte [] aBytes = new byte [nLen];
+    aBuf.get (aBytes);
+    return new String (aBytes, StandardCharsets.UTF_8);
+  }
+
+  private static void _writeKey (@NonNull final ByteBuffer aBuf, @Nullable final byte [] aKey)
+  {
+    if (aKey == null)
+      aBuf.putShort ((short) -1);
+    else
+    {
+      aBuf.putShort ((short) aKey.length);
+      aBuf.put (aKey);
+    }
+  }
+
+  @Nullable
+  private static byte [] _getKeyBytes (@Nullable final String sKey)
+  {
+    if (sKey == null)
+      return null;
+    final byte [] ret = sKey.getBytes (StandardCharsets.UTF_8);
+    if (ret.length > Short.MAX_VALUE)
+      throw new IllegalArgumentException ("The archive key '" + sKey.substring (0, 100) + "...' is too long");
+    return ret;
+  }
+
+  private boolean _isRecordComplete (final int nSegment, final long nOffset, final int nLength) throws IOException
+  {
+    final FileChannel aSegment = m_aSegments.get (Integer.valueOf (nSegment));
+    return aSegment != null && nOffset >= 0 && nLength > 0 && nOffset + nLength <= aSegment.size ();
+  }
+
+  /**
+   * Parse the payload of a single index log entry.
+   *
+   * @param aBuf
+   *        The buffer, positioned at the start of the payload, with at least the payload and the
+   *        checksum remaining.
+   * @param nPayloadLength
+   *        The length of the payload.
+   * @return <code>null</code> if the entry is corrupt.
+   */
+  @Nullable
+  private static PeppolUAETDDArchiveEntry _parseIndexEntry (@NonNull final ByteBuffer aBuf, final int nPayloadLength)
+  {
+    final int nPayloadStart = aBuf.position ();
+    final CRC32 aCRC = new CRC32 ();
+    aCRC.update (aBuf.duplicate ().limit (nPayloadStart + nPayloadLength));
+    final int nSegment = aBuf.getInt ();
+    final long nOffset = aBuf.getLong ();
+    final int nLength = aBuf.getInt ();
+    final String sUUID = _readKey (aBuf);
+    final String sInvoiceID = _readKey (aBuf);
+    final String sSellerTaxID = _readKey (aBuf);
+    if (aBuf.position () != nPayloadStart + nPayloadLength || aBuf.getInt () != (int) aCRC.getValue ())
+      return null;
+    if (nSegment < 0 || nOffset < 0 || nLength <= 0)
+      return null;
+    return new PeppolUAETDDArchiveEntry (new PeppolUAETDDArchiveLocation (nSegment, nOffset, nLength),
+                                         sUUID,
+                                         sInvoiceID,
+                                         sSellerTaxID);
+  }
+
+  /**
+   * Read a single index log entry with positional reads.
+   *
+   * @param nLogOffset
+   *        The offset of the entry in the index log.
+   * @return <code>null</code> if there is no valid entry at the provided offset.
+   */
+  @Nullable
+  private PeppolUAETDDArchiveEntry _readIndexEntry (final long nLogOffset) throws IOException
+  {
+    final long nLogSize = m_aIndexChannel.size ();
+    if (nLogOffset < 0 || nLogOffset + 4 > nLogSize)
+      return null;
+    final ByteBuffer aLengthBuf = ByteBuffer.allocate (4);
+    _readFully (m_aIndexChannel, aLengthBuf, nLogOffset);
+    final int nPayloadLength = aLengthBuf.getInt (0);
+    if (nPayloadLength <= 0 || nPayloadLength > MAX_INDEX_ENTRY_SIZE || nLogOffset + 4 + nPayloadLength + 4 > nLogSize)
+      return null;
+    final ByteBuffer aBuf = ByteBuffer.allocate (nPayloadLength + 4);
+    _readFully (m_aIndexChannel, aBuf, nLogOffset + 4);
+    aBuf.flip ();
+    return _parseIndexEntry (aBuf, nPayloadLength);
+  }
+
+  /**
+   * Open the hash table of the index. If it is missing, invalid or covers index log data that no
+   * longer exists, it is rebuilt from the index log.
+   */
+  @NonNull
+  private PeppolUAETDDArchiveIndex _openIndex (@NonNull final Path aFile, final long nIndexSize) throws IOException
+  {
+    PeppolUAETDDArchiveIndex ret = null;
+    if (Files.exists (aFile))
+    {
+      try
+      {
+        ret = new PeppolUAETDDArchiveIndex (aFile);
+        boolean bValid = ret.getIndexedLogSize () <= nIndexSize;
+        if (bValid && ret.getLastEntryOffset () >= 0)
+        {
+          // The last indexed entry and its record must still exist
+          final PeppolUAETDDArchiveEntry aLast = _readIndexEntry (ret.getLastEntryOffset ());
+          bValid = aLast != null &&
+                   _isRecordComplete (aLast.getLocation ().getSegment (),
+                                      aLast.getLocation ().getOffset (),
+                                      aLast.getLocation ().getLength ());
+        }
+        if (!bValid)
+        {
+          ret.close ();
+          ret = null;
+        }
+      }
+      catch (final IOException ex)
+      {
+        LOGGER.warn ("Failed to open the TDD archive index: " + ex.getMessage ());
+        if (ret != null)
+        {
+          ret.close ();
+          ret = null;
+        }
+      }
+      if (ret == null)
+      {
+        LOGGER.warn ("Rebuilding the TDD archive index '" + aFile + "' from the index log");
+        Files.delete (aFile);
+      }
+    }
+    return ret != null ? ret : new PeppolUAETDDArchiveIndex (aFile);
+  }
+
+  private void _indexKey (final int nKeyType, @Nullable final byte [] aKey, final long nLogOffset) throws IOException
+  {
+    if (aKey != null)
+      m_aIndex.add (PeppolUAETDDArchiveIndex.getHash (nKeyType, aKey), nLogOffset);
+  }
+
+  private void _indexEntry (@Nullable final byte [] aUUID,
+                            @Nullable final byte [] aInvoiceID,
+                            @Nullable final byte [] aSellerTaxID,
+                            final long nLogOffset,
+                            final long nNextLogOffset) throws IOException
+  {
+    _indexKey (KEY_TYPE_UUID, aUUID, nLogOffset);
+    _indexKey (KEY_TYPE_INVOICE_ID, aInvoiceID, nLogOffset);
+    _indexKey (KEY_TYPE_SELLER_TAX_ID, aSellerTaxID, nLogOffset);
+    m_nEntryCount++;
+    m_aIndex.setLogState (m_nEntryCount, nNextLogOffset, nLogOffset);
+  }
+
+  /**
+   * Add all index log entries from the provided position on to the hash table. The index log is
+   * read via memory mapping.
+   *
+   * @param nStartPos
+   *        The position of the first entry to read.
+   * @param nIndexSize
+   *        The current size of the index file.
+   * @return The size of the valid part of the index file.
+   */
+  private long _replayIndex (final long nStartPos, final long nIndexSize) throws IOException
+  {
+    long nPos = nStartPos;
+    while (nPos < nIndexSize)
+    {
+      final long nWindow = Math.min (INDEX_MAP_WINDOW, nIndexSize - nPos);
+      final MappedByteBuffer aBuf = m_aIndexChannel.map (FileChannel.MapMode.READ_ONLY, nPos, nWindow);
+      int nConsumed = 0;
+      while (aBuf.remaining () >= 4)
+      {
+        final int nPayloadLength = aBuf.getInt ();
+        if (nPayloadLength <= 0 || nPayloadLength > MAX_INDEX_ENTRY_SIZE)
+          return nPos + nConsumed;
+        // Entry continues in the next window or is incomplete
+        if (aBuf.remaining () < nPayloadLength + 4)
+          break;
+
+        final PeppolUAETDDArchiveEntry aEntry = _parseIndexEntry (aBuf, nPayloadLength);
+        if (aEntry == null)
+          return nPos + nConsumed;
+
+        // The record itself must have been written completely
+        final PeppolUAETDDArchiveLocation aLocation = aEntry.getLocation ();
+        if (!_isRecordComplete (aLocation.getSegment (), aLocation.getOffset (), aLocation.getLength ()))
+          return nPos + nConsumed;
+
+        _indexEntry (_getKeyBytes (aEntry.getUUID ()),
+                     _getKeyBytes (aEntry.getInvoiceID ()),
+                     _getKeyBytes (aEntry.getSellerTaxID ()),
+                     nPos + nConsumed,
+                     nPos + aBuf.position ());
+        nConsumed = aBuf.position ();
+      }
+      if (nConsumed == 0)
+      {
+        // Incomplete entry at the end of the file
+        break;
+      }
+      nPos += nConsumed;
+    }
+    return nPos;
+  }
+
+  private void _checkOpen ()
+  {
+    if (m_bClosed)
+      throw new IllegalStateException ("The TDD archive is already closed");
+  }
+
+  private static void _writeFully (@NonNull final FileChannel aChannel,
+                                   @NonNull final ByteBuffer aBuf,
+                                   final long nPosition) throws IOException
+  {
+    long nPos = nPosition;
+    while (aBuf.hasRemaining ())
+      nPos += aChannel.write (aBuf, nPos);
+  }
+
+  private static void _readFully (@NonNull final FileChannel aChannel,
+                                  @NonNull final ByteBuffer aBuf,
+                                  final long nPosition) throws IOException
+  {
+    long nPos = nPosition;
+    while (aBuf.hasRemaining ())
+    {
+      final int nRead = aChannel.read (aBuf, nPos);
+      if (nRead < 0)
+        throw new EOFException ("Unexpected end of TDD archive segment at " + nPos);
+      nPos += nRead;
+    }
+  }
+
+  @NonNull
+  private byte [] _createRecord (@NonNull final byte [] aTDDBytes) throws IOException
+  {
+    final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream (RECORD_HEADER_SIZE + aTDDBytes.length / 4);
+    // Placeholder for the header
+    aBAOS.write (new byte [RECORD_HEADER_SIZE]);
+    final Deflater aDeflater = new Deflater (m_nCompressionLevel);
+    try (final DeflaterOutputStream aDOS = new DeflaterOutputStream (aBAOS, aDeflater))
+    {
+      aDOS.write (aTDDBytes);
+    }
+    finally
+    {
+      aDeflater.end ();
+    }
+
+    final CRC32 aCRC = new CRC32 ();
+    aCRC.update (aTDDBytes);
+
+    final byte [] ret = aBAOS.toByteArray ();
+    ByteBuffer.wrap (ret)
+              .putInt (RECORD_MAGIC)
+              .putInt (ret.length - RECORD_HEADER_SIZE)
+              .putInt (aTDDBytes.length)
+              .putInt ((int) aCRC.getValue ());
+    return ret;
+  }
+
+  @NonNull
+  private static byte [] _decodeRecord (@NonNull final byte [] aRecord,
+                                        @NonNull final PeppolUAETDDArchiveLocation aLocation) throws IOException
+  {
+    final ByteBuffer aBuf = ByteBuffer.wrap (aRecord);
+    final int nMagic = aBuf.getInt ();
+    final int nCompressedLength = aBuf.getInt ();
+    final int nUncompressedLength = aBuf.getInt ();
+    final int nCRC = aBuf.getInt ();
+    if (nMagic != RECORD_MAGIC || nCompressedLength != aRecord.length - RECORD_HEADER_SIZE || nUncompressedLength < 0)
+      throw new IOException ("Invalid TDD archive record header at " + aLocation);
+
+    final byte [] ret = new byte [nUncompressedLength];
+    final Inflater aInflater = new Inflater ();
+    try
+    {
+      aInflater.setInput (aRecord, RECORD_HEADER_SIZE, nCompressedLength);
+      int nDone = 0;
+      while (nDone < nUncompressedLength && !aInflater.finished ())
+      {
+        final int nInflated = aInflater.inflate (ret, nDone, nUncompressedLength - nDone);
+        if (nInflated == 0 && (aInflater.needsInput () || aInflater.needsDictionary ()))
+          break;
+        nDone += nInflated;
+      }
+      if (nDone != nUncompressedLength)
+        throw new IOException ("Truncated TDD archive record at " + aLocation);
+    }
+    catch (final DataFormatException ex)
+    {
+      throw new IOException ("Corrupt TDD archive record at " + aLocation, ex);
+    }
+    finally
+    {
+      aInflater.end ();
+    }
+
+    final CRC32 aCRC = new CRC32 ();
+    aCRC.update (ret);
+    if ((int) aCRC.getValue () != nCRC)
+      throw new IOException ("Checksum mismatch of TDD archive record at " + aLocation);
+    return ret;
+  }
+
+  /**
+   * Append a serialized TDD to the archive. The index keys are taken from the first reported
+   * transaction of the TDD.
+   *
+   * @param aTDDBytes
+   *        The serialized TDD. May not be <code>null</code>.
+   * @return The index entry of the new record. Never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the bytes are not a TDD 1.0
+   * @throws IOException
+   *         If writing failed
+   */
+  @NonNull
+  public PeppolUAETDDArchiveEntry append (@NonNull final byte [] aTDDBytes) throws IOException
+  {
+    ValueEnforcer.notNull (aTDDBytes, "TDDBytes");
+
+    // Parsing and compression happen outside of the lock
+    final PeppolUAETDD10Header aHeader = m_aHeaderReader.read (aTDDBytes);
+    if (aHeader == null)
+      throw new IllegalArgumentException ("The provided bytes are not a TDD 1.0");
+    final PeppolUAETDD10Header.ReportedTransaction aRT = aHeader.getFirstReportedTransaction ();
+    final String sUUID = aRT == null ? null : aRT.getUUID ();
+    final String sInvoiceID = aRT == null ? null : aRT.getID ();
+    final String sSellerTaxID = aRT == null ? null : aRT.getSellerTaxID ();
+    final byte [] aUUID = _getKeyBytes (sUUID);
+    final byte [] aInvoiceID = _getKeyBytes (sInvoiceID);
+    final byte [] aSellerTaxID = _getKeyBytes (sSellerTaxID);
+    final byte [] aRecord = _createRecord (aTDDBytes);
+
+    final int nPayloadLength = 16 +
+                               2 +
+                               (aUUID == null ? 0 : aUUID.length) +
+                               2 +
+                               (aInvoiceID == null ? 0 : aInvoiceID.length) +
+                               2 +
+                               (aSellerTaxID == null ? 0 : aSellerTaxID.length);
+
+    synchronized (this)
+    {
+      _checkOpen ();
+
+      // Start a new segment if the current one is full
+      if (m_nActiveSegmentSize > 0 && m_nActiveSegmentSize + aRecord.length > m_nMaxSegmentSize)
+      {
+        _getOrCreateSegmentChannel (m_nActiveSegment).force (false);
+        m_nActiveSegment++;
+        m_nActiveSegmentSize = 0;
+      }
+
+      // Write the record before the index entry
+      final PeppolUAETDDArchiveLocation aLocation = new PeppolUAETDDArchiveLocation (m_nActiveSegment,
+                                                                                     m_nActiveSegmentSize,
+                                                                                     aRecord.length);
+      _writeFully (_getOrCreateSegmentChannel (m_nActiveSegment), ByteBuffer.wrap (aRecord), m_nActiveSegmentSize);
+
+      final ByteBuffer aIndexEntry = ByteBuffer.allocate (4 + nPayloadLength + 4);
+      aIndexEntry.putInt (nPayloadLength);
+      aIndexEntry.putInt (aLocation.getSegment ());
+      aIndexEntry.putLong (aLocation.getOffset ());
+      aIndexEntry.putInt (aLocation.getLength ());
+      _writeKey (aIndexEntry, aUUID);
+      _writeKey (aIndexEntry, aInvoiceID);
+      _writeKey (aIndexEntry, aSellerTaxID);
+      final CRC32 aCRC = new CRC32 ();
+      aCRC.update (aIndexEntry.array (), 4, nPayloadLength);
+      aIndexEntry.putInt ((int) aCRC.getValue ());
+      aIndexEntry.flip ();
+      final long nLogOffset = m_nIndexLogSize;
+      _writeFully (m_aIndexChannel, aIndexEntry, nLogOffset);
+
+      m_nActiveSegmentSize += aRecord.length;
+      m_nIndexLogSize += aIndexEntry.capacity ();
+
+      // Update the hash table only after the index log entry was written
+      _indexEntry (aUUID, aInvoiceID, aSellerTaxID, nLogOffset, m_nIndexLogSize);
+      return new PeppolUAETDDArchiveEntry (aLocation, sUUID, sInvoiceID, sSellerTaxID);
+    }
+  }
+
+  /**
+   * Serialize and append a TDD to the archive.
+   *
+   * @param aTDD
+   *        The TDD to append. May not be <code>null</code>.
+   * @return The index entry of the new record. Never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the TDD could not be serialized
+   * @throws IOException
+   *         If writing failed
+   * @see #append(byte[])
+   */
+  @NonNull
+  public PeppolUAETDDArchiveEntry append (@NonNull final TaxDataType aTDD) throws IOException
+  {
+    ValueEnforcer.notNull (aTDD, "TDD");
+
+    final String sXML = new PeppolUAETDD10Marshaller ().getAsString (aTDD);
+    if (sXML == null)
+      throw new IllegalArgumentException ("Failed to serialize the provided TDD");
+    return append (sXML.getBytes (StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Read a single TDD from the archive.
+   *
+   * @param aLocation
+   *        The location of the record, as returned by one of the lookup methods. May not be
+   *        <code>null</code>.
+   * @return The uncompressed serialized TDD. Never <code>null</code>.
+   * @throws IOException
+   *         If reading failed or the record is corrupt
+   */
+  @NonNull
+  public byte [] read (@NonNull final PeppolUAETDDArchiveLocation aLocation) throws IOException
+  {
+    ValueEnforcer.notNull (aLocation, "Location");
+
+    final FileChannel aChannel;
+    synchronized (this)
+    {
+      _checkOpen ();
+      aChannel = m_aSegments.get (Integer.valueOf (aLocation.getSegment ()));
+    }
+    if (aChannel == null)
+      throw new IOException ("Unknown TDD archive segment " + aLocation.getSegment ());
+
+    // Positional reads are safe without the lock
+    final byte [] aRecord = new byte [aLocation.getLength ()];
+    _readFully (aChannel, ByteBuffer.wrap (aRecord), aLocation.getOffset ());
+    return _decodeRecord (aRecord, aLocation);
+  }
+
+  /**
+   * @return The number of records in the archive.
+   */
+  @Nonnegative
+  public synchronized long getEntryCount ()
+  {
+    return m_nEntryCount;
+  }
+
+  @NonNull
+  @ReturnsMutableCopy
+  private synchronized ICommonsList <PeppolUAETDDArchiveEntry> _getAllEntries (final int nKeyType,
+                                                                             @Nullable final String sKey) throws IOException
+  {
+    _checkOpen ();
+
+    final ICommonsList <PeppolUAETDDArchiveEntry> ret = new CommonsArrayList <> ();
+    if (sKey != null)
+    {
+      final byte [] aKey = sKey.getBytes (StandardCharsets.UTF_8);
+      for (final long nLogOffset : m_aIndex.getAllLogOffsets (PeppolUAETDDArchiveIndex.getHash (nKeyType, aKey)))
+      {
+        // Different keys may have the same hash
+        final PeppolUAETDDArchiveEntry aEntry = _readIndexEntry (nLogOffset);
+        if (aEntry != null)
+        {
+          final String sEntryKey;
+          if (nKeyType == KEY_TYPE_UUID)
+            sEntryKey = aEntry.getUUID ();
+          else
+            if (nKeyType == KEY_TYPE_INVOICE_ID)
+              sEntryKey = aEntry.getInvoiceID ();
+            else
+              sEntryKey = aEntry.getSellerTaxID ();
+          if (sKey.equals (sEntryKey))
+            ret.add (aEntry);
+        }
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * @param sUUID
+   *        The reported document UUID to search. May be <code>null</code>.
+   * @return All entries with the provided UUID in the order of appending. Never <code>null</code>.
+   * @throws IOException
+   *         If reading the index failed
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <PeppolUAETDDArchiveEntry> getAllEntriesByUUID (@Nullable final String sUUID) throws IOException
+  {
+    return _getAllEntries (KEY_TYPE_UUID, sUUID);
+  }
+
+  /**
+   * @param sInvoiceID
+   *        The reported document ID to search. May be <code>null</code>.
+   * @return All entries with the provided invoice ID in the order of appending. Never
+   *         <code>null</code>.
+   * @throws IOException
+   *         If reading the index failed
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <PeppolUAETDDArchiveEntry> getAllEntriesByInvoiceID (@Nullable final String sInvoiceID) throws IOException
+  {
+    return _getAllEntries (KEY_TYPE_INVOICE_ID, sInvoiceID);
+  }
+
+  /**
+   * @param sSellerTaxID
+   *        The seller tax ID to search. May be <code>null</code>.
+   * @return All entries with the provided seller tax ID in the order of appending. Never
+   *         <code>null</code>.
+   * @throws IOException
+   *         If reading the index failed
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <PeppolUAETDDArchiveEntry> getAllEntriesBySellerTaxID (@Nullable final String sSellerTaxID) throws IOException
+  {
+    return _getAllEntries (KEY_TYPE_SELLER_TAX_ID, sSellerTaxID);
+  }
+
+  /**
+   * Read all records of the archive sequentially in the order of appending. The index log and each
+   * segment are read with a single buffered stream. Records appended while the scan is running are
+   * not part of the scan.
+   *
+   * @param aHandler
+   *        The handler to be invoked for each record. May not be <code>null</code>.
+   * @throws IOException
+   *         If reading failed or a record is corrupt
+   */
+  public void forEach (@NonNull final IPeppolUAETDDArchiveEntryHandler aHandler) throws IOException
+  {
+    ValueEnforcer.notNull (aHandler, "Handler");
+
+    final long nIndexLogSize;
+    synchronized (this)
+    {
+      _checkOpen ();
+      nIndexLogSize = m_nIndexLogSize;
+    }
+
+    int nCurrentSegment = -1;
+    long nStreamPos = 0;
+    DataInputStream aDIS = null;
+    final InputStream aIndexIS = Files.newInputStream (m_aDirectory.resolve (INDEX_FILENAME));
+    try (final DataInputStream aIndexDIS = new DataInputStream (new BufferedInputStream (aIndexIS, SCAN_BUFFER_SIZE)))
+    {
+      long nLogPos = 0;
+      while (nLogPos < nIndexLogSize)
+      {
+        final int nPayloadLength = aIndexDIS.readInt ();
+        if (nPayloadLength <= 0 || nPayloadLength > MAX_INDEX_ENTRY_SIZE)
+          throw new IOException ("Invalid TDD archive index entry at " + nLogPos);
+        final byte [] aIndexEntry = new byte [nPayloadLength + 4];
+        aIndexDIS.readFully (aIndexEntry);
+        final PeppolUAETDDArchiveEntry aEntry = _parseIndexEntry (ByteBuffer.wrap (aIndexEntry), nPayloadLength);
+        if (aEntry == null)
+          throw new IOException ("Corrupt TDD archive index entry at " + nLogPos);
+        nLogPos += 4 + aIndexEntry.length;
+
+        final PeppolUAETDDArchiveLocation aLocation = aEntry.getLocation ();
+        if (aLocation.getSegment () != nCurrentSegment)
+        {
+          if (aDIS != null)
+            aDIS.close ();
+          final InputStream aIS = Files.newInputStream (_getSegmentPath (aLocation.getSegment ()));
+          aDIS = new DataInputStream (new BufferedInputStream (aIS, SCAN_BUFFER_SIZE));
+          nCurrentSegment = aLocation.getSegment ();
+          nStreamPos = 0;
+        }
+        if (aLocation.getOffset () < nStreamPos)
+          throw new IOException ("Unexpected TDD archive record order at " + aLocation);
+        aDIS.skipNBytes (aLocation.getOffset () - nStreamPos);
+
+        final byte [] aRecord = new byte [aLocation.getLength ()];
+        aDIS.readFully (aRecord);
+        nStreamPos = aLocation.getEndOffset ();
+        aHandler.onEntry (aEntry, _decodeRecord (aRecord, aLocation));
+      }
+    }
+    finally
+    {
+      if (aDIS != null)
+        aDIS.close ();
+    }
+  }
+
+  /**
+   * Force all written data to the storage device.
+   *
+   * @throws IOException
+   *         If flushing failed
+   */
+  public synchronized void flush () throws IOException
+  {
+    _checkOpen ();
+    _getOrCreateSegmentChannel (m_nActiveSegment).force (false);
+    m_aIndexChannel.force (false);
+    m_aIndex.flush ();
+  }
+
+  /**
+   * Flush and close all files of the archive. Calling this method more than once has no effect.
+   *
+   * @throws IOException
+   *         If closing failed
+   */
+  public synchronized void close () throws IOException
+  {
+    if (m_bClosed)
+      return;
+    m_bClosed = true;
+
+    IOException aFirst = null;
+    final ICommonsList <FileChannel> aChannels = new CommonsArrayList <> (m_aSegments.values ());
+    aChannels.add (m_aIndexChannel);
+    for (final FileChannel aChannel : aChannels)
+      try
+      {
+        aChannel.force (false);
+        aChannel.close ();
+      }
+      catch (final IOException ex)
+      {
+        if (aFirst == null)
+          aFirst = ex;
+      }
+    m_aSegments.clear ();
+    try
+    {
+      m_aIndex.close ();
+    }
+    catch (final IOException ex)
+    {
+      if (aFirst == null)
+        aFirst = ex;
+    }
+    if (aFirst != null)
+      throw aFirst;
+  }
+
+  @Override
+  public synchronized String toString ()
+  {
+    return new ToStringGenerator (null).append ("Directory", m_aDirectory)
+                                       .append ("MaxSegmentSize", m_nMaxSegmentSize)
+                                       .append ("CompressionLevel", m_nCompressionLevel)
+                                       .append ("ActiveSegment", m_nActiveSegment)
+                                       .append ("ActiveSegmentSize", m_nActiveSegmentSize)
+                                       .append ("EntryCount", m_nEntryCount)
+                                       .append ("Closed", m_bClosed)
+                                       .getToString ();
+  }
+}
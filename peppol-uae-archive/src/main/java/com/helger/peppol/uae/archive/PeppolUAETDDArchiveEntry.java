@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.archive;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+
+/**
+ * A single index entry of a {@link PeppolUAETDDArchive}, consisting of the record location and the
+ * key values of the first reported transaction of the archived TDD.
+ *
+ * @author Philip Helger
+ */
+@Immutable
+public final class PeppolUAETDDArchiveEntry
+{
+  private final PeppolUAETDDArchiveLocation m_aLocation;
+  private final String m_sUUID;
+  private final String m_sInvoiceID;
+  private final String m_sSellerTaxID;
+
+  public PeppolUAETDDArchiveEntry (@NonNull final PeppolUAETDDArchiveLocation aLocation,
+                                   @Nullable final String sUUID,
+                                   @Nullable final String sInvoiceID,
+                                   @Nullable final String sSellerTaxID)
+  {
+    ValueEnforcer.notNull (aLocation, "Location");
+    m_aLocation = aLocation;
+    m_sUUID = sUUID;
+    m_sInvoiceID = sInvoiceID;
+    m_sSellerTaxID = sSellerTaxID;
+  }
+
+  /**
+   * @return The location of the record. Never <code>null</code>.
+   */
+  @NonNull
+  public PeppolUAETDDArchiveLocation getLocation ()
+  {
+    return m_aLocation;
+  }
+
+  /**
+   * @return The UUID of the reported document. May be <code>null</code>.
+   */
+  @Nullable
+  public String getUUID ()
+  {
+    return m_sUUID;
+  }
+
+  /**
+   * @return The ID of the reported document (the invoice ID). May be <code>null</code>.
+   */
+  @Nullable
+  public String getInvoiceID ()
+  {
+    return m_sInvoiceID;
+  }
+
+  /**
+   * @return The tax ID of the seller of the reported document. May be <code>null</code>.
+   */
+  @Nullable
+  public String getSellerTaxID ()
+  {
+    return m_sSellerTaxID;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("Location", m_aLocation)
+                                       .append ("UUID", m_sUUID)
+                                       .append ("InvoiceID", m_sInvoiceID)
+                                       .append ("SellerTaxID", m_sSellerTaxID)
+                                       .getToString ();
+  }
+}
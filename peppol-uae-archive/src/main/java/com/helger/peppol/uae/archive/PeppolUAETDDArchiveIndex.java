@@ -0,0 +1,371 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.jspecify.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.NotThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+
+/**
+ * The memory-mapped hash index of a {@link PeppolUAETDDArchive}. It is an open addressing hash
+ * multimap with linear probing, where each slot contains the 64 bit hash of a key and the offset of
+ * the entry in the index log that contains the key. The keys themselves are only stored in the
+ * index log, so the caller must verify each found entry against the searched key. The table lives
+ * in a memory-mapped file and not on the Java heap, and is doubled when it is more than 70% full.
+ * <br>
+ * The header additionally contains the number of entries and the size of the index log that is
+ * covered by the table, so that only log entries appended afterwards need to be indexed upon
+ * opening.
+ *
+ * @author Philip Helger
+ */
+@NotThreadSafe
+final class PeppolUAETDDArchiveIndex implements AutoCloseable
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (PeppolUAETDDArchiveIndex.class);
+
+  // "UAETDDA1"
+  private static final long MAGIC = 0x5541455444444131L;
+  private static final int HEADER_SIZE = 64;
+  private static final int OFFSET_CAPACITY = 8;
+  private static final int OFFSET_SLOTS_USED = 16;
+  private static final int OFFSET_ENTRY_COUNT = 24;
+  private static final int OFFSET_INDEXED_LOG_SIZE = 32;
+  private static final int OFFSET_LAST_ENTRY_OFFSET = 40;
+  private static final int SLOT_SIZE = 16;
+  // One chunk has 1 GiB so that no slot crosses a mapping boundary
+  private static final int CHUNK_SLOT_BITS = 26;
+  private static final long CHUNK_SLOTS = 1L << CHUNK_SLOT_BITS;
+  private static final long MIN_CAPACITY = 1024;
+  private static final double MAX_LOAD_FACTOR = 0.7;
+
+  private final Path m_aFile;
+  private FileChannel m_aChannel;
+  private MappedByteBuffer m_aHeader;
+  private MappedByteBuffer [] m_aChunks;
+  private long m_nCapacity;
+  private long m_nMask;
+  private long m_nSlotsUsed;
+
+  /**
+   * Open an existing index file or create a new one.
+   *
+   * @param aFile
+   *        The file to use. May not be <code>null</code>.
+   * @throws IOException
+   *         If the file could not be opened or is not a valid archive index file.
+   */
+  PeppolUAETDDArchiveIndex (@NonNull final Path aFile) throws IOException
+  {
+    ValueEnforcer.notNull (aFile, "File");
+    m_aFile = aFile;
+
+    if (!Files.exists (aFile))
+      _createFile (aFile, MIN_CAPACITY);
+    _open ();
+  }
+
+  private static void _createFile (@NonNull final Path aFile, final long nCapacity) throws IOException
+  {
+    try (final FileChannel aChannel = FileChannel.open (aFile,
+                                                        StandardOpenOption.CREATE_NEW,
+                                                        StandardOpenOption.READ,
+                                                        StandardOpenOption.WRITE))
+    {
+      final MappedByteBuffer aHeader = aChannel.map (FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+      aHeader.putLong (0, MAGIC);
+      aHeader.putLong (OFFSET_CAPACITY, nCapacity);
+      aHeader.putLong (OFFSET_SLOTS_USED, 0);
+      aHeader.putLong (OFFSET_ENTRY_COUNT, 0);
+      aHeader.putLong (OFFSET_INDEXED_LOG_SIZE, 0);
+      aHeader.putLong (OFFSET_LAST_ENTRY_OFFSET, -1);
+      aHeader.force ();
+      // Extend the file by writing the last byte - all slots are implicitly zero (= empty)
+      aChannel.write (ByteBuffer.allocate (1), HEADER_SIZE + nCapacity * SLOT_SIZE - 1);
+    }
+  }
+
+  private void _open () throws IOException
+  {
+    m_aChannel = FileChannel.open (m_aFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try
+    {
+      if (m_aChannel.size () < HEADER_SIZE)
+        throw new IOException ("The file '" + m_aFile + "' is not a valid TDD archive index file");
+      m_aHeader = m_aChannel.map (FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+      m_nCapacity = m_aHeader.getLong (OFFSET_CAPACITY);
+      if (m_aHeader.getLong (0) != MAGIC ||
+          m_nCapacity < MIN_CAPACITY ||
+          Long.bitCount (m_nCapacity) != 1 ||
+          m_aChannel.size () != HEADER_SIZE + m_nCapacity * SLOT_SIZE)
+        throw new IOException ("The file '" + m_aFile + "' is not a valid TDD archive index file");
+    }
+    catch (final IOException ex)
+    {
+      m_aChannel.close ();
+      throw ex;
+    }
+    m_nMask = m_nCapacity - 1;
+    m_nSlotsUsed = m_aHeader.getLong (OFFSET_SLOTS_USED);
+
+    final int nChunks = (int) ((m_nCapacity + CHUNK_SLOTS - 1) >>> CHUNK_SLOT_BITS);
+    m_aChunks = new MappedByteBuffer [nChunks];
+    for (int i = 0; i < nChunks; ++i)
+    {
+      final long nSlots = Math.min (CHUNK_SLOTS, m_nCapacity - i * CHUNK_SLOTS);
+      m_aChunks[i] = m_aChannel.map (FileChannel.MapMode.READ_WRITE,
+                                     HEADER_SIZE + i * CHUNK_SLOTS * SLOT_SIZE,
+                                     nSlots * SLOT_SIZE);
+    }
+  }
+
+  private long _getHash (final long nSlot)
+  {
+    return m_aChunks[(int) (nSlot >>> CHUNK_SLOT_BITS)].getLong ((int) ((nSlot & (CHUNK_SLOTS - 1)) * SLOT_SIZE));
+  }
+
+  private long _getLogOffset (final long nSlot)
+  {
+    return m_aChunks[(int) (nSlot >>> CHUNK_SLOT_BITS)].getLong ((int) ((nSlot & (CHUNK_SLOTS - 1)) * SLOT_SIZE + 8));
+  }
+
+  private void _setSlot (final long nSlot, final long nHash, final long nLogOffset)
+  {
+    final MappedByteBuffer aChunk = m_aChunks[(int) (nSlot >>> CHUNK_SLOT_BITS)];
+    final int nOffset = (int) ((nSlot & (CHUNK_SLOTS - 1)) * SLOT_SIZE);
+    aChunk.putLong (nOffset + 8, nLogOffset);
+    // The hash marks the slot as used, so it is written last
+    aChunk.putLong (nOffset, nHash);
+  }
+
+  /**
+   * Get the hash of a key, as used by the table.
+   *
+   * @param nKeyType
+   *        The type of the key, so that equal values of different key types end up in different
+   *        slots.
+   * @param aKey
+   *        The UTF-8 bytes of the key. May not be <code>null</code>.
+   * @return The hash value. Never 0, as this marks an empty slot.
+   */
+  static long getHash (final int nKeyType, @NonNull final byte [] aKey)
+  {
+    // FNV-1a with a MurmurHash3 finalizer
+    long h = (0xcbf29ce484222325L ^ nKeyType) * 0x100000001b3L;
+    for (final byte b : aKey)
+      h = (h ^ (b & 0xff)) * 0x100000001b3L;
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h == 0 ? 1 : h;
+  }
+
+  private void _grow () throws IOException
+  {
+    final long nNewCapacity = m_nCapacity << 1;
+    LOGGER.info ("Growing TDD archive index '" + m_aFile + "' to " + nNewCapacity + " slots");
+
+    final Path aTmpFile = m_aFile.resolveSibling (m_aFile.getFileName () + ".tmp");
+    Files.deleteIfExists (aTmpFile);
+    _createFile (aTmpFile, nNewCapacity);
+    try (final PeppolUAETDDArchiveIndex aNew = new PeppolUAETDDArchiveIndex (aTmpFile))
+    {
+      for (long nSlot = 0; nSlot < m_nCapacity; ++nSlot)
+      {
+        final long nHash = _getHash (nSlot);
+        if (nHash != 0)
+          aNew._insert (nHash, _getLogOffset (nSlot));
+      }
+      aNew.setLogState (getEntryCount (), getIndexedLogSize (), getLastEntryOffset ());
+    }
+
+    _closeChannel ();
+    Files.move (aTmpFile, m_aFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    _open ();
+  }
+
+  private void _insert (final long nHash, final long nLogOffset)
+  {
+    long nSlot = nHash & m_nMask;
+    while (true)
+    {
+      final long nSlotHash = _getHash (nSlot);
+      if (nSlotHash == 0)
+        break;
+      // Already contained, e.g. when the log tail is indexed again after a crash
+      if (nSlotHash == nHash && _getLogOffset (nSlot) == nLogOffset)
+        return;
+      nSlot = (nSlot + 1) & m_nMask;
+    }
+    _setSlot (nSlot, nHash, nLogOffset);
+    m_nSlotsUsed++;
+    m_aHeader.putLong (OFFSET_SLOTS_USED, m_nSlotsUsed);
+  }
+
+  /**
+   * Add a key of an index log entry.
+   *
+   * @param nHash
+   *        The key hash as created by {@link #getHash(int, byte[])}.
+   * @param nLogOffset
+   *        The offset of the entry in the index log.
+   * @throws IOException
+   *         If growing the table failed
+   */
+  void add (final long nHash, @Nonnegative final long nLogOffset) throws IOException
+  {
+    if (m_nSlotsUsed + 1 > m_nCapacity * MAX_LOAD_FACTOR)
+      _grow ();
+    _insert (nHash, nLogOffset);
+  }
+
+  /**
+   * @param nHash
+   *        The key hash as created by {@link #getHash(int, byte[])}.
+   * @return The index log offsets of all entries with the provided key hash, in ascending order
+   *         (that is the order of appending). Never <code>null</code>.
+   */
+  @NonNull
+  long [] getAllLogOffsets (final long nHash)
+  {
+    long [] ret = new long [4];
+    int nCount = 0;
+    long nSlot = nHash & m_nMask;
+    while (true)
+    {
+      final long nSlotHash = _getHash (nSlot);
+      if (nSlotHash == 0)
+        break;
+      if (nSlotHash == nHash)
+      {
+        if (nCount == ret.length)
+          ret = Arrays.copyOf (ret, nCount * 2);
+        ret[nCount++] = _getLogOffset (nSlot);
+      }
+      nSlot = (nSlot + 1) & m_nMask;
+    }
+    ret = Arrays.copyOf (ret, nCount);
+    Arrays.sort (ret);
+    return ret;
+  }
+
+  /**
+   * Remember the state of the index log after all keys of a log entry were added.
+   *
+   * @param nEntryCount
+   *        The number of indexed log entries.
+   * @param nIndexedLogSize
+   *        The size of the indexed part of the index log.
+   * @param nLastEntryOffset
+   *        The offset of the last indexed log entry or -1 if there is none.
+   */
+  void setLogState (@Nonnegative final long nEntryCount,
+                    @Nonnegative final long nIndexedLogSize,
+                    final long nLastEntryOffset)
+  {
+    m_aHeader.putLong (OFFSET_ENTRY_COUNT, nEntryCount);
+    m_aHeader.putLong (OFFSET_LAST_ENTRY_OFFSET, nLastEntryOffset);
+    m_aHeader.putLong (OFFSET_INDEXED_LOG_SIZE, nIndexedLogSize);
+  }
+
+  /**
+   * @return The number of indexed log entries.
+   */
+  @Nonnegative
+  long getEntryCount ()
+  {
+    return m_aHeader.getLong (OFFSET_ENTRY_COUNT);
+  }
+
+  /**
+   * @return The size of the indexed part of the index log.
+   */
+  @Nonnegative
+  long getIndexedLogSize ()
+  {
+    return m_aHeader.getLong (OFFSET_INDEXED_LOG_SIZE);
+  }
+
+  /**
+   * @return The offset of the last indexed log entry or -1 if there is none.
+   */
+  long getLastEntryOffset ()
+  {
+    return m_aHeader.getLong (OFFSET_LAST_ENTRY_OFFSET);
+  }
+
+  /**
+   * @return The current number of slots of the hash table. Always a power of two.
+   */
+  @Nonnegative
+  long getCapacity ()
+  {
+    return m_nCapacity;
+  }
+
+  /**
+   * Force all changes to the storage device.
+   */
+  void flush ()
+  {
+    for (final MappedByteBuffer aChunk : m_aChunks)
+      aChunk.force ();
+    m_aHeader.force ();
+  }
+
+  private void _closeChannel () throws IOException
+  {
+    flush ();
+    // The mappings stay valid until they are garbage collected
+    m_aChunks = null;
+    m_aHeader = null;
+    m_aChannel.close ();
+    m_aChannel = null;
+  }
+
+  public void close () throws IOException
+  {
+    if (m_aChannel != null)
+      _closeChannel ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("File", m_aFile)
+                                       .append ("Capacity", m_nCapacity)
+                                       .append ("SlotsUsed", m_nSlotsUsed)
+                                       .getToString ();
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.archive;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.hashcode.HashCodeGenerator;
+import com.helger.base.tostring.ToStringGenerator;
+
+/**
+ * The location of a single record inside a {@link PeppolUAETDDArchive}.
+ *
+ * @author Philip Helger
+ */
+@Immutable
+public final class PeppolUAETDDArchiveLocation
+{
+  private final int m_nSegment;
+  private final long m_nOffset;
+  private final int m_nLength;
+
+  public PeppolUAETDDArchiveLocation (@Nonnegative final int nSegment,
+                                      @Nonnegative final long nOffset,
+                                      @Nonnegative final int nLength)
+  {
+    ValueEnforcer.isGE0 (nSegment, "Segment");
+    ValueEnforcer.isGE0 (nOffset, "Offset");
+    ValueEnforcer.isGT0 (nLength, "Length");
+    m_nSegment = nSegment;
+    m_nOffset = nOffset;
+    m_nLength = nLength;
+  }
+
+  /**
+   * @return The number of the segment file containing the record.
+   */
+  @Nonnegative
+  public int getSegment ()
+  {
+    return m_nSegment;
+  }
+
+  /**
+   * @return The byte offset of the record inside the segment file.
+   */
+  @Nonnegative
+  public long getOffset ()
+  {
+    return m_nOffset;
+  }
+
+  /**
+   * @return The total number of bytes of the record in the segment file, including the record
+   *         header. Always &gt; 0.
+   */
+  @Nonnegative
+  public int getLength ()
+  {
+    return m_nLength;
+  }
+
+  /**
+   * @return The offset of the first byte after this record inside the segment file.
+   */
+  @Nonnegative
+  public long getEndOffset ()
+  {
+    return m_nOffset + m_nLength;
+  }
+
+  @Override
+  public boolean equals (final Object o)
+  {
+    if (o == this)
+      return true;
+    if (o == null || !getClass ().equals (o.getClass ()))
+      return false;
+    final PeppolUAETDDArchiveLocation rhs = (PeppolUAETDDArchiveLocation) o;
+    return m_nSegment == rhs.m_nSegment && m_nOffset == rhs.m_nOffset && m_nLength == rhs.m_nLength;
+  }
+
+  @Override
+  public int hashCode ()
+  {
+    return new HashCodeGenerator (this).append (m_nSegment).append (m_nOffset).append (m_nLength).getHashCode ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("Segment", m_nSegment)
+                                       .append ("Offset", m_nOffset)
+                                       .append ("Length", m_nLength)
+                                       .getToString ();
+  }
+}
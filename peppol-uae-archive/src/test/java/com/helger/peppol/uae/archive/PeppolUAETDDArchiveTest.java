@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.archive;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.helger.base.io.stream.StreamHelper;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.io.resource.ClassPathResource;
+import com.helger.peppol.uae.tdd.testfiles.PeppolUAETestFiles;
+
+/**
+ * Test class for class {@link PeppolUAETDDArchive}.
+ *
+ * @author Philip Helger
+ */
+public final class PeppolUAETDDArchiveTest
+{
+  @Rule
+  public final TemporaryFolder m_aTempFolder = new TemporaryFolder ();
+
+  @Test
+  public void testAppendAndLookup () throws Exception
+  {
+    final Path aDir = m_aTempFolder.newFolder ().toPath ();
+    final ICommonsList <byte []> aAllBytes = new CommonsArrayList <> ();
+    final ICommonsList <PeppolUAETDDArchiveEntry> aAllEntries = new CommonsArrayList <> ();
+
+    try (final PeppolUAETDDArchive aArchive = new PeppolUAETDDArchive (aDir))
+    {
+      for (final ClassPathResource aRes : PeppolUAETestFiles.getAllGoodTDD10Files ())
+      {
+        final byte [] aBytes = StreamHelper.getAllBytes (aRes);
+        assertNotNull (aBytes);
+        aAllBytes.add (aBytes);
+        aAllEntries.add (aArchive.append (aBytes));
+      }
+      assertEquals (aAllBytes.size (), aArchive.getEntryCount ());
+
+      for (int i = 0; i < aAllEntries.size (); ++i)
+      {
+        final PeppolUAETDDArchiveEntry aEntry = aAllEntries.get (i);
+        assertArrayEquals (aAllBytes.get (i), aArchive.read (aEntry.getLocation ()));
+        if (aEntry.getUUID () != null)
+          assertTrue (aArchive.getAllEntriesByUUID (aEntry.getUUID ())
+                              .containsAny (x -> x.getLocation ().equals (aEntry.getLocation ())));
+        if (aEntry.getInvoiceID () != null)
+          assertTrue (aArchive.getAllEntriesByInvoiceID (aEntry.getInvoiceID ())
+                              .containsAny (x -> x.getLocation ().equals (aEntry.getLocation ())));
+        if (aEntry.getSellerTaxID () != null)
+          assertTrue (aArchive.getAllEntriesBySellerTaxID (aEntry.getSellerTaxID ())
+                              .containsAny (x -> x.getLocation ().equals (aEntry.getLocation ())));
+      }
+      assertTrue (aArchive.getAllEntriesByUUID ("does-not-exist").isEmpty ());
+      assertTrue (aArchive.getAllEntriesByUUID (null).isEmpty ());
+    }
+
+    // Reopen and check that the index was persisted
+    try (final PeppolUAETDDArchive aArchive = new PeppolUAETDDArchive (aDir))
+    {
+      assertEquals (aAllBytes.size (), aArchive.getEntryCount ());
+      final PeppolUAETDDArchiveEntry aFirst = aAllEntries.getFirstOrNull ();
+      assertNotNull (aFirst);
+      assertNotNull (aFirst.getUUID ());
+      assertEquals (aFirst.getLocation (), aArchive.getAllEntriesByUUID (aFirst.getUUID ()).getFirstOrNull ().getLocation ());
+      assertArrayEquals (aAllBytes.getFirstOrNull (), aArchive.read (aFirst.getLocation ()));
+
+      // Sequential scan in order of appending
+      final AtomicInteger aCount = new AtomicInteger (0);
+      aArchive.forEach ( (aEntry, aBytes) -> {
+        final int nIndex = aCount.getAndIncrement ();
+        assertEquals (aAllEntries.get (nIndex).getLocation (), aEntry.getLocation ());
+        assertArrayEquals (aAllBytes.get (nIndex), aBytes);
+      });
+      assertEquals (aAllBytes.size (), aCount.get ());
+    }
+  }
+
+  @Test
+  public void testSegmentRollover () throws Exception
+  {
+    final Path aDir = m_aTempFolder.newFolder ().toPath ();
+    final ClassPathResource aRes = PeppolUAETestFiles.getAllGoodTDD10Files ().getFirstOrNull ();
+    final byte [] aBytes = StreamHelper.getAllBytes (aRes);
+    final int nCount = 20;
+
+    try (final PeppolUAETDDArchive aArchive = new PeppolUAETDDArchive (aDir, 1024, PeppolUAETDDArchive.DEFAULT_COMPRESSION_LEVEL))
+    {
+      for (int i = 0; i < nCount; ++i)
+        aArchive.append (aBytes);
+    }
+
+    final File [] aSegments = aDir.toFile ().listFiles ( (d, n) -> n.startsWith ("segment-"));
+    assertNotNull (aSegments);
+    assertTrue (aSegments.length > 1);
+
+    try (final PeppolUAETDDArchive aArchive = new PeppolUAETDDArchive (aDir, 1024, PeppolUAETDDArchive.DEFAULT_COMPRESSION_LEVEL))
+    {
+      assertEquals (nCount, aArchive.getEntryCount ());
+      final AtomicInteger aCount = new AtomicInteger (0);
+      aArchive.forEach ( (aEntry, aRead) -> {
+        assertArrayEquals (aBytes, aRead);
+        aCount.incrementAndGet ();
+      });
+      assertEquals (nCount, aCount.get ());
+    }
+  }
+
+  @Test
+  public void testIndexGrowthAndRebuild () throws Exception
+  {
+    final Path aDir = m_aTempFolder.newFolder ().toPath ();
+    final ClassPathResource aRes = PeppolUAETestFiles.getAllGoodTDD10Files ().getFirstOrNull ();
+    final byte [] aBytes = StreamHelper.getAllBytes (aRes);
+    // 3 keys per entry exceed the initial capacity of the hash table
+    final int nCount = 500;
+
+    final ICommonsList <PeppolUAETDDArchiveEntry> aAllEntries = new CommonsArrayList <> ();
+    try (final PeppolUAETDDArchive aArchive = new PeppolUAETDDArchive (aDir))
+    {
+      for (int i = 0; i < nCount; ++i)
+        aAllEntries.add (aArchive.append (aBytes));
+    }
+    final PeppolUAETDDArchiveEntry aFirst = aAllEntries.getFirstOrNull ();
+    assertNotNull (aFirst.getUUID ());
+
+    // Reopen without reading the index log
+    try (final PeppolUAETDDArchive aArchive = new PeppolUAETDDArchive (aDir))
+    {
+      assertEquals (nCount, aArchive.getEntryCount ());
+      final ICommonsList <PeppolUAETDDArchiveEntry> aFound = aArchive.getAllEntriesByUUID (aFirst.getUUID ());
+      assertEquals (nCount, aFound.size ());
+      for (int i = 0; i < nCount; ++i)
+        assertEquals (aAllEntries.get (i).getLocation (), aFound.get (i).getLocation ());
+      assertEquals (nCount, aArchive.getAllEntriesByInvoiceID (aFirst.getInvoiceID ()).size ());
+      assertTrue (aArchive.getAllEntriesByInvoiceID (aFirst.getUUID ()).isEmpty ());
+    }
+
+    // The hash table is rebuilt from the index log if it is missing
+    Files.delete (aDir.resolve (PeppolUAETDDArchive.INDEX_HASH_FILENAME));
+    try (final PeppolUAETDDArchive aArchive = new PeppolUAETDDArchive (aDir))
+    {
+      assertEquals (nCount, aArchive.getEntryCount ());
+      assertEquals (nCount, aArchive.getAllEntriesByUUID (aFirst.getUUID ()).size ());
+      final PeppolUAETDDArchiveEntry aEntry = aArchive.append (aBytes);
+      assertEquals (aAllEntries.getLastOrNull ().getLocation ().getEndOffset (), aEntry.getLocation ().getOffset ());
+    }
+  }
+
+  @Test
+  public void testIncompleteTail () throws Exception
+  {
+    final Path aDir = m_aTempFolder.newFolder ().toPath ();
+    final ClassPathResource aRes = PeppolUAETestFiles.getAllGoodTDD10Files ().getFirstOrNull ();
+    final byte [] aBytes = StreamHelper.getAllBytes (aRes);
+
+    try (final PeppolUAETDDArchive aArchive = new PeppolUAETDDArchive (aDir))
+    {
+      aArchive.append (aBytes);
+      aArchive.append (aBytes);
+    }
+
+    // Simulate a crash while writing the last index entry
+    final Path aIndex = aDir.resolve (PeppolUAETDDArchive.INDEX_FILENAME);
+    try (final FileChannel aFC = FileChannel.open (aIndex, StandardOpenOption.WRITE))
+    {
+      aFC.truncate (aFC.size () - 3);
+    }
+
+    try (final PeppolUAETDDArchive aArchive = new PeppolUAETDDArchive (aDir))
+    {
+      assertEquals (1, aArchive.getEntryCount ());
+      // Appending works again
+      final PeppolUAETDDArchiveEntry aEntry = aArchive.append (aBytes);
+      assertArrayEquals (aBytes, aArchive.read (aEntry.getLocation ()));
+      assertEquals (2, aArchive.getEntryCount ());
+    }
+
+    try (final PeppolUAETDDArchive aArchive = new PeppolUAETDDArchive (aDir))
+    {
+      assertEquals (2, aArchive.getEntryCount ());
+    }
+  }
+
+  @Test
+  public void testInvalidInput () throws Exception
+  {
+    try (final PeppolUAETDDArchive aArchive = new PeppolUAETDDArchive (m_aTempFolder.newFolder ().toPath ()))
+    {
+      aArchive.append ("<Invoice xmlns='urn:foo'/>".getBytes (StandardCharsets.UTF_8));
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,326 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.cli;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.jspecify.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.CommonsHashMap;
+import com.helger.collection.commons.CommonsHashSet;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.collection.commons.ICommonsMap;
+import com.helger.collection.commons.ICommonsSet;
+import com.helger.io.file.FilenameHelper;
+import com.helger.json.IJsonObject;
+import com.helger.json.JsonObject;
+import com.helger.peppol.uae.tdd.validate.PeppolUAETDDFailedAssertion;
+
+import picocli.CommandLine;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+import picocli.CommandLine.Spec;
+
+/**
+ * Abstract base class for all commands that process many files in parallel. Each file results in
+ * exactly one JSON object, that is written as a single line to stdout or to the output file. The
+ * progress is written to stderr.
+ *
+ * @author Philip Helger
+ */
+@ThreadSafe
+public abstract class AbstractBulkCommand implements Callable <Integer>
+{
+  /** The exit code if all files were processed successfully */
+  public static final int EXIT_OK = 0;
+  /** The exit code if at least one file failed */
+  public static final int EXIT_FAILURE = 1;
+  /** The exit code if no input file was found */
+  public static final int EXIT_NO_INPUT = 2;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (AbstractBulkCommand.class);
+  private static final long PROGRESS_INTERVAL_MILLIS = 500;
+
+  @Spec
+  private CommandSpec m_aSpec;
+
+  @Option (names = { "-t", "--threads" },
+           paramLabel = "N",
+           description = "Number of worker threads. Default: number of available processors")
+  private int m_nThreads = Runtime.getRuntime ().availableProcessors ();
+
+  @Option (names = { "-o", "--output" },
+           paramLabel = "FILE",
+           description = "Write the JSON lines results to this file instead of stdout")
+  private Path m_aOutputFile;
+
+  @Option (names = { "-q", "--quiet" }, description = "Don't print the progress to stderr")
+  private boolean m_bQuiet;
+
+  @Parameters (paramLabel = "INPUT",
+               arity = "1..*",
+               description = "Input files or directories. Directories are searched recursively for *.xml files")
+  private List <Path> m_aInputs;
+
+  // Input file to its path relative to the input it was found in - filled before processing
+  private final ICommonsMap <Path, Path> m_aRelativePaths = new CommonsHashMap <> ();
+  // Input files whose output file would overwrite the one of a previous input file
+  private final ICommonsSet <Path> m_aCollidingFiles = new CommonsHashSet <> ();
+  private final AtomicInteger m_aProcessed = new AtomicInteger (0);
+  private final AtomicInteger m_aFailed = new AtomicInteger (0);
+  private long m_nLastProgress = 0;
+
+  /**
+   * Invoked once before the first file is processed, e.g. to validate options or to create the
+   * output directory.
+   *
+   * @throws Exception
+   *         In case of an error
+   */
+  protected void beforeProcessing () throws Exception
+  {}
+
+  /**
+   * Process a single file. This method is invoked concurrently from multiple threads.
+   *
+   * @param aFile
+   *        The file to process. Never <code>null</code>.
+   * @param aResult
+   *        The JSON object to add the file specific results to. Never <code>null</code>.
+   * @return <code>true</code> if the file was processed successfully, <code>false</code> otherwise.
+   * @throws Exception
+   *         In case of an error. This is reported as a failure of the file.
+   */
+  protected abstract boolean processFile (@NonNull Path aFile, @NonNull IJsonObject aResult) throws Exception;
+
+  @NonNull
+  protected final CommandLine getCommandLine ()
+  {
+    return m_aSpec.commandLine ();
+  }
+
+  /**
+   * Get the output file for an input file. The path of the input file relative to the input
+   * directory it was found in is preserved below the output directory, and missing parent
+   * directories are created. Input files that would overwrite the output of a previous input file
+   * (e.g. because they were provided explicitly from different directories) are rejected.
+   *
+   * @param aOutDir
+   *        The output directory. May not be <code>null</code>.
+   * @param aInputFile
+   *        The input file. May not be <code>null</code>.
+   * @param sSuffix
+   *        The suffix to append to the base name of the input file. May not be <code>null</code>.
+   * @return The output file and never <code>null</code>.
+   * @throws IOException
+   *         If a parent directory could not be created
+   * @throws IllegalStateException
+   *         If the output file collides with the output file of another input file
+   */
+  @NonNull
+  protected final Path getOutputFile (@NonNull final Path aOutDir,
+                                      @NonNull final Path aInputFile,
+                                      @NonNull final String sSuffix) throws IOException
+  {
+    if (m_aCollidingFiles.contains (aInputFile))
+      throw new IllegalStateException ("The output file of '" +
+                                       aInputFile +
+                                       "' collides with the output file of another input file");
+
+    final Path aRelative = m_aRelativePaths.get (aInputFile);
+    final Path aRelativeDir = aRelative == null ? null : aRelative.getParent ();
+    final Path aDir = aRelativeDir == null ? aOutDir : aOutDir.resolve (aRelativeDir);
+    Files.createDirectories (aDir);
+    return aDir.resolve (FilenameHelper.getBaseName (aInputFile.getFileName ().toString ()) + sSuffix);
+  }
+
+  @NonNull
+  protected static IJsonObject getAsJson (@NonNull final PeppolUAETDDFailedAssertion aFailedAssertion)
+  {
+    return new JsonObject ().add ("id", aFailedAssertion.getID ())
+                            .add ("flag", aFailedAssertion.getFlag ())
+                            .add ("location", aFailedAssertion.getLocation ())
+                            .add ("text", aFailedAssertion.getText ());
+  }
+
+  @NonNull
+  private ICommonsList <Path> _getAllInputFiles () throws IOException
+  {
+    final ICommonsList <Path> ret = new CommonsArrayList <> ();
+    for (final Path aInput : m_aInputs)
+      if (Files.isDirectory (aInput))
+      {
+        try (final Stream <Path> aStream = Files.walk (aInput))
+        {
+          aStream.filter (Files::isRegularFile)
+                 .filter (x -> x.getFileName ().toString ().toLowerCase (Locale.ROOT).endsWith (".xml"))
+                 .sorted ()
+                 .forEach (x -> {
+                   // Process each file only once
+                   if (m_aRelativePaths.putIfAbsent (x, aInput.relativize (x)) == null)
+                     ret.add (x);
+                 });
+        }
+      }
+      else
+        if (m_aRelativePaths.putIfAbsent (aInput, aInput.getFileName ()) == null)
+          ret.add (aInput);
+
+    // All output files only differ in the suffix, so the collision check can happen upfront. Case
+    // is ignored, to be safe on case insensitive file systems.
+    final ICommonsSet <String> aOutputKeys = new CommonsHashSet <> ();
+    for (final Path aFile : ret)
+    {
+      final Path aRelative = m_aRelativePaths.get (aFile);
+      final String sKey = (aRelative.getParent () == null ? "" : aRelative.getParent ().toString () + "/") +
+                          FilenameHelper.getBaseName (aFile.getFileName ().toString ());
+      if (!aOutputKeys.add (sKey.toLowerCase (Locale.ROOT)))
+        m_aCollidingFiles.add (aFile);
+    }
+    return ret;
+  }
+
+  private void _progress (final int nTotal, final boolean bFinal)
+  {
+    if (m_bQuiet)
+      return;
+
+    synchronized (this)
+    {
+      final long nNow = System.currentTimeMillis ();
+      if (bFinal || nNow - m_nLastProgress >= PROGRESS_INTERVAL_MILLIS)
+      {
+        m_nLastProgress = nNow;
+        final PrintStream aErr = System.err;
+        aErr.print ("\r" + m_aProcessed.get () + "/" + nTotal + " file(s) processed, " + m_aFailed.get () + " failed");
+        if (bFinal)
+          aErr.println ();
+        aErr.flush ();
+      }
+    }
+  }
+
+  private void _processFile (@NonNull final Path aFile, @NonNull final Writer aWriter, final int nTotal)
+  {
+    final long nStart = System.nanoTime ();
+    final IJsonObject aResult = new JsonObject ().add ("file", aFile.toString ());
+    boolean bSuccess;
+    try
+    {
+      bSuccess = processFile (aFile, aResult);
+    }
+    catch (final Exception ex)
+    {
+      LOGGER.error ("Failed to process '" + aFile + "'", ex);
+      aResult.add ("error", ex.getClass ().getName () + ": " + ex.getMessage ());
+      bSuccess = false;
+    }
+    aResult.add ("success", bSuccess);
+    aResult.add ("durationMillis", TimeUnit.NANOSECONDS.toMillis (System.nanoTime () - nStart));
+
+    final String sLine = aResult.getAsJsonString ();
+    synchronized (aWriter)
+    {
+      try
+      {
+        aWriter.write (sLine);
+        aWriter.write ('\n');
+        aWriter.flush ();
+      }
+      catch (final IOException ex)
+      {
+        LOGGER.error ("Failed to write result of '" + aFile + "'", ex);
+      }
+    }
+
+    m_aProcessed.incrementAndGet ();
+    if (!bSuccess)
+      m_aFailed.incrementAndGet ();
+    _progress (nTotal, false);
+  }
+
+  public Integer call () throws Exception
+  {
+    if (m_nThreads < 1)
+      throw new CommandLine.ParameterException (getCommandLine (), "The number of threads must be at least 1");
+
+    final ICommonsList <Path> aFiles = _getAllInputFiles ();
+    if (aFiles.isEmpty ())
+    {
+      System.err.println ("No input files found");
+      return Integer.valueOf (EXIT_NO_INPUT);
+    }
+
+    beforeProcessing ();
+
+    final long nStart = System.nanoTime ();
+    final Writer aWriter = m_aOutputFile != null ? Files.newBufferedWriter (m_aOutputFile, StandardCharsets.UTF_8)
+                                                 : new OutputStreamWriter (System.out, StandardCharsets.UTF_8);
+    try
+    {
+      final ExecutorService aExecutor = Executors.newFixedThreadPool (Math.min (m_nThreads, aFiles.size ()));
+      try
+      {
+        for (final Path aFile : aFiles)
+          aExecutor.submit ( () -> _processFile (aFile, aWriter, aFiles.size ()));
+      }
+      finally
+      {
+        aExecutor.shutdown ();
+        aExecutor.awaitTermination (Long.MAX_VALUE, TimeUnit.DAYS);
+      }
+    }
+    finally
+    {
+      if (m_aOutputFile != null)
+        aWriter.close ();
+      else
+        aWriter.flush ();
+    }
+
+    _progress (aFiles.size (), true);
+    LOGGER.info ("Processed " +
+                 aFiles.size () +
+                 " file(s) with " +
+                 m_nThreads +
+                 " thread(s) in " +
+                 TimeUnit.NANOSECONDS.toMillis (System.nanoTime () - nStart) +
+                 " ms, " +
+                 m_aFailed.get () +
+                 " failed");
+    return Integer.valueOf (m_aFailed.get () == 0 ? EXIT_OK : EXIT_FAILURE);
+  }
+}
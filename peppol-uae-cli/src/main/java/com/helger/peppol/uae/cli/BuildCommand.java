@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.cli;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import org.jspecify.annotations.NonNull;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import com.helger.base.state.ESuccess;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.io.resource.FileSystemResource;
+import com.helger.json.IJsonObject;
+import com.helger.json.JsonArray;
+import com.helger.peppol.uae.tdd.PeppolUAETDD10Builder;
+import com.helger.peppol.uae.tdd.codelist.EUAETDDDocumentScope;
+import com.helger.peppol.uae.tdd.codelist.EUAETDDDocumentTypeCode;
+import com.helger.peppol.uae.tdd.codelist.EUAETDDReporterRole;
+import com.helger.peppol.uae.tdd.jaxb.PeppolUAETDD10Marshaller;
+import com.helger.peppol.uae.tdd.v100.ReportedDocumentType;
+import com.helger.peppol.uae.tdd.v100.TaxDataType;
+import com.helger.peppol.uae.tdd.validate.EUAETDDSchematronVersion;
+import com.helger.peppol.uae.tdd.validate.PeppolUAETDDFailedAssertion;
+import com.helger.peppol.uae.tdd.validate.PeppolUAETDDValidator;
+import com.helger.peppolid.IParticipantIdentifier;
+import com.helger.peppolid.factory.PeppolIdentifierFactory;
+import com.helger.schematron.ISchematronResource;
+import com.helger.ubl21.UBL21Marshaller;
+import com.helger.xml.serialize.read.DOMReader;
+
+import oasis.names.specification.ubl.schema.xsd.creditnote_21.CreditNoteType;
+import oasis.names.specification.ubl.schema.xsd.invoice_21.InvoiceType;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+/**
+ * Command to build TDDs from UBL Invoices and CreditNotes. Each created TDD uses a new random
+ * TransportHeaderID.
+ *
+ * @author Philip Helger
+ */
+@Command (name = "build",
+          mixinStandardHelpOptions = true,
+          description = "Build TDDs from UBL 2.1 Invoices and CreditNotes")
+public class BuildCommand extends AbstractBulkCommand
+{
+  /** The suffix of the created files */
+  public static final String OUTPUT_SUFFIX = ".tdd.xml";
+
+  @Option (names = "--out-dir", required = true, paramLabel = "DIR", description = "The directory to write the TDDs to")
+  private Path m_aOutDir;
+
+  @Option (names = "--document-type-code",
+           paramLabel = "CODE",
+           description = "The TDD document type code. Valid values: ${COMPLETION-CANDIDATES}. Default: ${DEFAULT-VALUE}")
+  private EUAETDDDocumentTypeCode m_eDocumentTypeCode = EUAETDDDocumentTypeCode.SUBMIT;
+
+  @Option (names = "--document-scope",
+           paramLabel = "SCOPE",
+           description = "The TDD document scope. Valid values: ${COMPLETION-CANDIDATES}. Default: ${DEFAULT-VALUE}")
+  private EUAETDDDocumentScope m_eDocumentScope = EUAETDDDocumentScope.DOMESTIC;
+
+  @Option (names = "--reporter-role",
+           paramLabel = "ROLE",
+           description = "The reporter role. Valid values: ${COMPLETION-CANDIDATES}. Default: ${DEFAULT-VALUE}")
+  private EUAETDDReporterRole m_eReporterRole = EUAETDDReporterRole.SENDER;
+
+  @Option (names = "--reporting-party",
+           required = true,
+           paramLabel = "ID",
+           description = "The Peppol participant ID of the reporting party, without the scheme (e.g. 0235:1234567890)")
+  private String m_sReportingParty;
+
+  @Option (names = "--receiving-party",
+           required = true,
+           paramLabel = "ID",
+           description = "The Peppol participant ID of the receiving party, without the scheme")
+  private String m_sReceivingParty;
+
+  @Option (names = "--reporters-representative",
+           required = true,
+           paramLabel = "ID",
+           description = "The Peppol participant ID of the reporter's representative, without the scheme")
+  private String m_sReportersRepresentative;
+
+  @Option (names = "--validate", description = "Validate each created TDD with the latest Schematron")
+  private boolean m_bValidate;
+
+  private IParticipantIdentifier m_aReportingParty;
+  private IParticipantIdentifier m_aReceivingParty;
+  private IParticipantIdentifier m_aReportersRepresentative;
+  private ISchematronResource m_aSchematron;
+
+  @NonNull
+  private IParticipantIdentifier _parse (@NonNull final String sValue, @NonNull final String sOptionName)
+  {
+    final IParticipantIdentifier ret = PeppolIdentifierFactory.INSTANCE.createParticipantIdentifierWithDefaultScheme (sValue);
+    if (ret == null)
+      throw new CommandLine.ParameterException (getCommandLine (),
+                                                "Invalid participant ID '" + sValue + "' provided for " + sOptionName);
+    return ret;
+  }
+
+  @Override
+  protected void beforeProcessing () throws Exception
+  {
+    m_aReportingParty = _parse (m_sReportingParty, "--reporting-party");
+    m_aReceivingParty = _parse (m_sReceivingParty, "--receiving-party");
+    m_aReportersRepresentative = _parse (m_sReportersRepresentative, "--reporters-representative");
+    if (m_bValidate)
+      m_aSchematron = PeppolUAETDDValidator.getSchematron (EUAETDDSchematronVersion.LATEST);
+    Files.createDirectories (m_aOutDir);
+  }
+
+  @Override
+  protected boolean processFile (@NonNull final Path aFile, @NonNull final IJsonObject aResult) throws Exception
+  {
+    final Document aDoc = DOMReader.readXMLDOM (new FileSystemResource (aFile));
+    if (aDoc == null)
+    {
+      aResult.add ("error", "Failed to parse XML");
+      return false;
+    }
+
+    final Element eRoot = aDoc.getDocumentElement ();
+    final String sTransportHeaderID = UUID.randomUUID ().toString ();
+    final PeppolUAETDD10Builder aBuilder = new PeppolUAETDD10Builder ().documentTypeCode (m_eDocumentTypeCode)
+                                                                       .documentScope (m_eDocumentScope)
+                                                                       .reporterRole (m_eReporterRole)
+                                                                       .reportingParty (m_aReportingParty)
+                                                                       .receivingParty (m_aReceivingParty)
+                                                                       .reportersRepresentative (m_aReportersRepresentative);
+    switch (eRoot.getLocalName ())
+    {
+      case "Invoice":
+      {
+        final InvoiceType aInvoice = UBL21Marshaller.invoice ().read (aDoc);
+        if (aInvoice == null)
+        {
+          aResult.add ("error", "Failed to read UBL Invoice");
+          return false;
+        }
+        aBuilder.reportedTransaction (rt -> rt.transportHeaderID (sTransportHeaderID).initFromInvoice (aInvoice));
+        break;
+      }
+      case "CreditNote":
+      {
+        final CreditNoteType aCreditNote = UBL21Marshaller.creditNote ().read (aDoc);
+        if (aCreditNote == null)
+        {
+          aResult.add ("error", "Failed to read UBL CreditNote");
+          return false;
+        }
+        aBuilder.reportedTransaction (rt -> rt.transportHeaderID (sTransportHeaderID).initFromCreditNote (aCreditNote));
+        break;
+      }
+      default:
+        aResult.add ("error", "Unsupported root element '" + eRoot.getLocalName () + "'");
+        return false;
+    }
+
+    final TaxDataType aTDD = aBuilder.build ();
+    if (aTDD == null)
+    {
+      aResult.add ("error", "Failed to build TDD - see log for details");
+      return false;
+    }
+
+    final Path aOutFile = getOutputFile (m_aOutDir, aFile, OUTPUT_SUFFIX);
+    final ESuccess eWritten = new PeppolUAETDD10Marshaller ().write (aTDD, aOutFile);
+    aResult.add ("transportHeaderID", sTransportHeaderID);
+    final ReportedDocumentType aRD = aTDD.getReportedTransactionAtIndex (0).getReportedDocument ();
+    aResult.add ("id", aRD.getIDValue ());
+    aResult.add ("uuid", aRD.getUUIDValue ());
+    if (eWritten.isFailure ())
+    {
+      aResult.add ("error", "Failed to write TDD");
+      return false;
+    }
+    aResult.add ("output", aOutFile.toString ());
+
+    if (m_aSchematron != null)
+    {
+      final ICommonsList <PeppolUAETDDFailedAssertion> aFailedAssertions = new CommonsArrayList <> ();
+      // Validate the object in memory instead of reading the written file again
+      PeppolUAETDDValidator.validate (m_aSchematron, aTDD, aFailedAssertions::add);
+      aResult.add ("valid", aFailedAssertions.isEmpty ());
+      aResult.add ("failedAssertions", new JsonArray ().addAllMapped (aFailedAssertions, AbstractBulkCommand::getAsJson));
+      return aFailedAssertions.isEmpty ();
+    }
+    return true;
+  }
+}
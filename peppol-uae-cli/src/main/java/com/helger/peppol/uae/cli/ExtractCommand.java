@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.cli;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.base.state.ESuccess;
+import com.helger.io.resource.FileSystemResource;
+import com.helger.json.IJsonObject;
+import com.helger.peppol.uae.tdd.jaxb.PeppolUAETDD10SourceDocumentExtractor;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+/**
+ * Command to extract the embedded source Invoices and CreditNotes from TDDs.
+ *
+ * @author Philip Helger
+ */
+@Command (name = "extract",
+          mixinStandardHelpOptions = true,
+          description = "Extract the embedded source documents from TDDs")
+public class ExtractCommand extends AbstractBulkCommand
+{
+  /** The suffix of the created files */
+  public static final String OUTPUT_SUFFIX = ".source.xml";
+
+  @Option (names = "--out-dir",
+           required = true,
+           paramLabel = "DIR",
+           description = "The directory to write the source documents to")
+  private Path m_aOutDir;
+
+  @Override
+  protected void beforeProcessing () throws Exception
+  {
+    Files.createDirectories (m_aOutDir);
+  }
+
+  @Override
+  protected boolean processFile (@NonNull final Path aFile, @NonNull final IJsonObject aResult) throws Exception
+  {
+    final Path aOutFile = getOutputFile (m_aOutDir, aFile, OUTPUT_SUFFIX);
+    final ESuccess eSuccess;
+    try (final OutputStream aOS = Files.newOutputStream (aOutFile))
+    {
+      eSuccess = new PeppolUAETDD10SourceDocumentExtractor ().extract (new FileSystemResource (aFile), aOS);
+    }
+    if (eSuccess.isFailure ())
+    {
+      Files.deleteIfExists (aOutFile);
+      aResult.add ("error", "No source document found");
+      return false;
+    }
+    aResult.add ("output", aOutFile.toString ());
+    return true;
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.cli;
+
+import org.jspecify.annotations.NonNull;
+
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+
+/**
+ * Main class of the command line tool. It offers the subcommands {@link BuildCommand},
+ * {@link ValidateCommand}, {@link ExtractCommand}, {@link SelfTestCommand}, {@link TrainCommand},
+ * {@link ServeCommand} and {@link SoakCommand}.
+ *
+ * @author Philip Helger
+ */
+@Command (name = "peppol-uae",
+          mixinStandardHelpOptions = true,
+          versionProvider = PeppolUAECLI.VersionProvider.class,
+          description = "Bulk processing of Peppol UAE Tax Data Documents (TDDs)",
+          subcommands = { BuildCommand.class,
+                          ValidateCommand.class,
+                          ExtractCommand.class,
+                          SelfTestCommand.class,
+                          TrainCommand.class,
+                          ServeCommand.class,
+                          SoakCommand.class })
+public final class PeppolUAECLI
+{
+  static final class VersionProvider implements CommandLine.IVersionProvider
+  {
+    public String [] getVersion ()
+    {
+      final String sVersion = PeppolUAECLI.class.getPackage ().getImplementationVersion ();
+      return new String [] { "peppol-uae-cli " + (sVersion != null ? sVersion : "development") };
+    }
+  }
+
+  /**
+   * Create a new command line instance with all subcommands.
+   *
+   * @return A new instance and never <code>null</code>.
+   */
+  @NonNull
+  public static CommandLine createCommandLine ()
+  {
+    return new CommandLine (new PeppolUAECLI ());
+  }
+
+  public static void main (final String [] args)
+  {
+    // JAXB cannot generate optimized accessor classes at runtime in a native image
+    if (System.getProperty ("org.graalvm.nativeimage.imagecode") != null)
+      System.setProperty ("com.sun.xml.bind.v2.bytecode.ClassTailor.noOptimize", "true");
+    System.exit (createCommandLine ().execute (args));
+  }
+}
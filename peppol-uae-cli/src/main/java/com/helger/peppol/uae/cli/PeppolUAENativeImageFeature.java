@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.cli;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.graalvm.nativeimage.hosted.Feature;
+import org.graalvm.nativeimage.hosted.RuntimeReflection;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.peppol.uae.tdd.v100.TaxDataType;
+import com.helger.schematron.svrl.jaxb.SchematronOutputType;
+
+import jakarta.xml.bind.annotation.XmlSeeAlso;
+import oasis.names.specification.ubl.schema.xsd.creditnote_21.CreditNoteType;
+import oasis.names.specification.ubl.schema.xsd.invoice_21.InvoiceType;
+
+/**
+ * GraalVM native-image feature that registers all JAXB classes reachable from the TDD, the UBL 2.1
+ * Invoice and CreditNote and the SVRL root types for reflection. JAXB accesses the fields,
+ * constructors and annotations of these classes only reflectively, so the static analysis of
+ * native-image cannot find them. As the classes are generated at build time, they are discovered
+ * by walking the field types, the <code>ObjectFactory</code> methods and <code>@XmlSeeAlso</code>
+ * instead of listing them in a static configuration file.<br>
+ * This class is only used while building the native image and is registered in
+ * <code>META-INF/native-image/com.helger.peppol/peppol-uae-cli/native-image.properties</code>.
+ *
+ * @author Philip Helger
+ */
+public final class PeppolUAENativeImageFeature implements Feature
+{
+  // Classes that JAXB instantiates reflectively, independent of the data model
+  private static final String [] JAXB_RUNTIME_CLASSES = { "com.sun.xml.bind.v2.ContextFactory",
+                                                          "com.sun.xml.bind.v2.JAXBContextFactory",
+                                                          "com.sun.xml.bind.v2.runtime.JAXBContextImpl" };
+
+  // The JAXB root types used by the marshaller, the builder and the validator
+  private static final Class <?> [] ROOT_CLASSES = { TaxDataType.class,
+                                                     InvoiceType.class,
+                                                     CreditNoteType.class,
+                                                     SchematronOutputType.class };
+
+  private final Set <Class <?>> m_aRegistered = new HashSet <> ();
+  private final Deque <Class <?>> m_aQueue = new ArrayDeque <> ();
+
+  private void _enqueue (@Nullable final Type aType)
+  {
+    if (aType instanceof Class <?>)
+    {
+      Class <?> aClass = (Class <?>) aType;
+      while (aClass.isArray ())
+        aClass = aClass.getComponentType ();
+      if (!aClass.isPrimitive () && !aClass.getName ().startsWith ("java.") && m_aRegistered.add (aClass))
+        m_aQueue.add (aClass);
+    }
+    else
+      if (aType instanceof ParameterizedType)
+      {
+        final ParameterizedType aPT = (ParameterizedType) aType;
+        _enqueue (aPT.getRawType ());
+        for (final Type aArg : aPT.getActualTypeArguments ())
+          _enqueue (aArg);
+      }
+      else
+        if (aType instanceof GenericArrayType)
+          _enqueue (((GenericArrayType) aType).getGenericComponentType ());
+  }
+
+  private static void _registerAll (@NonNull final Class <?> aClass)
+  {
+    RuntimeReflection.register (aClass);
+    RuntimeReflection.register (aClass.getDeclaredConstructors ());
+    RuntimeReflection.register (aClass.getDeclaredMethods ());
+    RuntimeReflection.register (aClass.getDeclaredFields ());
+  }
+
+  private void _registerJAXBClasses (@NonNull final FeatureAccess aAccess, @NonNull final Class <?> [] aRootClasses)
+  {
+    for (final Class <?> aRoot : aRootClasses)
+    {
+      _enqueue (aRoot);
+      // The ObjectFactory of the root package is used to create the JAXBContext
+      _enqueue (aAccess.findClassByName (aRoot.getPackageName () + ".ObjectFactory"));
+    }
+
+    final Set <String> aPackages = new HashSet <> ();
+    while (!m_aQueue.isEmpty ())
+    {
+      final Class <?> aClass = m_aQueue.poll ();
+      _registerAll (aClass);
+
+      // The package level annotations contain the namespace
+      if (aPackages.add (aClass.getPackageName ()))
+      {
+        final Class <?> aPackageInfo = aAccess.findClassByName (aClass.getPackageName () + ".package-info");
+        if (aPackageInfo != null)
+          _registerAll (aPackageInfo);
+        _enqueue (aAccess.findClassByName (aClass.getPackageName () + ".ObjectFactory"));
+      }
+
+      _enqueue (aClass.getGenericSuperclass ());
+      for (final Field aField : aClass.getDeclaredFields ())
+        _enqueue (aField.getGenericType ());
+      if ("ObjectFactory".equals (aClass.getSimpleName ()))
+        for (final Method aMethod : aClass.getDeclaredMethods ())
+        {
+          // The JAXBElement factory methods reference the element types
+          _enqueue (aMethod.getGenericReturnType ());
+          for (final Type aParam : aMethod.getGenericParameterTypes ())
+            _enqueue (aParam);
+        }
+      final XmlSeeAlso aSeeAlso = aClass.getAnnotation (XmlSeeAlso.class);
+      if (aSeeAlso != null)
+        for (final Class <?> aOther : aSeeAlso.value ())
+          _enqueue (aOther);
+    }
+  }
+
+  public void beforeAnalysis (@NonNull final BeforeAnalysisAccess aAccess)
+  {
+    for (final String sClassName : JAXB_RUNTIME_CLASSES)
+    {
+      final Class <?> aClass = aAccess.findClassByName (sClassName);
+      if (aClass != null)
+        _registerAll (aClass);
+    }
+    _registerJAXBClasses (aAccess, ROOT_CLASSES);
+  }
+
+  public String getDescription ()
+  {
+    return "Registers the Peppol UAE TDD, UBL 2.1 and SVRL JAXB classes for reflection";
+  }
+}
@@ -0,0 +1,723 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.cli;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.NotThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.io.stream.StreamHelper;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.io.resource.ClassPathResource;
+import com.helger.peppol.uae.tdd.PeppolUAETDD10Builder;
+import com.helger.peppol.uae.tdd.codelist.EUAETDDDocumentScope;
+import com.helger.peppol.uae.tdd.codelist.EUAETDDDocumentTypeCode;
+import com.helger.peppol.uae.tdd.codelist.EUAETDDReporterRole;
+import com.helger.peppol.uae.tdd.testfiles.PeppolUAETestFileGenerator;
+import com.helger.peppol.uae.tdd.testfiles.PeppolUAETestFiles;
+import com.helger.peppol.uae.tdd.v100.TaxDataType;
+import com.helger.peppol.uae.tdd.validate.EUAETDDSchematronVersion;
+import com.helger.peppol.uae.tdd.validate.PeppolUAETDDValidator;
+import com.helger.peppolid.factory.IIdentifierFactory;
+import com.helger.peppolid.factory.PeppolIdentifierFactory;
+import com.helger.schematron.ISchematronResource;
+import com.helger.ubl21.UBL21Marshaller;
+
+import oasis.names.specification.ubl.schema.xsd.creditnote_21.CreditNoteType;
+import oasis.names.specification.ubl.schema.xsd.invoice_21.InvoiceType;
+
+/**
+ * A sustained-load harness that drives the complete pipeline Invoice/CreditNote &rarr; TDD &rarr;
+ * Schematron validation of the in-memory TDD at a constant target rate, e.g. for several hours. The input
+ * consists of the billing documents of {@link PeppolUAETestFiles} plus larger documents created by
+ * {@link PeppolUAETestFileGenerator}, all held in memory so that no disk I/O is measured.<br>
+ * The operations are scheduled at fixed intended start times. If the workers fall behind, the
+ * delay is part of the recorded latency, so that the percentiles do not suffer from coordinated
+ * omission. Besides the latency percentiles, the allocation rate of the worker threads and the
+ * occupancy of the old generation after garbage collection are recorded. The old generation is
+ * only sampled after its first collection. A steady growth of the old generation is reported as a
+ * suspected leak.<br>
+ * Each instance can only be run once.
+ *
+ * @author Philip Helger
+ */
+@NotThreadSafe
+public class PeppolUAESoakHarness
+{
+  public static final double DEFAULT_TARGET_RATE = 20;
+  public static final Duration DEFAULT_DURATION = Duration.ofHours (1);
+  public static final Duration DEFAULT_WARMUP = Duration.ofMinutes (1);
+  public static final Duration DEFAULT_SAMPLE_INTERVAL = Duration.ofSeconds (10);
+  public static final int DEFAULT_GENERATED_DOCUMENT_COUNT = 20;
+  public static final int DEFAULT_GENERATED_LINE_COUNT = 100;
+  public static final long DEFAULT_GENERATED_ATTACHMENT_SIZE = 64L * 1024;
+  public static final long DEFAULT_LEAK_THRESHOLD = 16L * 1024 * 1024;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (PeppolUAESoakHarness.class);
+  private static final int HISTOGRAM_PRECISION = 3;
+  private static final long BYTES_PER_MIB = 1024L * 1024;
+
+  /**
+   * A single input document held in memory.
+   *
+   * @author Philip Helger
+   */
+  private static final class Input
+  {
+    private final String m_sName;
+    private final byte [] m_aBytes;
+    private final boolean m_bCreditNote;
+
+    Input (@NonNull final String sName, @NonNull final byte [] aBytes, final boolean bCreditNote)
+    {
+      m_sName = sName;
+      m_aBytes = aBytes;
+      m_bCreditNote = bCreditNote;
+    }
+  }
+
+  private int m_nThreads = Runtime.getRuntime ().availableProcessors ();
+  private double m_dTargetRate = DEFAULT_TARGET_RATE;
+  private Duration m_aDuration = DEFAULT_DURATION;
+  private Duration m_aWarmup = DEFAULT_WARMUP;
+  private Duration m_aSampleInterval = DEFAULT_SAMPLE_INTERVAL;
+  private int m_nGeneratedDocumentCount = DEFAULT_GENERATED_DOCUMENT_COUNT;
+  private int m_nGeneratedLineCount = DEFAULT_GENERATED_LINE_COUNT;
+  private long m_nGeneratedAttachmentSize = DEFAULT_GENERATED_ATTACHMENT_SIZE;
+  private boolean m_bGeneratedTaxCurrency = false;
+  private long m_nSeed = PeppolUAETestFileGenerator.DEFAULT_SEED;
+  private long m_nLeakThreshold = DEFAULT_LEAK_THRESHOLD;
+  private EUAETDDSchematronVersion m_eSchematronVersion = EUAETDDSchematronVersion.LATEST;
+
+  private final AtomicBoolean m_aStarted = new AtomicBoolean (false);
+  private final CountDownLatch m_aStop = new CountDownLatch (1);
+  private final AtomicBoolean m_aFailureLogged = new AtomicBoolean (false);
+
+  public PeppolUAESoakHarness ()
+  {}
+
+  @Nonnegative
+  public int getThreads ()
+  {
+    return m_nThreads;
+  }
+
+  /**
+   * @param nThreads
+   *        The number of worker threads. Must be &gt; 0.
+   * @return this for chaining
+   */
+  @NonNull
+  public PeppolUAESoakHarness setThreads (@Nonnegative final int nThreads)
+  {
+    ValueEnforcer.isGT0 (nThreads, "Threads");
+    m_nThreads = nThreads;
+    return this;
+  }
+
+  public double getTargetRate ()
+  {
+    return m_dTargetRate;
+  }
+
+  /**
+   * @param dTargetRate
+   *        The number of documents to process per second. Must be &gt; 0.
+   * @return this for chaining
+   */
+  @NonNull
+  public PeppolUAESoakHarness setTargetRate (final double dTargetRate)
+  {
+    ValueEnforcer.isGT0 (dTargetRate, "TargetRate");
+    m_dTargetRate = dTargetRate;
+    return this;
+  }
+
+  @NonNull
+  public Duration getDuration ()
+  {
+    return m_aDuration;
+  }
+
+  /**
+   * @param aDuration
+   *        The measured duration, excluding the warmup. May not be <code>null</code> and must be
+   *        positive.
+   * @return this for chaining
+   */
+  @NonNull
+  public PeppolUAESoakHarness setDuration (@NonNull final Duration aDuration)
+  {
+    ValueEnforcer.notNull (aDuration, "Duration");
+    ValueEnforcer.isTrue (!aDuration.isNegative () && !aDuration.isZero (), "Duration must be positive");
+    m_aDuration = aDuration;
+    return this;
+  }
+
+  @NonNull
+  public Duration getWarmup ()
+  {
+    return m_aWarmup;
+  }
+
+  /**
+   * @param aWarmup
+   *        The duration of the warmup, in which the load is applied but nothing is recorded. May
+   *        not be <code>null</code> or negative.
+   * @return this for chaining
+   */
+  @NonNull
+  public PeppolUAESoakHarness setWarmup (@NonNull final Duration aWarmup)
+  {
+    ValueEnforcer.notNull (aWarmup, "Warmup");
+    ValueEnforcer.isFalse (aWarmup.isNegative (), "Warmup may not be negative");
+    m_aWarmup = aWarmup;
+    return this;
+  }
+
+  @NonNull
+  public Duration getSampleInterval ()
+  {
+    return m_aSampleInterval;
+  }
+
+  /**
+   * @param aSampleInterval
+   *        The interval in which the progress is logged and the old generation is sampled. May not
+   *        be <code>null</code> and must be positive.
+   * @return this for chaining
+   */
+  @NonNull
+  public PeppolUAESoakHarness setSampleInterval (@NonNull final Duration aSampleInterval)
+  {
+    ValueEnforcer.notNull (aSampleInterval, "SampleInterval");
+    ValueEnforcer.isTrue (!aSampleInterval.isNegative () && !aSampleInterval.isZero (),
+                          "SampleInterval must be positive");
+    m_aSampleInterval = aSampleInterval;
+    return this;
+  }
+
+  @Nonnegative
+  public int getGeneratedDocumentCount ()
+  {
+    return m_nGeneratedDocumentCount;
+  }
+
+  /**
+   * @param nGeneratedDocumentCount
+   *        The number of generated documents to add to the test files. Must be &ge; 0.
+   * @return this for chaining
+   */
+  @NonNull
+  public PeppolUAESoakHarness setGeneratedDocumentCount (@Nonnegative final int nGeneratedDocumentCount)
+  {
+    ValueEnforcer.isGE0 (nGeneratedDocumentCount, "GeneratedDocumentCount");
+    m_nGeneratedDocumentCount = nGeneratedDocumentCount;
+    return this;
+  }
+
+  @Nonnegative
+  public int getGeneratedLineCount ()
+  {
+    return m_nGeneratedLineCount;
+  }
+
+  /**
+   * @param nGeneratedLineCount
+   *        The minimum number of lines of each generated document. Must be &ge; 0.
+   * @return this for chaining
+   * @see PeppolUAETestFileGenerator#setLineCount(int)
+   */
+  @NonNull
+  public PeppolUAESoakHarness setGeneratedLineCount (@Nonnegative final int nGeneratedLineCount)
+  {
+    ValueEnforcer.isGE0 (nGeneratedLineCount, "GeneratedLineCount");
+    m_nGeneratedLineCount = nGeneratedLineCount;
+    return this;
+  }
+
+  @Nonnegative
+  public long getGeneratedAttachmentSize ()
+  {
+    return m_nGeneratedAttachmentSize;
+  }
+
+  /**
+   * @param nGeneratedAttachmentSize
+   *        The attachment size in bytes of each generated document. Must be &ge; 0.
+   * @return this for chaining
+   * @see PeppolUAETestFileGenerator#setAttachmentSize(long)
+   */
+  @NonNull
+  public PeppolUAESoakHarness setGeneratedAttachmentSize (@Nonnegative final long nGeneratedAttachmentSize)
+  {
+    ValueEnforcer.isGE0 (nGeneratedAttachmentSize, "GeneratedAttachmentSize");
+    m_nGeneratedAttachmentSize = nGeneratedAttachmentSize;
+    return this;
+  }
+
+  public boolean isGeneratedTaxCurrency ()
+  {
+    return m_bGeneratedTaxCurrency;
+  }
+
+  /**
+   * @param bGeneratedTaxCurrency
+   *        <code>true</code> to use a tax currency in the generated documents.
+   * @return this for chaining
+   * @see PeppolUAETestFileGenerator#setTaxCurrency(boolean)
+   */
+  @NonNull
+  public PeppolUAESoakHarness setGeneratedTaxCurrency (final boolean bGeneratedTaxCurrency)
+  {
+    m_bGeneratedTaxCurrency = bGeneratedTaxCurrency;
+    return this;
+  }
+
+  public long getSeed ()
+  {
+    return m_nSeed;
+  }
+
+  /**
+   * @param nSeed
+   *        The seed for the generated documents.
+   * @return this for chaining
+   */
+  @NonNull
+  public PeppolUAESoakHarness setSeed (final long nSeed)
+  {
+    m_nSeed = nSeed;
+    return this;
+  }
+
+  @Nonnegative
+  public long getLeakThreshold ()
+  {
+    return m_nLeakThreshold;
+  }
+
+  /**
+   * @param nLeakThreshold
+   *        The growth of the old generation after garbage collection in bytes per hour above which a
+   *        leak is suspected. Must be &ge; 0.
+   * @return this for chaining
+   */
+  @NonNull
+  public PeppolUAESoakHarness setLeakThreshold (@Nonnegative final long nLeakThreshold)
+  {
+    ValueEnforcer.isGE0 (nLeakThreshold, "LeakThreshold");
+    m_nLeakThreshold = nLeakThreshold;
+    return this;
+  }
+
+  @NonNull
+  public EUAETDDSchematronVersion getSchematronVersion ()
+  {
+    return m_eSchematronVersion;
+  }
+
+  /**
+   * @param eSchematronVersion
+   *        The Schematron version to validate against. May not be <code>null</code>.
+   * @return this for chaining
+   */
+  @NonNull
+  public PeppolUAESoakHarness setSchematronVersion (@NonNull final EUAETDDSchematronVersion eSchematronVersion)
+  {
+    ValueEnforcer.notNull (eSchematronVersion, "SchematronVersion");
+    m_eSchematronVersion = eSchematronVersion;
+    return this;
+  }
+
+  /**
+   * Request the running harness to stop early. The result then only covers the time until the stop.
+   */
+  public void stop ()
+  {
+    m_aStop.countDown ();
+  }
+
+  private boolean _isStopped ()
+  {
+    return m_aStop.getCount () == 0;
+  }
+
+  @NonNull
+  private ICommonsList <Input> _createInputs () throws IOException
+  {
+    final ICommonsList <Input> ret = new CommonsArrayList <> ();
+    final ICommonsList <ClassPathResource> aTemplates = new CommonsArrayList <> ();
+    aTemplates.addAll (PeppolUAETestFiles.getAllGoodBillingInvoiceFiles ());
+    aTemplates.addAll (PeppolUAETestFiles.getAllGoodBillingCreditNoteFiles ());
+    for (final ClassPathResource aRes : aTemplates)
+      ret.add (new Input (aRes.getPath (), StreamHelper.getAllBytes (aRes), aRes.getPath ().contains ("/cn/")));
+
+    final PeppolUAETestFileGenerator aGenerator = new PeppolUAETestFileGenerator ().setLineCount (m_nGeneratedLineCount)
+                                                                                   .setAttachmentSize (m_nGeneratedAttachmentSize)
+                                                                                   .setTaxCurrency (m_bGeneratedTaxCurrency);
+    for (int i = 0; i < m_nGeneratedDocumentCount; ++i)
+    {
+      final ClassPathResource aRes = aTemplates.get (i % aTemplates.size ());
+      final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+      aGenerator.setSeed (m_nSeed + i).generate (aRes, aBAOS);
+      ret.add (new Input ("generated-" + i + " from " + aRes.getPath (),
+                          aBAOS.toByteArray (),
+                          aRes.getPath ().contains ("/cn/")));
+    }
+    return ret;
+  }
+
+  /**
+   * Run the complete pipeline for a single document.
+   *
+   * @return The number of failed assertions, or -1 if the pipeline failed.
+   */
+  private int _process (@NonNull final Input aInput,
+                        @NonNull final ISchematronResource aSchematron,
+                        final long nTicket)
+  {
+    try
+    {
+      final IIdentifierFactory aIF = PeppolIdentifierFactory.INSTANCE;
+      final String sTransportHeaderID = "soak-" + nTicket;
+      final PeppolUAETDD10Builder aBuilder = new PeppolUAETDD10Builder ().documentTypeCode (EUAETDDDocumentTypeCode.SUBMIT)
+                                                                         .documentScope (EUAETDDDocumentScope.DOMESTIC)
+                                                                         .reporterRole (EUAETDDReporterRole.SENDER)
+                                                                         .reportingParty (aIF.createParticipantIdentifierWithDefaultScheme ("0235:c1id"))
+                                                                         .receivingParty (aIF.createParticipantIdentifierWithDefaultScheme ("0242:c5id"))
+                                                                         .reportersRepresentative (aIF.createParticipantIdentifierWithDefaultScheme ("0242:987654"));
+      if (aInput.m_bCreditNote)
+      {
+        final CreditNoteType aCreditNote = UBL21Marshaller.creditNote ().read (aInput.m_aBytes);
+        if (aCreditNote == null)
+          return _failed (aInput, "failed to read the CreditNote", null);
+        aBuilder.reportedTransaction (rt -> rt.transportHeaderID (sTransportHeaderID).initFromCreditNote (aCreditNote));
+      }
+      else
+      {
+        final InvoiceType aInvoice = UBL21Marshaller.invoice ().read (aInput.m_aBytes);
+        if (aInvoice == null)
+          return _failed (aInput, "failed to read the Invoice", null);
+        aBuilder.reportedTransaction (rt -> rt.transportHeaderID (sTransportHeaderID).initFromInvoice (aInvoice));
+      }
+
+      final TaxDataType aTDD = aBuilder.build ();
+      if (aTDD == null)
+        return _failed (aInput, "failed to build the TDD", null);
+
+      // Validate in memory, as the server and the CLI do
+      return PeppolUAETDDValidator.validate (aSchematron, aTDD, x -> {});
+    }
+    catch (final Exception ex)
+    {
+      return _failed (aInput, "processing error", ex);
+    }
+  }
+
+  private int _failed (@NonNull final Input aInput, @NonNull final String sMessage, @Nullable final Exception ex)
+  {
+    // Log only the first failure, to not flood the log in a long run
+    if (m_aFailureLogged.compareAndSet (false, true))
+      LOGGER.warn (aInput.m_sName + ": " + sMessage + " - further failures are only counted", ex);
+    return -1;
+  }
+
+  @Nullable
+  private static MemoryPoolMXBean _findOldGenPool ()
+  {
+    for (final MemoryPoolMXBean aPool : ManagementFactory.getMemoryPoolMXBeans ())
+      if (aPool.getType () == MemoryType.HEAP &&
+          (aPool.getName ().contains ("Old") || aPool.getName ().contains ("Tenured")))
+        return aPool;
+    return null;
+  }
+
+  private static long _getCollectionCount (@NonNull final MemoryPoolMXBean aPool)
+  {
+    long ret = 0;
+    for (final GarbageCollectorMXBean aGC : ManagementFactory.getGarbageCollectorMXBeans ())
+      for (final String sPoolName : aGC.getMemoryPoolNames ())
+        if (sPoolName.equals (aPool.getName ()))
+        {
+          ret += Math.max (aGC.getCollectionCount (), 0);
+          break;
+        }
+    return ret;
+  }
+
+  /**
+   * @return The used bytes of the old generation or -1 if the pool was not yet collected.
+   */
+  private static long _getOldGenUsed (@Nullable final MemoryPoolMXBean aPool)
+  {
+    if (aPool == null)
+      return ManagementFactory.getMemoryMXBean ().getHeapMemoryUsage ().getUsed ();
+    // Prefer the usage after the last collection, as this is not influenced by garbage
+    final MemoryUsage aUsage = aPool.getCollectionUsage ();
+    if (aUsage == null)
+      return aPool.getUsage ().getUsed ();
+    // The collection usage is 0 until the first collection, which would fake a growth
+    if (_getCollectionCount (aPool) == 0)
+      return -1;
+    return aUsage.getUsed ();
+  }
+
+  @Nullable
+  private static com.sun.management.ThreadMXBean _getAllocationMXBean ()
+  {
+    final ThreadMXBean aBean = ManagementFactory.getThreadMXBean ();
+    if (aBean instanceof com.sun.management.ThreadMXBean)
+    {
+      final com.sun.management.ThreadMXBean ret = (com.sun.management.ThreadMXBean) aBean;
+      if (ret.isThreadAllocatedMemorySupported ())
+      {
+        if (!ret.isThreadAllocatedMemoryEnabled ())
+          ret.setThreadAllocatedMemoryEnabled (true);
+        return ret;
+      }
+    }
+    return null;
+  }
+
+  private static long _getAllocatedBytes (@Nullable final com.sun.management.ThreadMXBean aBean,
+                                          @NonNull final long [] aThreadIDs,
+                                          @NonNull final LongAdder aFinishedAllocated)
+  {
+    if (aBean == null)
+      return -1;
+    // Finished threads report -1 and are contained in the finished allocations
+    long ret = aFinishedAllocated.sum ();
+    for (final long nAllocated : aBean.getThreadAllocatedBytes (aThreadIDs))
+      if (nAllocated > 0)
+        ret += nAllocated;
+    return ret;
+  }
+
+  private static boolean _await (@NonNull final CountDownLatch aLatch, final long nUntilNanos) throws InterruptedException
+  {
+    final long nWait = nUntilNanos - System.nanoTime ();
+    return nWait <= 0 ? aLatch.getCount () == 0 : aLatch.await (nWait, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Run the soak test. This method blocks until the warmup and the duration are over or
+   * {@link #stop()} was called.
+   *
+   * @return The result and never <code>null</code>.
+   * @throws Exception
+   *         If the input documents cannot be created or the Schematron cannot be compiled
+   * @throws IllegalStateException
+   *         If this harness was already run
+   */
+  @NonNull
+  public PeppolUAESoakResult run () throws Exception
+  {
+    if (!m_aStarted.compareAndSet (false, true))
+      throw new IllegalStateException ("This soak harness was already run");
+
+    final ICommonsList <Input> aInputs = _createInputs ();
+    final ISchematronResource aSchematron = PeppolUAETDDValidator.getSchematron (m_eSchematronVersion);
+    LOGGER.info ("Starting soak test with " +
+                 aInputs.size () +
+                 " documents, " +
+                 m_nThreads +
+                 " threads and a target rate of " +
+                 m_dTargetRate +
+                 "/s for " +
+                 m_aDuration +
+                 " after a warmup of " +
+                 m_aWarmup);
+
+    final Recorder aLatencyRecorder = new Recorder (HISTOGRAM_PRECISION);
+    final Recorder aServiceTimeRecorder = new Recorder (HISTOGRAM_PRECISION);
+    final LongAdder aProcessed = new LongAdder ();
+    final LongAdder aFailed = new LongAdder ();
+    final LongAdder aInvalid = new LongAdder ();
+    final AtomicLong aTicket = new AtomicLong (0);
+    final double dNanosPerTicket = TimeUnit.SECONDS.toNanos (1) / m_dTargetRate;
+
+    final com.sun.management.ThreadMXBean aAllocationBean = _getAllocationMXBean ();
+    // The allocations of threads that already finished
+    final LongAdder aFinishedAllocated = new LongAdder ();
+
+    final long nStart = System.nanoTime ();
+    final long nMeasureStart = nStart + m_aWarmup.toNanos ();
+    final long nEnd = nMeasureStart + m_aDuration.toNanos ();
+
+    final Runnable aWorker = () -> {
+      while (!_isStopped ())
+      {
+        final long nTicket = aTicket.getAndIncrement ();
+        final long nIntended = nStart + (long) (nTicket * dNanosPerTicket);
+        if (nIntended >= nEnd)
+          break;
+        long nWait;
+        while ((nWait = nIntended - System.nanoTime ()) > 0 && !_isStopped ())
+          LockSupport.parkNanos (nWait);
+        if (_isStopped ())
+          break;
+
+        final long nBegin = System.nanoTime ();
+        final int nResult = _process (aInputs.get ((int) (nTicket % aInputs.size ())), aSchematron, nTicket);
+        final long nDone = System.nanoTime ();
+        if (nIntended >= nMeasureStart)
+        {
+          aLatencyRecorder.recordValue (TimeUnit.NANOSECONDS.toMicros (nDone - nIntended));
+          aServiceTimeRecorder.recordValue (TimeUnit.NANOSECONDS.toMicros (nDone - nBegin));
+          aProcessed.increment ();
+          if (nResult < 0)
+            aFailed.increment ();
+          else
+            if (nResult > 0)
+              aInvalid.increment ();
+        }
+      }
+      if (aAllocationBean != null)
+        aFinishedAllocated.add (aAllocationBean.getThreadAllocatedBytes (Thread.currentThread ().getId ()));
+    };
+    final ICommonsList <Thread> aThreads = new CommonsArrayList <> (m_nThreads);
+    final long [] aThreadIDs = new long [m_nThreads];
+    for (int i = 0; i < m_nThreads; ++i)
+    {
+      final Thread aThread = new Thread (aWorker, "peppol-uae-soak-" + i);
+      aThread.setDaemon (true);
+      aThreads.add (aThread);
+      aThreadIDs[i] = aThread.getId ();
+    }
+    aThreads.forEach (Thread::start);
+
+    final MemoryPoolMXBean aOldGenPool = _findOldGenPool ();
+    if (aOldGenPool == null)
+      LOGGER.warn ("Failed to find the old generation memory pool - using the total heap usage instead");
+
+    // The warmup is not measured
+    if (!m_aWarmup.isZero ())
+      LOGGER.info ("Warming up for " + m_aWarmup);
+    _await (m_aStop, nMeasureStart);
+
+    final Histogram aLatency = new Histogram (HISTOGRAM_PRECISION);
+    final Histogram aServiceTime = new Histogram (HISTOGRAM_PRECISION);
+    final ICommonsList <PeppolUAESoakResult.OldGenSample> aOldGenSamples = new CommonsArrayList <> ();
+    final long nAllocatedAtStart = _getAllocatedBytes (aAllocationBean, aThreadIDs, aFinishedAllocated);
+    long nLastAllocated = nAllocatedAtStart;
+    long nLastSample = System.nanoTime ();
+    final long nOldGenUsedAtStart = _getOldGenUsed (aOldGenPool);
+    if (nOldGenUsedAtStart >= 0)
+      aOldGenSamples.add (new PeppolUAESoakResult.OldGenSample (0, nOldGenUsedAtStart));
+
+    Histogram aInterval = null;
+    boolean bRunning = true;
+    while (bRunning)
+    {
+      final long nNextSample = Math.min (nLastSample + m_aSampleInterval.toNanos (), nEnd);
+      final boolean bStopped = _await (m_aStop, nNextSample);
+      bRunning = !bStopped && nNextSample < nEnd;
+      if (!bRunning)
+      {
+        // Wait for the running operations
+        stop ();
+        for (final Thread aThread : aThreads)
+          aThread.join ();
+      }
+
+      final long nNow = System.nanoTime ();
+      aInterval = aLatencyRecorder.getIntervalHistogram (aInterval);
+      aLatency.add (aInterval);
+      aServiceTime.add (aServiceTimeRecorder.getIntervalHistogram ());
+      final long nAllocated = _getAllocatedBytes (aAllocationBean, aThreadIDs, aFinishedAllocated);
+      final long nOldGenUsed = _getOldGenUsed (aOldGenPool);
+      if (nOldGenUsed >= 0)
+        aOldGenSamples.add (new PeppolUAESoakResult.OldGenSample (TimeUnit.NANOSECONDS.toMillis (nNow - nMeasureStart),
+                                                                  nOldGenUsed));
+
+      final double dIntervalSeconds = (nNow - nLastSample) / (double) TimeUnit.SECONDS.toNanos (1);
+      final double dIntervalRate = dIntervalSeconds > 0 ? aInterval.getTotalCount () / dIntervalSeconds : 0;
+      // -1 if not supported
+      final double dAllocationRate = nAllocated < 0 || dIntervalSeconds <= 0 ? -1 : (nAllocated - nLastAllocated) /
+                                                                                     dIntervalSeconds /
+                                                                                     BYTES_PER_MIB;
+      LOGGER.info (String.format (Locale.ROOT,
+                                  "[%d s] %d docs (%.1f/s) latency ms p50=%.1f p99=%.1f max=%.1f - alloc %.1f MiB/s - old gen %.1f MiB",
+                                  Long.valueOf (TimeUnit.NANOSECONDS.toSeconds (nNow - nMeasureStart)),
+                                  Long.valueOf (aInterval.getTotalCount ()),
+                                  Double.valueOf (dIntervalRate),
+                                  Double.valueOf (aInterval.getValueAtPercentile (50) / 1000d),
+                                  Double.valueOf (aInterval.getValueAtPercentile (99) / 1000d),
+                                  Double.valueOf (aInterval.getMaxValue () / 1000d),
+                                  Double.valueOf (dAllocationRate),
+                                  Double.valueOf (nOldGenUsed < 0 ? -1 : nOldGenUsed / (double) BYTES_PER_MIB)));
+      nLastAllocated = nAllocated;
+      nLastSample = nNow;
+    }
+
+    final long nMeasuredEnd = Math.min (nLastSample, nEnd);
+    return new PeppolUAESoakResult (Math.max (0, nMeasuredEnd - nMeasureStart),
+                                    m_dTargetRate,
+                                    aProcessed.sum (),
+                                    aFailed.sum (),
+                                    aInvalid.sum (),
+                                    aLatency,
+                                    aServiceTime,
+                                    nAllocatedAtStart < 0 ? -1 : nLastAllocated - nAllocatedAtStart,
+                                    aOldGenSamples,
+                                    m_nLeakThreshold);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("Threads", m_nThreads)
+                                       .append ("TargetRate", m_dTargetRate)
+                                       .append ("Duration", m_aDuration)
+                                       .append ("Warmup", m_aWarmup)
+                                       .append ("SampleInterval", m_aSampleInterval)
+                                       .append ("GeneratedDocumentCount", m_nGeneratedDocumentCount)
+                                       .append ("GeneratedLineCount", m_nGeneratedLineCount)
+                                       .append ("GeneratedAttachmentSize", m_nGeneratedAttachmentSize)
+                                       .append ("GeneratedTaxCurrency", m_bGeneratedTaxCurrency)
+                                       .append ("Seed", m_nSeed)
+                                       .append ("LeakThreshold", m_nLeakThreshold)
+                                       .append ("SchematronVersion", m_eSchematronVersion)
+                                       .getToString ();
+  }
+}
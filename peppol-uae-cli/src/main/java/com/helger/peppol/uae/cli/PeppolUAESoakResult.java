@@ -0,0 +1,386 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.cli;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+
+/**
+ * The result of a {@link PeppolUAESoakHarness} run. Latencies are measured from the intended start
+ * time of each operation, so that a harness that falls behind its target rate shows the queueing
+ * delay in the latencies. Service times are measured from the actual start time of each operation.
+ * All histogram values are in microseconds.
+ *
+ * @author Philip Helger
+ */
+@Immutable
+public final class PeppolUAESoakResult
+{
+  /**
+   * The minimum number of old generation samples needed to decide upon a leak.
+   */
+  public static final int MIN_LEAK_SAMPLES = 10;
+
+  private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos (1);
+  private static final long BYTES_PER_MIB = 1024L * 1024;
+
+  /**
+   * The occupancy of the old generation at a certain point in time.
+   *
+   * @author Philip Helger
+   */
+  @Immutable
+  public static final class OldGenSample
+  {
+    private final long m_nElapsedMillis;
+    private final long m_nUsedBytes;
+
+    public OldGenSample (@Nonnegative final long nElapsedMillis, @Nonnegative final long nUsedBytes)
+    {
+      m_nElapsedMillis = nElapsedMillis;
+      m_nUsedBytes = nUsedBytes;
+    }
+
+    /**
+     * @return The milliseconds since the end of the warmup.
+     */
+    @Nonnegative
+    public long getElapsedMillis ()
+    {
+      return m_nElapsedMillis;
+    }
+
+    /**
+     * @return The used bytes of the old generation after the last garbage collection.
+     */
+    @Nonnegative
+    public long getUsedBytes ()
+    {
+      return m_nUsedBytes;
+    }
+
+    @Override
+    public String toString ()
+    {
+      return new ToStringGenerator (null).append ("ElapsedMillis", m_nElapsedMillis)
+                                         .append ("UsedBytes", m_nUsedBytes)
+                                         .getToString ();
+    }
+  }
+
+  private final long m_nDurationNanos;
+  private final double m_dTargetRate;
+  private final long m_nProcessedCount;
+  private final long m_nFailedCount;
+  private final long m_nInvalidCount;
+  private final Histogram m_aLatency;
+  private final Histogram m_aServiceTime;
+  private final long m_nAllocatedBytes;
+  private final ICommonsList <OldGenSample> m_aOldGenSamples;
+  private final long m_nLeakThreshold;
+
+  PeppolUAESoakResult (@Nonnegative final long nDurationNanos,
+                       final double dTargetRate,
+                       @Nonnegative final long nProcessedCount,
+                       @Nonnegative final long nFailedCount,
+                       @Nonnegative final long nInvalidCount,
+                       @NonNull final Histogram aLatency,
+                       @NonNull final Histogram aServiceTime,
+                       final long nAllocatedBytes,
+                       @NonNull final ICommonsList <OldGenSample> aOldGenSamples,
+                       @Nonnegative final long nLeakThreshold)
+  {
+    m_nDurationNanos = nDurationNanos;
+    m_dTargetRate = dTargetRate;
+    m_nProcessedCount = nProcessedCount;
+    m_nFailedCount = nFailedCount;
+    m_nInvalidCount = nInvalidCount;
+    m_aLatency = aLatency.copy ();
+    m_aServiceTime = aServiceTime.copy ();
+    m_nAllocatedBytes = nAllocatedBytes;
+    m_aOldGenSamples = new CommonsArrayList <> (aOldGenSamples);
+    m_nLeakThreshold = nLeakThreshold;
+  }
+
+  /**
+   * @return The measured duration, excluding the warmup, in nanoseconds.
+   */
+  @Nonnegative
+  public long getDurationNanos ()
+  {
+    return m_nDurationNanos;
+  }
+
+  /**
+   * @return The target rate in documents per second.
+   */
+  public double getTargetRate ()
+  {
+    return m_dTargetRate;
+  }
+
+  /**
+   * @return The achieved rate in documents per second.
+   */
+  public double getAchievedRate ()
+  {
+    return m_nDurationNanos <= 0 ? 0 : m_nProcessedCount * (double) NANOS_PER_SECOND / m_nDurationNanos;
+  }
+
+  /**
+   * @return The number of documents processed after the warmup, including failed and invalid ones.
+   */
+  @Nonnegative
+  public long getProcessedCount ()
+  {
+    return m_nProcessedCount;
+  }
+
+  /**
+   * @return The number of documents that could not be converted, marshalled or validated.
+   */
+  @Nonnegative
+  public long getFailedCount ()
+  {
+    return m_nFailedCount;
+  }
+
+  /**
+   * @return The number of documents for which the created TDD had at least one failed assertion.
+   */
+  @Nonnegative
+  public long getInvalidCount ()
+  {
+    return m_nInvalidCount;
+  }
+
+  /**
+   * @return A copy of the latency histogram in microseconds, measured from the intended start time.
+   *         Never <code>null</code>.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public Histogram getLatencyHistogram ()
+  {
+    return m_aLatency.copy ();
+  }
+
+  /**
+   * @return A copy of the service time histogram in microseconds, measured from the actual start
+   *         time. Never <code>null</code>.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public Histogram getServiceTimeHistogram ()
+  {
+    return m_aServiceTime.copy ();
+  }
+
+  /**
+   * @return The number of bytes allocated by the worker threads after the warmup, or -1 if the JVM
+   *         does not support measuring it.
+   */
+  public long getAllocatedBytes ()
+  {
+    return m_nAllocatedBytes;
+  }
+
+  /**
+   * @return The allocation rate of the worker threads in bytes per second, or -1 if the JVM does not
+   *         support measuring it.
+   */
+  public double getAllocationRate ()
+  {
+    if (m_nAllocatedBytes < 0)
+      return -1;
+    return m_nDurationNanos <= 0 ? 0 : m_nAllocatedBytes * (double) NANOS_PER_SECOND / m_nDurationNanos;
+  }
+
+  /**
+   * @return The old generation samples taken after the warmup. Never <code>null</code>.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <OldGenSample> getAllOldGenSamples ()
+  {
+    return new CommonsArrayList <> (m_aOldGenSamples);
+  }
+
+  /**
+   * @return The growth of the old generation after garbage collection in bytes per hour, as the
+   *         least squares slope over all samples. 0 if there are less than 2 samples.
+   */
+  public double getOldGenGrowthPerHour ()
+  {
+    return getGrowthPerHour (m_aOldGenSamples);
+  }
+
+  /**
+   * @return The old generation growth in bytes per hour above which a leak is suspected.
+   */
+  @Nonnegative
+  public long getLeakThreshold ()
+  {
+    return m_nLeakThreshold;
+  }
+
+  /**
+   * @return <code>true</code> if there are enough old generation samples to decide upon a leak.
+   */
+  public boolean hasEnoughOldGenSamples ()
+  {
+    return m_aOldGenSamples.size () >= MIN_LEAK_SAMPLES;
+  }
+
+  /**
+   * @return <code>true</code> if the old generation grew faster than the leak threshold. Always
+   *         <code>false</code> if there are not enough samples.
+   * @see #hasEnoughOldGenSamples()
+   */
+  public boolean isLeakSuspected ()
+  {
+    return hasEnoughOldGenSamples () && getOldGenGrowthPerHour () > m_nLeakThreshold;
+  }
+
+  /**
+   * @return <code>true</code> if no document failed and no leak is suspected.
+   */
+  public boolean isSuccess ()
+  {
+    return m_nFailedCount == 0 && !isLeakSuspected ();
+  }
+
+  /**
+   * Calculate the least squares slope of the provided samples.
+   *
+   * @param aSamples
+   *        The samples to use. May not be <code>null</code>.
+   * @return The growth in bytes per hour. 0 if there are less than 2 samples or all samples have the
+   *         same time.
+   */
+  static double getGrowthPerHour (@NonNull final ICommonsList <OldGenSample> aSamples)
+  {
+    final int nCount = aSamples.size ();
+    if (nCount < 2)
+      return 0;
+
+    double dSumX = 0;
+    double dSumY = 0;
+    for (final OldGenSample aSample : aSamples)
+    {
+      dSumX += aSample.getElapsedMillis ();
+      dSumY += aSample.getUsedBytes ();
+    }
+    final double dMeanX = dSumX / nCount;
+    final double dMeanY = dSumY / nCount;
+
+    double dNumerator = 0;
+    double dDenominator = 0;
+    for (final OldGenSample aSample : aSamples)
+    {
+      final double dX = aSample.getElapsedMillis () - dMeanX;
+      dNumerator += dX * (aSample.getUsedBytes () - dMeanY);
+      dDenominator += dX * dX;
+    }
+    if (dDenominator == 0)
+      return 0;
+    // Bytes per millisecond to bytes per hour
+    return dNumerator / dDenominator * TimeUnit.HOURS.toMillis (1);
+  }
+
+  @NonNull
+  private static String _getPercentiles (@NonNull final Histogram aHistogram)
+  {
+    return String.format (Locale.ROOT,
+                          "p50=%.3f p90=%.3f p99=%.3f p99.9=%.3f p99.99=%.3f max=%.3f",
+                          Double.valueOf (aHistogram.getValueAtPercentile (50) / 1000d),
+                          Double.valueOf (aHistogram.getValueAtPercentile (90) / 1000d),
+                          Double.valueOf (aHistogram.getValueAtPercentile (99) / 1000d),
+                          Double.valueOf (aHistogram.getValueAtPercentile (99.9) / 1000d),
+                          Double.valueOf (aHistogram.getValueAtPercentile (99.99) / 1000d),
+                          Double.valueOf (aHistogram.getMaxValue () / 1000d));
+  }
+
+  /**
+   * Write a human readable summary of this result.
+   *
+   * @param aPS
+   *        The stream to write to. May not be <code>null</code>.
+   */
+  public void writeReport (@NonNull final PrintStream aPS)
+  {
+    ValueEnforcer.notNull (aPS, "PrintStream");
+
+    aPS.println (String.format (Locale.ROOT,
+                                "Processed %d documents in %d s (%.2f/s, target %.2f/s) - %d failed, %d invalid",
+                                Long.valueOf (m_nProcessedCount),
+                                Long.valueOf (TimeUnit.NANOSECONDS.toSeconds (m_nDurationNanos)),
+                                Double.valueOf (getAchievedRate ()),
+                                Double.valueOf (m_dTargetRate),
+                                Long.valueOf (m_nFailedCount),
+                                Long.valueOf (m_nInvalidCount)));
+    aPS.println ("Latency (ms):      " + _getPercentiles (m_aLatency));
+    aPS.println ("Service time (ms): " + _getPercentiles (m_aServiceTime));
+    if (m_nAllocatedBytes < 0)
+      aPS.println ("Allocation rate:   not supported by this JVM");
+    else
+      aPS.println (String.format (Locale.ROOT,
+                                  "Allocation rate:   %.1f MiB/s",
+                                  Double.valueOf (getAllocationRate () / BYTES_PER_MIB)));
+
+    final String sGrowth = String.format (Locale.ROOT,
+                                          "Old gen growth:    %.2f MiB/h after GC from %d samples",
+                                          Double.valueOf (getOldGenGrowthPerHour () / BYTES_PER_MIB),
+                                          Integer.valueOf (m_aOldGenSamples.size ()));
+    if (!hasEnoughOldGenSamples ())
+      aPS.println (sGrowth + " - not enough samples for leak detection");
+    else
+      if (isLeakSuspected ())
+        aPS.println (sGrowth +
+                     " - LEAK SUSPECTED (threshold " +
+                     m_nLeakThreshold / BYTES_PER_MIB +
+                     " MiB/h)");
+      else
+        aPS.println (sGrowth + " - OK");
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("DurationNanos", m_nDurationNanos)
+                                       .append ("TargetRate", m_dTargetRate)
+                                       .append ("ProcessedCount", m_nProcessedCount)
+                                       .append ("FailedCount", m_nFailedCount)
+                                       .append ("InvalidCount", m_nInvalidCount)
+                                       .append ("AllocatedBytes", m_nAllocatedBytes)
+                                       .append ("OldGenSamples", m_aOldGenSamples)
+                                       .append ("LeakThreshold", m_nLeakThreshold)
+                                       .getToString ();
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.cli;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.io.file.FilenameHelper;
+import com.helger.io.resource.ClassPathResource;
+import com.helger.peppol.uae.tdd.PeppolUAETDD10Builder;
+import com.helger.peppol.uae.tdd.codelist.EUAETDDDocumentScope;
+import com.helger.peppol.uae.tdd.codelist.EUAETDDDocumentTypeCode;
+import com.helger.peppol.uae.tdd.codelist.EUAETDDReporterRole;
+import com.helger.peppol.uae.tdd.jaxb.PeppolUAETDD10Marshaller;
+import com.helger.peppol.uae.tdd.v100.TaxDataType;
+import com.helger.peppol.uae.tdd.validate.EUAETDDSchematronVersion;
+import com.helger.peppol.uae.tdd.validate.PeppolUAETDDFailedAssertion;
+import com.helger.peppol.uae.tdd.validate.PeppolUAETDDValidator;
+import com.helger.peppolid.factory.IIdentifierFactory;
+import com.helger.peppolid.factory.PeppolIdentifierFactory;
+import com.helger.schematron.ISchematronResource;
+import com.helger.ubl21.UBL21Marshaller;
+
+import oasis.names.specification.ubl.schema.xsd.creditnote_21.CreditNoteType;
+import oasis.names.specification.ubl.schema.xsd.invoice_21.InvoiceType;
+import picocli.CommandLine.Command;
+
+/**
+ * Command that converts and validates a small built-in set of Invoices, CreditNotes and bad TDDs.
+ * This is meant as a smoke test for a native image, where missing reflection or resource
+ * configuration only shows up at runtime. The inputs are part of this module, so that the full test
+ * corpus of <code>peppol-uae-testfiles</code> is not needed at runtime.
+ *
+ * @author Philip Helger
+ */
+@Command (name = "selftest",
+          mixinStandardHelpOptions = true,
+          description = "Convert and validate the built-in test corpus, e.g. to check a native image")
+public class SelfTestCommand implements Callable <Integer>
+{
+  private static final String RESOURCE_PREFIX = "selftest/";
+
+  private final ICommonsList <String> m_aErrors = new CommonsArrayList <> ();
+  private int m_nChecks = 0;
+
+  @NonNull
+  private static ICommonsList <ClassPathResource> _getAll (@NonNull final String sPrefix, @NonNull final String... aNames)
+  {
+    final ICommonsList <ClassPathResource> ret = new CommonsArrayList <> (aNames.length);
+    for (final String sName : aNames)
+      ret.add (new ClassPathResource (RESOURCE_PREFIX + sPrefix + sName, SelfTestCommand.class.getClassLoader ()));
+    return ret;
+  }
+
+  /**
+   * @return The good Invoices and CreditNotes to be converted. CreditNotes are in a "cn" folder.
+   */
+  @NonNull
+  static ICommonsList <ClassPathResource> getAllSourceFiles ()
+  {
+    final ICommonsList <ClassPathResource> ret = _getAll ("inv/",
+                                                          "Standard tax invoice.xml",
+                                                          "Standard invoice - Extensive.xml");
+    ret.addAll (_getAll ("cn/", "Standard tax credit Note.xml"));
+    return ret;
+  }
+
+  /**
+   * @return The bad TDDs, each named after the assertion it must trigger.
+   */
+  @NonNull
+  static ICommonsList <ClassPathResource> getAllBadTDDFiles ()
+  {
+    return _getAll ("bad-sch/", "bad-ibr-tdd-01.xml", "bad-ibr-tdd-30-1.xml", "bad-ibr-tdd-42.xml");
+  }
+
+  private void _check (final boolean bCondition, @NonNull final String sMessage)
+  {
+    m_nChecks++;
+    if (!bCondition)
+      m_aErrors.add (sMessage);
+  }
+
+  private void _checkBuild (@NonNull final ClassPathResource aRes,
+                            @NonNull final ISchematronResource aSchematron,
+                            @NonNull final PeppolUAETDD10Builder aBuilder) throws Exception
+  {
+    final TaxDataType aTDD = aBuilder.build ();
+    _check (aTDD != null, aRes.getPath () + ": failed to build the TDD");
+    if (aTDD == null)
+      return;
+
+    // Roundtrip through the marshaller
+    final PeppolUAETDD10Marshaller aMarshaller = new PeppolUAETDD10Marshaller ();
+    final byte [] aBytes = aMarshaller.getAsBytes (aTDD);
+    _check (aBytes != null, aRes.getPath () + ": failed to write the TDD");
+    if (aBytes == null)
+      return;
+    final TaxDataType aRead = aMarshaller.read (aBytes);
+    _check (aRead != null, aRes.getPath () + ": failed to read the TDD");
+    if (aRead == null)
+      return;
+
+    final ICommonsList <PeppolUAETDDFailedAssertion> aFailed = new CommonsArrayList <> ();
+    PeppolUAETDDValidator.validate (aSchematron, aRead, aFailed::add);
+    _check (aFailed.isEmpty (),
+            aRes.getPath () + ": created TDD is invalid: " + aFailed.getAllMapped (PeppolUAETDDFailedAssertion::getID));
+  }
+
+  public Integer call () throws Exception
+  {
+    final long nStart = System.nanoTime ();
+    final IIdentifierFactory aIF = PeppolIdentifierFactory.INSTANCE;
+    final ISchematronResource aSchematron = PeppolUAETDDValidator.getSchematron (EUAETDDSchematronVersion.LATEST);
+
+    // Convert all good Invoices and CreditNotes
+    for (final ClassPathResource aRes : getAllSourceFiles ())
+    {
+      final PeppolUAETDD10Builder aBuilder = new PeppolUAETDD10Builder ().documentTypeCode (EUAETDDDocumentTypeCode.SUBMIT)
+                                                                         .documentScope (EUAETDDDocumentScope.DOMESTIC)
+                                                                         .reporterRole (EUAETDDReporterRole.SENDER)
+                                                                         .reportingParty (aIF.createParticipantIdentifierWithDefaultScheme ("0235:c1id"))
+                                                                         .receivingParty (aIF.createParticipantIdentifierWithDefaultScheme ("0242:c5id"))
+                                                                         .reportersRepresentative (aIF.createParticipantIdentifierWithDefaultScheme ("0242:987654"));
+      if (aRes.getPath ().contains ("/cn/"))
+      {
+        final CreditNoteType aCreditNote = UBL21Marshaller.creditNote ().read (aRes);
+        _check (aCreditNote != null, aRes.getPath () + ": failed to read the CreditNote");
+        if (aCreditNote == null)
+          continue;
+        aBuilder.reportedTransaction (rt -> rt.transportHeaderID ("selftest").initFromCreditNote (aCreditNote));
+      }
+      else
+      {
+        final InvoiceType aInvoice = UBL21Marshaller.invoice ().read (aRes);
+        _check (aInvoice != null, aRes.getPath () + ": failed to read the Invoice");
+        if (aInvoice == null)
+          continue;
+        aBuilder.reportedTransaction (rt -> rt.transportHeaderID ("selftest").initFromInvoice (aInvoice));
+      }
+      _checkBuild (aRes, aSchematron, aBuilder);
+    }
+
+    // Each bad TDD must trigger the assertion from its file name
+    for (final ClassPathResource aRes : getAllBadTDDFiles ())
+    {
+      final String sBaseName = FilenameHelper.getBaseName (aRes.getPath ());
+      final String sExpectedID = sBaseName.substring (sBaseName.indexOf ('-') + 1);
+      final ICommonsList <String> aFailedIDs = PeppolUAETDDValidator.getAllFailedAssertions (aSchematron, aRes)
+                                                                    .getAllMapped (x -> x.getID ()
+                                                                                         .toLowerCase (Locale.ROOT));
+      _check (aFailedIDs.contains (sExpectedID),
+              aRes.getPath () + ": expected failed assertion " + sExpectedID + " but got " + aFailedIDs);
+    }
+
+    final PrintStream aOut = System.out;
+    for (final String sError : m_aErrors)
+      aOut.println ("FAILED: " + sError);
+    aOut.println ((m_aErrors.isEmpty () ? "OK" : "FAILED") +
+                  " - " +
+                  m_aErrors.size () +
+                  " of " +
+                  m_nChecks +
+                  " checks failed in " +
+                  TimeUnit.NANOSECONDS.toMillis (System.nanoTime () - nStart) +
+                  " ms");
+    return Integer.valueOf (m_aErrors.isEmpty () ? AbstractBulkCommand.EXIT_OK : AbstractBulkCommand.EXIT_FAILURE);
+  }
+}
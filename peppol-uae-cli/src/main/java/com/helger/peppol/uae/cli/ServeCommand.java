@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.cli;
+
+import java.lang.ref.Reference;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+
+import org.crac.CheckpointException;
+import org.crac.Core;
+import org.crac.RestoreException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.peppol.uae.server.PeppolUAEServer;
+import com.helger.peppol.uae.server.PeppolUAEServerCRaCResource;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+/**
+ * Command that starts the {@link PeppolUAEServer} and optionally trains it and creates a CRaC
+ * checkpoint. The checkpoint contains the compiled Schematron and the initialized JAXB contexts, so
+ * that a restored process can serve requests immediately. Example with a CRaC enabled JDK:
+ *
+ * <pre>
+ * java -XX:CRaCCheckpointTo=cr -jar peppol-uae-cli.jar serve --checkpoint
+ * java -XX:CRaCRestoreFrom=cr
+ * </pre>
+ *
+ * @author Philip Helger
+ */
+@Command (name = "serve",
+          mixinStandardHelpOptions = true,
+          description = "Start the HTTP service for building and validating TDDs")
+public class ServeCommand implements Callable <Integer>
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (ServeCommand.class);
+
+  @Option (names = "--host", paramLabel = "HOST", description = "The host name to bind to. Default: all interfaces")
+  private String m_sHost;
+
+  @Option (names = { "-p", "--port" }, paramLabel = "PORT", description = "The port to listen on. Default: ${DEFAULT-VALUE}")
+  private int m_nPort = PeppolUAEServer.DEFAULT_PORT;
+
+  @Option (names = "--max-request-size",
+           paramLabel = "BYTES",
+           description = "The maximum request body size in bytes. Default: ${DEFAULT-VALUE}")
+  private long m_nMaxRequestSize = PeppolUAEServer.DEFAULT_MAX_REQUEST_SIZE;
+
+  @Option (names = "--max-concurrent-requests",
+           paramLabel = "N",
+           description = "The maximum number of requests processed at the same time. Additional requests are rejected with HTTP 503. Default: ${DEFAULT-VALUE}")
+  private int m_nMaxConcurrentRequests = PeppolUAEServer.DEFAULT_MAX_CONCURRENT_REQUESTS;
+
+  @Option (names = "--train",
+           paramLabel = "N",
+           description = "Number of training iterations over the built-in test corpus before the server starts. Default: 0, or " +
+                         TrainCommand.DEFAULT_ITERATIONS +
+                         " with --checkpoint")
+  private int m_nTrainIterations = 0;
+
+  @Option (names = "--checkpoint",
+           description = "Create a CRaC checkpoint after the training. Requires a CRaC enabled JDK started with -XX:CRaCCheckpointTo")
+  private boolean m_bCheckpoint;
+
+  @Option (names = "--restore-zone-from-os",
+           description = "Detect the default time zone from the operating system after a CRaC restore, instead of using the user.timezone system property of the checkpoint")
+  private boolean m_bRestoreZoneFromOS;
+
+  public Integer call () throws Exception
+  {
+    int nTrainIterations = m_nTrainIterations;
+    if (m_bCheckpoint && nTrainIterations == 0)
+      nTrainIterations = TrainCommand.DEFAULT_ITERATIONS;
+    if (nTrainIterations > 0 && !TrainCommand.runTraining (nTrainIterations, false))
+      return Integer.valueOf (AbstractBulkCommand.EXIT_FAILURE);
+
+    final PeppolUAEServer aServer = new PeppolUAEServer ().setHost (m_sHost)
+                                                          .setPort (m_nPort)
+                                                          .setMaxRequestSize (m_nMaxRequestSize)
+                                                          .setMaxConcurrentRequests (m_nMaxConcurrentRequests)
+                                                          .start ();
+    final PeppolUAEServerCRaCResource aResource = PeppolUAEServerCRaCResource.register (aServer)
+                                                                             .setDetectZoneFromOS (m_bRestoreZoneFromOS);
+    final CountDownLatch aShutdown = new CountDownLatch (1);
+    Runtime.getRuntime ().addShutdownHook (new Thread ( () -> {
+      aServer.close ();
+      aShutdown.countDown ();
+    }, "peppol-uae-serve-shutdown"));
+
+    if (m_bCheckpoint)
+    {
+      try
+      {
+        // Returns after the restore
+        Core.checkpointRestore ();
+        LOGGER.info ("Restored from CRaC checkpoint");
+      }
+      catch (final CheckpointException | RestoreException | UnsupportedOperationException ex)
+      {
+        LOGGER.error ("Failed to create a CRaC checkpoint - continuing without", ex);
+      }
+    }
+
+    aShutdown.await ();
+    // CRaC only keeps a weak reference
+    Reference.reachabilityFence (aResource);
+    return Integer.valueOf (AbstractBulkCommand.EXIT_OK);
+  }
+}
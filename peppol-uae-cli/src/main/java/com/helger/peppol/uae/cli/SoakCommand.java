@@ -0,0 +1,243 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.cli;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.peppol.uae.tdd.testfiles.PeppolUAETestFileGenerator;
+import com.helger.peppol.uae.tdd.validate.EUAETDDSchematronVersion;
+
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Spec;
+
+/**
+ * Command that runs the {@link PeppolUAESoakHarness} and prints the {@link PeppolUAESoakResult}.
+ * The process can be stopped early with Ctrl+C, in which case the result until then is printed.
+ * Example for a two hour run at 50 documents per second:
+ *
+ * <pre>
+ * java -Xmx1g -cp peppol-uae-cli.jar:peppol-uae-testfiles.jar com.helger.peppol.uae.cli.PeppolUAECLI soak --rate 50 --duration 2h --histogram-file latency.hgrm
+ * </pre>
+ *
+ * The documents are taken from <code>peppol-uae-testfiles</code>, which is not shipped with the
+ * command line tool and therefore needs to be added to the classpath.
+ *
+ * @author Philip Helger
+ */
+@Command (name = "soak",
+          mixinStandardHelpOptions = true,
+          description = "Run a sustained load of build, marshal and validate at a target rate and report latency percentiles, allocation rate and old generation growth")
+public class SoakCommand implements Callable <Integer>
+{
+  private static final String TESTFILES_CLASS = "com.helger.peppol.uae.tdd.testfiles.PeppolUAETestFiles";
+
+  /**
+   * Converts durations like "90s", "30m", "2h" or ISO-8601 durations like "PT2H".
+   *
+   * @author Philip Helger
+   */
+  static final class DurationConverter implements CommandLine.ITypeConverter <Duration>
+  {
+    @NonNull
+    static Duration parse (@NonNull final String sValue)
+    {
+      final String s = sValue.trim ().toLowerCase (Locale.ROOT);
+      try
+      {
+        if (s.endsWith ("ms"))
+          return Duration.ofMillis (Long.parseLong (s.substring (0, s.length () - 2)));
+        if (s.endsWith ("s"))
+          return Duration.ofSeconds (Long.parseLong (s.substring (0, s.length () - 1)));
+        if (s.endsWith ("m"))
+          return Duration.ofMinutes (Long.parseLong (s.substring (0, s.length () - 1)));
+        if (s.endsWith ("h"))
+          return Duration.ofHours (Long.parseLong (s.substring (0, s.length () - 1)));
+        return Duration.parse (sValue.trim ());
+      }
+      catch (final NumberFormatException | DateTimeParseException ex)
+      {
+        throw new CommandLine.TypeConversionException ("Invalid duration '" +
+                                                       sValue +
+                                                       "' - use e.g. 90s, 30m, 2h or PT1H30M");
+      }
+    }
+
+    public Duration convert (final String sValue)
+    {
+      return parse (sValue);
+    }
+  }
+
+  @Spec
+  private CommandSpec m_aSpec;
+
+  @Option (names = { "-r", "--rate" },
+           paramLabel = "DOCS",
+           description = "Target rate in documents per second. Default: ${DEFAULT-VALUE}")
+  private double m_dRate = PeppolUAESoakHarness.DEFAULT_TARGET_RATE;
+
+  @Option (names = { "-d", "--duration" },
+           paramLabel = "DURATION",
+           converter = DurationConverter.class,
+           description = "Measured duration after the warmup, e.g. 30m or 4h. Default: 1h")
+  private Duration m_aDuration = PeppolUAESoakHarness.DEFAULT_DURATION;
+
+  @Option (names = "--warmup",
+           paramLabel = "DURATION",
+           converter = DurationConverter.class,
+           description = "Warmup duration that is not measured. Default: 1m")
+  private Duration m_aWarmup = PeppolUAESoakHarness.DEFAULT_WARMUP;
+
+  @Option (names = "--interval",
+           paramLabel = "DURATION",
+           converter = DurationConverter.class,
+           description = "Interval for progress output and old generation samples. Default: 10s")
+  private Duration m_aInterval = PeppolUAESoakHarness.DEFAULT_SAMPLE_INTERVAL;
+
+  @Option (names = { "-t", "--threads" },
+           paramLabel = "N",
+           description = "Number of worker threads. Default: number of available processors")
+  private int m_nThreads = Runtime.getRuntime ().availableProcessors ();
+
+  @Option (names = "--generated",
+           paramLabel = "N",
+           description = "Number of generated documents added to the test files. Default: ${DEFAULT-VALUE}")
+  private int m_nGenerated = PeppolUAESoakHarness.DEFAULT_GENERATED_DOCUMENT_COUNT;
+
+  @Option (names = "--lines",
+           paramLabel = "N",
+           description = "Minimum number of lines per generated document. Default: ${DEFAULT-VALUE}")
+  private int m_nLines = PeppolUAESoakHarness.DEFAULT_GENERATED_LINE_COUNT;
+
+  @Option (names = "--attachment-size",
+           paramLabel = "BYTES",
+           description = "Attachment size per generated document. Default: ${DEFAULT-VALUE}")
+  private long m_nAttachmentSize = PeppolUAESoakHarness.DEFAULT_GENERATED_ATTACHMENT_SIZE;
+
+  @Option (names = "--tax-currency", description = "Use a foreign document currency with AED as tax currency in the generated documents")
+  private boolean m_bTaxCurrency;
+
+  @Option (names = "--seed", paramLabel = "SEED", description = "Seed for the generated documents. Default: ${DEFAULT-VALUE}")
+  private long m_nSeed = PeppolUAETestFileGenerator.DEFAULT_SEED;
+
+  @Option (names = "--leak-threshold",
+           paramLabel = "MIB",
+           description = "Old generation growth in MiB per hour above which a leak is reported. Default: ${DEFAULT-VALUE}")
+  private long m_nLeakThresholdMiB = PeppolUAESoakHarness.DEFAULT_LEAK_THRESHOLD / (1024 * 1024);
+
+  @Option (names = "--schematron-version",
+           paramLabel = "VERSION",
+           description = "The Schematron version to use. Valid values: ${COMPLETION-CANDIDATES}. Default: latest")
+  private EUAETDDSchematronVersion m_eVersion = EUAETDDSchematronVersion.LATEST;
+
+  @Option (names = "--histogram-file",
+           paramLabel = "FILE",
+           description = "File to write the HdrHistogram percentile distribution of the latencies in milliseconds to")
+  private File m_aHistogramFile;
+
+  public Integer call () throws Exception
+  {
+    final CommandLine aCL = m_aSpec.commandLine ();
+    if (m_dRate <= 0)
+      throw new CommandLine.ParameterException (aCL, "The rate must be greater than 0");
+    if (m_nThreads < 1)
+      throw new CommandLine.ParameterException (aCL, "The number of threads must be at least 1");
+    if (m_aDuration.isZero () || m_aDuration.isNegative ())
+      throw new CommandLine.ParameterException (aCL, "The duration must be positive");
+    if (m_aWarmup.isNegative ())
+      throw new CommandLine.ParameterException (aCL, "The warmup may not be negative");
+    if (m_aInterval.isZero () || m_aInterval.isNegative ())
+      throw new CommandLine.ParameterException (aCL, "The interval must be positive");
+    if (m_nGenerated < 0 || m_nLines < 0 || m_nAttachmentSize < 0 || m_nLeakThresholdMiB < 0)
+      throw new CommandLine.ParameterException (aCL, "Numeric values may not be negative");
+
+    try
+    {
+      Class.forName (TESTFILES_CLASS);
+    }
+    catch (final ClassNotFoundException ex)
+    {
+      System.err.println ("The soak command requires peppol-uae-testfiles on the classpath");
+      return Integer.valueOf (AbstractBulkCommand.EXIT_FAILURE);
+    }
+
+    final PeppolUAESoakHarness aHarness = new PeppolUAESoakHarness ().setTargetRate (m_dRate)
+                                                                     .setDuration (m_aDuration)
+                                                                     .setWarmup (m_aWarmup)
+                                                                     .setSampleInterval (m_aInterval)
+                                                                     .setThreads (m_nThreads)
+                                                                     .setGeneratedDocumentCount (m_nGenerated)
+                                                                     .setGeneratedLineCount (m_nLines)
+                                                                     .setGeneratedAttachmentSize (m_nAttachmentSize)
+                                                                     .setGeneratedTaxCurrency (m_bTaxCurrency)
+                                                                     .setSeed (m_nSeed)
+                                                                     .setLeakThreshold (m_nLeakThresholdMiB * 1024 * 1024)
+                                                                     .setSchematronVersion (m_eVersion);
+
+    // Print the result until then on Ctrl+C
+    final CountDownLatch aReported = new CountDownLatch (1);
+    final Thread aShutdownHook = new Thread ( () -> {
+      aHarness.stop ();
+      try
+      {
+        aReported.await ();
+      }
+      catch (final InterruptedException ex)
+      {
+        Thread.currentThread ().interrupt ();
+      }
+    }, "peppol-uae-soak-shutdown");
+    Runtime.getRuntime ().addShutdownHook (aShutdownHook);
+
+    try
+    {
+      final PeppolUAESoakResult aResult = aHarness.run ();
+      aResult.writeReport (System.out);
+      if (m_aHistogramFile != null)
+        try (final PrintStream aPS = new PrintStream (m_aHistogramFile, StandardCharsets.UTF_8))
+        {
+          // Values are recorded in microseconds
+          aResult.getLatencyHistogram ().outputPercentileDistribution (aPS, Double.valueOf (1000));
+        }
+      return Integer.valueOf (aResult.isSuccess () ? AbstractBulkCommand.EXIT_OK : AbstractBulkCommand.EXIT_FAILURE);
+    }
+    finally
+    {
+      aReported.countDown ();
+      try
+      {
+        Runtime.getRuntime ().removeShutdownHook (aShutdownHook);
+      }
+      catch (final IllegalStateException ex)
+      {
+        // Shutdown is already in progress
+      }
+    }
+  }
+}
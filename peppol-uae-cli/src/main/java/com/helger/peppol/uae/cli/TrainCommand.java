@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.cli;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.peppol.uae.tdd.validate.EUAETDDSchematronVersion;
+import com.helger.peppol.uae.tdd.validate.PeppolUAETDDValidator;
+
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Spec;
+
+/**
+ * Command that runs a training workload on the built-in test corpus: each iteration builds,
+ * marshals and validates all documents (see {@link SelfTestCommand}). This loads and initializes
+ * all classes needed at runtime, compiles the Schematron and creates the JAXB contexts. It is meant
+ * to create an AppCDS archive, e.g.
+ *
+ * <pre>
+ * java -XX:ArchiveClassesAtExit=peppol-uae-cli.jsa -jar peppol-uae-cli.jar train
+ * java -XX:SharedArchiveFile=peppol-uae-cli.jsa -jar peppol-uae-cli.jar validate ...
+ * </pre>
+ *
+ * @author Philip Helger
+ */
+@Command (name = "train",
+          mixinStandardHelpOptions = true,
+          description = "Run a training workload on the built-in test corpus, e.g. to create an AppCDS archive")
+public class TrainCommand implements Callable <Integer>
+{
+  public static final int DEFAULT_ITERATIONS = 3;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (TrainCommand.class);
+
+  @Spec
+  private CommandSpec m_aSpec;
+
+  @Option (names = { "-n", "--iterations" },
+           paramLabel = "N",
+           description = "Number of iterations over the corpus. Default: ${DEFAULT-VALUE}")
+  private int m_nIterations = DEFAULT_ITERATIONS;
+
+  @Option (names = "--all-schematron-versions", description = "Compile all Schematron versions and not only the latest")
+  private boolean m_bAllSchematronVersions;
+
+  /**
+   * Run the training workload.
+   *
+   * @param nIterations
+   *        Number of iterations over the corpus. Must be &gt; 0.
+   * @param bAllSchematronVersions
+   *        <code>true</code> to compile all Schematron versions, <code>false</code> to compile only
+   *        the latest one.
+   * @return <code>true</code> if all iterations succeeded.
+   * @throws Exception
+   *         In case of an error
+   */
+  static boolean runTraining (@Nonnegative final int nIterations, final boolean bAllSchematronVersions) throws Exception
+  {
+    final long nStart = System.nanoTime ();
+    if (bAllSchematronVersions)
+      for (final EUAETDDSchematronVersion eVersion : EUAETDDSchematronVersion.values ())
+        PeppolUAETDDValidator.getSchematron (eVersion);
+
+    boolean bSuccess = true;
+    for (int i = 0; i < nIterations; ++i)
+      if (new SelfTestCommand ().call ().intValue () != AbstractBulkCommand.EXIT_OK)
+        bSuccess = false;
+
+    LOGGER.info ("Finished " +
+                 nIterations +
+                 " training iteration(s) in " +
+                 TimeUnit.NANOSECONDS.toMillis (System.nanoTime () - nStart) +
+                 " ms");
+    return bSuccess;
+  }
+
+  public Integer call () throws Exception
+  {
+    if (m_nIterations < 1)
+      throw new CommandLine.ParameterException (m_aSpec.commandLine (), "The number of iterations must be at least 1");
+    return Integer.valueOf (runTraining (m_nIterations, m_bAllSchematronVersions) ? AbstractBulkCommand.EXIT_OK
+                                                                                   : AbstractBulkCommand.EXIT_FAILURE);
+  }
+}
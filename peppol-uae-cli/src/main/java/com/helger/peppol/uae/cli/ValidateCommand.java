@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.cli;
+
+import java.nio.file.Path;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.json.IJsonObject;
+import com.helger.json.JsonArray;
+import com.helger.peppol.uae.tdd.validate.EUAETDDSchematronVersion;
+import com.helger.peppol.uae.tdd.validate.PeppolUAETDDFailedAssertion;
+import com.helger.peppol.uae.tdd.validate.PeppolUAETDDValidator;
+import com.helger.schematron.ISchematronResource;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+/**
+ * Command to validate TDDs against the Schematron rules. A file is considered successful if no
+ * assertion failed.
+ *
+ * @author Philip Helger
+ */
+@Command (name = "validate", mixinStandardHelpOptions = true, description = "Validate TDDs with the Schematron rules")
+public class ValidateCommand extends AbstractBulkCommand
+{
+  @Option (names = "--schematron-version",
+           paramLabel = "VERSION",
+           description = "The Schematron version to use. Valid values: ${COMPLETION-CANDIDATES}. Default: latest")
+  private EUAETDDSchematronVersion m_eVersion = EUAETDDSchematronVersion.LATEST;
+
+  private ISchematronResource m_aSchematron;
+
+  @Override
+  protected void beforeProcessing () throws Exception
+  {
+    // Compile once upfront and not in the worker threads
+    m_aSchematron = PeppolUAETDDValidator.getSchematron (m_eVersion);
+  }
+
+  @Override
+  protected boolean processFile (@NonNull final Path aFile, @NonNull final IJsonObject aResult) throws Exception
+  {
+    final ICommonsList <PeppolUAETDDFailedAssertion> aFailedAssertions = new CommonsArrayList <> ();
+    PeppolUAETDDValidator.validate (m_aSchematron, aFile, aFailedAssertions::add);
+
+    final boolean bValid = aFailedAssertions.isEmpty ();
+    aResult.add ("valid", bValid);
+    aResult.add ("failedAssertionCount", aFailedAssertions.size ());
+    aResult.add ("failedAssertions", new JsonArray ().addAllMapped (aFailedAssertions, AbstractBulkCommand::getAsJson));
+    return bValid;
+  }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.cli;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.helger.base.io.stream.StreamHelper;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.io.file.FilenameHelper;
+import com.helger.io.resource.ClassPathResource;
+import com.helger.peppol.uae.tdd.PeppolUAETDDClock;
+import com.helger.peppol.uae.tdd.testfiles.PeppolUAETestFiles;
+
+/**
+ * Test class for class {@link PeppolUAECLI}.
+ *
+ * @author Philip Helger
+ */
+public final class PeppolUAECLITest
+{
+  @Rule
+  public final TemporaryFolder m_aTempFolder = new TemporaryFolder ();
+
+  private static int _run (final String... aArgs)
+  {
+    return PeppolUAECLI.createCommandLine ().execute (aArgs);
+  }
+
+  private static ICommonsList <String> _readLines (final Path aPath) throws Exception
+  {
+    return new CommonsArrayList <> (Files.readAllLines (aPath, StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testBuildValidateExtract () throws Exception
+  {
+    final File aSourceDir = m_aTempFolder.newFolder ("source");
+    final ICommonsList <ClassPathResource> aSources = new CommonsArrayList <> ();
+    aSources.addAll (PeppolUAETestFiles.getAllGoodBillingInvoiceFiles ());
+    aSources.addAll (PeppolUAETestFiles.getAllGoodBillingCreditNoteFiles ());
+    for (final ClassPathResource aRes : aSources)
+      Files.write (aSourceDir.toPath ().resolve (FilenameHelper.getWithoutPath (aRes.getPath ())),
+                   StreamHelper.getAllBytes (aRes));
+    final int nCount = aSources.size ();
+
+    // Build
+    final Path aTDDDir = m_aTempFolder.getRoot ().toPath ().resolve ("tdd");
+    final Path aBuildResult = m_aTempFolder.getRoot ().toPath ().resolve ("build.jsonl");
+    assertEquals (AbstractBulkCommand.EXIT_OK,
+                  _run ("build",
+                        "-q",
+                        "-t",
+                        "4",
+                        "-o",
+                        aBuildResult.toString (),
+                        "--out-dir",
+                        aTDDDir.toString (),
+                        "--reporting-party",
+                        "0235:c1id",
+                        "--receiving-party",
+                        "0242:c5id",
+                        "--reporters-representative",
+                        "0242:987654",
+                        "--validate",
+                        aSourceDir.getAbsolutePath ()));
+    ICommonsList <String> aLines = _readLines (aBuildResult);
+    assertEquals (nCount, aLines.size ());
+    for (final String sLine : aLines)
+      assertTrue (sLine, sLine.contains ("\"success\":true"));
+
+    // Validate
+    final Path aValidateResult = m_aTempFolder.getRoot ().toPath ().resolve ("validate.jsonl");
+    assertEquals (AbstractBulkCommand.EXIT_OK,
+                  _run ("validate", "-q", "-o", aValidateResult.toString (), aTDDDir.toString ()));
+    aLines = _readLines (aValidateResult);
+    assertEquals (nCount, aLines.size ());
+    for (final String sLine : aLines)
+      assertTrue (sLine, sLine.contains ("\"valid\":true"));
+
+    // Extract
+    final Path aExtractDir = m_aTempFolder.getRoot ().toPath ().resolve ("extract");
+    final Path aExtractResult = m_aTempFolder.getRoot ().toPath ().resolve ("extract.jsonl");
+    assertEquals (AbstractBulkCommand.EXIT_OK,
+                  _run ("extract",
+                        "-q",
+                        "-o",
+                        aExtractResult.toString (),
+                        "--out-dir",
+                        aExtractDir.toString (),
+                        aTDDDir.toString ()));
+    assertEquals (nCount, _readLines (aExtractResult).size ());
+    try (final Stream <Path> aStream = Files.list (aExtractDir))
+    {
+      assertEquals (nCount, aStream.count ());
+    }
+  }
+
+  @Test
+  public void testOutputPaths () throws Exception
+  {
+    // The same file name in two sub directories
+    final byte [] aInvoice = StreamHelper.getAllBytes (PeppolUAETestFiles.getAllGoodBillingInvoiceFiles ()
+                                                                         .getFirstOrNull ());
+    final Path aSourceDir = m_aTempFolder.newFolder ("source").toPath ();
+    final Path aFile1 = aSourceDir.resolve ("a").resolve ("invoice.xml");
+    final Path aFile2 = aSourceDir.resolve ("b").resolve ("invoice.xml");
+    for (final Path aFile : new CommonsArrayList <> (aFile1, aFile2))
+    {
+      Files.createDirectories (aFile.getParent ());
+      Files.write (aFile, aInvoice);
+    }
+
+    // Directory input - the relative paths are preserved
+    final Path aTDDDir = m_aTempFolder.getRoot ().toPath ().resolve ("tdd");
+    final Path aResult = m_aTempFolder.getRoot ().toPath ().resolve ("build.jsonl");
+    assertEquals (AbstractBulkCommand.EXIT_OK,
+                  _run ("build",
+                        "-q",
+                        "-o",
+                        aResult.toString (),
+                        "--out-dir",
+                        aTDDDir.toString (),
+                        "--reporting-party",
+                        "0235:c1id",
+                        "--receiving-party",
+                        "0242:c5id",
+                        "--reporters-representative",
+                        "0242:987654",
+                        aSourceDir.toString ()));
+    assertTrue (Files.isRegularFile (aTDDDir.resolve ("a").resolve ("invoice.tdd.xml")));
+    assertTrue (Files.isRegularFile (aTDDDir.resolve ("b").resolve ("invoice.tdd.xml")));
+
+    // Explicit file inputs - the second one would overwrite the first one
+    final Path aFlatDir = m_aTempFolder.getRoot ().toPath ().resolve ("flat");
+    assertEquals (AbstractBulkCommand.EXIT_FAILURE,
+                  _run ("build",
+                        "-q",
+                        "-t",
+                        "1",
+                        "-o",
+                        aResult.toString (),
+                        "--out-dir",
+                        aFlatDir.toString (),
+                        "--reporting-party",
+                        "0235:c1id",
+                        "--receiving-party",
+                        "0242:c5id",
+                        "--reporters-representative",
+                        "0242:987654",
+                        aFile1.toString (),
+                        aFile2.toString ()));
+    final ICommonsList <String> aLines = _readLines (aResult);
+    assertEquals (2, aLines.size ());
+    assertTrue (aLines.getFirstOrNull (), aLines.getFirstOrNull ().contains ("\"success\":true"));
+    assertTrue (aLines.getLastOrNull (), aLines.getLastOrNull ().contains ("collides"));
+    try (final Stream <Path> aStream = Files.list (aFlatDir))
+    {
+      assertEquals (1, aStream.count ());
+    }
+  }
+
+  @Test
+  public void testValidateBad () throws Exception
+  {
+    final ClassPathResource aRes = PeppolUAETestFiles.getAllSchematronBadTDD10Files ().getFirstOrNull ();
+    final Path aFile = m_aTempFolder.newFile ("bad.xml").toPath ();
+    Files.write (aFile, StreamHelper.getAllBytes (aRes));
+
+    final Path aResult = m_aTempFolder.getRoot ().toPath ().resolve ("validate.jsonl");
+    assertEquals (AbstractBulkCommand.EXIT_FAILURE, _run ("validate", "-q", "-o", aResult.toString (), aFile.toString ()));
+    final ICommonsList <String> aLines = _readLines (aResult);
+    assertEquals (1, aLines.size ());
+    assertTrue (aLines.getFirstOrNull (), aLines.getFirstOrNull ().contains ("\"valid\":false"));
+  }
+
+  @Test
+  public void testSelfTest ()
+  {
+    assertEquals (AbstractBulkCommand.EXIT_OK, _run ("selftest"));
+  }
+
+  @Test
+  public void testTrain ()
+  {
+    assertEquals (AbstractBulkCommand.EXIT_OK, _run ("train", "-n", "1"));
+    assertTrue (PeppolUAETDDClock.isSystemClock ());
+  }
+
+  @Test
+  public void testSoak () throws Exception
+  {
+    final Path aHistogramFile = m_aTempFolder.getRoot ().toPath ().resolve ("latency.hgrm");
+    assertEquals (AbstractBulkCommand.EXIT_OK,
+                  _run ("soak",
+                        "-r",
+                        "10",
+                        "-t",
+                        "2",
+                        "-d",
+                        "3s",
+                        "--warmup",
+                        "1s",
+                        "--interval",
+                        "1s",
+                        "--generated",
+                        "2",
+                        "--lines",
+                        "10",
+                        "--attachment-size",
+                        "1000",
+                        "--histogram-file",
+                        aHistogramFile.toString ()));
+    assertTrue (Files.size (aHistogramFile) > 0);
+  }
+
+  @Test
+  public void testNoInput ()
+  {
+    final File aEmptyDir = new File (m_aTempFolder.getRoot (), "empty");
+    assertTrue (aEmptyDir.mkdir ());
+    assertEquals (AbstractBulkCommand.EXIT_NO_INPUT, _run ("validate", "-q", aEmptyDir.getAbsolutePath ()));
+  }
+}
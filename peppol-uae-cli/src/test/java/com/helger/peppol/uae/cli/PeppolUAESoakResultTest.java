@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.cli;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.junit.Test;
+
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+
+/**
+ * Test class for class {@link PeppolUAESoakResult}.
+ *
+ * @author Philip Helger
+ */
+public final class PeppolUAESoakResultTest
+{
+  private static final long MIB = 1024L * 1024;
+
+  private static ICommonsList <PeppolUAESoakResult.OldGenSample> _createSamples (final int nCount,
+                                                                               final long nGrowthPerMinute)
+  {
+    final ICommonsList <PeppolUAESoakResult.OldGenSample> ret = new CommonsArrayList <> ();
+    for (int i = 0; i < nCount; ++i)
+      ret.add (new PeppolUAESoakResult.OldGenSample (TimeUnit.MINUTES.toMillis (i), 100 * MIB + i * nGrowthPerMinute));
+    return ret;
+  }
+
+  private static PeppolUAESoakResult _createResult (final ICommonsList <PeppolUAESoakResult.OldGenSample> aSamples,
+                                                    final long nFailed)
+  {
+    final Histogram aHistogram = new Histogram (3);
+    for (int i = 1; i <= 1000; ++i)
+      aHistogram.recordValue (i * 10L);
+    return new PeppolUAESoakResult (TimeUnit.MINUTES.toNanos (10),
+                                    2,
+                                    1200,
+                                    nFailed,
+                                    0,
+                                    aHistogram,
+                                    aHistogram,
+                                    1200 * MIB,
+                                    aSamples,
+                                    16 * MIB);
+  }
+
+  @Test
+  public void testGrowthPerHour ()
+  {
+    assertEquals (0, PeppolUAESoakResult.getGrowthPerHour (new CommonsArrayList <> ()), 0);
+    assertEquals (0, PeppolUAESoakResult.getGrowthPerHour (_createSamples (1, MIB)), 0);
+    assertEquals (0, PeppolUAESoakResult.getGrowthPerHour (_createSamples (20, 0)), 0);
+    // 1 MiB per minute is 60 MiB per hour
+    assertEquals (60 * MIB, PeppolUAESoakResult.getGrowthPerHour (_createSamples (20, MIB)), 1);
+    assertEquals (-60 * MIB, PeppolUAESoakResult.getGrowthPerHour (_createSamples (20, -MIB)), 1);
+  }
+
+  @Test
+  public void testLeak ()
+  {
+    // Stable
+    PeppolUAESoakResult aResult = _createResult (_createSamples (20, 0), 0);
+    assertTrue (aResult.hasEnoughOldGenSamples ());
+    assertFalse (aResult.isLeakSuspected ());
+    assertTrue (aResult.isSuccess ());
+    assertEquals (2, aResult.getAchievedRate (), 0.0001);
+    assertEquals (2 * MIB, aResult.getAllocationRate (), 1);
+
+    // Growing faster than the threshold
+    aResult = _createResult (_createSamples (20, MIB), 0);
+    assertTrue (aResult.isLeakSuspected ());
+    assertFalse (aResult.isSuccess ());
+
+    // Not enough samples to decide
+    aResult = _createResult (_createSamples (PeppolUAESoakResult.MIN_LEAK_SAMPLES - 1, MIB), 0);
+    assertFalse (aResult.hasEnoughOldGenSamples ());
+    assertFalse (aResult.isLeakSuspected ());
+
+    // Failures
+    aResult = _createResult (_createSamples (20, 0), 1);
+    assertFalse (aResult.isSuccess ());
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.metrics.micrometer;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.annotation.style.IsSPIImplementation;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.peppol.uae.tdd.metrics.EUAETDDMetricsStage;
+import com.helger.peppol.uae.tdd.metrics.IPeppolUAETDDMetrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Implementation of {@link IPeppolUAETDDMetrics} that records all metrics in a Micrometer
+ * {@link MeterRegistry}. When used via SPI, the global registry {@link Metrics#globalRegistry} is
+ * used.<br>
+ * The following meters are created:
+ * <ul>
+ * <li><code>peppol.uae.tdd.latency</code> - a timer with percentile histogram per stage (tag
+ * <code>stage</code>)</li>
+ * <li><code>peppol.uae.tdd.built</code> - a counter per TDD DocumentTypeCode (tag
+ * <code>document.type.code</code>)</li>
+ * <li><code>peppol.uae.tdd.failed.assertions</code> - a counter per failed Schematron assertion (tag
+ * <code>rule</code>)</li>
+ * <li><code>peppol.uae.tdd.failures</code> - a counter of failed executions per stage (tag
+ * <code>stage</code>)</li>
+ * </ul>
+ *
+ * @author Philip Helger
+ */
+@ThreadSafe
+@IsSPIImplementation
+public final class PeppolUAETDDMicrometerMetrics implements IPeppolUAETDDMetrics
+{
+  public static final String METER_LATENCY = "peppol.uae.tdd.latency";
+  public static final String METER_BUILT = "peppol.uae.tdd.built";
+  public static final String METER_FAILED_ASSERTIONS = "peppol.uae.tdd.failed.assertions";
+  public static final String METER_FAILURES = "peppol.uae.tdd.failures";
+
+  public static final String TAG_STAGE = "stage";
+  public static final String TAG_DOCUMENT_TYPE_CODE = "document.type.code";
+  public static final String TAG_RULE = "rule";
+
+  private final MeterRegistry m_aRegistry;
+  private final Map <EUAETDDMetricsStage, Timer> m_aTimers = new EnumMap <> (EUAETDDMetricsStage.class);
+  private final Map <EUAETDDMetricsStage, Counter> m_aFailureCounters = new EnumMap <> (EUAETDDMetricsStage.class);
+  private final Map <String, Counter> m_aBuiltCounters = new ConcurrentHashMap <> ();
+  private final Map <String, Counter> m_aFailedAssertionCounters = new ConcurrentHashMap <> ();
+  // Kept as fields, so that no lambda is created per invocation
+  private final Function <String, Counter> m_aBuiltCounterFactory;
+  private final Function <String, Counter> m_aFailedAssertionCounterFactory;
+
+  /**
+   * Constructor used by the SPI, using the global Micrometer registry.
+   */
+  public PeppolUAETDDMicrometerMetrics ()
+  {
+    this (Metrics.globalRegistry);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aRegistry
+   *        The registry to register all meters in. May not be <code>null</code>.
+   */
+  public PeppolUAETDDMicrometerMetrics (@NonNull final MeterRegistry aRegistry)
+  {
+    ValueEnforcer.notNull (aRegistry, "Registry");
+    m_aRegistry = aRegistry;
+    for (final EUAETDDMetricsStage eStage : EUAETDDMetricsStage.values ())
+    {
+      m_aTimers.put (eStage,
+                     Timer.builder (METER_LATENCY)
+                          .description ("Latency of the Peppol UAE TDD processing stages")
+                          .tag (TAG_STAGE, eStage.getID ())
+                          .publishPercentileHistogram ()
+                          .register (aRegistry));
+      m_aFailureCounters.put (eStage,
+                              Counter.builder (METER_FAILURES)
+                                     .description ("Number of failed Peppol UAE TDD processing stages")
+                                     .tag (TAG_STAGE, eStage.getID ())
+                                     .register (aRegistry));
+    }
+    m_aBuiltCounterFactory = sID -> Counter.builder (METER_BUILT)
+                                           .description ("Number of TDDs built")
+                                           .tag (TAG_DOCUMENT_TYPE_CODE, sID)
+                                           .register (m_aRegistry);
+    m_aFailedAssertionCounterFactory = sID -> Counter.builder (METER_FAILED_ASSERTIONS)
+                                                     .description ("Number of failed TDD Schematron assertions")
+                                                     .tag (TAG_RULE, sID)
+                                                     .register (m_aRegistry);
+  }
+
+  /**
+   * @return The registry used. Never <code>null</code>.
+   */
+  @NonNull
+  public MeterRegistry getRegistry ()
+  {
+    return m_aRegistry;
+  }
+
+  public void recordLatency (@NonNull final EUAETDDMetricsStage eStage, final long nDurationNanos)
+  {
+    m_aTimers.get (eStage).record (nDurationNanos, TimeUnit.NANOSECONDS);
+  }
+
+  @NonNull
+  private static Counter _getCounter (@NonNull final Map <String, Counter> aMap,
+                                      @NonNull final String sKey,
+                                      @NonNull final Function <String, Counter> aFactory)
+  {
+    // Avoid the locking of computeIfAbsent in the common case
+    final Counter ret = aMap.get (sKey);
+    return ret != null ? ret : aMap.computeIfAbsent (sKey, aFactory);
+  }
+
+  public void onTDDBuilt (@NonNull final String sDocumentTypeCode)
+  {
+    _getCounter (m_aBuiltCounters, sDocumentTypeCode, m_aBuiltCounterFactory).increment ();
+  }
+
+  public void onFailedAssertion (@NonNull final String sAssertionID)
+  {
+    _getCounter (m_aFailedAssertionCounters, sAssertionID, m_aFailedAssertionCounterFactory).increment ();
+  }
+
+  public void onStageFailed (@NonNull final EUAETDDMetricsStage eStage)
+  {
+    m_aFailureCounters.get (eStage).increment ();
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.metrics.micrometer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.helger.io.resource.ClassPathResource;
+import com.helger.peppol.uae.tdd.PeppolUAETDD10Builder;
+import com.helger.peppol.uae.tdd.codelist.EUAETDDDocumentScope;
+import com.helger.peppol.uae.tdd.codelist.EUAETDDDocumentTypeCode;
+import com.helger.peppol.uae.tdd.codelist.EUAETDDReporterRole;
+import com.helger.peppol.uae.tdd.jaxb.PeppolUAETDD10Marshaller;
+import com.helger.peppol.uae.tdd.metrics.EUAETDDMetricsStage;
+import com.helger.peppol.uae.tdd.metrics.IPeppolUAETDDMetrics;
+import com.helger.peppol.uae.tdd.metrics.PeppolUAETDDMetrics;
+import com.helger.peppol.uae.tdd.testfiles.PeppolUAETestFiles;
+import com.helger.peppol.uae.tdd.v100.TaxDataType;
+import com.helger.peppol.uae.tdd.validate.PeppolUAETDDValidator;
+import com.helger.peppolid.factory.IIdentifierFactory;
+import com.helger.peppolid.factory.PeppolIdentifierFactory;
+import com.helger.ubl21.UBL21Marshaller;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import oasis.names.specification.ubl.schema.xsd.invoice_21.InvoiceType;
+
+/**
+ * Test class for class {@link PeppolUAETDDMicrometerMetrics}.
+ *
+ * @author Philip Helger
+ */
+public final class PeppolUAETDDMicrometerMetricsTest
+{
+  @Rule
+  public final TemporaryFolder m_aTempFolder = new TemporaryFolder ();
+
+  private static long _getTimerCount (final SimpleMeterRegistry aRegistry, final EUAETDDMetricsStage eStage)
+  {
+    return aRegistry.get (PeppolUAETDDMicrometerMetrics.METER_LATENCY)
+                    .tag (PeppolUAETDDMicrometerMetrics.TAG_STAGE, eStage.getID ())
+                    .timer ()
+                    .count ();
+  }
+
+  @Test
+  public void testRegisteredViaSPI ()
+  {
+    assertTrue (PeppolUAETDDMetrics.getMetrics () instanceof PeppolUAETDDMicrometerMetrics);
+  }
+
+  @Test
+  public void testRecording () throws Exception
+  {
+    final IPeppolUAETDDMetrics aOld = PeppolUAETDDMetrics.getMetrics ();
+    final SimpleMeterRegistry aRegistry = new SimpleMeterRegistry ();
+    PeppolUAETDDMetrics.setMetrics (new PeppolUAETDDMicrometerMetrics (aRegistry));
+    try
+    {
+      // Read and validate
+      int nCount = 0;
+      for (final ClassPathResource aRes : PeppolUAETestFiles.getAllGoodTDD10Files ())
+      {
+        final TaxDataType aTDD = new PeppolUAETDD10Marshaller ().read (aRes);
+        assertNotNull (aTDD);
+        assertNotNull (PeppolUAETDDValidator.validate (aTDD));
+        nCount++;
+      }
+      assertEquals (nCount, _getTimerCount (aRegistry, EUAETDDMetricsStage.UNMARSHAL));
+      assertEquals (nCount, _getTimerCount (aRegistry, EUAETDDMetricsStage.MARSHAL));
+      assertEquals (nCount, _getTimerCount (aRegistry, EUAETDDMetricsStage.SCHEMATRON_VALIDATION));
+
+      // Failed assertions are counted per rule
+      final ClassPathResource aBad = PeppolUAETestFiles.getAllSchematronBadTDD10Files ().getFirstOrNull ();
+      assertTrue (PeppolUAETDDValidator.getAllFailedAssertions (PeppolUAETDDValidator.getSchematronUAE_TDD_10 (),
+                                                                aBad)
+                                       .isNotEmpty ());
+      assertTrue (aRegistry.get (PeppolUAETDDMicrometerMetrics.METER_FAILED_ASSERTIONS)
+                           .tag (PeppolUAETDDMicrometerMetrics.TAG_RULE, "ibr-tdd-01")
+                           .counter ()
+                           .count () >= 1);
+
+      // Build
+      final InvoiceType aInvoice = UBL21Marshaller.invoice ()
+                                                  .read (PeppolUAETestFiles.getAllGoodBillingInvoiceFiles ()
+                                                                           .getFirstOrNull ());
+      assertNotNull (aInvoice);
+      final IIdentifierFactory aIF = PeppolIdentifierFactory.INSTANCE;
+      final TaxDataType aTDD = new PeppolUAETDD10Builder ().documentTypeCode (EUAETDDDocumentTypeCode.SUBMIT)
+                                                           .documentScope (EUAETDDDocumentScope.DOMESTIC)
+                                                           .reporterRole (EUAETDDReporterRole.SENDER)
+                                                           .reportingParty (aIF.createParticipantIdentifierWithDefaultScheme ("0235:c1id"))
+                                                           .receivingParty (aIF.createParticipantIdentifierWithDefaultScheme ("0242:c5id"))
+                                                           .reportersRepresentative (aIF.createParticipantIdentifierWithDefaultScheme ("0242:987654"))
+                                                           .reportedTransaction (rt -> rt.initFromInvoice (aInvoice))
+                                                           .build ();
+      assertNotNull (aTDD);
+      assertEquals (1, _getTimerCount (aRegistry, EUAETDDMetricsStage.INIT_FROM_INVOICE));
+      assertEquals (1, _getTimerCount (aRegistry, EUAETDDMetricsStage.BUILD));
+      final Counter aBuilt = aRegistry.get (PeppolUAETDDMicrometerMetrics.METER_BUILT)
+                                      .tag (PeppolUAETDDMicrometerMetrics.TAG_DOCUMENT_TYPE_CODE,
+                                            EUAETDDDocumentTypeCode.SUBMIT.getID ())
+                                      .counter ();
+      assertEquals (1, aBuilt.count (), 0.1);
+    }
+    finally
+    {
+      PeppolUAETDDMetrics.setMetrics (aOld);
+    }
+  }
+
+  @Test
+  public void testFailedValidation () throws Exception
+  {
+    final IPeppolUAETDDMetrics aOld = PeppolUAETDDMetrics.getMetrics ();
+    final SimpleMeterRegistry aRegistry = new SimpleMeterRegistry ();
+    PeppolUAETDDMetrics.setMetrics (new PeppolUAETDDMicrometerMetrics (aRegistry));
+    try
+    {
+      final Path aFile = m_aTempFolder.newFile ("broken.xml").toPath ();
+      Files.write (aFile, "<TaxData".getBytes (StandardCharsets.UTF_8));
+      try
+      {
+        PeppolUAETDDValidator.validate (PeppolUAETDDValidator.getSchematronUAE_TDD_10 (), aFile);
+      }
+      catch (final Exception ex)
+      {
+        // expected, depending on the Schematron implementation
+      }
+      assertEquals (1,
+                    aRegistry.get (PeppolUAETDDMicrometerMetrics.METER_FAILURES)
+                             .tag (PeppolUAETDDMicrometerMetrics.TAG_STAGE,
+                                   EUAETDDMetricsStage.SCHEMATRON_VALIDATION.getID ())
+                             .counter ()
+                             .count (),
+                    0.1);
+      assertEquals (0, _getTimerCount (aRegistry, EUAETDDMetricsStage.SCHEMATRON_VALIDATION));
+    }
+    finally
+    {
+      PeppolUAETDDMetrics.setMetrics (aOld);
+    }
+  }
+}
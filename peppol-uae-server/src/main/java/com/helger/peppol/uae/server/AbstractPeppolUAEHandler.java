@@ -0,0 +1,249 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Semaphore;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.collection.commons.CommonsHashMap;
+import com.helger.collection.commons.ICommonsMap;
+import com.helger.json.IJsonObject;
+import com.helger.json.JsonObject;
+import com.helger.peppol.uae.tdd.validate.PeppolUAETDDFailedAssertion;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+/**
+ * Abstract base class for all POST handlers. It takes care of the HTTP method check, the request
+ * size limit, the optional concurrency limit and the error handling. The request body is never
+ * buffered but handed to the implementation as a stream.
+ *
+ * @author Philip Helger
+ */
+@ThreadSafe
+public abstract class AbstractPeppolUAEHandler implements HttpHandler
+{
+  public static final String CONTENT_TYPE_XML = "application/xml; charset=UTF-8";
+  public static final String CONTENT_TYPE_JSON = "application/json; charset=UTF-8";
+
+  public static final int HTTP_OK = 200;
+  public static final int HTTP_BAD_REQUEST = 400;
+  public static final int HTTP_METHOD_NOT_ALLOWED = 405;
+  public static final int HTTP_PAYLOAD_TOO_LARGE = 413;
+  public static final int HTTP_INTERNAL_SERVER_ERROR = 500;
+  public static final int HTTP_SERVICE_UNAVAILABLE = 503;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (AbstractPeppolUAEHandler.class);
+
+  private final long m_nMaxRequestSize;
+  private final Semaphore m_aConcurrencyLimit;
+
+  protected AbstractPeppolUAEHandler (@Nonnegative final long nMaxRequestSize)
+  {
+    this (nMaxRequestSize, null);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param nMaxRequestSize
+   *        The maximum number of bytes accepted in a request body. Must be &gt; 0.
+   * @param aConcurrencyLimit
+   *        The semaphore limiting the number of requests processed at the same time. It may be
+   *        shared between multiple handlers. If no permit is available, the request is rejected
+   *        with HTTP 503 instead of being queued. May be <code>null</code> for no limit.
+   */
+  protected AbstractPeppolUAEHandler (@Nonnegative final long nMaxRequestSize,
+                                      @Nullable final Semaphore aConcurrencyLimit)
+  {
+    ValueEnforcer.isGT0 (nMaxRequestSize, "MaxRequestSize");
+    m_nMaxRequestSize = nMaxRequestSize;
+    m_aConcurrencyLimit = aConcurrencyLimit;
+  }
+
+  /**
+   * @return The maximum number of bytes accepted in a request body. Always &gt; 0.
+   */
+  @Nonnegative
+  public final long getMaxRequestSize ()
+  {
+    return m_nMaxRequestSize;
+  }
+
+  /**
+   * Handle a single POST request.
+   *
+   * @param aExchange
+   *        The HTTP exchange to send the response to. Never <code>null</code>.
+   * @param aBody
+   *        The size limited request body. Never <code>null</code>.
+   * @param aParams
+   *        The decoded query parameters. Never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         In case of invalid request data. This results in an HTTP 400.
+   * @throws Exception
+   *         In case of an error. This results in an HTTP 500.
+   */
+  protected abstract void handlePost (@NonNull HttpExchange aExchange,
+                                      @NonNull InputStream aBody,
+                                      @NonNull ICommonsMap <String, String> aParams) throws Exception;
+
+  @NonNull
+  @ReturnsMutableCopy
+  static ICommonsMap <String, String> getQueryParams (@Nullable final String sRawQuery)
+  {
+    final ICommonsMap <String, String> ret = new CommonsHashMap <> ();
+    if (sRawQuery != null)
+      for (final String sPart : sRawQuery.split ("&"))
+        if (!sPart.isEmpty ())
+        {
+          final int nEq = sPart.indexOf ('=');
+          final String sKey = nEq < 0 ? sPart : sPart.substring (0, nEq);
+          final String sValue = nEq < 0 ? "" : sPart.substring (nEq + 1);
+          ret.put (URLDecoder.decode (sKey, StandardCharsets.UTF_8), URLDecoder.decode (sValue, StandardCharsets.UTF_8));
+        }
+    return ret;
+  }
+
+  @NonNull
+  protected static IJsonObject getAsJson (@NonNull final PeppolUAETDDFailedAssertion aFailedAssertion)
+  {
+    return new JsonObject ().add ("id", aFailedAssertion.getID ())
+                            .add ("flag", aFailedAssertion.getFlag ())
+                            .add ("location", aFailedAssertion.getLocation ())
+                            .add ("text", aFailedAssertion.getText ());
+  }
+
+  protected static void sendResponse (@NonNull final HttpExchange aExchange,
+                                      final int nStatusCode,
+                                      @NonNull final String sContentType,
+                                      @NonNull final byte [] aBytes) throws IOException
+  {
+    aExchange.getResponseHeaders ().set ("Content-Type", sContentType);
+    aExchange.sendResponseHeaders (nStatusCode, aBytes.length == 0 ? -1 : aBytes.length);
+    try (final OutputStream aOS = aExchange.getResponseBody ())
+    {
+      aOS.write (aBytes);
+    }
+  }
+
+  protected static void sendJson (@NonNull final HttpExchange aExchange,
+                                  final int nStatusCode,
+                                  @NonNull final IJsonObject aJson) throws IOException
+  {
+    sendResponse (aExchange, nStatusCode, CONTENT_TYPE_JSON, aJson.getAsJsonString ().getBytes (StandardCharsets.UTF_8));
+  }
+
+  protected static void sendError (@NonNull final HttpExchange aExchange,
+                                   final int nStatusCode,
+                                   @NonNull final String sMessage) throws IOException
+  {
+    sendJson (aExchange, nStatusCode, new JsonObject ().add ("status", nStatusCode).add ("error", sMessage));
+  }
+
+  public final void handle (@NonNull final HttpExchange aExchange) throws IOException
+  {
+    // Reject instead of queueing, so that an overload does not exhaust the memory
+    if (m_aConcurrencyLimit != null && !m_aConcurrencyLimit.tryAcquire ())
+    {
+      try
+      {
+        aExchange.getResponseHeaders ().set ("Retry-After", "1");
+        sendError (aExchange, HTTP_SERVICE_UNAVAILABLE, "Too many concurrent requests");
+      }
+      finally
+      {
+        aExchange.close ();
+      }
+      return;
+    }
+
+    try
+    {
+      if (!"POST".equals (aExchange.getRequestMethod ()))
+      {
+        aExchange.getResponseHeaders ().set ("Allow", "POST");
+        sendError (aExchange, HTTP_METHOD_NOT_ALLOWED, "Only POST is supported");
+        return;
+      }
+
+      // Reject early, if the client announced the size
+      final String sContentLength = aExchange.getRequestHeaders ().getFirst ("Content-Length");
+      if (sContentLength != null)
+      {
+        long nContentLength;
+        try
+        {
+          nContentLength = Long.parseLong (sContentLength.trim ());
+        }
+        catch (final NumberFormatException ex)
+        {
+          nContentLength = -1;
+        }
+        if (nContentLength > m_nMaxRequestSize)
+        {
+          sendError (aExchange,
+                     HTTP_PAYLOAD_TOO_LARGE,
+                     "The request body exceeds the maximum size of " + m_nMaxRequestSize + " bytes");
+          return;
+        }
+      }
+
+      final PeppolUAELimitedInputStream aBody = new PeppolUAELimitedInputStream (aExchange.getRequestBody (),
+                                                                                 m_nMaxRequestSize);
+      try
+      {
+        handlePost (aExchange, aBody, getQueryParams (aExchange.getRequestURI ().getRawQuery ()));
+      }
+      catch (final Exception ex)
+      {
+        // Chunked requests are only detected while reading
+        if (aBody.isLimitExceeded ())
+          sendError (aExchange,
+                     HTTP_PAYLOAD_TOO_LARGE,
+                     "The request body exceeds the maximum size of " + m_nMaxRequestSize + " bytes");
+        else
+          if (ex instanceof IllegalArgumentException)
+            sendError (aExchange, HTTP_BAD_REQUEST, ex.getMessage ());
+          else
+          {
+            LOGGER.error ("Error handling request to '" + aExchange.getRequestURI () + "'", ex);
+            sendError (aExchange, HTTP_INTERNAL_SERVER_ERROR, "Internal error processing the request");
+          }
+      }
+    }
+    finally
+    {
+      if (m_aConcurrencyLimit != null)
+        m_aConcurrencyLimit.release ();
+      aExchange.close ();
+    }
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.server;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.NotThreadSafe;
+
+/**
+ * An input stream that fails as soon as more than the allowed number of bytes were read. Because
+ * some XML parsers swallow the exception, the fact that the limit was exceeded is also remembered.
+ *
+ * @author Philip Helger
+ */
+@NotThreadSafe
+final class PeppolUAELimitedInputStream extends FilterInputStream
+{
+  private final long m_nMaxBytes;
+  private long m_nBytesRead = 0;
+  private boolean m_bLimitExceeded = false;
+
+  PeppolUAELimitedInputStream (@NonNull final InputStream aIS, @Nonnegative final long nMaxBytes)
+  {
+    super (aIS);
+    m_nMaxBytes = nMaxBytes;
+  }
+
+  private void _count (final long nBytes) throws IOException
+  {
+    if (nBytes > 0)
+    {
+      m_nBytesRead += nBytes;
+      if (m_nBytesRead > m_nMaxBytes)
+      {
+        m_bLimitExceeded = true;
+        throw new IOException ("The request body exceeds the maximum size of " + m_nMaxBytes + " bytes");
+      }
+    }
+  }
+
+  @Override
+  public int read () throws IOException
+  {
+    final int ret = super.read ();
+    if (ret >= 0)
+      _count (1);
+    return ret;
+  }
+
+  @Override
+  public int read (final byte [] aBuf, final int nOfs, final int nLen) throws IOException
+  {
+    final int ret = super.read (aBuf, nOfs, nLen);
+    _count (ret);
+    return ret;
+  }
+
+  @Override
+  public long skip (final long nBytes) throws IOException
+  {
+    final long ret = super.skip (nBytes);
+    _count (ret);
+    return ret;
+  }
+
+  @Override
+  public boolean markSupported ()
+  {
+    return false;
+  }
+
+  /**
+   * @return The number of bytes read so far.
+   */
+  @Nonnegative
+  long getBytesRead ()
+  {
+    return m_nBytesRead;
+  }
+
+  /**
+   * @return <code>true</code> if more than the allowed number of bytes were requested.
+   */
+  boolean isLimitExceeded ()
+  {
+    return m_bLimitExceeded;
+  }
+}
@@ -0,0 +1,348 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.server;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.peppol.uae.tdd.validate.EUAETDDSchematronVersion;
+import com.helger.peppol.uae.tdd.validate.PeppolUAETDDValidator;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An embedded HTTP service based on the HTTP server of the JDK, so that non-Java applications can
+ * share one warmed-up JVM to build and validate TDDs. It offers the following endpoints:
+ * <ul>
+ * <li><code>POST /tdd/build</code> - see {@link PeppolUAETDDBuildHandler}</li>
+ * <li><code>POST /tdd/validate</code> - see {@link PeppolUAETDDValidateHandler}</li>
+ * </ul>
+ * Each request is handled on its own virtual thread if the runtime supports them (Java 21+).
+ * Otherwise a cached thread pool is used. In both cases the number of requests processed at the
+ * same time is capped (see {@link #setMaxConcurrentRequests(int)}) and additional requests are
+ * rejected with HTTP 503.
+ *
+ * @author Philip Helger
+ */
+@ThreadSafe
+public final class PeppolUAEServer implements AutoCloseable
+{
+  public static final String PATH_BUILD = "/tdd/build";
+  public static final String PATH_VALIDATE = "/tdd/validate";
+
+  public static final int DEFAULT_PORT = 8080;
+  public static final long DEFAULT_MAX_REQUEST_SIZE = 10L * 1024 * 1024;
+  public static final int DEFAULT_STOP_DELAY_SECONDS = 2;
+  public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = Math.max (4, Runtime.getRuntime ().availableProcessors () * 4);
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (PeppolUAEServer.class);
+
+  private String m_sHost;
+  private int m_nPort = DEFAULT_PORT;
+  private long m_nMaxRequestSize = DEFAULT_MAX_REQUEST_SIZE;
+  private int m_nMaxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
+  private EUAETDDSchematronVersion m_eSchematronVersion = EUAETDDSchematronVersion.LATEST;
+  private HttpServer m_aServer;
+  private ExecutorService m_aExecutor;
+
+  public PeppolUAEServer ()
+  {}
+
+  /**
+   * Create an executor that runs each task on a new virtual thread. As the baseline of this
+   * project is Java 17, the factory method is looked up via reflection. If virtual threads are not
+   * available, a cached thread pool with daemon threads is returned.
+   *
+   * @return A new executor and never <code>null</code>.
+   */
+  @NonNull
+  public static ExecutorService createRequestExecutor ()
+  {
+    try
+    {
+      final Method aFactory = Executors.class.getMethod ("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) aFactory.invoke (null);
+    }
+    catch (final ReflectiveOperationException | RuntimeException ex)
+    {
+      LOGGER.info ("Virtual threads are not available - using a cached thread pool instead");
+      final AtomicInteger aCounter = new AtomicInteger (0);
+      return Executors.newCachedThreadPool (r -> {
+        final Thread ret = new Thread (r, "peppol-uae-server-" + aCounter.incrementAndGet ());
+        ret.setDaemon (true);
+        return ret;
+      });
+    }
+  }
+
+  private void _checkNotStarted ()
+  {
+    if (m_aServer != null)
+      throw new IllegalStateException ("The server is already started");
+  }
+
+  /**
+   * @return The host name to bind to. <code>null</code> means all interfaces.
+   */
+  @Nullable
+  public synchronized String getHost ()
+  {
+    return m_sHost;
+  }
+
+  /**
+   * @param sHost
+   *        The host name to bind to. May be <code>null</code> to bind to all interfaces.
+   * @return this for chaining
+   */
+  @NonNull
+  public synchronized PeppolUAEServer setHost (@Nullable final String sHost)
+  {
+    _checkNotStarted ();
+    m_sHost = sHost;
+    return this;
+  }
+
+  /**
+   * @return The configured port. 0 means that a free port is chosen on start.
+   * @see #getBoundPort()
+   */
+  @Nonnegative
+  public synchronized int getPort ()
+  {
+    return m_nPort;
+  }
+
+  /**
+   * @param nPort
+   *        The port to bind to. Must be &ge; 0. 0 means that a free port is chosen on start.
+   * @return this for chaining
+   */
+  @NonNull
+  public synchronized PeppolUAEServer setPort (@Nonnegative final int nPort)
+  {
+    ValueEnforcer.isBetweenInclusive (nPort, "Port", 0, 65535);
+    _checkNotStarted ();
+    m_nPort = nPort;
+    return this;
+  }
+
+  /**
+   * @return The maximum number of bytes accepted in a request body. Always &gt; 0.
+   */
+  @Nonnegative
+  public synchronized long getMaxRequestSize ()
+  {
+    return m_nMaxRequestSize;
+  }
+
+  /**
+   * @param nMaxRequestSize
+   *        The maximum number of bytes accepted in a request body. Must be &gt; 0. Larger requests
+   *        are rejected with HTTP 413.
+   * @return this for chaining
+   */
+  @NonNull
+  public synchronized PeppolUAEServer setMaxRequestSize (@Nonnegative final long nMaxRequestSize)
+  {
+    ValueEnforcer.isGT0 (nMaxRequestSize, "MaxRequestSize");
+    _checkNotStarted ();
+    m_nMaxRequestSize = nMaxRequestSize;
+    return this;
+  }
+
+  /**
+   * @return The maximum number of requests processed at the same time. Always &gt; 0.
+   */
+  @Nonnegative
+  public synchronized int getMaxConcurrentRequests ()
+  {
+    return m_nMaxConcurrentRequests;
+  }
+
+  /**
+   * @param nMaxConcurrentRequests
+   *        The maximum number of requests processed at the same time, shared by all endpoints. Must
+   *        be &gt; 0. Additional requests are not queued but rejected with HTTP 503, so that the
+   *        memory consumption stays bounded, also with virtual threads.
+   * @return this for chaining
+   */
+  @NonNull
+  public synchronized PeppolUAEServer setMaxConcurrentRequests (@Nonnegative final int nMaxConcurrentRequests)
+  {
+    ValueEnforcer.isGT0 (nMaxConcurrentRequests, "MaxConcurrentRequests");
+    _checkNotStarted ();
+    m_nMaxConcurrentRequests = nMaxConcurrentRequests;
+    return this;
+  }
+
+  /**
+   * @return The Schematron version used for validation if the request does not specify one. Never
+   *         <code>null</code>.
+   */
+  @NonNull
+  public synchronized EUAETDDSchematronVersion getSchematronVersion ()
+  {
+    return m_eSchematronVersion;
+  }
+
+  /**
+   * @param eSchematronVersion
+   *        The Schematron version used for validation if the request does not specify one. May not
+   *        be <code>null</code>. This version is compiled on startup.
+   * @return this for chaining
+   */
+  @NonNull
+  public synchronized PeppolUAEServer setSchematronVersion (@NonNull final EUAETDDSchematronVersion eSchematronVersion)
+  {
+    ValueEnforcer.notNull (eSchematronVersion, "SchematronVersion");
+    _checkNotStarted ();
+    m_eSchematronVersion = eSchematronVersion;
+    return this;
+  }
+
+  /**
+   * @return <code>true</code> if the server is started.
+   */
+  public synchronized boolean isStarted ()
+  {
+    return m_aServer != null;
+  }
+
+  /**
+   * @return The port the server is bound to. Only valid after {@link #start()}.
+   * @throws IllegalStateException
+   *         If the server is not started
+   */
+  @Nonnegative
+  public synchronized int getBoundPort ()
+  {
+    if (m_aServer == null)
+      throw new IllegalStateException ("The server is not started");
+    return m_aServer.getAddress ().getPort ();
+  }
+
+  /**
+   * Compile the default Schematron and start the server. Requests are only accepted once the
+   * Schematron is compiled, so that the first request does not pay the startup cost.
+   *
+   * @return this for chaining
+   * @throws IOException
+   *         If the server socket cannot be bound
+   * @throws IllegalStateException
+   *         If the server is already started
+   */
+  @NonNull
+  public synchronized PeppolUAEServer start () throws IOException
+  {
+    _checkNotStarted ();
+
+    final long nStart = System.nanoTime ();
+    PeppolUAETDDValidator.getSchematron (m_eSchematronVersion);
+    LOGGER.info ("Compiled Schematron " +
+                 m_eSchematronVersion.getID () +
+                 " in " +
+                 TimeUnit.NANOSECONDS.toMillis (System.nanoTime () - nStart) +
+                 " ms");
+
+    final InetSocketAddress aAddress = m_sHost != null ? new InetSocketAddress (m_sHost, m_nPort)
+                                                       : new InetSocketAddress (m_nPort);
+    final HttpServer aServer = HttpServer.create (aAddress, 0);
+    // One limit for all endpoints
+    final Semaphore aConcurrencyLimit = new Semaphore (m_nMaxConcurrentRequests);
+    aServer.createContext (PATH_BUILD, new PeppolUAETDDBuildHandler (m_nMaxRequestSize, aConcurrencyLimit));
+    aServer.createContext (PATH_VALIDATE,
+                           new PeppolUAETDDValidateHandler (m_nMaxRequestSize, m_eSchematronVersion, aConcurrencyLimit));
+    m_aExecutor = createRequestExecutor ();
+    aServer.setExecutor (m_aExecutor);
+    aServer.start ();
+    m_aServer = aServer;
+
+    LOGGER.info ("Peppol UAE server listening on " + aServer.getAddress ());
+    return this;
+  }
+
+  /**
+   * Stop the server if it is started. Requests in progress may finish within the provided delay.
+   *
+   * @param nDelaySeconds
+   *        The maximum number of seconds to wait for requests in progress. Must be &ge; 0.
+   */
+  public synchronized void stop (@Nonnegative final int nDelaySeconds)
+  {
+    ValueEnforcer.isGE0 (nDelaySeconds, "DelaySeconds");
+    if (m_aServer != null)
+    {
+      m_aServer.stop (nDelaySeconds);
+      m_aServer = null;
+      m_aExecutor.shutdown ();
+      m_aExecutor = null;
+      LOGGER.info ("Peppol UAE server stopped");
+    }
+  }
+
+  /**
+   * Stop the server with the default delay.
+   */
+  public void close ()
+  {
+    stop (DEFAULT_STOP_DELAY_SECONDS);
+  }
+
+  @Override
+  public synchronized String toString ()
+  {
+    return new ToStringGenerator (null).append ("Host", m_sHost)
+                                       .append ("Port", m_nPort)
+                                       .append ("MaxRequestSize", m_nMaxRequestSize)
+                                       .append ("MaxConcurrentRequests", m_nMaxConcurrentRequests)
+                                       .append ("SchematronVersion", m_eSchematronVersion)
+                                       .append ("Started", m_aServer != null)
+                                       .getToString ();
+  }
+
+  /**
+   * Start the server from the command line. The optional first argument is the port to listen on.
+   *
+   * @param args
+   *        Command line arguments
+   * @throws IOException
+   *         If the server cannot be started
+   */
+  public static void main (final String [] args) throws IOException
+  {
+    final PeppolUAEServer aServer = new PeppolUAEServer ();
+    if (args.length > 0)
+      aServer.setPort (Integer.parseInt (args[0]));
+    aServer.start ();
+    Runtime.getRuntime ().addShutdownHook (new Thread (aServer::close, "peppol-uae-server-shutdown"));
+  }
+}
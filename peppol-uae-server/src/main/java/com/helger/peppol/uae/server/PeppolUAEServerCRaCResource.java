@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.server;
+
+import org.crac.Context;
+import org.crac.Core;
+import org.crac.Resource;
+import org.jspecify.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.peppol.uae.tdd.PeppolUAETDDClock;
+
+/**
+ * A CRaC resource that makes a {@link PeppolUAEServer} survive a checkpoint and restore. Open
+ * sockets are not allowed in a checkpoint, so the server is stopped before and started again after
+ * the restore. The compiled Schematrons and the JAXB contexts are kept. Upon restore, the default
+ * time zone is determined again via {@link PeppolUAETDDClock#refreshDefaultZone(boolean)}, while a
+ * custom clock is kept.<br>
+ * CRaC only keeps weak references to the registered resources, so the caller must keep a reference
+ * to the object returned by {@link #register(PeppolUAEServer)}.
+ *
+ * @author Philip Helger
+ */
+@ThreadSafe
+public final class PeppolUAEServerCRaCResource implements Resource
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (PeppolUAEServerCRaCResource.class);
+
+  private final PeppolUAEServer m_aServer;
+  private volatile boolean m_bRestart = false;
+  private volatile boolean m_bDetectZoneFromOS = false;
+
+  public PeppolUAEServerCRaCResource (@NonNull final PeppolUAEServer aServer)
+  {
+    ValueEnforcer.notNull (aServer, "Server");
+    m_aServer = aServer;
+  }
+
+  /**
+   * @return The server handled by this resource. Never <code>null</code>.
+   */
+  @NonNull
+  public PeppolUAEServer getServer ()
+  {
+    return m_aServer;
+  }
+
+  /**
+   * @return <code>true</code> if the default time zone is detected from the operating system upon
+   *         restore, <code>false</code> if it is taken from the <code>user.timezone</code> system
+   *         property. Default is <code>false</code>.
+   */
+  public boolean isDetectZoneFromOS ()
+  {
+    return m_bDetectZoneFromOS;
+  }
+
+  /**
+   * @param bDetectZoneFromOS
+   *        <code>true</code> to detect the default time zone from the operating system upon
+   *        restore, ignoring the <code>user.timezone</code> system property of the snapshot.
+   * @return this for chaining
+   */
+  @NonNull
+  public PeppolUAEServerCRaCResource setDetectZoneFromOS (final boolean bDetectZoneFromOS)
+  {
+    m_bDetectZoneFromOS = bDetectZoneFromOS;
+    return this;
+  }
+
+  public void beforeCheckpoint (@NonNull final Context <? extends Resource> aContext) throws Exception
+  {
+    m_bRestart = m_aServer.isStarted ();
+    if (m_bRestart)
+    {
+      LOGGER.info ("Stopping the server for the checkpoint");
+      m_aServer.stop (0);
+    }
+  }
+
+  public void afterRestore (@NonNull final Context <? extends Resource> aContext) throws Exception
+  {
+    // The default zone of the snapshot may differ from the one of the restoring environment
+    PeppolUAETDDClock.refreshDefaultZone (m_bDetectZoneFromOS);
+    if (m_bRestart)
+    {
+      LOGGER.info ("Starting the server after the restore");
+      m_aServer.start ();
+    }
+  }
+
+  /**
+   * Create a resource for the provided server and register it in the global CRaC context.
+   *
+   * @param aServer
+   *        The server to handle. May not be <code>null</code>.
+   * @return The registered resource. Keep a reference to it as long as the server is used.
+   */
+  @NonNull
+  public static PeppolUAEServerCRaCResource register (@NonNull final PeppolUAEServer aServer)
+  {
+    final PeppolUAEServerCRaCResource ret = new PeppolUAEServerCRaCResource (aServer);
+    Core.getGlobalContext ().register (ret);
+    return ret;
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.server;
+
+import java.io.InputStream;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.w3c.dom.Document;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.string.StringHelper;
+import com.helger.collection.commons.ICommonsMap;
+import com.helger.peppol.uae.tdd.PeppolUAETDD10Builder;
+import com.helger.peppol.uae.tdd.codelist.EUAETDDDocumentScope;
+import com.helger.peppol.uae.tdd.codelist.EUAETDDDocumentTypeCode;
+import com.helger.peppol.uae.tdd.codelist.EUAETDDReporterRole;
+import com.helger.peppol.uae.tdd.jaxb.PeppolUAETDD10Marshaller;
+import com.helger.peppol.uae.tdd.v100.TaxDataType;
+import com.helger.peppolid.IParticipantIdentifier;
+import com.helger.peppolid.factory.PeppolIdentifierFactory;
+import com.helger.ubl21.UBL21Marshaller;
+import com.helger.xml.serialize.read.DOMReader;
+import com.sun.net.httpserver.HttpExchange;
+
+import oasis.names.specification.ubl.schema.xsd.creditnote_21.CreditNoteType;
+import oasis.names.specification.ubl.schema.xsd.invoice_21.InvoiceType;
+
+/**
+ * Handler for <code>POST /tdd/build</code>. The request body is a UBL 2.1 Invoice or CreditNote and
+ * the response body is the created TDD. The TDD header fields are provided as query parameters:
+ * <ul>
+ * <li><code>reportingParty</code>, <code>receivingParty</code> and
+ * <code>reportersRepresentative</code> - mandatory Peppol participant IDs without the scheme (e.g.
+ * <code>0235:1234567890</code>)</li>
+ * <li><code>documentTypeCode</code> - optional code list ID, defaults to <code>S</code></li>
+ * <li><code>documentScope</code> - optional code list ID, defaults to <code>D</code></li>
+ * <li><code>reporterRole</code> - optional code list ID, defaults to <code>01</code></li>
+ * <li><code>transportHeaderID</code> - optional, defaults to a random UUID</li>
+ * </ul>
+ *
+ * @author Philip Helger
+ */
+@ThreadSafe
+public class PeppolUAETDDBuildHandler extends AbstractPeppolUAEHandler
+{
+  public static final String PARAM_DOCUMENT_TYPE_CODE = "documentTypeCode";
+  public static final String PARAM_DOCUMENT_SCOPE = "documentScope";
+  public static final String PARAM_REPORTER_ROLE = "reporterRole";
+  public static final String PARAM_REPORTING_PARTY = "reportingParty";
+  public static final String PARAM_RECEIVING_PARTY = "receivingParty";
+  public static final String PARAM_REPORTERS_REPRESENTATIVE = "reportersRepresentative";
+  public static final String PARAM_TRANSPORT_HEADER_ID = "transportHeaderID";
+
+  /** The response header containing the used TransportHeaderID */
+  public static final String HEADER_TRANSPORT_HEADER_ID = "X-TDD-Transport-Header-ID";
+
+  public PeppolUAETDDBuildHandler (@Nonnegative final long nMaxRequestSize)
+  {
+    this (nMaxRequestSize, null);
+  }
+
+  public PeppolUAETDDBuildHandler (@Nonnegative final long nMaxRequestSize,
+                                   @Nullable final Semaphore aConcurrencyLimit)
+  {
+    super (nMaxRequestSize, aConcurrencyLimit);
+  }
+
+  @NonNull
+  private static <T> T _getEnum (@NonNull final ICommonsMap <String, String> aParams,
+                                 @NonNull final String sName,
+                                 @NonNull final Function <String, T> aResolver,
+                                 @NonNull final T aDefault)
+  {
+    final String sValue = aParams.get (sName);
+    if (StringHelper.isEmpty (sValue))
+      return aDefault;
+    final T ret = aResolver.apply (sValue);
+    if (ret == null)
+      throw new IllegalArgumentException ("Invalid value '" + sValue + "' for query parameter '" + sName + "'");
+    return ret;
+  }
+
+  @NonNull
+  private static IParticipantIdentifier _getParticipant (@NonNull final ICommonsMap <String, String> aParams,
+                                                         @NonNull final String sName)
+  {
+    final String sValue = aParams.get (sName);
+    if (StringHelper.isEmpty (sValue))
+      throw new IllegalArgumentException ("Missing query parameter '" + sName + "'");
+    final IParticipantIdentifier ret = PeppolIdentifierFactory.INSTANCE.createParticipantIdentifierWithDefaultScheme (sValue);
+    if (ret == null)
+      throw new IllegalArgumentException ("Invalid participant ID '" + sValue + "' for query parameter '" + sName + "'");
+    return ret;
+  }
+
+  @NonNull
+  private static String _getTransportHeaderID (@NonNull final ICommonsMap <String, String> aParams)
+  {
+    final String sValue = aParams.get (PARAM_TRANSPORT_HEADER_ID);
+    return StringHelper.isEmpty (sValue) ? UUID.randomUUID ().toString () : sValue;
+  }
+
+  @Override
+  protected void handlePost (@NonNull final HttpExchange aExchange,
+                             @NonNull final InputStream aBody,
+                             @NonNull final ICommonsMap <String, String> aParams) throws Exception
+  {
+    // Check all parameters before the body is read
+    final String sTransportHeaderID = _getTransportHeaderID (aParams);
+    final PeppolUAETDD10Builder aBuilder = new PeppolUAETDD10Builder ().documentTypeCode (_getEnum (aParams,
+                                                                                                   PARAM_DOCUMENT_TYPE_CODE,
+                                                                                                   EUAETDDDocumentTypeCode::getFromIDOrNull,
+                                                                                                   EUAETDDDocumentTypeCode.SUBMIT))
+                                                                       .documentScope (_getEnum (aParams,
+                                                                                                 PARAM_DOCUMENT_SCOPE,
+                                                                                                 EUAETDDDocumentScope::getFromIDOrNull,
+                                                                                                 EUAETDDDocumentScope.DOMESTIC))
+                                                                       .reporterRole (_getEnum (aParams,
+                                                                                                PARAM_REPORTER_ROLE,
+                                                                                                EUAETDDReporterRole::getFromIDOrNull,
+                                                                                                EUAETDDReporterRole.SENDER))
+                                                                       .reportingParty (_getParticipant (aParams,
+                                                                                                         PARAM_REPORTING_PARTY))
+                                                                       .receivingParty (_getParticipant (aParams,
+                                                                                                         PARAM_RECEIVING_PARTY))
+                                                                       .reportersRepresentative (_getParticipant (aParams,
+                                                                                                                  PARAM_REPORTERS_REPRESENTATIVE));
+
+    // Parse directly from the request stream
+    final Document aDoc = DOMReader.readXMLDOM (aBody);
+    if (aDoc == null)
+      throw new IllegalArgumentException ("The request body is not well-formed XML");
+
+    final String sRootName = aDoc.getDocumentElement ().getLocalName ();
+    if ("Invoice".equals (sRootName))
+    {
+      final InvoiceType aInvoice = UBL21Marshaller.invoice ().read (aDoc);
+      if (aInvoice == null)
+        throw new IllegalArgumentException ("The request body is not a valid UBL 2.1 Invoice");
+      aBuilder.reportedTransaction (rt -> rt.transportHeaderID (sTransportHeaderID).initFromInvoice (aInvoice));
+    }
+    else
+      if ("CreditNote".equals (sRootName))
+      {
+        final CreditNoteType aCreditNote = UBL21Marshaller.creditNote ().read (aDoc);
+        if (aCreditNote == null)
+          throw new IllegalArgumentException ("The request body is not a valid UBL 2.1 CreditNote");
+        aBuilder.reportedTransaction (rt -> rt.transportHeaderID (sTransportHeaderID).initFromCreditNote (aCreditNote));
+      }
+      else
+        throw new IllegalArgumentException ("Unsupported root element '" + sRootName + "'");
+
+    final TaxDataType aTDD = aBuilder.build ();
+    if (aTDD == null)
+      throw new IllegalArgumentException ("Failed to build the TDD, because mandatory fields are missing in the source document");
+
+    final byte [] aBytes = new PeppolUAETDD10Marshaller ().getAsBytes (aTDD);
+    if (aBytes == null)
+      throw new IllegalStateException ("Failed to serialize the created TDD");
+
+    aExchange.getResponseHeaders ().set (HEADER_TRANSPORT_HEADER_ID, sTransportHeaderID);
+    sendResponse (aExchange, HTTP_OK, CONTENT_TYPE_XML, aBytes);
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.server;
+
+import java.io.InputStream;
+import java.util.concurrent.Semaphore;
+
+import javax.xml.transform.TransformerException;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.w3c.dom.Document;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.string.StringHelper;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.collection.commons.ICommonsMap;
+import com.helger.json.JsonArray;
+import com.helger.json.JsonObject;
+import com.helger.peppol.uae.tdd.validate.EUAETDDSchematronVersion;
+import com.helger.peppol.uae.tdd.validate.PeppolUAETDDFailedAssertion;
+import com.helger.peppol.uae.tdd.validate.PeppolUAETDDValidator;
+import com.helger.xml.serialize.read.DOMReader;
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * Handler for <code>POST /tdd/validate</code>. The request body is a TDD and the response is a JSON
+ * object with the failed assertions. The request body is parsed with the XXE-safe default settings
+ * of {@link DOMReader} and the resulting DOM is validated. The optional query parameter
+ * <code>version</code> selects the Schematron version (e.g. <code>1.0.4</code>).
+ *
+ * @author Philip Helger
+ */
+@ThreadSafe
+public class PeppolUAETDDValidateHandler extends AbstractPeppolUAEHandler
+{
+  public static final String PARAM_VERSION = "version";
+
+  private final EUAETDDSchematronVersion m_eDefaultVersion;
+
+  public PeppolUAETDDValidateHandler (@Nonnegative final long nMaxRequestSize,
+                                      @NonNull final EUAETDDSchematronVersion eDefaultVersion)
+  {
+    this (nMaxRequestSize, eDefaultVersion, null);
+  }
+
+  public PeppolUAETDDValidateHandler (@Nonnegative final long nMaxRequestSize,
+                                      @NonNull final EUAETDDSchematronVersion eDefaultVersion,
+                                      @Nullable final Semaphore aConcurrencyLimit)
+  {
+    super (nMaxRequestSize, aConcurrencyLimit);
+    ValueEnforcer.notNull (eDefaultVersion, "DefaultVersion");
+    m_eDefaultVersion = eDefaultVersion;
+  }
+
+  /**
+   * @return The Schematron version used if no version is provided in the request. Never
+   *         <code>null</code>.
+   */
+  @NonNull
+  public final EUAETDDSchematronVersion getDefaultVersion ()
+  {
+    return m_eDefaultVersion;
+  }
+
+  @Override
+  protected void handlePost (@NonNull final HttpExchange aExchange,
+                             @NonNull final InputStream aBody,
+                             @NonNull final ICommonsMap <String, String> aParams) throws Exception
+  {
+    final String sVersion = aParams.get (PARAM_VERSION);
+    final EUAETDDSchematronVersion eVersion;
+    if (StringHelper.isEmpty (sVersion))
+      eVersion = m_eDefaultVersion;
+    else
+    {
+      eVersion = EUAETDDSchematronVersion.getFromIDOrNull (sVersion);
+      if (eVersion == null)
+        throw new IllegalArgumentException ("Unsupported Schematron version '" + sVersion + "'");
+    }
+
+    // Parse directly from the request stream without resolving external entities
+    final Document aDoc = DOMReader.readXMLDOM (aBody);
+    if (aDoc == null)
+      throw new IllegalArgumentException ("The request body is not well-formed XML");
+
+    final ICommonsList <PeppolUAETDDFailedAssertion> aFailedAssertions = new CommonsArrayList <> ();
+    try
+    {
+      PeppolUAETDDValidator.validate (PeppolUAETDDValidator.getSchematron (eVersion), aDoc, aFailedAssertions::add);
+    }
+    catch (final TransformerException ex)
+    {
+      // The Schematron itself is precompiled, so this is caused by the request body
+      throw new IllegalArgumentException ("The request body could not be validated: " + ex.getMessage (), ex);
+    }
+
+    sendJson (aExchange,
+              HTTP_OK,
+              new JsonObject ().add ("version", eVersion.getID ())
+                               .add ("valid", aFailedAssertions.isEmpty ())
+                               .add ("failedAssertionCount", aFailedAssertions.size ())
+                               .add ("failedAssertions",
+                                     new JsonArray ().addAllMapped (aFailedAssertions,
+                                                                    AbstractPeppolUAEHandler::getAsJson)));
+  }
+}
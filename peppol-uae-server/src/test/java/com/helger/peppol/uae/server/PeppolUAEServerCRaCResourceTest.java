@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.server;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Clock;
+
+import org.crac.Core;
+import org.junit.Test;
+
+import com.helger.peppol.uae.tdd.PeppolUAETDDClock;
+
+/**
+ * Test class for class {@link PeppolUAEServerCRaCResource}.
+ *
+ * @author Philip Helger
+ */
+public final class PeppolUAEServerCRaCResourceTest
+{
+  @Test
+  public void testCheckpointRestore () throws Exception
+  {
+    try (final PeppolUAEServer aServer = new PeppolUAEServer ().setHost ("localhost").setPort (0).start ())
+    {
+      final PeppolUAEServerCRaCResource aResource = PeppolUAEServerCRaCResource.register (aServer);
+
+      // Simulate the checkpoint
+      aResource.beforeCheckpoint (Core.getGlobalContext ());
+      assertFalse (aServer.isStarted ());
+
+      final Clock aClock = Clock.systemUTC ();
+      PeppolUAETDDClock.setCustomClock (aClock);
+
+      // Simulate the restore
+      aResource.afterRestore (Core.getGlobalContext ());
+      assertTrue (aServer.isStarted ());
+      // A configured clock is kept
+      assertSame (aClock, PeppolUAETDDClock.getCustomClock ());
+    }
+    finally
+    {
+      PeppolUAETDDClock.setCustomClock (null);
+    }
+  }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.helger.base.io.stream.StreamHelper;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.io.resource.ClassPathResource;
+import com.helger.peppol.uae.tdd.jaxb.PeppolUAETDD10Marshaller;
+import com.helger.peppol.uae.tdd.testfiles.PeppolUAETestFiles;
+import com.helger.peppol.uae.tdd.v100.TaxDataType;
+import com.helger.peppol.uae.tdd.validate.EUAETDDSchematronVersion;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Test class for class {@link PeppolUAEServer}.
+ *
+ * @author Philip Helger
+ */
+public final class PeppolUAEServerTest
+{
+  private static final String BUILD_PARAMS = "?reportingParty=0235:c1id&receivingParty=0242:c5id&reportersRepresentative=0242:987654";
+  private static final long MAX_REQUEST_SIZE = 1024 * 1024;
+
+  private static PeppolUAEServer s_aServer;
+  private static HttpClient s_aClient;
+
+  @Rule
+  public final TemporaryFolder m_aTempFolder = new TemporaryFolder ();
+
+  @BeforeClass
+  public static void beforeClass () throws Exception
+  {
+    s_aServer = new PeppolUAEServer ().setHost ("localhost").setPort (0).setMaxRequestSize (MAX_REQUEST_SIZE).start ();
+    s_aClient = HttpClient.newHttpClient ();
+  }
+
+  @AfterClass
+  public static void afterClass ()
+  {
+    s_aServer.stop (0);
+  }
+
+  private static HttpResponse <byte []> _post (final String sPath, final byte [] aBody) throws Exception
+  {
+    return s_aClient.send (HttpRequest.newBuilder (URI.create ("http://localhost:" + s_aServer.getBoundPort () + sPath))
+                                      .POST (HttpRequest.BodyPublishers.ofByteArray (aBody))
+                                      .build (),
+                           HttpResponse.BodyHandlers.ofByteArray ());
+  }
+
+  @Test
+  public void testBuildAndValidate () throws Exception
+  {
+    final ICommonsList <ClassPathResource> aSources = new CommonsArrayList <> ();
+    aSources.addAll (PeppolUAETestFiles.getAllGoodBillingInvoiceFiles ());
+    aSources.addAll (PeppolUAETestFiles.getAllGoodBillingCreditNoteFiles ());
+    for (final ClassPathResource aRes : aSources)
+    {
+      final HttpResponse <byte []> aBuildResp = _post (PeppolUAEServer.PATH_BUILD +
+                                                       BUILD_PARAMS +
+                                                       "&transportHeaderID=my-sbdh-uuid-12345678",
+                                                       StreamHelper.getAllBytes (aRes));
+      assertEquals (aRes.getPath (), 200, aBuildResp.statusCode ());
+      assertEquals ("my-sbdh-uuid-12345678",
+                    aBuildResp.headers ().firstValue (PeppolUAETDDBuildHandler.HEADER_TRANSPORT_HEADER_ID).orElse (null));
+      final TaxDataType aTDD = new PeppolUAETDD10Marshaller ().read (aBuildResp.body ());
+      assertNotNull (aTDD);
+
+      final HttpResponse <byte []> aValidateResp = _post (PeppolUAEServer.PATH_VALIDATE, aBuildResp.body ());
+      assertEquals (200, aValidateResp.statusCode ());
+      final String sJson = new String (aValidateResp.body (), StandardCharsets.UTF_8);
+      assertTrue (sJson, sJson.contains ("\"valid\":true"));
+    }
+  }
+
+  @Test
+  public void testValidateBad () throws Exception
+  {
+    final ClassPathResource aRes = PeppolUAETestFiles.getAllSchematronBadTDD10Files ().getFirstOrNull ();
+    final HttpResponse <byte []> aResp = _post (PeppolUAEServer.PATH_VALIDATE + "?version=1.0.4",
+                                                StreamHelper.getAllBytes (aRes));
+    assertEquals (200, aResp.statusCode ());
+    final String sJson = new String (aResp.body (), StandardCharsets.UTF_8);
+    assertTrue (sJson, sJson.contains ("\"valid\":false"));
+  }
+
+  @Test
+  public void testValidateExternalEntity () throws Exception
+  {
+    final Path aSecret = m_aTempFolder.newFile ().toPath ();
+    Files.write (aSecret, "xxe-secret-content".getBytes (StandardCharsets.UTF_8));
+
+    final String sTDD = new String (StreamHelper.getAllBytes (PeppolUAETestFiles.getAllGoodTDD10Files ()
+                                                                                .getFirstOrNull ()),
+                                    StandardCharsets.UTF_8);
+    final String sPayload = sTDD.replace ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>",
+                                          "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<!DOCTYPE x [<!ENTITY e SYSTEM \"" +
+                                                                                           aSecret.toUri () +
+                                                                                           "\">]>")
+                                .replaceFirst ("<pxs:DocumentTypeCode>[^<]*</pxs:DocumentTypeCode>",
+                                               "<pxs:DocumentTypeCode>&e;</pxs:DocumentTypeCode>");
+    assertTrue (sPayload.contains ("&e;"));
+
+    final HttpResponse <byte []> aResp = _post (PeppolUAEServer.PATH_VALIDATE,
+                                                sPayload.getBytes (StandardCharsets.UTF_8));
+    final String sBody = new String (aResp.body (), StandardCharsets.UTF_8);
+    // Either rejected or validated without the entity - but never resolved
+    assertTrue (sBody, aResp.statusCode () == 200 || aResp.statusCode () == 400);
+    assertFalse (sBody, sBody.contains ("xxe-secret-content"));
+  }
+
+  @Test
+  public void testErrors () throws Exception
+  {
+    final byte [] aInvoice = StreamHelper.getAllBytes (PeppolUAETestFiles.getAllGoodBillingInvoiceFiles ()
+                                                                         .getFirstOrNull ());
+
+    // Missing parameters
+    assertEquals (400, _post (PeppolUAEServer.PATH_BUILD, aInvoice).statusCode ());
+    // Invalid code
+    assertEquals (400, _post (PeppolUAEServer.PATH_BUILD + BUILD_PARAMS + "&documentScope=XX", aInvoice).statusCode ());
+    // Unknown version
+    assertEquals (400, _post (PeppolUAEServer.PATH_VALIDATE + "?version=9.9.9", aInvoice).statusCode ());
+    // Not XML
+    assertEquals (400, _post (PeppolUAEServer.PATH_BUILD + BUILD_PARAMS, "no xml".getBytes (StandardCharsets.UTF_8)).statusCode ());
+    assertEquals (400, _post (PeppolUAEServer.PATH_VALIDATE, "no xml".getBytes (StandardCharsets.UTF_8)).statusCode ());
+
+    // Wrong method
+    final HttpResponse <byte []> aResp = s_aClient.send (HttpRequest.newBuilder (URI.create ("http://localhost:" +
+                                                                                            s_aServer.getBoundPort () +
+                                                                                            PeppolUAEServer.PATH_VALIDATE))
+                                                                    .GET ()
+                                                                    .build (),
+                                                         HttpResponse.BodyHandlers.ofByteArray ());
+    assertEquals (405, aResp.statusCode ());
+  }
+
+  @Test
+  public void testTooLarge () throws Exception
+  {
+    // Small limit, so that the server can drain the rejected body
+    try (final PeppolUAEServer aServer = new PeppolUAEServer ().setHost ("localhost")
+                                                               .setPort (0)
+                                                               .setMaxRequestSize (1000)
+                                                               .start ())
+    {
+      final URI aURI = URI.create ("http://localhost:" + aServer.getBoundPort () + PeppolUAEServer.PATH_VALIDATE);
+
+      // Rejected based on the Content-Length
+      HttpResponse <byte []> aResp = s_aClient.send (HttpRequest.newBuilder (aURI)
+                                                                .POST (HttpRequest.BodyPublishers.ofByteArray (new byte [1001]))
+                                                                .build (),
+                                                     HttpResponse.BodyHandlers.ofByteArray ());
+      assertEquals (413, aResp.statusCode ());
+
+      // Chunked without Content-Length - rejected while reading
+      final byte [] aTDD = StreamHelper.getAllBytes (PeppolUAETestFiles.getAllGoodTDD10Files ().getFirstOrNull ());
+      assertTrue (aTDD.length > 1000);
+      aResp = s_aClient.send (HttpRequest.newBuilder (aURI)
+                                         .POST (HttpRequest.BodyPublishers.ofInputStream ( () -> new ByteArrayInputStream (aTDD)))
+                                         .build (),
+                              HttpResponse.BodyHandlers.ofByteArray ());
+      assertEquals (413, aResp.statusCode ());
+    }
+  }
+
+  @Test
+  public void testConcurrencyLimit () throws Exception
+  {
+    final Semaphore aLimit = new Semaphore (1);
+    final HttpServer aServer = HttpServer.create (new InetSocketAddress ("localhost", 0), 0);
+    aServer.createContext (PeppolUAEServer.PATH_VALIDATE,
+                           new PeppolUAETDDValidateHandler (MAX_REQUEST_SIZE, EUAETDDSchematronVersion.LATEST, aLimit));
+    aServer.start ();
+    try
+    {
+      final URI aURI = URI.create ("http://localhost:" + aServer.getAddress ().getPort () + PeppolUAEServer.PATH_VALIDATE);
+      final byte [] aTDD = StreamHelper.getAllBytes (PeppolUAETestFiles.getAllGoodTDD10Files ().getFirstOrNull ());
+
+      // Simulate a request in progress
+      aLimit.acquire ();
+      HttpResponse <byte []> aResp = s_aClient.send (HttpRequest.newBuilder (aURI)
+                                                                .POST (HttpRequest.BodyPublishers.ofByteArray (aTDD))
+                                                                .build (),
+                                                     HttpResponse.BodyHandlers.ofByteArray ());
+      assertEquals (503, aResp.statusCode ());
+      assertEquals ("1", aResp.headers ().firstValue ("Retry-After").orElse (null));
+
+      // Accepted again after the permit is released
+      aLimit.release ();
+      aResp = s_aClient.send (HttpRequest.newBuilder (aURI).POST (HttpRequest.BodyPublishers.ofByteArray (aTDD)).build (),
+                              HttpResponse.BodyHandlers.ofByteArray ());
+      assertEquals (200, aResp.statusCode ());
+      assertEquals (1, aLimit.availablePermits ());
+    }
+    finally
+    {
+      aServer.stop (0);
+    }
+  }
+
+  @Test
+  public void testRequestExecutor () throws Exception
+  {
+    final ExecutorService aExecutor = PeppolUAEServer.createRequestExecutor ();
+    try
+    {
+      assertEquals ("x", aExecutor.submit ( () -> "x").get ());
+    }
+    finally
+    {
+      aExecutor.shutdown ();
+    }
+  }
+}
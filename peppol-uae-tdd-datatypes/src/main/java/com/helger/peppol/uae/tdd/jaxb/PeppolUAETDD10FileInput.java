@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.jaxb;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+
+/**
+ * Helper class to provide the content of local TDD files as an {@link InputStream} with as little
+ * overhead as possible. Small files are read completely into a buffer taken from a bounded pool,
+ * so that no per-file allocation is needed. Large files are read with a plain buffered stream, so
+ * that neither the heap nor the address space grows with the file size. Large files are not
+ * memory-mapped, because a mapping is only released by the garbage collector and many large files
+ * would otherwise pile up unreleased mappings.<br>
+ * The stream is only valid while the callback is running and must not be retained.
+ *
+ * @author Philip Helger
+ */
+@ThreadSafe
+public final class PeppolUAETDD10FileInput
+{
+  /**
+   * A function on the file content.
+   *
+   * @author Philip Helger
+   * @param <T>
+   *        Return type
+   * @param <EX>
+   *        Exception type
+   */
+  @FunctionalInterface
+  public interface IInputStreamFunction <T, EX extends Exception>
+  {
+    /**
+     * @param aIS
+     *        The stream on the file content. Must not be closed. Never <code>null</code>.
+     * @param nSize
+     *        The size of the file in bytes.
+     * @return The result of the function.
+     * @throws EX
+     *         If needed
+     */
+    T apply (@NonNull InputStream aIS, @Nonnegative long nSize) throws EX;
+  }
+
+  /** Files smaller than this are read completely into a pooled buffer */
+  public static final int BUFFER_THRESHOLD = 256 * 1024;
+
+  /** The maximum number of buffers that are kept in the pool */
+  public static final int MAX_POOLED_BUFFERS = Math.max (4, Runtime.getRuntime ().availableProcessors () * 2);
+
+  private static final int INITIAL_BUFFER_SIZE = 16 * 1024;
+  private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+  // At most MAX_POOLED_BUFFERS * BUFFER_THRESHOLD bytes are retained
+  private static final BlockingQueue <ByteBuffer> POOL = new ArrayBlockingQueue <> (MAX_POOLED_BUFFERS);
+
+  private PeppolUAETDD10FileInput ()
+  {}
+
+  /**
+   * An {@link InputStream} on a {@link ByteBuffer} that does not copy the buffer content.
+   *
+   * @author Philip Helger
+   */
+  private static final class ByteBufferInputStream extends InputStream
+  {
+    private final ByteBuffer m_aBuffer;
+
+    ByteBufferInputStream (@NonNull final ByteBuffer aBuffer)
+    {
+      m_aBuffer = aBuffer;
+    }
+
+    @Override
+    public int read ()
+    {
+      return m_aBuffer.hasRemaining () ? m_aBuffer.get () & 0xff : -1;
+    }
+
+    @Override
+    public int read (@NonNull final byte [] aBuf, final int nOfs, final int nLen)
+    {
+      if (nLen == 0)
+        return 0;
+      if (!m_aBuffer.hasRemaining ())
+        return -1;
+      final int nRead = Math.min (nLen, m_aBuffer.remaining ());
+      m_aBuffer.get (aBuf, nOfs, nRead);
+      return nRead;
+    }
+
+    @Override
+    public long skip (final long n)
+    {
+      final int nSkip = (int) Math.max (0, Math.min (n, m_aBuffer.remaining ()));
+      m_aBuffer.position (m_aBuffer.position () + nSkip);
+      return nSkip;
+    }
+
+    @Override
+    public int available ()
+    {
+      return m_aBuffer.remaining ();
+    }
+  }
+
+  @NonNull
+  private static ByteBuffer _borrowBuffer (@Nonnegative final int nSize)
+  {
+    final ByteBuffer aBuffer = POOL.poll ();
+    if (aBuffer != null && aBuffer.capacity () >= nSize)
+      return aBuffer;
+
+    // Grow, but never beyond the threshold
+    final int nCapacity = aBuffer == null ? INITIAL_BUFFER_SIZE : aBuffer.capacity () * 2;
+    return ByteBuffer.allocate (Math.max (nSize, Math.min (nCapacity, BUFFER_THRESHOLD)));
+  }
+
+  private static void _returnBuffer (@NonNull final ByteBuffer aBuffer)
+  {
+    // Dropped if the pool is full
+    POOL.offer (aBuffer);
+  }
+
+  /**
+   * @return The number of buffers currently in the pool. Mainly for testing.
+   */
+  @Nonnegative
+  public static int getPooledBufferCount ()
+  {
+    return POOL.size ();
+  }
+
+  /**
+   * Invoke the provided function with the content of the provided file.
+   *
+   * @param <T>
+   *        Return type
+   * @param <EX>
+   *        Exception type of the function
+   * @param aPath
+   *        The file to read. May not be <code>null</code>.
+   * @param aFunction
+   *        The function to invoke with the file content. The stream passed in must not be used
+   *        after the function returned. May not be <code>null</code>.
+   * @return The result of the function.
+   * @throws IOException
+   *         If the file cannot be read
+   * @throws EX
+   *         If the function throws it
+   */
+  public static <T, EX extends Exception> T apply (@NonNull final Path aPath,
+                                                   @NonNull final IInputStreamFunction <T, EX> aFunction) throws IOException, EX
+  {
+    ValueEnforcer.notNull (aPath, "Path");
+    ValueEnforcer.notNull (aFunction, "Function");
+
+    try (final FileChannel aChannel = FileChannel.open (aPath, StandardOpenOption.READ))
+    {
+      final long nSize = aChannel.size ();
+      if (nSize >= BUFFER_THRESHOLD)
+      {
+        // The channel is closed by the outer try
+        return aFunction.apply (new BufferedInputStream (Channels.newInputStream (aChannel), STREAM_BUFFER_SIZE),
+                                nSize);
+      }
+
+      final ByteBuffer aBuffer = _borrowBuffer ((int) nSize);
+      try
+      {
+        aBuffer.clear ();
+        aBuffer.limit ((int) nSize);
+        while (aBuffer.hasRemaining ())
+          if (aChannel.read (aBuffer) < 0)
+            break;
+        aBuffer.flip ();
+        return aFunction.apply (new ByteBufferInputStream (aBuffer), aBuffer.remaining ());
+      }
+      finally
+      {
+        _returnBuffer (aBuffer);
+      }
+    }
+  }
+}
@@ -0,0 +1,537 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.jaxb;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.ICommonsList;
+
+/**
+ * The header information of a Peppol UAE TDD 1.0, as read by {@link PeppolUAETDD10HeaderReader}.
+ * It contains everything except the embedded source documents. All values are contained as they
+ * appear in the XML (trimmed), and no validation is performed.
+ *
+ * @author Philip Helger
+ */
+@Immutable
+public final class PeppolUAETDD10Header
+{
+  /**
+   * An amount with its currency.
+   *
+   * @author Philip Helger
+   */
+  @Immutable
+  public static final class Amount
+  {
+    private final BigDecimal m_aValue;
+    private final String m_sCurrencyID;
+
+    Amount (@Nullable final BigDecimal aValue, @Nullable final String sCurrencyID)
+    {
+      m_aValue = aValue;
+      m_sCurrencyID = sCurrencyID;
+    }
+
+    /**
+     * @return The amount value. May be <code>null</code> if it is not a valid number.
+     */
+    @Nullable
+    public BigDecimal getValue ()
+    {
+      return m_aValue;
+    }
+
+    @Nullable
+    public String getCurrencyID ()
+    {
+      return m_sCurrencyID;
+    }
+
+    @Override
+    public String toString ()
+    {
+      return new ToStringGenerator (null).append ("Value", m_aValue)
+                                         .append ("CurrencyID", m_sCurrencyID)
+                                         .getToString ();
+    }
+  }
+
+  /**
+   * The header information of a single ReportedTransaction.
+   *
+   * @author Philip Helger
+   */
+  @Immutable
+  public static final class ReportedTransaction
+  {
+    private final String m_sTransportHeaderID;
+    private final boolean m_bHasReportedDocument;
+    private final String m_sCustomizationID;
+    private final String m_sProfileID;
+    private final String m_sID;
+    private final String m_sUUID;
+    private final String m_sIssueDate;
+    private final String m_sDocumentTypeCode;
+    private final String m_sDocumentCurrencyCode;
+    private final String m_sTaxCurrencyCode;
+    private final String m_sSellerTaxID;
+    private final String m_sSellerTaxSchemeID;
+    private final String m_sBuyerID;
+    private final String m_sBuyerIDSchemeID;
+    private final String m_sBuyerTaxID;
+    private final ICommonsList <Amount> m_aTaxTotalAmounts;
+    private final Amount m_aTaxExclusiveAmount;
+    private final Amount m_aTaxInclusiveAmount;
+    private final int m_nCustomContentCount;
+    private final boolean m_bHasSourceDocument;
+
+    // Only created by the reader
+    ReportedTransaction (@Nullable final String sTransportHeaderID,
+                         final boolean bHasReportedDocument,
+                         @Nullable final String sCustomizationID,
+                         @Nullable final String sProfileID,
+                         @Nullable final String sID,
+                         @Nullable final String sUUID,
+                         @Nullable final String sIssueDate,
+                         @Nullable final String sDocumentTypeCode,
+                         @Nullable final String sDocumentCurrencyCode,
+                         @Nullable final String sTaxCurrencyCode,
+                         @Nullable final String sSellerTaxID,
+                         @Nullable final String sSellerTaxSchemeID,
+                         @Nullable final String sBuyerID,
+                         @Nullable final String sBuyerIDSchemeID,
+                         @Nullable final String sBuyerTaxID,
+                         @NonNull final ICommonsList <Amount> aTaxTotalAmounts,
+                         @Nullable final Amount aTaxExclusiveAmount,
+                         @Nullable final Amount aTaxInclusiveAmount,
+                         @Nonnegative final int nCustomContentCount,
+                         final boolean bHasSourceDocument)
+    {
+      m_sTransportHeaderID = sTransportHeaderID;
+      m_bHasReportedDocument = bHasReportedDocument;
+      m_sCustomizationID = sCustomizationID;
+      m_sProfileID = sProfileID;
+      m_sID = sID;
+      m_sUUID = sUUID;
+      m_sIssueDate = sIssueDate;
+      m_sDocumentTypeCode = sDocumentTypeCode;
+      m_sDocumentCurrencyCode = sDocumentCurrencyCode;
+      m_sTaxCurrencyCode = sTaxCurrencyCode;
+      m_sSellerTaxID = sSellerTaxID;
+      m_sSellerTaxSchemeID = sSellerTaxSchemeID;
+      m_sBuyerID = sBuyerID;
+      m_sBuyerIDSchemeID = sBuyerIDSchemeID;
+      m_sBuyerTaxID = sBuyerTaxID;
+      m_aTaxTotalAmounts = aTaxTotalAmounts.getClone ();
+      m_aTaxExclusiveAmount = aTaxExclusiveAmount;
+      m_aTaxInclusiveAmount = aTaxInclusiveAmount;
+      m_nCustomContentCount = nCustomContentCount;
+      m_bHasSourceDocument = bHasSourceDocument;
+    }
+
+    @Nullable
+    public String getTransportHeaderID ()
+    {
+      return m_sTransportHeaderID;
+    }
+
+    /**
+     * @return <code>true</code> if the ReportedDocument element is present. If not, all the
+     *         ReportedDocument fields are <code>null</code>.
+     */
+    public boolean hasReportedDocument ()
+    {
+      return m_bHasReportedDocument;
+    }
+
+    @Nullable
+    public String getCustomizationID ()
+    {
+      return m_sCustomizationID;
+    }
+
+    @Nullable
+    public String getProfileID ()
+    {
+      return m_sProfileID;
+    }
+
+    @Nullable
+    public String getID ()
+    {
+      return m_sID;
+    }
+
+    @Nullable
+    public String getUUID ()
+    {
+      return m_sUUID;
+    }
+
+    @Nullable
+    public String getIssueDate ()
+    {
+      return m_sIssueDate;
+    }
+
+    @Nullable
+    public LocalDate getIssueDateLocal ()
+    {
+      return parseLocalDate (m_sIssueDate);
+    }
+
+    @Nullable
+    public String getDocumentTypeCode ()
+    {
+      return m_sDocumentTypeCode;
+    }
+
+    @Nullable
+    public String getDocumentCurrencyCode ()
+    {
+      return m_sDocumentCurrencyCode;
+    }
+
+    @Nullable
+    public String getTaxCurrencyCode ()
+    {
+      return m_sTaxCurrencyCode;
+    }
+
+    @Nullable
+    public String getSellerTaxID ()
+    {
+      return m_sSellerTaxID;
+    }
+
+    @Nullable
+    public String getSellerTaxSchemeID ()
+    {
+      return m_sSellerTaxSchemeID;
+    }
+
+    @Nullable
+    public String getBuyerID ()
+    {
+      return m_sBuyerID;
+    }
+
+    @Nullable
+    public String getBuyerIDSchemeID ()
+    {
+      return m_sBuyerIDSchemeID;
+    }
+
+    @Nullable
+    public String getBuyerTaxID ()
+    {
+      return m_sBuyerTaxID;
+    }
+
+    /**
+     * @return All TaxTotal/TaxAmount values in document order. Never <code>null</code>.
+     */
+    @NonNull
+    @ReturnsMutableCopy
+    public ICommonsList <Amount> getAllTaxTotalAmounts ()
+    {
+      return m_aTaxTotalAmounts.getClone ();
+    }
+
+    /**
+     * @param sCurrencyID
+     *        The currency to search. May be <code>null</code>.
+     * @return The first TaxTotal/TaxAmount value with the provided currency or <code>null</code>.
+     */
+    @Nullable
+    public BigDecimal getTaxTotalAmount (@Nullable final String sCurrencyID)
+    {
+      final Amount ret = m_aTaxTotalAmounts.findFirst (x -> x.getCurrencyID () != null &&
+                                                            x.getCurrencyID ().equals (sCurrencyID));
+      return ret == null ? null : ret.getValue ();
+    }
+
+    @Nullable
+    public Amount getTaxExclusiveAmount ()
+    {
+      return m_aTaxExclusiveAmount;
+    }
+
+    @Nullable
+    public Amount getTaxInclusiveAmount ()
+    {
+      return m_aTaxInclusiveAmount;
+    }
+
+    @Nonnegative
+    public int getCustomContentCount ()
+    {
+      return m_nCustomContentCount;
+    }
+
+    /**
+     * @return <code>true</code> if the SourceDocument element is present. Its content is not read.
+     */
+    public boolean hasSourceDocument ()
+    {
+      return m_bHasSourceDocument;
+    }
+
+    @Override
+    public String toString ()
+    {
+      return new ToStringGenerator (null).append ("TransportHeaderID", m_sTransportHeaderID)
+                                         .append ("HasReportedDocument", m_bHasReportedDocument)
+                                         .append ("CustomizationID", m_sCustomizationID)
+                                         .append ("ProfileID", m_sProfileID)
+                                         .append ("ID", m_sID)
+                                         .append ("UUID", m_sUUID)
+                                         .append ("IssueDate", m_sIssueDate)
+                                         .append ("DocumentTypeCode", m_sDocumentTypeCode)
+                                         .append ("DocumentCurrencyCode", m_sDocumentCurrencyCode)
+                                         .append ("TaxCurrencyCode", m_sTaxCurrencyCode)
+                                         .append ("SellerTaxID", m_sSellerTaxID)
+                                         .append ("SellerTaxSchemeID", m_sSellerTaxSchemeID)
+                                         .append ("BuyerID", m_sBuyerID)
+                                         .append ("BuyerIDSchemeID", m_sBuyerIDSchemeID)
+                                         .append ("BuyerTaxID", m_sBuyerTaxID)
+                                         .append ("TaxTotalAmounts", m_aTaxTotalAmounts)
+                                         .append ("TaxExclusiveAmount", m_aTaxExclusiveAmount)
+                                         .append ("TaxInclusiveAmount", m_aTaxInclusiveAmount)
+                                         .append ("CustomContentCount", m_nCustomContentCount)
+                                         .append ("HasSourceDocument", m_bHasSourceDocument)
+                                         .getToString ();
+    }
+  }
+
+  private final String m_sCustomizationID;
+  private final String m_sProfileID;
+  private final String m_sID;
+  private final String m_sIssueDate;
+  private final String m_sIssueTime;
+  private final String m_sDocumentTypeCode;
+  private final String m_sDocumentScope;
+  private final String m_sReporterRole;
+  private final String m_sReportingPartyEndpointID;
+  private final String m_sReportingPartyEndpointIDSchemeID;
+  private final String m_sReceivingPartyEndpointID;
+  private final String m_sReceivingPartyEndpointIDSchemeID;
+  private final String m_sReportersRepresentativeID;
+  private final String m_sReportersRepresentativeIDSchemeID;
+  private final ICommonsList <ReportedTransaction> m_aReportedTransactions;
+
+  // Only created by the reader
+  PeppolUAETDD10Header (@Nullable final String sCustomizationID,
+                        @Nullable final String sProfileID,
+                        @Nullable final String sID,
+                        @Nullable final String sIssueDate,
+                        @Nullable final String sIssueTime,
+                        @Nullable final String sDocumentTypeCode,
+                        @Nullable final String sDocumentScope,
+                        @Nullable final String sReporterRole,
+                        @Nullable final String sReportingPartyEndpointID,
+                        @Nullable final String sReportingPartyEndpointIDSchemeID,
+                        @Nullable final String sReceivingPartyEndpointID,
+                        @Nullable final String sReceivingPartyEndpointIDSchemeID,
+                        @Nullable final String sReportersRepresentativeID,
+                        @Nullable final String sReportersRepresentativeIDSchemeID,
+                        @NonNull final ICommonsList <ReportedTransaction> aReportedTransactions)
+  {
+    m_sCustomizationID = sCustomizationID;
+    m_sProfileID = sProfileID;
+    m_sID = sID;
+    m_sIssueDate = sIssueDate;
+    m_sIssueTime = sIssueTime;
+    m_sDocumentTypeCode = sDocumentTypeCode;
+    m_sDocumentScope = sDocumentScope;
+    m_sReporterRole = sReporterRole;
+    m_sReportingPartyEndpointID = sReportingPartyEndpointID;
+    m_sReportingPartyEndpointIDSchemeID = sReportingPartyEndpointIDSchemeID;
+    m_sReceivingPartyEndpointID = sReceivingPartyEndpointID;
+    m_sReceivingPartyEndpointIDSchemeID = sReceivingPartyEndpointIDSchemeID;
+    m_sReportersRepresentativeID = sReportersRepresentativeID;
+    m_sReportersRepresentativeIDSchemeID = sReportersRepresentativeIDSchemeID;
+    m_aReportedTransactions = aReportedTransactions.getClone ();
+  }
+
+  @Nullable
+  static LocalDate parseLocalDate (@Nullable final String s)
+  {
+    // xs:date may have a timezone suffix
+    if (s == null || s.length () < 10)
+      return null;
+    try
+    {
+      return LocalDate.parse (s.substring (0, 10));
+    }
+    catch (final DateTimeParseException ex)
+    {
+      return null;
+    }
+  }
+
+  @Nullable
+  public String getCustomizationID ()
+  {
+    return m_sCustomizationID;
+  }
+
+  @Nullable
+  public String getProfileID ()
+  {
+    return m_sProfileID;
+  }
+
+  @Nullable
+  public String getID ()
+  {
+    return m_sID;
+  }
+
+  @Nullable
+  public String getIssueDate ()
+  {
+    return m_sIssueDate;
+  }
+
+  /**
+   * @return The issue date as a {@link LocalDate}, ignoring an optional timezone. May be
+   *         <code>null</code> if not present or not a valid date.
+   */
+  @Nullable
+  public LocalDate getIssueDateLocal ()
+  {
+    return parseLocalDate (m_sIssueDate);
+  }
+
+  @Nullable
+  public String getIssueTime ()
+  {
+    return m_sIssueTime;
+  }
+
+  @Nullable
+  public String getDocumentTypeCode ()
+  {
+    return m_sDocumentTypeCode;
+  }
+
+  @Nullable
+  public String getDocumentScope ()
+  {
+    return m_sDocumentScope;
+  }
+
+  @Nullable
+  public String getReporterRole ()
+  {
+    return m_sReporterRole;
+  }
+
+  @Nullable
+  public String getReportingPartyEndpointID ()
+  {
+    return m_sReportingPartyEndpointID;
+  }
+
+  @Nullable
+  public String getReportingPartyEndpointIDSchemeID ()
+  {
+    return m_sReportingPartyEndpointIDSchemeID;
+  }
+
+  @Nullable
+  public String getReceivingPartyEndpointID ()
+  {
+    return m_sReceivingPartyEndpointID;
+  }
+
+  @Nullable
+  public String getReceivingPartyEndpointIDSchemeID ()
+  {
+    return m_sReceivingPartyEndpointIDSchemeID;
+  }
+
+  /**
+   * @return The ID of the first PartyIdentification of the reporters representative. May be
+   *         <code>null</code>.
+   */
+  @Nullable
+  public String getReportersRepresentativeID ()
+  {
+    return m_sReportersRepresentativeID;
+  }
+
+  @Nullable
+  public String getReportersRepresentativeIDSchemeID ()
+  {
+    return m_sReportersRepresentativeIDSchemeID;
+  }
+
+  /**
+   * @return All reported transactions in document order. Never <code>null</code>.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <ReportedTransaction> getAllReportedTransactions ()
+  {
+    return m_aReportedTransactions.getClone ();
+  }
+
+  /**
+   * @return The first reported transaction or <code>null</code> if there is none.
+   */
+  @Nullable
+  public ReportedTransaction getFirstReportedTransaction ()
+  {
+    return m_aReportedTransactions.getFirstOrNull ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("CustomizationID", m_sCustomizationID)
+                                       .append ("ProfileID", m_sProfileID)
+                                       .append ("ID", m_sID)
+                                       .append ("IssueDate", m_sIssueDate)
+                                       .append ("IssueTime", m_sIssueTime)
+                                       .append ("DocumentTypeCode", m_sDocumentTypeCode)
+                                       .append ("DocumentScope", m_sDocumentScope)
+                                       .append ("ReporterRole", m_sReporterRole)
+                                       .append ("ReportingPartyEndpointID", m_sReportingPartyEndpointID)
+                                       .append ("ReportingPartyEndpointIDSchemeID",
+                                                m_sReportingPartyEndpointIDSchemeID)
+                                       .append ("ReceivingPartyEndpointID", m_sReceivingPartyEndpointID)
+                                       .append ("ReceivingPartyEndpointIDSchemeID",
+                                                m_sReceivingPartyEndpointIDSchemeID)
+                                       .append ("ReportersRepresentativeID", m_sReportersRepresentativeID)
+                                       .append ("ReportersRepresentativeIDSchemeID",
+                                                m_sReportersRepresentativeIDSchemeID)
+                                       .append ("ReportedTransactions", m_aReportedTransactions)
+                                       .getToString ();
+  }
+}
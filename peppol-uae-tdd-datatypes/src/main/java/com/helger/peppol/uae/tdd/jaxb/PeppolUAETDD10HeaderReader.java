@@ -0,0 +1,512 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.jaxb;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.io.resource.IReadableResource;
+
+/**
+ * A StAX based reader for the header information of Peppol UAE TDD 1.0 documents. In contrast to
+ * {@link PeppolUAETDD10Marshaller} it does not create a DOM or JAXB objects. The content of
+ * <code>pxs:SourceDocument</code> and <code>pxs:CustomContent</code> is skipped without creating
+ * any objects. No XML Schema validation is performed.<br>
+ * Note: the skipping happens on the level of StAX events and not on the byte level. The skipped
+ * bytes are still decoded and tokenized by the parser, as the end of an element can only be found
+ * reliably by tokenizing (CDATA sections, comments and nested elements with the same name). As no
+ * strings or objects are created for the skipped content, the costs are dominated by the I/O.
+ *
+ * @author Philip Helger
+ */
+@ThreadSafe
+public final class PeppolUAETDD10HeaderReader
+{
+  /** UBL CommonBasicComponents namespace URI */
+  public static final String NS_CBC = "urn:oasis:names:specification:ubl:schema:xsd:CommonBasicComponents-2";
+  /** UBL CommonAggregateComponents namespace URI */
+  public static final String NS_CAC = "urn:oasis:names:specification:ubl:schema:xsd:CommonAggregateComponents-2";
+  /** UBL CommonExtensionComponents namespace URI */
+  public static final String NS_CEC = "urn:oasis:names:specification:ubl:schema:xsd:CommonExtensionComponents-2";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (PeppolUAETDD10HeaderReader.class);
+
+  private static final String P_ROOT = "pxs:TaxData";
+  private static final String P_RT = P_ROOT + "/pxs:ReportedTransaction";
+  private static final String P_RD = P_RT + "/pxs:ReportedDocument";
+  private static final String P_SELLER_PTS = P_RD + "/cac:AccountingSupplierParty/cac:Party/cac:PartyTaxScheme";
+  private static final String P_BUYER = P_RD + "/cac:AccountingCustomerParty/cac:Party";
+
+  private static final XMLInputFactory XML_INPUT_FACTORY = createXMLInputFactory ();
+
+  /**
+   * The values of a single ReportedTransaction, collected while reading.
+   */
+  private static final class ReportedTransactionValues
+  {
+    private String m_sTransportHeaderID;
+    private boolean m_bHasReportedDocument;
+    private String m_sCustomizationID;
+    private String m_sProfileID;
+    private String m_sID;
+    private String m_sUUID;
+    private String m_sIssueDate;
+    private String m_sDocumentTypeCode;
+    private String m_sDocumentCurrencyCode;
+    private String m_sTaxCurrencyCode;
+    private String m_sSellerTaxID;
+    private String m_sSellerTaxSchemeID;
+    private String m_sBuyerID;
+    private String m_sBuyerIDSchemeID;
+    private String m_sBuyerTaxID;
+    private final ICommonsList <PeppolUAETDD10Header.Amount> m_aTaxTotalAmounts = new CommonsArrayList <> ();
+    private PeppolUAETDD10Header.Amount m_aTaxExclusiveAmount;
+    private PeppolUAETDD10Header.Amount m_aTaxInclusiveAmount;
+    private int m_nCustomContentCount;
+    private boolean m_bHasSourceDocument;
+
+    @NonNull
+    PeppolUAETDD10Header.ReportedTransaction build ()
+    {
+      return new PeppolUAETDD10Header.ReportedTransaction (m_sTransportHeaderID,
+                                                           m_bHasReportedDocument,
+                                                           m_sCustomizationID,
+                                                           m_sProfileID,
+                                                           m_sID,
+                                                           m_sUUID,
+                                                           m_sIssueDate,
+                                                           m_sDocumentTypeCode,
+                                                           m_sDocumentCurrencyCode,
+                                                           m_sTaxCurrencyCode,
+                                                           m_sSellerTaxID,
+                                                           m_sSellerTaxSchemeID,
+                                                           m_sBuyerID,
+                                                           m_sBuyerIDSchemeID,
+                                                           m_sBuyerTaxID,
+                                                           m_aTaxTotalAmounts,
+                                                           m_aTaxExclusiveAmount,
+                                                           m_aTaxInclusiveAmount,
+                                                           m_nCustomContentCount,
+                                                           m_bHasSourceDocument);
+    }
+  }
+
+  /**
+   * The header values, collected while reading.
+   */
+  private static final class HeaderValues
+  {
+    private String m_sCustomizationID;
+    private String m_sProfileID;
+    private String m_sID;
+    private String m_sIssueDate;
+    private String m_sIssueTime;
+    private String m_sDocumentTypeCode;
+    private String m_sDocumentScope;
+    private String m_sReporterRole;
+    private String m_sReportingPartyEndpointID;
+    private String m_sReportingPartyEndpointIDSchemeID;
+    private String m_sReceivingPartyEndpointID;
+    private String m_sReceivingPartyEndpointIDSchemeID;
+    private String m_sReportersRepresentativeID;
+    private String m_sReportersRepresentativeIDSchemeID;
+    private final ICommonsList <ReportedTransactionValues> m_aReportedTransactions = new CommonsArrayList <> ();
+
+    @NonNull
+    PeppolUAETDD10Header build ()
+    {
+      return new PeppolUAETDD10Header (m_sCustomizationID,
+                                       m_sProfileID,
+                                       m_sID,
+                                       m_sIssueDate,
+                                       m_sIssueTime,
+                                       m_sDocumentTypeCode,
+                                       m_sDocumentScope,
+                                       m_sReporterRole,
+                                       m_sReportingPartyEndpointID,
+                                       m_sReportingPartyEndpointIDSchemeID,
+                                       m_sReceivingPartyEndpointID,
+                                       m_sReceivingPartyEndpointIDSchemeID,
+                                       m_sReportersRepresentativeID,
+                                       m_sReportersRepresentativeIDSchemeID,
+                                       m_aReportedTransactions.getAllMapped (ReportedTransactionValues::build));
+    }
+  }
+
+  /**
+   * @return A new {@link XMLInputFactory} that neither supports DTDs nor external entities. Never
+   *         <code>null</code>.
+   */
+  @NonNull
+  static XMLInputFactory createXMLInputFactory ()
+  {
+    final XMLInputFactory ret = XMLInputFactory.newFactory ();
+    ret.setProperty (XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    ret.setProperty (XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    ret.setProperty (XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+    return ret;
+  }
+
+  /**
+   * @return The shared XML input factory. Never <code>null</code>.
+   */
+  @NonNull
+  static XMLInputFactory getXMLInputFactory ()
+  {
+    return XML_INPUT_FACTORY;
+  }
+
+  @NonNull
+  static String getPrefix (@Nullable final String sNamespaceURI)
+  {
+    if (CPeppolUAETDD.TDD_XSD_1_0_NS.equals (sNamespaceURI))
+      return "pxs";
+    if (NS_CBC.equals (sNamespaceURI))
+      return "cbc";
+    if (NS_CAC.equals (sNamespaceURI))
+      return "cac";
+    if (NS_CEC.equals (sNamespaceURI))
+      return "cec";
+    return "*";
+  }
+
+  /**
+   * Skip the element the reader is currently positioned on, including all children. Afterwards the
+   * reader is positioned on the matching end element.
+   *
+   * @param aReader
+   *        The reader positioned on a start element. May not be <code>null</code>.
+   * @throws XMLStreamException
+   *         In case of a parsing error
+   */
+  static void skipElement (@NonNull final XMLStreamReader aReader) throws XMLStreamException
+  {
+    int nDepth = 1;
+    while (nDepth > 0)
+    {
+      final int nEvent = aReader.next ();
+      if (nEvent == XMLStreamConstants.START_ELEMENT)
+        nDepth++;
+      else
+        if (nEvent == XMLStreamConstants.END_ELEMENT)
+          nDepth--;
+    }
+  }
+
+  @NonNull
+  private static String _getText (@NonNull final XMLStreamReader aReader) throws XMLStreamException
+  {
+    return aReader.getElementText ().trim ();
+  }
+
+  @NonNull
+  private static PeppolUAETDD10Header.Amount _getAmount (@NonNull final XMLStreamReader aReader) throws XMLStreamException
+  {
+    final String sCurrencyID = aReader.getAttributeValue (null, "currencyID");
+    final String sValue = _getText (aReader);
+    BigDecimal aValue;
+    try
+    {
+      aValue = new BigDecimal (sValue);
+    }
+    catch (final NumberFormatException ex)
+    {
+      aValue = null;
+    }
+    return new PeppolUAETDD10Header.Amount (aValue, sCurrencyID);
+  }
+
+  @Nullable
+  private static PeppolUAETDD10Header _read (@NonNull final XMLStreamReader aReader) throws XMLStreamException
+  {
+    // Go to the root element
+    aReader.nextTag ();
+    if (!CPeppolUAETDD.TDD_XSD_1_0_NS.equals (aReader.getNamespaceURI ()) ||
+        !"TaxData".equals (aReader.getLocalName ()))
+    {
+      LOGGER.warn ("The root element is not a Peppol UAE TDD 1.0 TaxData element");
+      return null;
+    }
+
+    // Collect all values first, as the header is immutable
+    final HeaderValues ret = new HeaderValues ();
+    ReportedTransactionValues aRT = null;
+
+    // The current element path using fixed prefixes
+    final StringBuilder aPath = new StringBuilder (P_ROOT);
+    int [] aPathLengths = new int [16];
+    int nDepth = 0;
+    while (nDepth >= 0 && aReader.hasNext ())
+    {
+      final int nEvent = aReader.next ();
+      if (nEvent == XMLStreamConstants.START_ELEMENT)
+      {
+        if (nDepth == aPathLengths.length)
+          aPathLengths = Arrays.copyOf (aPathLengths, nDepth * 2);
+        aPathLengths[nDepth++] = aPath.length ();
+        aPath.append ('/').append (getPrefix (aReader.getNamespaceURI ())).append (':').append (aReader.getLocalName ());
+
+        // Elements that are consumed completely
+        boolean bConsumed = true;
+        switch (aPath.toString ())
+        {
+          case P_ROOT + "/cbc:CustomizationID":
+            ret.m_sCustomizationID = _getText (aReader);
+            break;
+          case P_ROOT + "/cbc:ProfileID":
+            ret.m_sProfileID = _getText (aReader);
+            break;
+          case P_ROOT + "/cbc:ID":
+            ret.m_sID = _getText (aReader);
+            break;
+          case P_ROOT + "/cbc:IssueDate":
+            ret.m_sIssueDate = _getText (aReader);
+            break;
+          case P_ROOT + "/cbc:IssueTime":
+            ret.m_sIssueTime = _getText (aReader);
+            break;
+          case P_ROOT + "/pxs:DocumentTypeCode":
+            ret.m_sDocumentTypeCode = _getText (aReader);
+            break;
+          case P_ROOT + "/pxs:DocumentScope":
+            ret.m_sDocumentScope = _getText (aReader);
+            break;
+          case P_ROOT + "/pxs:ReporterRole":
+            ret.m_sReporterRole = _getText (aReader);
+            break;
+          case P_ROOT + "/pxs:ReportingParty/cbc:EndpointID":
+            ret.m_sReportingPartyEndpointIDSchemeID = aReader.getAttributeValue (null, "schemeID");
+            ret.m_sReportingPartyEndpointID = _getText (aReader);
+            break;
+          case P_ROOT + "/pxs:ReceivingParty/cbc:EndpointID":
+            ret.m_sReceivingPartyEndpointIDSchemeID = aReader.getAttributeValue (null, "schemeID");
+            ret.m_sReceivingPartyEndpointID = _getText (aReader);
+            break;
+          case P_ROOT + "/pxs:ReportersRepresentative/cac:PartyIdentification/cbc:ID":
+            if (ret.m_sReportersRepresentativeID == null)
+            {
+              ret.m_sReportersRepresentativeIDSchemeID = aReader.getAttributeValue (null, "schemeID");
+              ret.m_sReportersRepresentativeID = _getText (aReader);
+            }
+            else
+              skipElement (aReader);
+            break;
+          case P_RT:
+            aRT = new ReportedTransactionValues ();
+            ret.m_aReportedTransactions.add (aRT);
+            bConsumed = false;
+            break;
+          case P_RT + "/pxs:TransportHeaderID":
+            aRT.m_sTransportHeaderID = _getText (aReader);
+            break;
+          case P_RT + "/pxs:CustomContent":
+            aRT.m_nCustomContentCount++;
+            skipElement (aReader);
+            break;
+          case P_RT + "/pxs:SourceDocument":
+            // The main reason for this class
+            aRT.m_bHasSourceDocument = true;
+            skipElement (aReader);
+            break;
+          case P_RD:
+            aRT.m_bHasReportedDocument = true;
+            bConsumed = false;
+            break;
+          case P_RD + "/cbc:CustomizationID":
+            aRT.m_sCustomizationID = _getText (aReader);
+            break;
+          case P_RD + "/cbc:ProfileID":
+            aRT.m_sProfileID = _getText (aReader);
+            break;
+          case P_RD + "/cbc:ID":
+            aRT.m_sID = _getText (aReader);
+            break;
+          case P_RD + "/cbc:UUID":
+            aRT.m_sUUID = _getText (aReader);
+            break;
+          case P_RD + "/cbc:IssueDate":
+            aRT.m_sIssueDate = _getText (aReader);
+            break;
+          case P_RD + "/pxs:DocumentTypeCode":
+            aRT.m_sDocumentTypeCode = _getText (aReader);
+            break;
+          case P_RD + "/cbc:DocumentCurrencyCode":
+            aRT.m_sDocumentCurrencyCode = _getText (aReader);
+            break;
+          case P_RD + "/cbc:TaxCurrencyCode":
+            aRT.m_sTaxCurrencyCode = _getText (aReader);
+            break;
+          case P_SELLER_PTS + "/cbc:CompanyID":
+            if (aRT.m_sSellerTaxID == null)
+              aRT.m_sSellerTaxID = _getText (aReader);
+            else
+              skipElement (aReader);
+            break;
+          case P_SELLER_PTS + "/cac:TaxScheme/cbc:ID":
+            if (aRT.m_sSellerTaxSchemeID == null)
+              aRT.m_sSellerTaxSchemeID = _getText (aReader);
+            else
+              skipElement (aReader);
+            break;
+          case P_BUYER + "/cac:PartyIdentification/cbc:ID":
+            if (aRT.m_sBuyerID == null)
+            {
+              aRT.m_sBuyerIDSchemeID = aReader.getAttributeValue (null, "schemeID");
+              aRT.m_sBuyerID = _getText (aReader);
+            }
+            else
+              skipElement (aReader);
+            break;
+          case P_BUYER + "/cac:PartyTaxScheme/cbc:CompanyID":
+            if (aRT.m_sBuyerTaxID == null)
+              aRT.m_sBuyerTaxID = _getText (aReader);
+            else
+              skipElement (aReader);
+            break;
+          case P_RD + "/cac:TaxTotal/cbc:TaxAmount":
+            aRT.m_aTaxTotalAmounts.add (_getAmount (aReader));
+            break;
+          case P_RD + "/pxs:MonetaryTotal/cbc:TaxExclusiveAmount":
+            if (aRT.m_aTaxExclusiveAmount == null)
+              aRT.m_aTaxExclusiveAmount = _getAmount (aReader);
+            else
+              skipElement (aReader);
+            break;
+          case P_RD + "/pxs:MonetaryTotal/cbc:TaxInclusiveAmount":
+            if (aRT.m_aTaxInclusiveAmount == null)
+              aRT.m_aTaxInclusiveAmount = _getAmount (aReader);
+            else
+              skipElement (aReader);
+            break;
+          default:
+            // Descend
+            bConsumed = false;
+            break;
+        }
+
+        // The end element was already consumed
+        if (bConsumed)
+          aPath.setLength (aPathLengths[--nDepth]);
+      }
+      else
+        if (nEvent == XMLStreamConstants.END_ELEMENT)
+        {
+          // The root element has depth -1
+          nDepth--;
+          if (nDepth >= 0)
+            aPath.setLength (aPathLengths[nDepth]);
+        }
+    }
+    return ret.build ();
+  }
+
+  /**
+   * Read the header of a TDD from the provided input stream. The stream is not closed.
+   *
+   * @param aIS
+   *        The input stream to read from. May not be <code>null</code>.
+   * @return <code>null</code> if the document could not be parsed or is not a TDD 1.0.
+   */
+  @Nullable
+  public PeppolUAETDD10Header read (@NonNull final InputStream aIS)
+  {
+    ValueEnforcer.notNull (aIS, "InputStream");
+
+    XMLStreamReader aReader = null;
+    try
+    {
+      aReader = XML_INPUT_FACTORY.createXMLStreamReader (aIS);
+      return _read (aReader);
+    }
+    catch (final XMLStreamException | RuntimeException ex)
+    {
+      LOGGER.warn ("Failed to read TDD header: " + ex.getMessage ());
+      return null;
+    }
+    finally
+    {
+      if (aReader != null)
+        try
+        {
+          aReader.close ();
+        }
+        catch (final XMLStreamException ex)
+        {
+          // ignore
+        }
+    }
+  }
+
+  /**
+   * Read the header of a TDD from the provided bytes.
+   *
+   * @param aBytes
+   *        The serialized TDD. May not be <code>null</code>.
+   * @return <code>null</code> if the document could not be parsed or is not a TDD 1.0.
+   */
+  @Nullable
+  public PeppolUAETDD10Header read (@NonNull final byte [] aBytes)
+  {
+    ValueEnforcer.notNull (aBytes, "Bytes");
+    return read (new ByteArrayInputStream (aBytes));
+  }
+
+  /**
+   * Read the header of a TDD from the provided resource.
+   *
+   * @param aRes
+   *        The resource to read from. May not be <code>null</code>.
+   * @return <code>null</code> if the resource could not be opened or parsed or is not a TDD 1.0.
+   */
+  @Nullable
+  public PeppolUAETDD10Header read (@NonNull final IReadableResource aRes)
+  {
+    ValueEnforcer.notNull (aRes, "Resource");
+
+    try (final InputStream aIS = aRes.getInputStream ())
+    {
+      if (aIS == null)
+      {
+        LOGGER.warn ("Failed to open '" + aRes.getPath () + "' for reading");
+        return null;
+      }
+      return read (aIS);
+    }
+    catch (final IOException ex)
+    {
+      LOGGER.warn ("Failed to close '" + aRes.getPath () + "'", ex);
+      return null;
+    }
+  }
+}
@@ -16,7 +16,15 @@
  */
 package com.helger.peppol.uae.tdd.jaxb;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
+import javax.xml.transform.stream.StreamSource;
+
 import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.helger.annotation.Nonempty;
 import com.helger.annotation.concurrent.NotThreadSafe;
@@ -24,12 +32,21 @@ import com.helger.annotation.style.ReturnsMutableCopy;
 import com.helger.collection.commons.ICommonsList;
 import com.helger.io.resource.ClassPathResource;
 import com.helger.jaxb.GenericJAXBMarshaller;
+import com.helger.peppol.uae.tdd.jfr.AbstractPeppolUAETDDEvent;
+import com.helger.peppol.uae.tdd.jfr.PeppolUAETDDMarshalEvent;
+import com.helger.peppol.uae.tdd.jfr.PeppolUAETDDUnmarshalEvent;
+import com.helger.peppol.uae.tdd.metrics.EUAETDDMetricsStage;
+import com.helger.peppol.uae.tdd.metrics.PeppolUAETDDMetrics;
 import com.helger.peppol.uae.tdd.v100.ObjectFactory;
 import com.helger.peppol.uae.tdd.v100.TaxDataType;
 import com.helger.ubl21.UBL21Marshaller;
 import com.helger.ubl21.UBL21NamespaceContext;
 import com.helger.xml.namespace.MapBasedNamespaceContext;
 
+import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.Unmarshaller;
+import jdk.jfr.EventType;
+
 /**
  * This is the reader and writer for Peppol UAE TDD 1.0 documents. This class may be derived to
  * override protected methods from {@link GenericJAXBMarshaller}.
@@ -39,6 +56,15 @@ import com.helger.xml.namespace.MapBasedNamespaceContext;
 @NotThreadSafe
 public class PeppolUAETDD10Marshaller extends GenericJAXBMarshaller <TaxDataType>
 {
+  private static final Logger LOGGER = LoggerFactory.getLogger (PeppolUAETDD10Marshaller.class);
+
+  // Checking the event types does not allocate an event per marshaller operation
+  private static final EventType MARSHAL_EVENT_TYPE = EventType.getEventType (PeppolUAETDDMarshalEvent.class);
+  private static final EventType UNMARSHAL_EVENT_TYPE = EventType.getEventType (PeppolUAETDDUnmarshalEvent.class);
+
+  // The size of the source currently read, for the JFR event
+  private long m_nSourceSize = AbstractPeppolUAETDDEvent.SOURCE_SIZE_UNKNOWN;
+
   @NonNull
   @ReturnsMutableCopy
   public static ICommonsList <ClassPathResource> getAllXSDs ()
@@ -66,4 +92,125 @@ public class PeppolUAETDD10Marshaller extends GenericJAXBMarshaller <TaxDataType
     super (TaxDataType.class, getAllXSDs (), new ObjectFactory ()::createTaxData);
     setNamespaceContext (createNamespaceContext ());
   }
+
+  @Override
+  protected void customizeMarshaller (@NonNull final Marshaller aMarshaller)
+  {
+    super.customizeMarshaller (aMarshaller);
+    // Only install a listener if it is needed
+    if (PeppolUAETDDMetrics.isEnabled () || MARSHAL_EVENT_TYPE.isEnabled ())
+    {
+      // The listener is only invoked for the TDD root object itself
+      aMarshaller.setListener (new Marshaller.Listener ()
+      {
+        private long m_nStart;
+        private PeppolUAETDDMarshalEvent m_aEvent;
+
+        @Override
+        public void beforeMarshal (final Object aSource)
+        {
+          if (aSource instanceof TaxDataType)
+          {
+            m_nStart = PeppolUAETDDMetrics.startTimer ();
+            m_aEvent = new PeppolUAETDDMarshalEvent ();
+            m_aEvent.begin ();
+          }
+        }
+
+        @Override
+        public void afterMarshal (final Object aSource)
+        {
+          if (aSource instanceof TaxDataType)
+          {
+            PeppolUAETDDMetrics.recordLatency (EUAETDDMetricsStage.MARSHAL, m_nStart);
+            m_aEvent.end ();
+            if (m_aEvent.shouldCommit ())
+            {
+              m_aEvent.setFromTDD ((TaxDataType) aSource);
+              m_aEvent.setOutcome (AbstractPeppolUAETDDEvent.OUTCOME_SUCCESS);
+              m_aEvent.commit ();
+            }
+          }
+        }
+      });
+    }
+  }
+
+  @Override
+  protected void customizeUnmarshaller (@NonNull final Unmarshaller aUnmarshaller)
+  {
+    super.customizeUnmarshaller (aUnmarshaller);
+    // Only install a listener if it is needed
+    if (PeppolUAETDDMetrics.isEnabled () || UNMARSHAL_EVENT_TYPE.isEnabled ())
+    {
+      final long nSourceSize = m_nSourceSize;
+      aUnmarshaller.setListener (new Unmarshaller.Listener ()
+      {
+        private long m_nStart;
+        private PeppolUAETDDUnmarshalEvent m_aEvent;
+
+        @Override
+        public void beforeUnmarshal (final Object aTarget, final Object aParent)
+        {
+          if (aTarget instanceof TaxDataType)
+          {
+            m_nStart = PeppolUAETDDMetrics.startTimer ();
+            m_aEvent = new PeppolUAETDDUnmarshalEvent ();
+            m_aEvent.begin ();
+          }
+        }
+
+        @Override
+        public void afterUnmarshal (final Object aTarget, final Object aParent)
+        {
+          if (aTarget instanceof TaxDataType)
+          {
+            PeppolUAETDDMetrics.recordLatency (EUAETDDMetricsStage.UNMARSHAL, m_nStart);
+            m_aEvent.end ();
+            if (m_aEvent.shouldCommit ())
+            {
+              m_aEvent.setFromTDD ((TaxDataType) aTarget);
+              m_aEvent.setSourceSize (nSourceSize);
+              m_aEvent.setOutcome (AbstractPeppolUAETDDEvent.OUTCOME_SUCCESS);
+              m_aEvent.commit ();
+            }
+          }
+        }
+      });
+    }
+  }
+
+  /**
+   * Read a TDD from a local file. Small files are read into a pooled buffer and large files are
+   * streamed, so that no resource wrappers are needed.
+   *
+   * @param aPath
+   *        The file to read. May not be <code>null</code>.
+   * @return <code>null</code> if the file could not be read or parsed.
+   * @see PeppolUAETDD10FileInput
+   */
+  @Nullable
+  public TaxDataType read (@NonNull final Path aPath)
+  {
+    try
+    {
+      return PeppolUAETDD10FileInput.apply (aPath, (aIS, nSize) -> {
+        // Remember the size for the JFR event
+        m_nSourceSize = nSize;
+        try
+        {
+          return read (new StreamSource (aIS, aPath.toUri ().toString ()));
+        }
+        finally
+        {
+          m_nSourceSize = AbstractPeppolUAETDDEvent.SOURCE_SIZE_UNKNOWN;
+        }
+      });
+    }
+    catch (final IOException ex)
+    {
+      LOGGER.warn ("Failed to read TDD file '" + aPath + "'", ex);
+      return null;
+    }
+  }
 }
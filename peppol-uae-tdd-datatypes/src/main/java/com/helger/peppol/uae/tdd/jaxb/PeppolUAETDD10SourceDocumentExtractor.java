@@ -0,0 +1,371 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.jaxb;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.NotThreadSafe;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.state.ESuccess;
+import com.helger.base.string.StringHelper;
+import com.helger.io.resource.IReadableResource;
+
+/**
+ * A StAX based extractor for the embedded source document (Invoice or CreditNote) of a Peppol UAE
+ * TDD 1.0. The document is copied directly from the TDD input stream to the output stream, so that
+ * neither the TDD nor the embedded document is held in memory. The reading stops after the source
+ * document was copied.<br>
+ * All namespace declarations that are in scope in the TDD are declared on the root element of the
+ * extracted document, so that prefixes used in attribute values stay resolvable.
+ *
+ * @author Philip Helger
+ */
+@ThreadSafe
+public class PeppolUAETDD10SourceDocumentExtractor
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (PeppolUAETDD10SourceDocumentExtractor.class);
+
+  private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newFactory ();
+
+  /**
+   * The namespace declarations of the currently open elements.
+   *
+   * @author Philip Helger
+   */
+  @NotThreadSafe
+  private static final class NamespaceStack
+  {
+    private final List <String> m_aPrefixes = new ArrayList <> ();
+    private final List <String> m_aURIs = new ArrayList <> ();
+    private final List <Integer> m_aCounts = new ArrayList <> ();
+
+    void push (@NonNull final XMLStreamReader aReader)
+    {
+      final int nCount = aReader.getNamespaceCount ();
+      for (int i = 0; i < nCount; ++i)
+      {
+        m_aPrefixes.add (StringHelper.getNotNull (aReader.getNamespacePrefix (i)));
+        m_aURIs.add (StringHelper.getNotNull (aReader.getNamespaceURI (i)));
+      }
+      m_aCounts.add (Integer.valueOf (nCount));
+    }
+
+    void pop ()
+    {
+      final int nCount = m_aCounts.remove (m_aCounts.size () - 1).intValue ();
+      for (int i = 0; i < nCount; ++i)
+      {
+        m_aPrefixes.remove (m_aPrefixes.size () - 1);
+        m_aURIs.remove (m_aURIs.size () - 1);
+      }
+    }
+
+    @NonNull
+    Map <String, String> getAllInScope ()
+    {
+      // Inner declarations overwrite outer ones
+      final Map <String, String> ret = new LinkedHashMap <> ();
+      for (int i = 0; i < m_aPrefixes.size (); ++i)
+        ret.put (m_aPrefixes.get (i), m_aURIs.get (i));
+      return ret;
+    }
+  }
+
+  private static int _nextStartOrEnd (@NonNull final XMLStreamReader aReader) throws XMLStreamException
+  {
+    while (true)
+    {
+      final int nEvent = aReader.next ();
+      if (nEvent == XMLStreamConstants.START_ELEMENT || nEvent == XMLStreamConstants.END_ELEMENT)
+        return nEvent;
+      if (nEvent == XMLStreamConstants.END_DOCUMENT)
+        throw new XMLStreamException ("Unexpected end of document");
+    }
+  }
+
+  /**
+   * Move to the next child element of the current element that has the provided name. Other
+   * elements are skipped.
+   *
+   * @return <code>true</code> if the reader is positioned on the requested child element,
+   *         <code>false</code> if the end of the current element was reached.
+   */
+  private static boolean _findChild (@NonNull final XMLStreamReader aReader,
+                                     @NonNull final NamespaceStack aNSStack,
+                                     @Nullable final String sNamespaceURI,
+                                     @Nullable final String sLocalName) throws XMLStreamException
+  {
+    while (_nextStartOrEnd (aReader) == XMLStreamConstants.START_ELEMENT)
+    {
+      if (sLocalName == null ||
+          (sLocalName.equals (aReader.getLocalName ()) && sNamespaceURI.equals (aReader.getNamespaceURI ())))
+      {
+        aNSStack.push (aReader);
+        return true;
+      }
+      PeppolUAETDD10HeaderReader.skipElement (aReader);
+    }
+    return false;
+  }
+
+  private static void _copyStartElement (@NonNull final XMLStreamReader aReader,
+                                         @NonNull final XMLStreamWriter aWriter,
+                                         @Nullable final Map <String, String> aNamespaces) throws XMLStreamException
+  {
+    aWriter.writeStartElement (StringHelper.getNotNull (aReader.getPrefix ()),
+                               aReader.getLocalName (),
+                               StringHelper.getNotNull (aReader.getNamespaceURI ()));
+    if (aNamespaces != null)
+    {
+      // All in-scope declarations
+      for (final Map.Entry <String, String> aEntry : aNamespaces.entrySet ())
+        if (aEntry.getKey ().isEmpty ())
+        {
+          if (!aEntry.getValue ().isEmpty ())
+            aWriter.writeDefaultNamespace (aEntry.getValue ());
+        }
+        else
+          aWriter.writeNamespace (aEntry.getKey (), aEntry.getValue ());
+    }
+    else
+    {
+      // Only the declarations of this element
+      for (int i = 0; i < aReader.getNamespaceCount (); ++i)
+      {
+        final String sPrefix = aReader.getNamespacePrefix (i);
+        if (StringHelper.isEmpty (sPrefix))
+          aWriter.writeDefaultNamespace (StringHelper.getNotNull (aReader.getNamespaceURI (i)));
+        else
+          aWriter.writeNamespace (sPrefix, aReader.getNamespaceURI (i));
+      }
+    }
+    for (int i = 0; i < aReader.getAttributeCount (); ++i)
+    {
+      final String sPrefix = aReader.getAttributePrefix (i);
+      if (StringHelper.isEmpty (sPrefix))
+        aWriter.writeAttribute (aReader.getAttributeLocalName (i), aReader.getAttributeValue (i));
+      else
+        aWriter.writeAttribute (sPrefix,
+                                aReader.getAttributeNamespace (i),
+                                aReader.getAttributeLocalName (i),
+                                aReader.getAttributeValue (i));
+    }
+  }
+
+  private static void _copyElement (@NonNull final XMLStreamReader aReader,
+                                    @NonNull final XMLStreamWriter aWriter,
+                                    @NonNull final Map <String, String> aNamespaces) throws XMLStreamException
+  {
+    _copyStartElement (aReader, aWriter, aNamespaces);
+    int nDepth = 1;
+    while (nDepth > 0)
+    {
+      switch (aReader.next ())
+      {
+        case XMLStreamConstants.START_ELEMENT:
+          _copyStartElement (aReader, aWriter, null);
+          nDepth++;
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          aWriter.writeEndElement ();
+          nDepth--;
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.SPACE:
+          aWriter.writeCharacters (aReader.getTextCharacters (), aReader.getTextStart (), aReader.getTextLength ());
+          break;
+        case XMLStreamConstants.CDATA:
+          aWriter.writeCData (aReader.getText ());
+          break;
+        case XMLStreamConstants.COMMENT:
+          aWriter.writeComment (aReader.getText ());
+          break;
+        case XMLStreamConstants.PROCESSING_INSTRUCTION:
+          aWriter.writeProcessingInstruction (aReader.getPITarget (), aReader.getPIData ());
+          break;
+        case XMLStreamConstants.END_DOCUMENT:
+          throw new XMLStreamException ("Unexpected end of document");
+        default:
+          // Ignore
+          break;
+      }
+    }
+  }
+
+  /**
+   * Extract the source document of the reported transaction with the provided index.
+   *
+   * @param aIS
+   *        The input stream to read the TDD from. May not be <code>null</code>. It is not closed.
+   * @param nTransactionIndex
+   *        The 0-based index of the ReportedTransaction to use. Must be &ge; 0.
+   * @param aOS
+   *        The output stream to write the embedded document to, encoded in UTF-8. May not be
+   *        <code>null</code>. It is not closed. In case of failure, parts of the document may
+   *        already have been written.
+   * @return {@link ESuccess#SUCCESS} if the document was extracted, {@link ESuccess#FAILURE} if the
+   *         TDD could not be parsed or contains no such source document.
+   */
+  @NonNull
+  public ESuccess extract (@NonNull final InputStream aIS,
+                           @Nonnegative final int nTransactionIndex,
+                           @NonNull final OutputStream aOS)
+  {
+    ValueEnforcer.notNull (aIS, "InputStream");
+    ValueEnforcer.isGE0 (nTransactionIndex, "TransactionIndex");
+    ValueEnforcer.notNull (aOS, "OutputStream");
+
+    XMLStreamReader aReader = null;
+    try
+    {
+      aReader = PeppolUAETDD10HeaderReader.getXMLInputFactory ().createXMLStreamReader (aIS);
+      final NamespaceStack aNSStack = new NamespaceStack ();
+
+      aReader.nextTag ();
+      if (!CPeppolUAETDD.TDD_XSD_1_0_NS.equals (aReader.getNamespaceURI ()) ||
+          !"TaxData".equals (aReader.getLocalName ()))
+      {
+        LOGGER.warn ("The root element is not a Peppol UAE TDD 1.0 TaxData element");
+        return ESuccess.FAILURE;
+      }
+      aNSStack.push (aReader);
+
+      // Find the correct transaction
+      for (int i = 0; i <= nTransactionIndex; ++i)
+      {
+        if (i > 0)
+        {
+          PeppolUAETDD10HeaderReader.skipElement (aReader);
+          aNSStack.pop ();
+        }
+        if (!_findChild (aReader, aNSStack, CPeppolUAETDD.TDD_XSD_1_0_NS, "ReportedTransaction"))
+        {
+          LOGGER.warn ("The TDD contains no ReportedTransaction with index " + nTransactionIndex);
+          return ESuccess.FAILURE;
+        }
+      }
+
+      if (!_findChild (aReader, aNSStack, CPeppolUAETDD.TDD_XSD_1_0_NS, "SourceDocument") ||
+          !_findChild (aReader, aNSStack, PeppolUAETDD10HeaderReader.NS_CEC, "ExtensionContent") ||
+          !_findChild (aReader, aNSStack, null, null))
+      {
+        LOGGER.warn ("The ReportedTransaction with index " + nTransactionIndex + " contains no source document");
+        return ESuccess.FAILURE;
+      }
+
+      final XMLStreamWriter aWriter = XML_OUTPUT_FACTORY.createXMLStreamWriter (aOS, "UTF-8");
+      try
+      {
+        aWriter.writeStartDocument ("UTF-8", "1.0");
+        _copyElement (aReader, aWriter, aNSStack.getAllInScope ());
+        aWriter.writeEndDocument ();
+        aWriter.flush ();
+      }
+      finally
+      {
+        // Does not close the output stream
+        aWriter.close ();
+      }
+      return ESuccess.SUCCESS;
+    }
+    catch (final XMLStreamException | RuntimeException ex)
+    {
+      LOGGER.warn ("Failed to extract the source document from the TDD: " + ex.getMessage ());
+      return ESuccess.FAILURE;
+    }
+    finally
+    {
+      if (aReader != null)
+        try
+        {
+          aReader.close ();
+        }
+        catch (final XMLStreamException ex)
+        {
+          // ignore
+        }
+    }
+  }
+
+  /**
+   * Extract the source document of the first reported transaction.
+   *
+   * @param aIS
+   *        The input stream to read the TDD from. May not be <code>null</code>. It is not closed.
+   * @param aOS
+   *        The output stream to write the embedded document to. May not be <code>null</code>. It
+   *        is not closed.
+   * @return {@link ESuccess} and never <code>null</code>.
+   * @see #extract(InputStream, int, OutputStream)
+   */
+  @NonNull
+  public ESuccess extract (@NonNull final InputStream aIS, @NonNull final OutputStream aOS)
+  {
+    return extract (aIS, 0, aOS);
+  }
+
+  /**
+   * Extract the source document of the first reported transaction.
+   *
+   * @param aRes
+   *        The resource to read the TDD from. May not be <code>null</code>.
+   * @param aOS
+   *        The output stream to write the embedded document to. May not be <code>null</code>. It
+   *        is not closed.
+   * @return {@link ESuccess} and never <code>null</code>.
+   * @see #extract(InputStream, int, OutputStream)
+   */
+  @NonNull
+  public ESuccess extract (@NonNull final IReadableResource aRes, @NonNull final OutputStream aOS)
+  {
+    ValueEnforcer.notNull (aRes, "Resource");
+
+    try (final InputStream aIS = aRes.getInputStream ())
+    {
+      if (aIS == null)
+      {
+        LOGGER.warn ("Failed to open '" + aRes.getPath () + "' for reading");
+        return ESuccess.FAILURE;
+      }
+      return extract (aIS, 0, aOS);
+    }
+    catch (final IOException ex)
+    {
+      LOGGER.warn ("Failed to close '" + aRes.getPath () + "'", ex);
+      return ESuccess.FAILURE;
+    }
+  }
+}
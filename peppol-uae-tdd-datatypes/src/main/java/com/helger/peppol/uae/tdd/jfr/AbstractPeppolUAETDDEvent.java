@@ -0,0 +1,265 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.jfr;
+
+import java.nio.charset.StandardCharsets;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import com.helger.peppol.uae.tdd.v100.ReportedDocumentType;
+import com.helger.peppol.uae.tdd.v100.ReportedTransactionType;
+import com.helger.peppol.uae.tdd.v100.TaxDataType;
+import com.helger.xml.serialize.write.XMLWriter;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Abstract base class for all Java Flight Recorder events of a single TDD processing step. All
+ * events are disabled by default and must be enabled explicitly in the recording settings, e.g. via
+ * <code>-XX:StartFlightRecording:+com.helger.peppol.uae.tdd.Build#enabled=true</code>. As the
+ * fields are only determined if the event is committed, disabled events cost nothing. Usage:
+ *
+ * <pre>
+ * final PeppolUAETDDBuildEvent aEvent = new PeppolUAETDDBuildEvent ();
+ * aEvent.begin ();
+ * // do the work
+ * aEvent.end ();
+ * if (aEvent.shouldCommit ())
+ * {
+ *   // only determine the fields here
+ *   aEvent.setOutcome (...);
+ *   aEvent.commit ();
+ * }
+ * </pre>
+ *
+ * @author Philip Helger
+ */
+@Category ({ "Peppol UAE", "TDD" })
+@Enabled (false)
+@StackTrace (false)
+public abstract class AbstractPeppolUAETDDEvent extends Event
+{
+  /** Outcome of a successful processing step */
+  public static final String OUTCOME_SUCCESS = "success";
+  /** Outcome of a failed processing step */
+  public static final String OUTCOME_FAILURE = "failure";
+  /** The value of the source size, if it is not known */
+  public static final long SOURCE_SIZE_UNKNOWN = -1;
+
+  private static final String NS_CBC = "urn:oasis:names:specification:ubl:schema:xsd:CommonBasicComponents-2";
+
+  @Name ("documentID")
+  @Label ("Document ID")
+  @Description ("The ID of the reported Invoice or CreditNote")
+  private String m_sDocumentID;
+
+  @Name ("documentUUID")
+  @Label ("Document UUID")
+  @Description ("The UUID of the reported Invoice or CreditNote")
+  private String m_sDocumentUUID;
+
+  @Name ("sourceSize")
+  @Label ("Source Size")
+  @Description ("The size of the processed input in bytes or -1 if not known")
+  @DataAmount
+  private long m_nSourceSize = SOURCE_SIZE_UNKNOWN;
+
+  @Name ("lineCount")
+  @Label ("Line Count")
+  @Description ("The number of Invoice or CreditNote lines of the source document")
+  private int m_nLineCount;
+
+  @Name ("outcome")
+  @Label ("Outcome")
+  private String m_sOutcome;
+
+  protected AbstractPeppolUAETDDEvent ()
+  {}
+
+  @Nullable
+  public final String getDocumentID ()
+  {
+    return m_sDocumentID;
+  }
+
+  public final void setDocumentID (@Nullable final String sDocumentID)
+  {
+    m_sDocumentID = sDocumentID;
+  }
+
+  @Nullable
+  public final String getDocumentUUID ()
+  {
+    return m_sDocumentUUID;
+  }
+
+  public final void setDocumentUUID (@Nullable final String sDocumentUUID)
+  {
+    m_sDocumentUUID = sDocumentUUID;
+  }
+
+  public final long getSourceSize ()
+  {
+    return m_nSourceSize;
+  }
+
+  public final void setSourceSize (final long nSourceSize)
+  {
+    m_nSourceSize = nSourceSize;
+  }
+
+  public final int getLineCount ()
+  {
+    return m_nLineCount;
+  }
+
+  public final void setLineCount (final int nLineCount)
+  {
+    m_nLineCount = nLineCount;
+  }
+
+  @Nullable
+  public final String getOutcome ()
+  {
+    return m_sOutcome;
+  }
+
+  public final void setOutcome (@Nullable final String sOutcome)
+  {
+    m_sOutcome = sOutcome;
+  }
+
+  /**
+   * Count the Invoice and CreditNote lines of a UBL source document. Only the direct children are
+   * checked.
+   *
+   * @param aSourceDocument
+   *        The UBL Invoice or CreditNote element. May be <code>null</code>.
+   * @return The number of lines. 0 if the element is <code>null</code>.
+   */
+  public static int getLineCount (@Nullable final Object aSourceDocument)
+  {
+    int ret = 0;
+    if (aSourceDocument instanceof Element)
+      for (Node aChild = ((Element) aSourceDocument).getFirstChild (); aChild != null; aChild = aChild.getNextSibling ())
+        if (aChild.getNodeType () == Node.ELEMENT_NODE &&
+            ("InvoiceLine".equals (aChild.getLocalName ()) || "CreditNoteLine".equals (aChild.getLocalName ())))
+          ret++;
+    return ret;
+  }
+
+  /**
+   * Determine the size of a source document as UTF-8 serialized XML. As the node is serialized, this
+   * should only be called if the event is committed.
+   *
+   * @param aSourceDocument
+   *        The UBL Invoice or CreditNote element. May be <code>null</code>.
+   * @return The number of bytes or {@link #SOURCE_SIZE_UNKNOWN} if the element is <code>null</code>.
+   */
+  public static long getSourceSize (@Nullable final Object aSourceDocument)
+  {
+    if (aSourceDocument instanceof Node)
+    {
+      final String sXML = XMLWriter.getNodeAsString ((Node) aSourceDocument);
+      if (sXML != null)
+        return sXML.getBytes (StandardCharsets.UTF_8).length;
+    }
+    return SOURCE_SIZE_UNKNOWN;
+  }
+
+  /**
+   * Set document ID, document UUID and line count from the first reported transaction of the
+   * provided TDD.
+   *
+   * @param aTDD
+   *        The TDD to read from. May be <code>null</code>.
+   */
+  public final void setFromTDD (@Nullable final TaxDataType aTDD)
+  {
+    if (aTDD != null && aTDD.hasReportedTransactionEntries ())
+      setFromReportedTransaction (aTDD.getReportedTransactionAtIndex (0));
+  }
+
+  /**
+   * Set document ID, document UUID and line count from the provided reported transaction.
+   *
+   * @param aRT
+   *        The reported transaction to read from. May be <code>null</code>.
+   */
+  public final void setFromReportedTransaction (@Nullable final ReportedTransactionType aRT)
+  {
+    if (aRT != null)
+    {
+      final ReportedDocumentType aRD = aRT.getReportedDocument ();
+      if (aRD != null)
+      {
+        setDocumentID (aRD.getIDValue ());
+        setDocumentUUID (aRD.getUUIDValue ());
+      }
+      if (aRT.getSourceDocument () != null && aRT.getSourceDocument ().getExtensionContent () != null)
+        setLineCount (getLineCount (aRT.getSourceDocument ().getExtensionContent ().getAny ()));
+    }
+  }
+
+  @Nullable
+  private static Element _getFirstChildElement (@Nullable final Node aParent, @Nullable final String sLocalName)
+  {
+    if (aParent != null)
+      for (Node aChild = aParent.getFirstChild (); aChild != null; aChild = aChild.getNextSibling ())
+        if (aChild.getNodeType () == Node.ELEMENT_NODE &&
+            (sLocalName == null || sLocalName.equals (aChild.getLocalName ())))
+          return (Element) aChild;
+    return null;
+  }
+
+  @Nullable
+  private static String _getCBCText (@Nullable final Element aParent, @NonNull final String sLocalName)
+  {
+    final Element e = _getFirstChildElement (aParent, sLocalName);
+    return e != null && NS_CBC.equals (e.getNamespaceURI ()) ? e.getTextContent ().trim () : null;
+  }
+
+  /**
+   * Set document ID, document UUID and line count from the first reported transaction of the
+   * provided TDD DOM. Only the direct path to the values is traversed.
+   *
+   * @param aNode
+   *        The TDD document or document element. May be <code>null</code>.
+   */
+  public final void setFromTDDNode (@Nullable final Node aNode)
+  {
+    final Node aRoot = aNode != null && aNode.getNodeType () == Node.DOCUMENT_NODE ? _getFirstChildElement (aNode, null)
+                                                                                 : aNode;
+    final Element eRT = _getFirstChildElement (aRoot, "ReportedTransaction");
+    final Element eRD = _getFirstChildElement (eRT, "ReportedDocument");
+    setDocumentID (_getCBCText (eRD, "ID"));
+    setDocumentUUID (_getCBCText (eRD, "UUID"));
+    final Element eExtContent = _getFirstChildElement (_getFirstChildElement (eRT, "SourceDocument"),
+                                                       "ExtensionContent");
+    setLineCount (getLineCount (_getFirstChildElement (eExtContent, null)));
+  }
+}
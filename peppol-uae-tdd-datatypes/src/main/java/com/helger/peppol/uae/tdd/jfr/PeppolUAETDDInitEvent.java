@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.jfr;
+
+import org.jspecify.annotations.Nullable;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for the initialization of a reported transaction from a UBL Invoice or CreditNote.
+ *
+ * @author Philip Helger
+ */
+@Name ("com.helger.peppol.uae.tdd.InitFromSourceDocument")
+@Label ("TDD Init From Source Document")
+@Description ("Initialization of a TDD reported transaction from a UBL Invoice or CreditNote")
+public final class PeppolUAETDDInitEvent extends AbstractPeppolUAETDDEvent
+{
+  @Name ("sourceDocumentType")
+  @Label ("Source Document Type")
+  @Description ("Either Invoice or CreditNote")
+  private String m_sSourceDocumentType;
+
+  @Nullable
+  public String getSourceDocumentType ()
+  {
+    return m_sSourceDocumentType;
+  }
+
+  public void setSourceDocumentType (@Nullable final String sSourceDocumentType)
+  {
+    m_sSourceDocumentType = sSourceDocumentType;
+  }
+}
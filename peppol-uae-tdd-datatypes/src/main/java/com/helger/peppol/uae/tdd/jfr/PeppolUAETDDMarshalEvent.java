@@ -0,0 +1,32 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for the JAXB marshalling of a TDD.
+ *
+ * @author Philip Helger
+ */
+@Name ("com.helger.peppol.uae.tdd.Marshal")
+@Label ("TDD Marshal")
+@Description ("JAXB marshalling of a TDD")
+public final class PeppolUAETDDMarshalEvent extends AbstractPeppolUAETDDEvent
+{}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.jfr;
+
+import org.jspecify.annotations.Nullable;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for the Schematron validation of a TDD. The outcome is either {@link #OUTCOME_VALID},
+ * {@link #OUTCOME_INVALID} or {@link #OUTCOME_FAILURE}.
+ *
+ * @author Philip Helger
+ */
+@Name ("com.helger.peppol.uae.tdd.SchematronValidation")
+@Label ("TDD Schematron Validation")
+@Description ("Schematron validation of a TDD")
+public final class PeppolUAETDDSchematronEvent extends AbstractPeppolUAETDDEvent
+{
+  /** Outcome of a validation without failed assertions */
+  public static final String OUTCOME_VALID = "valid";
+  /** Outcome of a validation with at least one failed assertion */
+  public static final String OUTCOME_INVALID = "invalid";
+
+  @Name ("schematronID")
+  @Label ("Schematron ID")
+  private String m_sSchematronID;
+
+  @Name ("failedAssertionCount")
+  @Label ("Failed Assertion Count")
+  private int m_nFailedAssertionCount;
+
+  @Nullable
+  public String getSchematronID ()
+  {
+    return m_sSchematronID;
+  }
+
+  public void setSchematronID (@Nullable final String sSchematronID)
+  {
+    m_sSchematronID = sSchematronID;
+  }
+
+  public int getFailedAssertionCount ()
+  {
+    return m_nFailedAssertionCount;
+  }
+
+  public void setFailedAssertionCount (final int nFailedAssertionCount)
+  {
+    m_nFailedAssertionCount = nFailedAssertionCount;
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.metrics;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonempty;
+import com.helger.base.id.IHasID;
+import com.helger.base.lang.EnumHelper;
+
+/**
+ * The processing stages for which latencies are recorded via {@link IPeppolUAETDDMetrics}.
+ *
+ * @author Philip Helger
+ */
+public enum EUAETDDMetricsStage implements IHasID <String>
+{
+  /** Filling a reported transaction from a UBL Invoice */
+  INIT_FROM_INVOICE ("init-from-invoice"),
+  /** Filling a reported transaction from a UBL CreditNote */
+  INIT_FROM_CREDIT_NOTE ("init-from-credit-note"),
+  /** Building a TDD from the builder */
+  BUILD ("build"),
+  /** Converting a TDD to XML */
+  MARSHAL ("marshal"),
+  /** Converting XML to a TDD */
+  UNMARSHAL ("unmarshal"),
+  /** Running the Schematron validation */
+  SCHEMATRON_VALIDATION ("schematron-validation");
+
+  private final String m_sID;
+
+  EUAETDDMetricsStage (@NonNull @Nonempty final String sID)
+  {
+    m_sID = sID;
+  }
+
+  @NonNull
+  @Nonempty
+  public String getID ()
+  {
+    return m_sID;
+  }
+
+  @Nullable
+  public static EUAETDDMetricsStage getFromIDOrNull (@Nullable final String sID)
+  {
+    return EnumHelper.getFromIDOrNull (EUAETDDMetricsStage.class, sID);
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.metrics;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.style.IsSPIInterface;
+
+/**
+ * SPI interface for recording metrics of the TDD processing. The first implementation found via
+ * {@link java.util.ServiceLoader} is used by {@link PeppolUAETDDMetrics}. Implementations must be
+ * thread-safe and should not block, as they are invoked on the processing threads.
+ *
+ * @author Philip Helger
+ */
+@IsSPIInterface
+public interface IPeppolUAETDDMetrics
+{
+  /**
+   * Record the duration of a single execution of a processing stage.
+   *
+   * @param eStage
+   *        The processing stage. Never <code>null</code>.
+   * @param nDurationNanos
+   *        The duration in nanoseconds.
+   */
+  void recordLatency (@NonNull EUAETDDMetricsStage eStage, @Nonnegative long nDurationNanos);
+
+  /**
+   * Invoked for every TDD successfully built.
+   *
+   * @param sDocumentTypeCode
+   *        The ID of the TDD DocumentTypeCode (e.g. <code>S</code>). Never <code>null</code>.
+   */
+  void onTDDBuilt (@NonNull String sDocumentTypeCode);
+
+  /**
+   * Invoked for every failed Schematron assertion.
+   *
+   * @param sAssertionID
+   *        The ID of the failed assertion (e.g. <code>ibr-tdd-01</code>). Never <code>null</code>
+   *        but maybe empty.
+   */
+  void onFailedAssertion (@NonNull String sAssertionID);
+
+  /**
+   * Invoked for every execution of a processing stage that failed with an exception or did not
+   * deliver a result.
+   *
+   * @param eStage
+   *        The processing stage. Never <code>null</code>.
+   */
+  default void onStageFailed (@NonNull final EUAETDDMetricsStage eStage)
+  {}
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.metrics;
+
+import java.util.Iterator;
+import java.util.ServiceLoader;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+
+/**
+ * The central access point for recording TDD processing metrics. If no {@link IPeppolUAETDDMetrics}
+ * implementation is found via {@link ServiceLoader} and none was set explicitly, metrics are
+ * disabled. In that case all methods of this class return immediately without allocating objects
+ * and without reading the clock.<br>
+ * Usage for latencies:
+ *
+ * <pre>
+ * final long nStart = PeppolUAETDDMetrics.startTimer ();
+ * // do the work
+ * PeppolUAETDDMetrics.recordLatency (EUAETDDMetricsStage.BUILD, nStart);
+ * </pre>
+ *
+ * @author Philip Helger
+ */
+@ThreadSafe
+public final class PeppolUAETDDMetrics
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (PeppolUAETDDMetrics.class);
+
+  // null means disabled
+  private static volatile IPeppolUAETDDMetrics s_aMetrics;
+
+  static
+  {
+    final Iterator <IPeppolUAETDDMetrics> it = ServiceLoader.load (IPeppolUAETDDMetrics.class,
+                                                                   PeppolUAETDDMetrics.class.getClassLoader ())
+                                                            .iterator ();
+    if (it.hasNext ())
+    {
+      s_aMetrics = it.next ();
+      LOGGER.info ("Using TDD metrics implementation " + s_aMetrics.getClass ().getName ());
+      if (it.hasNext ())
+        LOGGER.warn ("Found more than one TDD metrics implementation - only the first one is used");
+    }
+  }
+
+  private PeppolUAETDDMetrics ()
+  {}
+
+  /**
+   * @return <code>true</code> if a metrics implementation is active.
+   */
+  public static boolean isEnabled ()
+  {
+    return s_aMetrics != null;
+  }
+
+  /**
+   * @return The currently active metrics implementation or <code>null</code> if metrics are
+   *         disabled.
+   */
+  @Nullable
+  public static IPeppolUAETDDMetrics getMetrics ()
+  {
+    return s_aMetrics;
+  }
+
+  /**
+   * Set the metrics implementation to use. This overrides the implementation found via
+   * {@link ServiceLoader}.
+   *
+   * @param aMetrics
+   *        The implementation to use. May be <code>null</code> to disable metrics.
+   */
+  public static void setMetrics (@Nullable final IPeppolUAETDDMetrics aMetrics)
+  {
+    s_aMetrics = aMetrics;
+  }
+
+  /**
+   * @return The current time in nanoseconds if metrics are enabled, 0 otherwise. Pass the result
+   *         to {@link #recordLatency(EUAETDDMetricsStage, long)}.
+   */
+  public static long startTimer ()
+  {
+    return s_aMetrics != null ? System.nanoTime () : 0L;
+  }
+
+  /**
+   * Record the latency of a stage.
+   *
+   * @param eStage
+   *        The processing stage. May not be <code>null</code>.
+   * @param nStartNanos
+   *        The value returned by {@link #startTimer()} at the beginning of the stage. If it is 0,
+   *        nothing is recorded.
+   */
+  public static void recordLatency (@NonNull final EUAETDDMetricsStage eStage, final long nStartNanos)
+  {
+    final IPeppolUAETDDMetrics aMetrics = s_aMetrics;
+    if (aMetrics != null && nStartNanos != 0L)
+    {
+      ValueEnforcer.notNull (eStage, "Stage");
+      aMetrics.recordLatency (eStage, Math.max (0L, System.nanoTime () - nStartNanos));
+    }
+  }
+
+  /**
+   * Count a successfully built TDD.
+   *
+   * @param sDocumentTypeCode
+   *        The ID of the TDD DocumentTypeCode. May be <code>null</code> in which case nothing is
+   *        recorded.
+   */
+  public static void onTDDBuilt (@Nullable final String sDocumentTypeCode)
+  {
+    final IPeppolUAETDDMetrics aMetrics = s_aMetrics;
+    if (aMetrics != null && sDocumentTypeCode != null)
+      aMetrics.onTDDBuilt (sDocumentTypeCode);
+  }
+
+  /**
+   * Count a failed Schematron assertion.
+   *
+   * @param sAssertionID
+   *        The ID of the failed assertion. May be <code>null</code> in which case an empty ID is
+   *        recorded.
+   */
+  public static void onFailedAssertion (@Nullable final String sAssertionID)
+  {
+    final IPeppolUAETDDMetrics aMetrics = s_aMetrics;
+    if (aMetrics != null)
+      aMetrics.onFailedAssertion (sAssertionID == null ? "" : sAssertionID);
+  }
+
+  /**
+   * Count a failed execution of a stage.
+   *
+   * @param eStage
+   *        The processing stage. May not be <code>null</code>.
+   */
+  public static void onStageFailed (@NonNull final EUAETDDMetricsStage eStage)
+  {
+    final IPeppolUAETDDMetrics aMetrics = s_aMetrics;
+    if (aMetrics != null)
+    {
+      ValueEnforcer.notNull (eStage, "Stage");
+      aMetrics.onStageFailed (eStage);
+    }
+  }
+}
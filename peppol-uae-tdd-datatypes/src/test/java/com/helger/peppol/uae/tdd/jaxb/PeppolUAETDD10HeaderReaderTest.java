@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.jaxb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import org.junit.Test;
+
+import com.helger.io.resource.ClassPathResource;
+import com.helger.peppol.uae.tdd.testfiles.PeppolUAETestFiles;
+import com.helger.peppol.uae.tdd.v100.ReportedDocumentType;
+import com.helger.peppol.uae.tdd.v100.ReportedTransactionType;
+import com.helger.peppol.uae.tdd.v100.TaxDataType;
+
+/**
+ * Test class for class {@link PeppolUAETDD10HeaderReader}.
+ *
+ * @author Philip Helger
+ */
+public final class PeppolUAETDD10HeaderReaderTest
+{
+  @Test
+  public void testSameAsJAXB ()
+  {
+    final PeppolUAETDD10HeaderReader aReader = new PeppolUAETDD10HeaderReader ();
+    for (final ClassPathResource aRes : PeppolUAETestFiles.getAllGoodTDD10Files ())
+    {
+      final PeppolUAETDD10Header aHeader = aReader.read (aRes);
+      assertNotNull (aRes.getPath (), aHeader);
+
+      final TaxDataType aTDD = new PeppolUAETDD10Marshaller ().read (aRes);
+      assertNotNull (aRes.getPath (), aTDD);
+
+      assertEquals (aTDD.getCustomizationIDValue (), aHeader.getCustomizationID ());
+      assertEquals (aTDD.getProfileIDValue (), aHeader.getProfileID ());
+      assertEquals (aTDD.getIssueDateValueLocal (), aHeader.getIssueDateLocal ());
+      assertEquals (aTDD.getDocumentTypeCode ().getValue (), aHeader.getDocumentTypeCode ());
+      assertEquals (aTDD.getDocumentScope ().getValue (), aHeader.getDocumentScope ());
+      assertEquals (aTDD.getReporterRole ().getValue (), aHeader.getReporterRole ());
+      assertEquals (aTDD.getReportingParty ().getEndpointIDValue (), aHeader.getReportingPartyEndpointID ());
+      assertEquals (aTDD.getReceivingParty ().getEndpointIDValue (), aHeader.getReceivingPartyEndpointID ());
+
+      assertEquals (aTDD.getReportedTransactionCount (), aHeader.getAllReportedTransactions ().size ());
+      for (int i = 0; i < aTDD.getReportedTransactionCount (); ++i)
+      {
+        final ReportedTransactionType aRT = aTDD.getReportedTransactionAtIndex (i);
+        final PeppolUAETDD10Header.ReportedTransaction aHeaderRT = aHeader.getAllReportedTransactions ().get (i);
+        assertEquals (aRT.getSourceDocument () != null, aHeaderRT.hasSourceDocument ());
+        assertEquals (aRT.getCustomContentCount (), aHeaderRT.getCustomContentCount ());
+
+        final ReportedDocumentType aRD = aRT.getReportedDocument ();
+        assertEquals (aRD != null, aHeaderRT.hasReportedDocument ());
+        if (aRD != null)
+        {
+          assertEquals (aRD.getIDValue (), aHeaderRT.getID ());
+          assertEquals (aRD.getUUIDValue (), aHeaderRT.getUUID ());
+          assertEquals (aRD.getDocumentCurrencyCodeValue (), aHeaderRT.getDocumentCurrencyCode ());
+          assertEquals (aRD.getTaxTotalCount (), aHeaderRT.getAllTaxTotalAmounts ().size ());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testDetails ()
+  {
+    final PeppolUAETDD10Header aHeader = new PeppolUAETDD10HeaderReader ().read (new ClassPathResource ("external/tdd/10/good/tax-currency.xml"));
+    assertNotNull (aHeader);
+    assertEquals ("urn:peppol:taxdata:ae-1", aHeader.getCustomizationID ());
+    assertEquals (LocalDate.of (2025, 4, 14), aHeader.getIssueDateLocal ());
+    assertEquals ("S", aHeader.getDocumentTypeCode ());
+    assertEquals ("D", aHeader.getDocumentScope ());
+    assertEquals ("01", aHeader.getReporterRole ());
+    assertEquals ("0235", aHeader.getReportingPartyEndpointIDSchemeID ());
+    assertEquals ("dummy-sender", aHeader.getReportingPartyEndpointID ());
+    assertEquals ("dummy-receiver", aHeader.getReceivingPartyEndpointID ());
+    assertEquals ("dummy-representative", aHeader.getReportersRepresentativeID ());
+
+    final PeppolUAETDD10Header.ReportedTransaction aRT = aHeader.getFirstReportedTransaction ();
+    assertNotNull (aRT);
+    assertEquals ("cf510157-2967-460b-806a-a6e63b052164", aRT.getTransportHeaderID ());
+    assertEquals ("inv1", aRT.getID ());
+    assertEquals ("eca87285-6b30-4691-b4b7-f97da43c1760", aRT.getUUID ());
+    assertEquals (LocalDate.of (2025, 4, 13), aRT.getIssueDateLocal ());
+    assertEquals ("380", aRT.getDocumentTypeCode ());
+    assertEquals ("EUR", aRT.getDocumentCurrencyCode ());
+    assertEquals ("AED", aRT.getTaxCurrencyCode ());
+    assertEquals ("123456789", aRT.getSellerTaxID ());
+    assertEquals ("VAT", aRT.getSellerTaxSchemeID ());
+    assertEquals ("9876543210000", aRT.getBuyerTaxID ());
+    assertEquals (new BigDecimal ("1"), aRT.getTaxTotalAmount ("EUR"));
+    assertEquals (new BigDecimal ("2.3"), aRT.getTaxTotalAmount ("AED"));
+    assertEquals (new BigDecimal ("123"), aRT.getTaxExclusiveAmount ().getValue ());
+    assertNull (aRT.getTaxInclusiveAmount ());
+    assertEquals (1, aRT.getCustomContentCount ());
+    assertTrue (aRT.hasSourceDocument ());
+  }
+
+  @Test
+  public void testInvalid ()
+  {
+    final PeppolUAETDD10HeaderReader aReader = new PeppolUAETDD10HeaderReader ();
+    assertNull (aReader.read ("<Invoice xmlns='urn:oasis:names:specification:ubl:schema:xsd:Invoice-2'/>".getBytes (StandardCharsets.UTF_8)));
+    assertNull (aReader.read ("<pxs:TaxData xmlns:pxs='urn:peppol:schema:taxdata:1.0'>".getBytes (StandardCharsets.UTF_8)));
+    assertNull (aReader.read ("no xml".getBytes (StandardCharsets.UTF_8)));
+  }
+}
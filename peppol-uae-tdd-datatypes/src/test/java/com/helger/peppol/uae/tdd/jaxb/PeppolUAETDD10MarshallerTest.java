@@ -16,11 +16,24 @@
  */
 package com.helger.peppol.uae.tdd.jaxb;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import com.helger.base.io.stream.StreamHelper;
 import com.helger.io.resource.ClassPathResource;
+import com.helger.peppol.uae.tdd.v100.TaxDataType;
 import com.helger.peppol.uae.tdd.testfiles.PeppolUAETestFiles;
 
 /**
@@ -30,6 +43,9 @@ import com.helger.peppol.uae.tdd.testfiles.PeppolUAETestFiles;
  */
 public final class PeppolUAETDD10MarshallerTest
 {
+  @Rule
+  public final TemporaryFolder m_aTempFolder = new TemporaryFolder ();
+
   @Test
   public void testBasic10 ()
   {
@@ -39,4 +55,33 @@ public final class PeppolUAETDD10MarshallerTest
     for (final ClassPathResource aRes : PeppolUAETestFiles.getAllSchematronBadTDD10Files ())
       assertNotNull (m.read (aRes));
   }
+
+  @Test
+  public void testReadPath () throws Exception
+  {
+    final PeppolUAETDD10Marshaller m = new PeppolUAETDD10Marshaller ();
+    for (final ClassPathResource aRes : PeppolUAETestFiles.getAllGoodTDD10Files ())
+    {
+      final byte [] aBytes = StreamHelper.getAllBytes (aRes);
+      final TaxDataType aExpected = m.read (aRes);
+      assertNotNull (aExpected);
+
+      // Small file - read into a pooled buffer
+      final Path aSmall = m_aTempFolder.newFile ().toPath ();
+      Files.write (aSmall, aBytes);
+      assertEquals (aExpected, m.read (aSmall));
+
+      // Large file - streamed
+      final byte [] aPadding = new byte [PeppolUAETDD10FileInput.BUFFER_THRESHOLD];
+      Arrays.fill (aPadding, (byte) ' ');
+      final Path aLarge = m_aTempFolder.newFile ().toPath ();
+      Files.write (aLarge, aBytes);
+      Files.write (aLarge, aPadding, StandardOpenOption.APPEND);
+      assertEquals (aExpected, m.read (aLarge));
+    }
+    // The pool is bounded
+    assertTrue (PeppolUAETDD10FileInput.getPooledBufferCount () <= PeppolUAETDD10FileInput.MAX_POOLED_BUFFERS);
+
+    assertNull (m.read (new File (m_aTempFolder.getRoot (), "does-not-exist.xml").toPath ()));
+  }
 }
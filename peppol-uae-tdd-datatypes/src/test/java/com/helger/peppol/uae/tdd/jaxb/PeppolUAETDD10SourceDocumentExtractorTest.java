@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.jaxb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import com.helger.io.resource.ClassPathResource;
+import com.helger.peppol.uae.tdd.testfiles.PeppolUAETestFiles;
+import com.helger.peppol.uae.tdd.v100.TaxDataType;
+import com.helger.xml.serialize.read.DOMReader;
+
+/**
+ * Test class for class {@link PeppolUAETDD10SourceDocumentExtractor}.
+ *
+ * @author Philip Helger
+ */
+public final class PeppolUAETDD10SourceDocumentExtractorTest
+{
+  private static final String NS_INVOICE = "urn:oasis:names:specification:ubl:schema:xsd:Invoice-2";
+
+  @Test
+  public void testGoodFiles ()
+  {
+    final PeppolUAETDD10SourceDocumentExtractor aExtractor = new PeppolUAETDD10SourceDocumentExtractor ();
+    for (final ClassPathResource aRes : PeppolUAETestFiles.getAllGoodTDD10Files ())
+    {
+      final TaxDataType aTDD = new PeppolUAETDD10Marshaller ().read (aRes);
+      assertNotNull (aRes.getPath (), aTDD);
+      final Element aExpected = (Element) aTDD.getReportedTransactionAtIndex (0)
+                                              .getSourceDocument ()
+                                              .getExtensionContent ()
+                                              .getAny ();
+
+      final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+      assertTrue (aRes.getPath (), aExtractor.extract (aRes, aBAOS).isSuccess ());
+
+      final Document aDoc = DOMReader.readXMLDOM (aBAOS.toByteArray ());
+      assertNotNull (aRes.getPath (), aDoc);
+      assertEquals (aExpected.getNamespaceURI (), aDoc.getDocumentElement ().getNamespaceURI ());
+      assertEquals (aExpected.getLocalName (), aDoc.getDocumentElement ().getLocalName ());
+    }
+  }
+
+  @Test
+  public void testNamespacesFromTDD ()
+  {
+    // The invoice uses the prefixes declared on the TDD root element
+    final String sTDD = "<?xml version='1.0' encoding='UTF-8'?>" +
+                        "<pxs:TaxData xmlns:pxs='urn:peppol:schema:taxdata:1.0'" +
+                        " xmlns:cbc='urn:oasis:names:specification:ubl:schema:xsd:CommonBasicComponents-2'" +
+                        " xmlns:cec='urn:oasis:names:specification:ubl:schema:xsd:CommonExtensionComponents-2'>" +
+                        "<cbc:CustomizationID>urn:peppol:taxdata:ae-1</cbc:CustomizationID>" +
+                        "<pxs:ReportedTransaction><pxs:SourceDocument><cec:ExtensionContent>" +
+                        "<Invoice xmlns='" +
+                        NS_INVOICE +
+                        "'><cbc:ID>first</cbc:ID></Invoice>" +
+                        "</cec:ExtensionContent></pxs:SourceDocument></pxs:ReportedTransaction>" +
+                        "<pxs:ReportedTransaction><pxs:SourceDocument><cec:ExtensionContent>" +
+                        "<Invoice xmlns='" +
+                        NS_INVOICE +
+                        "'><cbc:ID>second &amp; last</cbc:ID><!-- comment --></Invoice>" +
+                        "</cec:ExtensionContent></pxs:SourceDocument></pxs:ReportedTransaction>" +
+                        "</pxs:TaxData>";
+    final PeppolUAETDD10SourceDocumentExtractor aExtractor = new PeppolUAETDD10SourceDocumentExtractor ();
+    for (int i = 0; i < 2; ++i)
+    {
+      final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+      assertTrue (aExtractor.extract (new ByteArrayInputStream (sTDD.getBytes (StandardCharsets.UTF_8)), i, aBAOS)
+                            .isSuccess ());
+
+      final Document aDoc = DOMReader.readXMLDOM (aBAOS.toByteArray ());
+      assertNotNull (aDoc);
+      final Element eRoot = aDoc.getDocumentElement ();
+      assertEquals (NS_INVOICE, eRoot.getNamespaceURI ());
+      assertEquals ("Invoice", eRoot.getLocalName ());
+      final Element eID = (Element) eRoot.getFirstChild ();
+      assertEquals (PeppolUAETDD10HeaderReader.NS_CBC, eID.getNamespaceURI ());
+      assertEquals (i == 0 ? "first" : "second & last", eID.getTextContent ());
+    }
+
+    // No third transaction
+    assertTrue (aExtractor.extract (new ByteArrayInputStream (sTDD.getBytes (StandardCharsets.UTF_8)),
+                                    2,
+                                    new ByteArrayOutputStream ())
+                          .isFailure ());
+  }
+}
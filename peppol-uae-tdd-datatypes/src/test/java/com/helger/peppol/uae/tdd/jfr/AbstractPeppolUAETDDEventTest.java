@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.jfr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Document;
+
+import com.helger.base.io.stream.StreamHelper;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.io.resource.ClassPathResource;
+import com.helger.peppol.uae.tdd.jaxb.PeppolUAETDD10Marshaller;
+import com.helger.peppol.uae.tdd.testfiles.PeppolUAETestFiles;
+import com.helger.peppol.uae.tdd.v100.TaxDataType;
+import com.helger.xml.serialize.read.DOMReader;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Test class for class {@link AbstractPeppolUAETDDEvent}.
+ *
+ * @author Philip Helger
+ */
+public final class AbstractPeppolUAETDDEventTest
+{
+  @Rule
+  public final TemporaryFolder m_aTempFolder = new TemporaryFolder ();
+
+  @Test
+  public void testDisabledByDefault ()
+  {
+    assertFalse (new PeppolUAETDDMarshalEvent ().isEnabled ());
+    assertFalse (new PeppolUAETDDUnmarshalEvent ().isEnabled ());
+  }
+
+  @Test
+  public void testSetFromTDDNode ()
+  {
+    for (final ClassPathResource aRes : PeppolUAETestFiles.getAllGoodTDD10Files ())
+    {
+      final TaxDataType aTDD = new PeppolUAETDD10Marshaller ().read (aRes);
+      assertNotNull (aTDD);
+      final PeppolUAETDDMarshalEvent aExpected = new PeppolUAETDDMarshalEvent ();
+      aExpected.setFromTDD (aTDD);
+
+      final Document aDoc = DOMReader.readXMLDOM (aRes);
+      assertNotNull (aDoc);
+      final PeppolUAETDDMarshalEvent aEvent = new PeppolUAETDDMarshalEvent ();
+      aEvent.setFromTDDNode (aDoc);
+      assertNotNull (aEvent.getDocumentID ());
+      assertEquals (aRes.getPath (), aExpected.getDocumentID (), aEvent.getDocumentID ());
+      assertEquals (aRes.getPath (), aExpected.getDocumentUUID (), aEvent.getDocumentUUID ());
+      assertEquals (aRes.getPath (), aExpected.getLineCount (), aEvent.getLineCount ());
+    }
+  }
+
+  @Test
+  public void testRecording () throws Exception
+  {
+    final ClassPathResource aRes = PeppolUAETestFiles.getAllGoodTDD10Files ().getFirstOrNull ();
+    final Path aFile = m_aTempFolder.getRoot ().toPath ().resolve ("tdd.xml");
+    Files.write (aFile, StreamHelper.getAllBytes (aRes));
+    final Path aJFRFile = m_aTempFolder.getRoot ().toPath ().resolve ("tdd.jfr");
+
+    final TaxDataType aTDD;
+    try (final Recording aRecording = new Recording ())
+    {
+      aRecording.enable (PeppolUAETDDUnmarshalEvent.class).withoutThreshold ();
+      aRecording.enable (PeppolUAETDDMarshalEvent.class).withoutThreshold ();
+      aRecording.start ();
+
+      aTDD = new PeppolUAETDD10Marshaller ().read (aFile);
+      assertNotNull (aTDD);
+      assertNotNull (new PeppolUAETDD10Marshaller ().getAsBytes (aTDD));
+
+      aRecording.stop ();
+      aRecording.dump (aJFRFile);
+    }
+
+    final PeppolUAETDDMarshalEvent aExpected = new PeppolUAETDDMarshalEvent ();
+    aExpected.setFromTDD (aTDD);
+
+    final ICommonsList <RecordedEvent> aUnmarshalEvents = new CommonsArrayList <> ();
+    final ICommonsList <RecordedEvent> aMarshalEvents = new CommonsArrayList <> ();
+    for (final RecordedEvent aEvent : RecordingFile.readAllEvents (aJFRFile))
+      if ("com.helger.peppol.uae.tdd.Unmarshal".equals (aEvent.getEventType ().getName ()))
+        aUnmarshalEvents.add (aEvent);
+      else
+        if ("com.helger.peppol.uae.tdd.Marshal".equals (aEvent.getEventType ().getName ()))
+          aMarshalEvents.add (aEvent);
+
+    assertEquals (1, aUnmarshalEvents.size ());
+    final RecordedEvent aUnmarshal = aUnmarshalEvents.getFirstOrNull ();
+    assertEquals (aExpected.getDocumentID (), aUnmarshal.getString ("documentID"));
+    assertEquals (aExpected.getDocumentUUID (), aUnmarshal.getString ("documentUUID"));
+    assertEquals (aExpected.getLineCount (), aUnmarshal.getInt ("lineCount"));
+    assertEquals (Files.size (aFile), aUnmarshal.getLong ("sourceSize"));
+    assertEquals (AbstractPeppolUAETDDEvent.OUTCOME_SUCCESS, aUnmarshal.getString ("outcome"));
+
+    assertEquals (1, aMarshalEvents.size ());
+    final RecordedEvent aMarshal = aMarshalEvents.getFirstOrNull ();
+    assertEquals (aExpected.getDocumentID (), aMarshal.getString ("documentID"));
+    assertEquals (AbstractPeppolUAETDDEvent.SOURCE_SIZE_UNKNOWN, aMarshal.getLong ("sourceSize"));
+  }
+}
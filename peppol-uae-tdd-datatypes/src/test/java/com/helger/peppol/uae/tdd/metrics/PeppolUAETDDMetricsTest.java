@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.helger.io.resource.ClassPathResource;
+import com.helger.peppol.uae.tdd.jaxb.PeppolUAETDD10Marshaller;
+import com.helger.peppol.uae.tdd.testfiles.PeppolUAETestFiles;
+import com.helger.peppol.uae.tdd.v100.TaxDataType;
+
+/**
+ * Test class for class {@link PeppolUAETDDMetrics}.
+ *
+ * @author Philip Helger
+ */
+public final class PeppolUAETDDMetricsTest
+{
+  private static final class CountingMetrics implements IPeppolUAETDDMetrics
+  {
+    private final Map <EUAETDDMetricsStage, Integer> m_aCounts = new EnumMap <> (EUAETDDMetricsStage.class);
+
+    public synchronized void recordLatency (final EUAETDDMetricsStage eStage, final long nDurationNanos)
+    {
+      assertTrue (nDurationNanos >= 0);
+      m_aCounts.merge (eStage, Integer.valueOf (1), (a, b) -> Integer.valueOf (a.intValue () + b.intValue ()));
+    }
+
+    public void onTDDBuilt (final String sDocumentTypeCode)
+    {}
+
+    public void onFailedAssertion (final String sAssertionID)
+    {}
+
+    synchronized int getCount (final EUAETDDMetricsStage eStage)
+    {
+      final Integer aCount = m_aCounts.get (eStage);
+      return aCount == null ? 0 : aCount.intValue ();
+    }
+  }
+
+  @Test
+  public void testDisabled ()
+  {
+    final IPeppolUAETDDMetrics aOld = PeppolUAETDDMetrics.getMetrics ();
+    PeppolUAETDDMetrics.setMetrics (null);
+    try
+    {
+      assertFalse (PeppolUAETDDMetrics.isEnabled ());
+      assertEquals (0L, PeppolUAETDDMetrics.startTimer ());
+      // Must not fail
+      PeppolUAETDDMetrics.recordLatency (EUAETDDMetricsStage.BUILD, 0);
+      PeppolUAETDDMetrics.onTDDBuilt ("S");
+      PeppolUAETDDMetrics.onFailedAssertion (null);
+    }
+    finally
+    {
+      PeppolUAETDDMetrics.setMetrics (aOld);
+    }
+  }
+
+  @Test
+  public void testMarshaller ()
+  {
+    final IPeppolUAETDDMetrics aOld = PeppolUAETDDMetrics.getMetrics ();
+    final CountingMetrics aMetrics = new CountingMetrics ();
+    PeppolUAETDDMetrics.setMetrics (aMetrics);
+    try
+    {
+      assertTrue (PeppolUAETDDMetrics.isEnabled ());
+      int nCount = 0;
+      for (final ClassPathResource aRes : PeppolUAETestFiles.getAllGoodTDD10Files ())
+      {
+        final TaxDataType aTDD = new PeppolUAETDD10Marshaller ().read (aRes);
+        assertNotNull (aTDD);
+        assertNotNull (new PeppolUAETDD10Marshaller ().getAsString (aTDD));
+        nCount++;
+      }
+      assertEquals (nCount, aMetrics.getCount (EUAETDDMetricsStage.UNMARSHAL));
+      assertEquals (nCount, aMetrics.getCount (EUAETDDMetricsStage.MARSHAL));
+      assertEquals (0, aMetrics.getCount (EUAETDDMetricsStage.BUILD));
+    }
+    finally
+    {
+      PeppolUAETDDMetrics.setMetrics (aOld);
+    }
+  }
+}
@@ -34,6 +34,10 @@ import com.helger.datetime.xml.XMLOffsetTime;
 import com.helger.peppol.uae.tdd.codelist.EUAETDDDocumentScope;
 import com.helger.peppol.uae.tdd.codelist.EUAETDDDocumentTypeCode;
 import com.helger.peppol.uae.tdd.codelist.EUAETDDReporterRole;
+import com.helger.peppol.uae.tdd.jfr.AbstractPeppolUAETDDEvent;
+import com.helger.peppol.uae.tdd.jfr.PeppolUAETDDBuildEvent;
+import com.helger.peppol.uae.tdd.metrics.EUAETDDMetricsStage;
+import com.helger.peppol.uae.tdd.metrics.PeppolUAETDDMetrics;
 import com.helger.peppol.uae.tdd.v100.ReportedTransactionType;
 import com.helger.peppol.uae.tdd.v100.TaxDataDocumentReporterRoleType;
 import com.helger.peppol.uae.tdd.v100.TaxDataDocumentScopeType;
@@ -116,7 +120,7 @@ public class PeppolUAETDD10Builder implements IBuilder <TaxDataType>
   @NonNull
   public PeppolUAETDD10Builder issueDateNow ()
   {
-    return issueDate (PDTFactory.getCurrentLocalDate ());
+    return issueDate (PeppolUAETDDClock.getCurrentLocalDate ());
   }
 
   @NonNull
@@ -135,7 +139,7 @@ public class PeppolUAETDD10Builder implements IBuilder <TaxDataType>
   @NonNull
   public PeppolUAETDD10Builder issueTimeNow ()
   {
-    return issueTime (PDTFactory.getCurrentOffsetTime ());
+    return issueTime (PeppolUAETDDClock.getCurrentOffsetTime ());
   }
 
   @NonNull
@@ -157,7 +161,7 @@ public class PeppolUAETDD10Builder implements IBuilder <TaxDataType>
   @NonNull
   public PeppolUAETDD10Builder issueDateTimeNow ()
   {
-    return issueDateTime (PDTFactory.getCurrentOffsetDateTime ());
+    return issueDateTime (PeppolUAETDDClock.getCurrentOffsetDateTime ());
   }
 
   @Nullable
@@ -433,7 +437,7 @@ public class PeppolUAETDD10Builder implements IBuilder <TaxDataType>
   }
 
   @Nullable
-  public TaxDataType build ()
+  private TaxDataType _build ()
   {
     if (!isEveryRequiredFieldSet (true))
     {
@@ -482,6 +486,46 @@ public class PeppolUAETDD10Builder implements IBuilder <TaxDataType>
       ret.setReportersRepresentative (aParty);
     }
     ret.addReportedTransaction (m_aReportedTransaction);
+
     return ret;
   }
+
+  @Nullable
+  public TaxDataType build ()
+  {
+    final long nStart = PeppolUAETDDMetrics.startTimer ();
+    final PeppolUAETDDBuildEvent aEvent = new PeppolUAETDDBuildEvent ();
+    aEvent.begin ();
+    TaxDataType ret = null;
+    try
+    {
+      ret = _build ();
+      if (ret != null)
+      {
+        PeppolUAETDDMetrics.recordLatency (EUAETDDMetricsStage.BUILD, nStart);
+        PeppolUAETDDMetrics.onTDDBuilt (m_eDocumentTypeCode.getID ());
+      }
+      return ret;
+    }
+    finally
+    {
+      // Also commit the event if the build failed with an exception
+      aEvent.end ();
+      if (aEvent.shouldCommit ())
+      {
+        if (m_eDocumentTypeCode != null)
+          aEvent.setDocumentTypeCode (m_eDocumentTypeCode.getID ());
+        aEvent.setFromReportedTransaction (m_aReportedTransaction);
+        if (m_aReportedTransaction != null &&
+            m_aReportedTransaction.getSourceDocument () != null &&
+            m_aReportedTransaction.getSourceDocument ().getExtensionContent () != null)
+          aEvent.setSourceSize (AbstractPeppolUAETDDEvent.getSourceSize (m_aReportedTransaction.getSourceDocument ()
+                                                                                              .getExtensionContent ()
+                                                                                              .getAny ()));
+        aEvent.setOutcome (ret != null ? AbstractPeppolUAETDDEvent.OUTCOME_SUCCESS
+                                       : AbstractPeppolUAETDDEvent.OUTCOME_FAILURE);
+        aEvent.commit ();
+      }
+    }
+  }
 }
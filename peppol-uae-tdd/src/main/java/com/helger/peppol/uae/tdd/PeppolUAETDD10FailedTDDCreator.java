@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.peppol.uae.tdd.codelist.EUAETDDDocumentTypeCode;
+import com.helger.peppol.uae.tdd.jaxb.PeppolUAETDD10Marshaller;
+import com.helger.peppol.uae.tdd.v100.TaxDataType;
+
+/**
+ * Create TDDs with DocumentTypeCode {@link EUAETDDDocumentTypeCode#FAILED} directly from the raw
+ * bytes of a source document that could not be processed. The bytes are never unmarshalled and
+ * never parsed into a DOM: the header fields are extracted with
+ * {@link PeppolUAETDD10RawSourceDocument#scan(byte[])} and a well-formed source document is copied
+ * textually into the serialized TDD. Source documents that are not well-formed are embedded as a
+ * Base64 encoded attachment instead.
+ *
+ * @author Philip Helger
+ */
+@Immutable
+public final class PeppolUAETDD10FailedTDDCreator
+{
+  /** The name of the attribute that marks the element to be replaced with the source document */
+  public static final String PLACEHOLDER_ATTR = "ph-source-placeholder";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (PeppolUAETDD10FailedTDDCreator.class);
+
+  private PeppolUAETDD10FailedTDDCreator ()
+  {}
+
+  /**
+   * Create a serialized FAILED TDD from the raw bytes of a source document.
+   *
+   * @param aBuilder
+   *        The TDD builder with all header fields set. The DocumentTypeCode must be
+   *        {@link EUAETDDDocumentTypeCode#FAILED}. The ReportedTransaction is overwritten. May not
+   *        be <code>null</code>.
+   * @param aRawBytes
+   *        The raw bytes of the source document. May not be <code>null</code>.
+   * @param aRTCustomizer
+   *        An optional customizer that is invoked on the reported transaction builder, after the
+   *        extracted fields were set. May e.g. be used to set the TransportHeaderID. May be
+   *        <code>null</code>.
+   * @return The serialized TDD in UTF-8 encoding or <code>null</code> if the TDD could not be built.
+   */
+  @Nullable
+  public static byte [] createFailedTDD (@NonNull final PeppolUAETDD10Builder aBuilder,
+                                         @NonNull final byte [] aRawBytes,
+                                         @Nullable final Consumer <PeppolUAETDD10ReportedTransactionBuilder> aRTCustomizer)
+  {
+    return createFailedTDD (aBuilder, PeppolUAETDD10RawSourceDocument.scan (aRawBytes), aRTCustomizer);
+  }
+
+  /**
+   * Create a serialized FAILED TDD from an already scanned source document.
+   *
+   * @param aBuilder
+   *        The TDD builder with all header fields set. The DocumentTypeCode must be
+   *        {@link EUAETDDDocumentTypeCode#FAILED}. The ReportedTransaction is overwritten. May not
+   *        be <code>null</code>.
+   * @param aRawSourceDocument
+   *        The scanned source document. May not be <code>null</code>.
+   * @param aRTCustomizer
+   *        An optional customizer that is invoked on the reported transaction builder, after the
+   *        extracted fields were set. May be <code>null</code>.
+   * @return The serialized TDD in UTF-8 encoding or <code>null</code> if the TDD could not be built.
+   */
+  @Nullable
+  public static byte [] createFailedTDD (@NonNull final PeppolUAETDD10Builder aBuilder,
+                                         @NonNull final PeppolUAETDD10RawSourceDocument aRawSourceDocument,
+                                         @Nullable final Consumer <PeppolUAETDD10ReportedTransactionBuilder> aRTCustomizer)
+  {
+    ValueEnforcer.notNull (aBuilder, "Builder");
+    ValueEnforcer.isTrue (aBuilder.documentTypeCode () == EUAETDDDocumentTypeCode.FAILED,
+                          "The builder must use DocumentTypeCode FAILED");
+    ValueEnforcer.notNull (aRawSourceDocument, "RawSourceDocument");
+
+    // Unique per call, so that the marker cannot be part of the source document
+    final String sMarker = aRawSourceDocument.isEmbeddable () ? UUID.randomUUID ().toString () : null;
+
+    aBuilder.reportedTransaction (rt -> {
+      aRawSourceDocument.applyTo (rt);
+      rt.sourceDocument (aRawSourceDocument.createSourceDocumentElement (sMarker));
+      if (aRTCustomizer != null)
+        aRTCustomizer.accept (rt);
+    });
+    final TaxDataType aTDD = aBuilder.build ();
+    if (aTDD == null)
+      return null;
+
+    final String sXML = new PeppolUAETDD10Marshaller ().setUseSchema (false).getAsString (aTDD);
+    if (sXML == null)
+      return null;
+
+    if (sMarker == null)
+      return sXML.getBytes (StandardCharsets.UTF_8);
+
+    // Replace the empty placeholder element with the original document
+    final Pattern aPattern = Pattern.compile ("<([^\\s<>/]+)[^<>]*\\s" +
+                                              PLACEHOLDER_ATTR +
+                                              "=\"" +
+                                              sMarker +
+                                              "\"[^<>]*?(?:/>|>\\s*</\\1>)");
+    final Matcher aMatcher = aPattern.matcher (sXML);
+    if (!aMatcher.find ())
+    {
+      LOGGER.error ("Failed to find the source document placeholder in the created TDD");
+      return null;
+    }
+    final String ret = sXML.substring (0, aMatcher.start ()) +
+                       aRawSourceDocument.getEmbeddableXML () +
+                       sXML.substring (aMatcher.end ());
+    return ret.getBytes (StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,495 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.OffsetTime;
+import java.util.Base64;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.CommonsLinkedHashMap;
+import com.helger.collection.commons.ICommonsOrderedMap;
+import com.helger.peppol.uae.tdd.jaxb.PeppolUAETDD10HeaderReader;
+import com.helger.ubl21.UBL21Marshaller;
+import com.helger.xml.XMLFactory;
+
+/**
+ * The raw bytes of a source Invoice or CreditNote, together with the header fields that could be
+ * extracted with a tolerant streaming scan. This is meant for documents that cannot be unmarshalled
+ * (e.g. because they are not XSD compliant or not even well-formed) and need to be reported as
+ * {@link com.helger.peppol.uae.tdd.codelist.EUAETDDDocumentTypeCode#FAILED}. The scan stops at the
+ * first syntax error and keeps all fields found until then.<br>
+ * If the bytes are a well-formed UBL Invoice or CreditNote, they can be embedded into a TDD as they
+ * are (see {@link PeppolUAETDD10FailedTDDCreator}). Otherwise an Invoice or CreditNote element is
+ * used, that contains the raw bytes as a Base64 encoded embedded document.
+ *
+ * @author Philip Helger
+ */
+@Immutable
+public final class PeppolUAETDD10RawSourceDocument
+{
+  /** The ID of the additional document reference used for not well-formed source documents */
+  public static final String RAW_DOCUMENT_REFERENCE_ID = "raw-source-document";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (PeppolUAETDD10RawSourceDocument.class);
+
+  private static final XMLInputFactory XML_INPUT_FACTORY;
+
+  static
+  {
+    XML_INPUT_FACTORY = XMLInputFactory.newFactory ();
+    XML_INPUT_FACTORY.setProperty (XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    XML_INPUT_FACTORY.setProperty (XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    XML_INPUT_FACTORY.setProperty (XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+  }
+
+  // Paths of local names relative to the root element
+  private static final String P_SELLER_PTS = "AccountingSupplierParty/Party/PartyTaxScheme";
+  private static final String P_BUYER = "AccountingCustomerParty/Party";
+
+  private final byte [] m_aBytes;
+  private final QName m_aRootElementName;
+  private final boolean m_bWellFormed;
+  private final String m_sEmbeddableXML;
+  private final ICommonsOrderedMap <String, String> m_aFields;
+  private final ICommonsOrderedMap <String, String> m_aTaxAmounts;
+
+  private PeppolUAETDD10RawSourceDocument (@NonNull final byte [] aBytes,
+                                           @Nullable final QName aRootElementName,
+                                           final boolean bWellFormed,
+                                           @Nullable final String sEmbeddableXML,
+                                           @NonNull final ICommonsOrderedMap <String, String> aFields,
+                                           @NonNull final ICommonsOrderedMap <String, String> aTaxAmounts)
+  {
+    m_aBytes = aBytes;
+    m_aRootElementName = aRootElementName;
+    m_bWellFormed = bWellFormed;
+    m_sEmbeddableXML = sEmbeddableXML;
+    m_aFields = aFields;
+    m_aTaxAmounts = aTaxAmounts;
+  }
+
+  /**
+   * @return The qualified name of the root element, if the scan got that far. May be
+   *         <code>null</code>.
+   */
+  @Nullable
+  public QName getRootElementName ()
+  {
+    return m_aRootElementName;
+  }
+
+  /**
+   * @return <code>true</code> if the bytes are a well-formed XML document.
+   */
+  public boolean isWellFormed ()
+  {
+    return m_bWellFormed;
+  }
+
+  /**
+   * @return <code>true</code> if the bytes are a well-formed UBL Invoice or CreditNote that can be
+   *         embedded into a TDD as is.
+   */
+  public boolean isEmbeddable ()
+  {
+    return m_sEmbeddableXML != null;
+  }
+
+  /**
+   * @return The source document as an XML string without XML declaration, ready to be embedded
+   *         into another document. <code>null</code> if this document is not embeddable.
+   * @see #isEmbeddable()
+   */
+  @Nullable
+  public String getEmbeddableXML ()
+  {
+    return m_sEmbeddableXML;
+  }
+
+  /**
+   * @param sPath
+   *        The path of local names relative to the root element, e.g. <code>ID</code> or
+   *        <code>AccountingSupplierParty/Party/PartyTaxScheme/CompanyID</code>.
+   * @return The extracted value of the first occurrence or <code>null</code> if it was not found.
+   */
+  @Nullable
+  public String getField (@Nullable final String sPath)
+  {
+    return m_aFields.get (sPath);
+  }
+
+  @Nullable
+  private static LocalDate _getDate (@Nullable final String s)
+  {
+    if (s != null)
+      try
+      {
+        return LocalDate.parse (s);
+      }
+      catch (final RuntimeException ex)
+      {
+        // Tolerant
+      }
+    return null;
+  }
+
+  @Nullable
+  private static OffsetTime _getTime (@Nullable final String s)
+  {
+    if (s != null)
+      try
+      {
+        return OffsetTime.parse (s);
+      }
+      catch (final RuntimeException ex)
+      {
+        // Tolerant - times without offset are ignored
+      }
+    return null;
+  }
+
+  @Nullable
+  private static BigDecimal _getAmount (@Nullable final String s)
+  {
+    if (s != null)
+      try
+      {
+        return new BigDecimal (s);
+      }
+      catch (final NumberFormatException ex)
+      {
+        // Tolerant
+      }
+    return null;
+  }
+
+  private boolean _isCreditNote ()
+  {
+    return m_aRootElementName != null && "CreditNote".equals (m_aRootElementName.getLocalPart ());
+  }
+
+  /**
+   * Create the element to be used as the source document of a reported transaction builder.
+   *
+   * @param sPlaceholderMarker
+   *        If not <code>null</code> and this document is embeddable, an empty element of the root
+   *        element name is created, that carries the provided marker as attribute and must be
+   *        replaced with {@link #getEmbeddableXML()} after serialization. Otherwise an element with
+   *        the raw bytes as an embedded document is created.
+   * @return The source document element. Never <code>null</code>.
+   */
+  @NonNull
+  Element createSourceDocumentElement (@Nullable final String sPlaceholderMarker)
+  {
+    final QName aRootName = _isCreditNote () ? UBL21Marshaller.creditNote ().getRootElementQName ()
+                                             : UBL21Marshaller.invoice ().getRootElementQName ();
+    final Document aDoc = XMLFactory.newDocument ();
+    final Element eRoot = (Element) aDoc.appendChild (aDoc.createElementNS (aRootName.getNamespaceURI (),
+                                                                            aRootName.getLocalPart ()));
+    if (sPlaceholderMarker != null && isEmbeddable ())
+    {
+      eRoot.setAttributeNS (null, PeppolUAETDD10FailedTDDCreator.PLACEHOLDER_ATTR, sPlaceholderMarker);
+    }
+    else
+    {
+      final String sCBC = PeppolUAETDD10HeaderReader.NS_CBC;
+      final String sCAC = PeppolUAETDD10HeaderReader.NS_CAC;
+      final Element eDocRef = (Element) eRoot.appendChild (aDoc.createElementNS (sCAC,
+                                                                                 "cac:AdditionalDocumentReference"));
+      eDocRef.appendChild (aDoc.createElementNS (sCBC, "cbc:ID")).setTextContent (RAW_DOCUMENT_REFERENCE_ID);
+      final Element eAttachment = (Element) eDocRef.appendChild (aDoc.createElementNS (sCAC, "cac:Attachment"));
+      final Element eBinary = (Element) eAttachment.appendChild (aDoc.createElementNS (sCBC,
+                                                                                     "cbc:EmbeddedDocumentBinaryObject"));
+      eBinary.setAttributeNS (null, "mimeCode", "application/xml");
+      eBinary.setTextContent (Base64.getEncoder ().encodeToString (m_aBytes));
+    }
+    return eRoot;
+  }
+
+  /**
+   * Set all extracted fields on the provided builder. The source document is not set.
+   *
+   * @param aBuilder
+   *        The builder to fill. May not be <code>null</code>.
+   * @return The passed builder for chaining. Never <code>null</code>.
+   */
+  @NonNull
+  public PeppolUAETDD10ReportedTransactionBuilder applyTo (@NonNull final PeppolUAETDD10ReportedTransactionBuilder aBuilder)
+  {
+    ValueEnforcer.notNull (aBuilder, "Builder");
+
+    final String sDocumentCurrencyCode = getField ("DocumentCurrencyCode");
+    final String sTaxCurrencyCode = getField ("TaxCurrencyCode");
+    aBuilder.customizationID (getField ("CustomizationID"))
+            .profileID (getField ("ProfileID"))
+            .id (getField ("ID"))
+            .uuid (getField ("UUID"))
+            .issueDate (_getDate (getField ("IssueDate")))
+            .issueTime (_getTime (getField ("IssueTime")))
+            .documentTypeCode (getField (_isCreditNote () ? "CreditNoteTypeCode" : "InvoiceTypeCode"))
+            .documentCurrencyCode (sDocumentCurrencyCode)
+            .taxCurrencyCode (sTaxCurrencyCode)
+            .sellerTaxID (getField (P_SELLER_PTS + "/CompanyID"))
+            .sellerTaxSchemeID (getField (P_SELLER_PTS + "/TaxScheme/ID"))
+            .buyerID (getField (P_BUYER + "/PartyIdentification/ID"))
+            .buyerIDSchemeID (getField (P_BUYER + "/PartyIdentification/ID@schemeID"))
+            .buyerTaxID (getField (P_BUYER + "/PartyTaxScheme/CompanyID"))
+            .taxTotalAmountDocumentCurrency (sDocumentCurrencyCode == null ? null
+                                                                           : _getAmount (m_aTaxAmounts.get (sDocumentCurrencyCode)))
+            .taxTotalAmountTaxCurrency (sTaxCurrencyCode == null ? null : _getAmount (m_aTaxAmounts.get (sTaxCurrencyCode)))
+            .taxExclusiveTotalAmount (_getAmount (getField ("LegalMonetaryTotal/TaxExclusiveAmount")));
+    return aBuilder;
+  }
+
+  @NonNull
+  private static Charset _getCharset (@Nullable final String sEncoding)
+  {
+    if (sEncoding != null)
+      try
+      {
+        return Charset.forName (sEncoding);
+      }
+      catch (final RuntimeException ex)
+      {
+        // Fall through
+      }
+    return StandardCharsets.UTF_8;
+  }
+
+  @NonNull
+  private static String _getWithoutXMLDeclaration (@NonNull final String sXML)
+  {
+    String ret = sXML;
+    // Byte Order Mark
+    if (ret.startsWith ("\uFEFF"))
+      ret = ret.substring (1);
+    if (ret.startsWith ("<?xml"))
+    {
+      final int nEnd = ret.indexOf ("?>");
+      if (nEnd > 0)
+        ret = ret.substring (nEnd + 2);
+    }
+    return ret;
+  }
+
+  private static boolean _isLeafPath (@NonNull final String sPath)
+  {
+    switch (sPath)
+    {
+      case "CustomizationID":
+      case "ProfileID":
+      case "ID":
+      case "UUID":
+      case "IssueDate":
+      case "IssueTime":
+      case "InvoiceTypeCode":
+      case "CreditNoteTypeCode":
+      case "DocumentCurrencyCode":
+      case "TaxCurrencyCode":
+      case P_SELLER_PTS + "/CompanyID":
+      case P_SELLER_PTS + "/TaxScheme/ID":
+      case P_BUYER + "/PartyIdentification/ID":
+      case P_BUYER + "/PartyTaxScheme/CompanyID":
+      case "TaxTotal/TaxAmount":
+      case "LegalMonetaryTotal/TaxExclusiveAmount":
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Scan the provided bytes. This method never throws an exception because of the content of the
+   * bytes.
+   *
+   * @param aBytes
+   *        The raw bytes of the source document. May not be <code>null</code>.
+   * @return The scan result. Never <code>null</code>.
+   */
+  @NonNull
+  public static PeppolUAETDD10RawSourceDocument scan (@NonNull final byte [] aBytes)
+  {
+    ValueEnforcer.notNull (aBytes, "Bytes");
+
+    QName aRootElementName = null;
+    boolean bWellFormed = false;
+    boolean bEmbeddable = true;
+    String sEncoding = null;
+    final ICommonsOrderedMap <String, String> aFields = new CommonsLinkedHashMap <> ();
+    final ICommonsOrderedMap <String, String> aTaxAmounts = new CommonsLinkedHashMap <> ();
+
+    XMLStreamReader aReader = null;
+    try
+    {
+      aReader = XML_INPUT_FACTORY.createXMLStreamReader (new ByteArrayInputStream (aBytes));
+      sEncoding = aReader.getEncoding ();
+
+      // Path of local names below the root element
+      final StringBuilder aPath = new StringBuilder ();
+      final int [] aPathLengths = new int [64];
+      int nDepth = -1;
+      String sCapturePath = null;
+      String sCaptureAttr = null;
+      final StringBuilder aText = new StringBuilder ();
+
+      while (aReader.hasNext ())
+      {
+        final int nEvent = aReader.next ();
+        switch (nEvent)
+        {
+          case XMLStreamConstants.DTD:
+            // Cannot be embedded into another document
+            bEmbeddable = false;
+            break;
+          case XMLStreamConstants.START_ELEMENT:
+          {
+            if (aReader.getNamespaceURI () == null || aReader.getNamespaceURI ().isEmpty ())
+            {
+              // Would inherit a default namespace when embedded
+              bEmbeddable = false;
+            }
+            if (nDepth < 0)
+            {
+              aRootElementName = aReader.getName ();
+              nDepth = 0;
+              break;
+            }
+            if (nDepth < aPathLengths.length)
+              aPathLengths[nDepth] = aPath.length ();
+            nDepth++;
+            if (aPath.length () > 0)
+              aPath.append ('/');
+            aPath.append (aReader.getLocalName ());
+
+            if (sCapturePath == null)
+            {
+              final String sPath = aPath.toString ();
+              if (_isLeafPath (sPath) && (sPath.equals ("TaxTotal/TaxAmount") || !aFields.containsKey (sPath)))
+              {
+                sCapturePath = sPath;
+                aText.setLength (0);
+                if (sPath.equals ("TaxTotal/TaxAmount"))
+                  sCaptureAttr = aReader.getAttributeValue (null, "currencyID");
+                else
+                  if (sPath.equals (P_BUYER + "/PartyIdentification/ID"))
+                  {
+                    final String sSchemeID = aReader.getAttributeValue (null, "schemeID");
+                    if (sSchemeID != null)
+                      aFields.put (sPath + "@schemeID", sSchemeID.trim ());
+                  }
+              }
+            }
+            break;
+          }
+          case XMLStreamConstants.CHARACTERS:
+          case XMLStreamConstants.CDATA:
+            if (sCapturePath != null)
+              aText.append (aReader.getText ());
+            break;
+          case XMLStreamConstants.END_ELEMENT:
+          {
+            if (sCapturePath != null && sCapturePath.contentEquals (aPath))
+            {
+              final String sValue = aText.toString ().trim ();
+              if (sCapturePath.equals ("TaxTotal/TaxAmount"))
+              {
+                if (sCaptureAttr != null)
+                  aTaxAmounts.putIfAbsent (sCaptureAttr.trim (), sValue);
+              }
+              else
+                aFields.put (sCapturePath, sValue);
+              sCapturePath = null;
+              sCaptureAttr = null;
+            }
+            nDepth--;
+            if (nDepth >= 0 && nDepth < aPathLengths.length)
+              aPath.setLength (aPathLengths[nDepth]);
+            break;
+          }
+          case XMLStreamConstants.END_DOCUMENT:
+            bWellFormed = true;
+            break;
+          default:
+            break;
+        }
+      }
+    }
+    catch (final XMLStreamException | RuntimeException ex)
+    {
+      LOGGER.debug ("Source document is not well-formed: " + ex.getMessage ());
+    }
+    finally
+    {
+      if (aReader != null)
+        try
+        {
+          aReader.close ();
+        }
+        catch (final XMLStreamException ex)
+        {
+          // ignore
+        }
+    }
+
+    String sEmbeddableXML = null;
+    if (bWellFormed &&
+        bEmbeddable &&
+        (UBL21Marshaller.invoice ().getRootElementQName ().equals (aRootElementName) ||
+         UBL21Marshaller.creditNote ().getRootElementQName ().equals (aRootElementName)))
+    {
+      sEmbeddableXML = _getWithoutXMLDeclaration (new String (aBytes, _getCharset (sEncoding)));
+    }
+    return new PeppolUAETDD10RawSourceDocument (aBytes,
+                                                aRootElementName,
+                                                bWellFormed,
+                                                sEmbeddableXML,
+                                                aFields,
+                                                aTaxAmounts);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("ByteCount", m_aBytes.length)
+                                       .append ("RootElementName", m_aRootElementName)
+                                       .append ("WellFormed", m_bWellFormed)
+                                       .append ("Embeddable", isEmbeddable ())
+                                       .append ("Fields", m_aFields)
+                                       .append ("TaxAmounts", m_aTaxAmounts)
+                                       .getToString ();
+  }
+}
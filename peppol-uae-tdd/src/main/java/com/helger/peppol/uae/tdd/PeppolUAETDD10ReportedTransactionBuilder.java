@@ -42,6 +42,10 @@ import com.helger.collection.commons.ICommonsList;
 import com.helger.datetime.helper.PDTFactory;
 import com.helger.datetime.xml.XMLOffsetTime;
 import com.helger.peppol.uae.tdd.codelist.EUAETDDDocumentTypeCode;
+import com.helger.peppol.uae.tdd.jfr.AbstractPeppolUAETDDEvent;
+import com.helger.peppol.uae.tdd.jfr.PeppolUAETDDInitEvent;
+import com.helger.peppol.uae.tdd.metrics.EUAETDDMetricsStage;
+import com.helger.peppol.uae.tdd.metrics.PeppolUAETDDMetrics;
 import com.helger.peppol.uae.tdd.v100.CustomContentType;
 import com.helger.peppol.uae.tdd.v100.MonetaryTotalType;
 import com.helger.peppol.uae.tdd.v100.ReferencedDocumentTypeCodeType;
@@ -180,6 +184,37 @@ public class PeppolUAETDD10ReportedTransactionBuilder implements IBuilder <Repor
   {
     ValueEnforcer.notNull (aInv, "Invoice");
 
+    final long nStart = PeppolUAETDDMetrics.startTimer ();
+    final PeppolUAETDDInitEvent aEvent = new PeppolUAETDDInitEvent ();
+    aEvent.begin ();
+    boolean bSuccess = false;
+    try
+    {
+      _initFromInvoice (aInv);
+      PeppolUAETDDMetrics.recordLatency (EUAETDDMetricsStage.INIT_FROM_INVOICE, nStart);
+      bSuccess = true;
+    }
+    finally
+    {
+      aEvent.end ();
+      if (aEvent.shouldCommit ())
+      {
+        aEvent.setSourceDocumentType ("Invoice");
+        aEvent.setDocumentID (aInv.getIDValue ());
+        aEvent.setDocumentUUID (aInv.getUUIDValue ());
+        if (bSuccess)
+          aEvent.setSourceSize (AbstractPeppolUAETDDEvent.getSourceSize (m_aSourceDocument));
+        aEvent.setLineCount (aInv.getInvoiceLineCount ());
+        aEvent.setOutcome (bSuccess ? AbstractPeppolUAETDDEvent.OUTCOME_SUCCESS
+                                    : AbstractPeppolUAETDDEvent.OUTCOME_FAILURE);
+        aEvent.commit ();
+      }
+    }
+    return this;
+  }
+
+  private void _initFromInvoice (@NonNull final InvoiceType aInv)
+  {
     customizationID (aInv.getCustomizationIDValue ());
     profileID (aInv.getProfileIDValue ());
     id (aInv.getIDValue ());
@@ -256,8 +291,6 @@ public class PeppolUAETDD10ReportedTransactionBuilder implements IBuilder <Repor
     sourceDocument (UBL21Marshaller.invoice ()
                                    .setUseSchema (false)
                                    .getAsElement (getWithoutEmbeddedDocumentBinaryObject (aInv)));
-
-    return this;
   }
 
   /**
@@ -272,6 +305,37 @@ public class PeppolUAETDD10ReportedTransactionBuilder implements IBuilder <Repor
   {
     ValueEnforcer.notNull (aCN, "Invoice");
 
+    final long nStart = PeppolUAETDDMetrics.startTimer ();
+    final PeppolUAETDDInitEvent aEvent = new PeppolUAETDDInitEvent ();
+    aEvent.begin ();
+    boolean bSuccess = false;
+    try
+    {
+      _initFromCreditNote (aCN);
+      PeppolUAETDDMetrics.recordLatency (EUAETDDMetricsStage.INIT_FROM_CREDIT_NOTE, nStart);
+      bSuccess = true;
+    }
+    finally
+    {
+      aEvent.end ();
+      if (aEvent.shouldCommit ())
+      {
+        aEvent.setSourceDocumentType ("CreditNote");
+        aEvent.setDocumentID (aCN.getIDValue ());
+        aEvent.setDocumentUUID (aCN.getUUIDValue ());
+        if (bSuccess)
+          aEvent.setSourceSize (AbstractPeppolUAETDDEvent.getSourceSize (m_aSourceDocument));
+        aEvent.setLineCount (aCN.getCreditNoteLineCount ());
+        aEvent.setOutcome (bSuccess ? AbstractPeppolUAETDDEvent.OUTCOME_SUCCESS
+                                    : AbstractPeppolUAETDDEvent.OUTCOME_FAILURE);
+        aEvent.commit ();
+      }
+    }
+    return this;
+  }
+
+  private void _initFromCreditNote (@NonNull final CreditNoteType aCN)
+  {
     customizationID (aCN.getCustomizationIDValue ());
     profileID (aCN.getProfileIDValue ());
     id (aCN.getIDValue ());
@@ -348,7 +412,16 @@ public class PeppolUAETDD10ReportedTransactionBuilder implements IBuilder <Repor
     sourceDocument (UBL21Marshaller.creditNote ()
                                    .setUseSchema (false)
                                    .getAsElement (getWithoutEmbeddedDocumentBinaryObject (aCN)));
-    return this;
+  }
+
+  /**
+   * @return The TDD document type code this reported transaction is built for, as provided in the
+   *         constructor. Never <code>null</code>.
+   */
+  @NonNull
+  public EUAETDDDocumentTypeCode tddDocumentTypeCode ()
+  {
+    return m_eDocumentTypeCode;
   }
 
   @Nullable
@@ -0,0 +1,503 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.OffsetTime;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.w3c.dom.Document;
+
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.peppol.uae.tdd.PeppolUAETDD10ReportedTransactionBuilder.CustomContent;
+import com.helger.peppol.uae.tdd.codelist.EUAETDDDocumentTypeCode;
+import com.helger.xml.serialize.read.DOMReader;
+
+/**
+ * A compact, serializable snapshot of the state of a {@link PeppolUAETDD10ReportedTransactionBuilder}.
+ * Instead of the source document itself, only a reference to the stored source document bytes is
+ * contained (e.g. a file name or a database key). This allows to create follow-up TDDs like
+ * {@link EUAETDDDocumentTypeCode#WITHDRAW} or {@link EUAETDDDocumentTypeCode#RESUBMIT} without
+ * unmarshalling the original invoice again - the stored source bytes only need to be parsed into a
+ * DOM.<br>
+ * Next to Java serialization, a more compact binary form is supported via
+ * {@link #writeTo(DataOutput)} and {@link #readFrom(DataInput)}.
+ *
+ * @author Philip Helger
+ */
+@Immutable
+public final class PeppolUAETDD10ReportedTransactionSnapshot implements Serializable
+{
+  private static final long serialVersionUID = 1L;
+
+  // Strings are length-prefixed UTF-8, as DataOutput.writeUTF is limited to 64 KB
+  private static final int BINARY_VERSION = 1;
+
+  private final EUAETDDDocumentTypeCode m_eOriginalDocumentTypeCode;
+  private final String m_sTransportHeaderID;
+  private final String m_sCustomizationID;
+  private final String m_sProfileID;
+  private final String m_sID;
+  private final String m_sUUID;
+  private final LocalDate m_aIssueDate;
+  private final OffsetTime m_aIssueTime;
+  private final String m_sDocumentTypeCode;
+  private final String m_sDocumentCurrencyCode;
+  private final String m_sTaxCurrencyCode;
+  private final String m_sSellerTaxID;
+  private final String m_sSellerTaxSchemeID;
+  private final String m_sBuyerID;
+  private final String m_sBuyerIDSchemeID;
+  private final String m_sBuyerTaxID;
+  private final BigDecimal m_aTaxTotalAmountDocumentCurrency;
+  private final BigDecimal m_aTaxTotalAmountTaxCurrency;
+  private final BigDecimal m_aTaxExclusiveTotalAmount;
+  private final String [] m_aCustomContentIDs;
+  private final String [] m_aCustomContentValues;
+  private final String m_sSourceDocumentReference;
+
+  private PeppolUAETDD10ReportedTransactionSnapshot (@NonNull final EUAETDDDocumentTypeCode eOriginalDocumentTypeCode,
+                                                     @Nullable final String sTransportHeaderID,
+                                                     @Nullable final String sCustomizationID,
+                                                     @Nullable final String sProfileID,
+                                                     @Nullable final String sID,
+                                                     @Nullable final String sUUID,
+                                                     @Nullable final LocalDate aIssueDate,
+                                                     @Nullable final OffsetTime aIssueTime,
+                                                     @Nullable final String sDocumentTypeCode,
+                                                     @Nullable final String sDocumentCurrencyCode,
+                                                     @Nullable final String sTaxCurrencyCode,
+                                                     @Nullable final String sSellerTaxID,
+                                                     @Nullable final String sSellerTaxSchemeID,
+                                                     @Nullable final String sBuyerID,
+                                                     @Nullable final String sBuyerIDSchemeID,
+                                                     @Nullable final String sBuyerTaxID,
+                                                     @Nullable final BigDecimal aTaxTotalAmountDocumentCurrency,
+                                                     @Nullable final BigDecimal aTaxTotalAmountTaxCurrency,
+                                                     @Nullable final BigDecimal aTaxExclusiveTotalAmount,
+                                                     @NonNull final String [] aCustomContentIDs,
+                                                     @NonNull final String [] aCustomContentValues,
+                                                     @Nullable final String sSourceDocumentReference)
+  {
+    m_eOriginalDocumentTypeCode = eOriginalDocumentTypeCode;
+    m_sTransportHeaderID = sTransportHeaderID;
+    m_sCustomizationID = sCustomizationID;
+    m_sProfileID = sProfileID;
+    m_sID = sID;
+    m_sUUID = sUUID;
+    m_aIssueDate = aIssueDate;
+    m_aIssueTime = aIssueTime;
+    m_sDocumentTypeCode = sDocumentTypeCode;
+    m_sDocumentCurrencyCode = sDocumentCurrencyCode;
+    m_sTaxCurrencyCode = sTaxCurrencyCode;
+    m_sSellerTaxID = sSellerTaxID;
+    m_sSellerTaxSchemeID = sSellerTaxSchemeID;
+    m_sBuyerID = sBuyerID;
+    m_sBuyerIDSchemeID = sBuyerIDSchemeID;
+    m_sBuyerTaxID = sBuyerTaxID;
+    m_aTaxTotalAmountDocumentCurrency = aTaxTotalAmountDocumentCurrency;
+    m_aTaxTotalAmountTaxCurrency = aTaxTotalAmountTaxCurrency;
+    m_aTaxExclusiveTotalAmount = aTaxExclusiveTotalAmount;
+    m_aCustomContentIDs = aCustomContentIDs;
+    m_aCustomContentValues = aCustomContentValues;
+    m_sSourceDocumentReference = sSourceDocumentReference;
+  }
+
+  private void readObject (@NonNull final ObjectInputStream aOIS) throws IOException, ClassNotFoundException
+  {
+    aOIS.defaultReadObject ();
+    // Ensure the invariants of the constructor, as the stream may be tampered with
+    if (m_eOriginalDocumentTypeCode == null)
+      throw new InvalidObjectException ("The original document type code is missing");
+    if (m_aCustomContentIDs == null || m_aCustomContentValues == null)
+      throw new InvalidObjectException ("The custom contents are missing");
+    if (m_aCustomContentIDs.length != m_aCustomContentValues.length)
+      throw new InvalidObjectException ("The number of custom content IDs (" +
+                                        m_aCustomContentIDs.length +
+                                        ") and values (" +
+                                        m_aCustomContentValues.length +
+                                        ") differ");
+  }
+
+  /**
+   * @return The TDD document type code of the builder the snapshot was created from. Never
+   *         <code>null</code>.
+   */
+  @NonNull
+  public EUAETDDDocumentTypeCode getOriginalDocumentTypeCode ()
+  {
+    return m_eOriginalDocumentTypeCode;
+  }
+
+  /**
+   * @return The ID of the reported document. May be <code>null</code>.
+   */
+  @Nullable
+  public String getID ()
+  {
+    return m_sID;
+  }
+
+  /**
+   * @return The UUID of the reported document. May be <code>null</code>.
+   */
+  @Nullable
+  public String getUUID ()
+  {
+    return m_sUUID;
+  }
+
+  /**
+   * @return The issue date of the reported document. May be <code>null</code>.
+   */
+  @Nullable
+  public LocalDate getIssueDate ()
+  {
+    return m_aIssueDate;
+  }
+
+  /**
+   * @return The seller tax ID of the reported document. May be <code>null</code>.
+   */
+  @Nullable
+  public String getSellerTaxID ()
+  {
+    return m_sSellerTaxID;
+  }
+
+  /**
+   * @return The reference to the stored source document bytes, as provided when creating the
+   *         snapshot. May be <code>null</code>.
+   */
+  @Nullable
+  public String getSourceDocumentReference ()
+  {
+    return m_sSourceDocumentReference;
+  }
+
+  /**
+   * Set all scalar fields and the custom contents of this snapshot on the provided builder. The
+   * source document is not set.
+   *
+   * @param aBuilder
+   *        The builder to fill. May not be <code>null</code>.
+   * @return The passed builder for chaining. Never <code>null</code>.
+   */
+  @NonNull
+  public PeppolUAETDD10ReportedTransactionBuilder applyTo (@NonNull final PeppolUAETDD10ReportedTransactionBuilder aBuilder)
+  {
+    ValueEnforcer.notNull (aBuilder, "Builder");
+
+    aBuilder.transportHeaderID (m_sTransportHeaderID)
+            .customizationID (m_sCustomizationID)
+            .profileID (m_sProfileID)
+            .id (m_sID)
+            .uuid (m_sUUID)
+            .issueDate (m_aIssueDate)
+            .issueTime (m_aIssueTime)
+            .documentTypeCode (m_sDocumentTypeCode)
+            .documentCurrencyCode (m_sDocumentCurrencyCode)
+            .taxCurrencyCode (m_sTaxCurrencyCode)
+            .sellerTaxID (m_sSellerTaxID)
+            .sellerTaxSchemeID (m_sSellerTaxSchemeID)
+            .buyerID (m_sBuyerID)
+            .buyerIDSchemeID (m_sBuyerIDSchemeID)
+            .buyerTaxID (m_sBuyerTaxID)
+            .taxTotalAmountDocumentCurrency (m_aTaxTotalAmountDocumentCurrency)
+            .taxTotalAmountTaxCurrency (m_aTaxTotalAmountTaxCurrency)
+            .taxExclusiveTotalAmount (m_aTaxExclusiveTotalAmount);
+    for (int i = 0; i < m_aCustomContentIDs.length; ++i)
+      aBuilder.addCustomContent (new CustomContent (m_aCustomContentIDs[i], m_aCustomContentValues[i]));
+    return aBuilder;
+  }
+
+  /**
+   * Set all fields of this snapshot on the provided builder, including the source document.
+   *
+   * @param aBuilder
+   *        The builder to fill. May not be <code>null</code>.
+   * @param aSourceDocumentBytes
+   *        The stored bytes of the source Invoice or CreditNote, as referenced by
+   *        {@link #getSourceDocumentReference()}. May not be <code>null</code>.
+   * @return The passed builder for chaining. Never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the source document bytes are not well-formed XML
+   */
+  @NonNull
+  public PeppolUAETDD10ReportedTransactionBuilder applyTo (@NonNull final PeppolUAETDD10ReportedTransactionBuilder aBuilder,
+                                                          @NonNull final byte [] aSourceDocumentBytes)
+  {
+    ValueEnforcer.notNull (aSourceDocumentBytes, "SourceDocumentBytes");
+
+    // Only an XML parsing - no JAXB unmarshalling
+    final Document aSourceDoc = DOMReader.readXMLDOM (aSourceDocumentBytes);
+    if (aSourceDoc == null)
+      throw new IllegalArgumentException ("Failed to parse the source document bytes of '" +
+                                          m_sSourceDocumentReference +
+                                          "' as XML");
+    return applyTo (aBuilder).sourceDocument (aSourceDoc);
+  }
+
+  /**
+   * Create a new reported transaction builder from this snapshot, e.g. for a
+   * {@link EUAETDDDocumentTypeCode#WITHDRAW} or {@link EUAETDDDocumentTypeCode#RESUBMIT} of the
+   * original reported document.
+   *
+   * @param eDocumentTypeCode
+   *        The document type code of the new TDD. May not be <code>null</code>.
+   * @param aSourceDocumentBytes
+   *        The stored bytes of the source Invoice or CreditNote. May not be <code>null</code>.
+   * @return The new builder and never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the source document bytes are not well-formed XML
+   */
+  @NonNull
+  public PeppolUAETDD10ReportedTransactionBuilder createBuilder (@NonNull final EUAETDDDocumentTypeCode eDocumentTypeCode,
+                                                                @NonNull final byte [] aSourceDocumentBytes)
+  {
+    return applyTo (new PeppolUAETDD10ReportedTransactionBuilder (eDocumentTypeCode), aSourceDocumentBytes);
+  }
+
+  private static void _writeString (@NonNull final DataOutput aDO, @Nullable final String s) throws IOException
+  {
+    if (s == null)
+      aDO.writeInt (-1);
+    else
+    {
+      final byte [] aBytes = s.getBytes (StandardCharsets.UTF_8);
+      aDO.writeInt (aBytes.length);
+      aDO.write (aBytes);
+    }
+  }
+
+  @Nullable
+  private static String _readString (@NonNull final DataInput aDI) throws IOException
+  {
+    final int nLength = aDI.readInt ();
+    if (nLength == -1)
+      return null;
+    if (nLength < 0)
+      throw new IOException ("Invalid string length " + nLength);
+    final byte [] aBytes = new byte [nLength];
+    aDI.readFully (aBytes);
+    return new String (aBytes, StandardCharsets.UTF_8);
+  }
+
+  @NonNull
+  private static String _readNonNullString (@NonNull final DataInput aDI) throws IOException
+  {
+    final String ret = _readString (aDI);
+    if (ret == null)
+      throw new IOException ("Unexpected null string");
+    return ret;
+  }
+
+  /**
+   * Write this snapshot in a compact binary form.
+   *
+   * @param aDO
+   *        The data output to write to. May not be <code>null</code>.
+   * @throws IOException
+   *         In case of a write error
+   * @see #readFrom(DataInput)
+   */
+  public void writeTo (@NonNull final DataOutput aDO) throws IOException
+  {
+    ValueEnforcer.notNull (aDO, "DataOutput");
+
+    aDO.writeByte (BINARY_VERSION);
+    _writeString (aDO, m_eOriginalDocumentTypeCode.getID ());
+    _writeString (aDO, m_sTransportHeaderID);
+    _writeString (aDO, m_sCustomizationID);
+    _writeString (aDO, m_sProfileID);
+    _writeString (aDO, m_sID);
+    _writeString (aDO, m_sUUID);
+    aDO.writeBoolean (m_aIssueDate != null);
+    if (m_aIssueDate != null)
+      aDO.writeLong (m_aIssueDate.toEpochDay ());
+    _writeString (aDO, m_aIssueTime == null ? null : m_aIssueTime.toString ());
+    _writeString (aDO, m_sDocumentTypeCode);
+    _writeString (aDO, m_sDocumentCurrencyCode);
+    _writeString (aDO, m_sTaxCurrencyCode);
+    _writeString (aDO, m_sSellerTaxID);
+    _writeString (aDO, m_sSellerTaxSchemeID);
+    _writeString (aDO, m_sBuyerID);
+    _writeString (aDO, m_sBuyerIDSchemeID);
+    _writeString (aDO, m_sBuyerTaxID);
+    _writeString (aDO, m_aTaxTotalAmountDocumentCurrency == null ? null : m_aTaxTotalAmountDocumentCurrency.toString ());
+    _writeString (aDO, m_aTaxTotalAmountTaxCurrency == null ? null : m_aTaxTotalAmountTaxCurrency.toString ());
+    _writeString (aDO, m_aTaxExclusiveTotalAmount == null ? null : m_aTaxExclusiveTotalAmount.toString ());
+    aDO.writeInt (m_aCustomContentIDs.length);
+    for (int i = 0; i < m_aCustomContentIDs.length; ++i)
+    {
+      _writeString (aDO, m_aCustomContentIDs[i]);
+      _writeString (aDO, m_aCustomContentValues[i]);
+    }
+    _writeString (aDO, m_sSourceDocumentReference);
+  }
+
+  /**
+   * Read a snapshot from its compact binary form.
+   *
+   * @param aDI
+   *        The data input to read from. May not be <code>null</code>.
+   * @return The read snapshot and never <code>null</code>.
+   * @throws IOException
+   *         In case of a read error or an invalid binary form
+   * @see #writeTo(DataOutput)
+   */
+  @NonNull
+  public static PeppolUAETDD10ReportedTransactionSnapshot readFrom (@NonNull final DataInput aDI) throws IOException
+  {
+    ValueEnforcer.notNull (aDI, "DataInput");
+
+    final int nVersion = aDI.readByte ();
+    if (nVersion != BINARY_VERSION)
+      throw new IOException ("Unsupported snapshot binary version " + nVersion);
+    final String sOriginalDocumentTypeCode = _readNonNullString (aDI);
+    final EUAETDDDocumentTypeCode eOriginalDocumentTypeCode = EUAETDDDocumentTypeCode.getFromIDOrNull (sOriginalDocumentTypeCode);
+    if (eOriginalDocumentTypeCode == null)
+      throw new IOException ("Unsupported document type code '" + sOriginalDocumentTypeCode + "'");
+    final String sTransportHeaderID = _readString (aDI);
+    final String sCustomizationID = _readString (aDI);
+    final String sProfileID = _readString (aDI);
+    final String sID = _readString (aDI);
+    final String sUUID = _readString (aDI);
+    final LocalDate aIssueDate = aDI.readBoolean () ? LocalDate.ofEpochDay (aDI.readLong ()) : null;
+    final String sIssueTime = _readString (aDI);
+    final String sDocumentTypeCode = _readString (aDI);
+    final String sDocumentCurrencyCode = _readString (aDI);
+    final String sTaxCurrencyCode = _readString (aDI);
+    final String sSellerTaxID = _readString (aDI);
+    final String sSellerTaxSchemeID = _readString (aDI);
+    final String sBuyerID = _readString (aDI);
+    final String sBuyerIDSchemeID = _readString (aDI);
+    final String sBuyerTaxID = _readString (aDI);
+    final String sTaxTotalAmountDocumentCurrency = _readString (aDI);
+    final String sTaxTotalAmountTaxCurrency = _readString (aDI);
+    final String sTaxExclusiveTotalAmount = _readString (aDI);
+    final int nCustomContents = aDI.readInt ();
+    if (nCustomContents < 0)
+      throw new IOException ("Invalid custom content count " + nCustomContents);
+    final String [] aCustomContentIDs = new String [nCustomContents];
+    final String [] aCustomContentValues = new String [nCustomContents];
+    for (int i = 0; i < nCustomContents; ++i)
+    {
+      aCustomContentIDs[i] = _readNonNullString (aDI);
+      aCustomContentValues[i] = _readNonNullString (aDI);
+    }
+    final String sSourceDocumentReference = _readString (aDI);
+
+    return new PeppolUAETDD10ReportedTransactionSnapshot (eOriginalDocumentTypeCode,
+                                                          sTransportHeaderID,
+                                                          sCustomizationID,
+                                                          sProfileID,
+                                                          sID,
+                                                          sUUID,
+                                                          aIssueDate,
+                                                          sIssueTime == null ? null : OffsetTime.parse (sIssueTime),
+                                                          sDocumentTypeCode,
+                                                          sDocumentCurrencyCode,
+                                                          sTaxCurrencyCode,
+                                                          sSellerTaxID,
+                                                          sSellerTaxSchemeID,
+                                                          sBuyerID,
+                                                          sBuyerIDSchemeID,
+                                                          sBuyerTaxID,
+                                                          sTaxTotalAmountDocumentCurrency == null ? null
+                                                                                                  : new BigDecimal (sTaxTotalAmountDocumentCurrency),
+                                                          sTaxTotalAmountTaxCurrency == null ? null
+                                                                                             : new BigDecimal (sTaxTotalAmountTaxCurrency),
+                                                          sTaxExclusiveTotalAmount == null ? null
+                                                                                           : new BigDecimal (sTaxExclusiveTotalAmount),
+                                                          aCustomContentIDs,
+                                                          aCustomContentValues,
+                                                          sSourceDocumentReference);
+  }
+
+  /**
+   * Create a snapshot of the current state of the provided builder.
+   *
+   * @param aBuilder
+   *        The builder to take the snapshot from. May not be <code>null</code>.
+   * @param sSourceDocumentReference
+   *        The reference to the stored bytes of the source document of the builder. May be
+   *        <code>null</code>.
+   * @return The new snapshot and never <code>null</code>.
+   */
+  @NonNull
+  public static PeppolUAETDD10ReportedTransactionSnapshot createFrom (@NonNull final PeppolUAETDD10ReportedTransactionBuilder aBuilder,
+                                                                      @Nullable final String sSourceDocumentReference)
+  {
+    ValueEnforcer.notNull (aBuilder, "Builder");
+
+    final int nCustomContents = aBuilder.customContents ().size ();
+    final String [] aCustomContentIDs = new String [nCustomContents];
+    final String [] aCustomContentValues = new String [nCustomContents];
+    for (int i = 0; i < nCustomContents; ++i)
+    {
+      final CustomContent aCC = aBuilder.customContents ().get (i);
+      aCustomContentIDs[i] = aCC.getID ();
+      aCustomContentValues[i] = aCC.getValue ();
+    }
+    return new PeppolUAETDD10ReportedTransactionSnapshot (aBuilder.tddDocumentTypeCode (),
+                                                          aBuilder.transportHeaderID (),
+                                                          aBuilder.customizationID (),
+                                                          aBuilder.profileID (),
+                                                          aBuilder.id (),
+                                                          aBuilder.uuid (),
+                                                          aBuilder.issueDate (),
+                                                          aBuilder.issueTime (),
+                                                          aBuilder.documentTypeCode (),
+                                                          aBuilder.documentCurrencyCode (),
+                                                          aBuilder.taxCurrencyCode (),
+                                                          aBuilder.sellerTaxID (),
+                                                          aBuilder.sellerTaxSchemeID (),
+                                                          aBuilder.buyerID (),
+                                                          aBuilder.buyerIDSchemeID (),
+                                                          aBuilder.buyerTaxID (),
+                                                          aBuilder.taxTotalAmountDocumentCurrency (),
+                                                          aBuilder.taxTotalAmountTaxCurrency (),
+                                                          aBuilder.taxExclusiveTotalAmount (),
+                                                          aCustomContentIDs,
+                                                          aCustomContentValues,
+                                                          sSourceDocumentReference);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("OriginalDocumentTypeCode", m_eOriginalDocumentTypeCode)
+                                       .append ("ID", m_sID)
+                                       .append ("UUID", m_sUUID)
+                                       .append ("IssueDate", m_aIssueDate)
+                                       .append ("SellerTaxID", m_sSellerTaxID)
+                                       .append ("SourceDocumentReference", m_sSourceDocumentReference)
+                                       .getToString ();
+  }
+}
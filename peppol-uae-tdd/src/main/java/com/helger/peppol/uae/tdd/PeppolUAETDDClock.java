@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.ZoneId;
+import java.util.TimeZone;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.datetime.helper.PDTConfig;
+import com.helger.datetime.helper.PDTFactory;
+
+/**
+ * The clock used for all "now" values of the TDD builders, e.g.
+ * {@link PeppolUAETDD10Builder#issueDateTimeNow()}. By default the current system time in the
+ * default time zone of {@link PDTFactory} is used. A different clock can be set e.g. for
+ * reproducible training runs or tests.<br>
+ * The system clock itself is never cached, but the JDK and {@link PDTConfig} cache the default time
+ * zone. After restoring a JVM snapshot (e.g. CRaC), {@link #refreshDefaultZone(boolean)} should be
+ * called, so that the zone of the restoring environment is used instead of the one of the snapshot.
+ *
+ * @author Philip Helger
+ */
+@ThreadSafe
+public final class PeppolUAETDDClock
+{
+  // null means the system clock via PDTFactory
+  private static volatile Clock s_aClock;
+
+  private PeppolUAETDDClock ()
+  {}
+
+  /**
+   * @return <code>true</code> if the system clock is used, <code>false</code> if a custom clock was
+   *         set.
+   */
+  public static boolean isSystemClock ()
+  {
+    return s_aClock == null;
+  }
+
+  /**
+   * @return The custom clock in use or <code>null</code> if the system clock is used.
+   */
+  @Nullable
+  public static Clock getCustomClock ()
+  {
+    return s_aClock;
+  }
+
+  /**
+   * Set a custom clock.
+   *
+   * @param aClock
+   *        The clock to use. May be <code>null</code> to use the system clock again.
+   */
+  public static void setCustomClock (@Nullable final Clock aClock)
+  {
+    s_aClock = aClock;
+  }
+
+  /**
+   * Determine the default time zone again, e.g. after restoring a JVM snapshot. The zone is taken
+   * from the <code>user.timezone</code> system property, so a value provided upon restore is used.
+   * If the property is empty, the zone of the operating system is used. The default zone of
+   * {@link PDTConfig} is only updated if it was following the previous default zone, so an
+   * explicitly configured zone is kept. A custom clock is never changed.
+   *
+   * @param bDetectFromOS
+   *        <code>true</code> to clear the <code>user.timezone</code> system property before, so
+   *        that the zone of the operating system is detected again. Note that the JDK also stores
+   *        a zone it detected itself in this property.
+   */
+  public static void refreshDefaultZone (final boolean bDetectFromOS)
+  {
+    final ZoneId aOldZone = TimeZone.getDefault ().toZoneId ();
+    final boolean bPDTFollowsSystem = PDTConfig.getDefaultZoneId ().equals (aOldZone);
+
+    if (bDetectFromOS)
+      System.clearProperty ("user.timezone");
+    // The next access determines the default zone again
+    TimeZone.setDefault (null);
+
+    final ZoneId aNewZone = TimeZone.getDefault ().toZoneId ();
+    if (bPDTFollowsSystem && !aNewZone.equals (aOldZone))
+      PDTConfig.setDefaultDateTimeZoneID (aNewZone.getId ());
+  }
+
+  /**
+   * @return The current date. Never <code>null</code>.
+   */
+  @NonNull
+  public static LocalDate getCurrentLocalDate ()
+  {
+    final Clock aClock = s_aClock;
+    return aClock != null ? LocalDate.now (aClock) : PDTFactory.getCurrentLocalDate ();
+  }
+
+  /**
+   * @return The current time with offset. Never <code>null</code>.
+   */
+  @NonNull
+  public static OffsetTime getCurrentOffsetTime ()
+  {
+    final Clock aClock = s_aClock;
+    return aClock != null ? OffsetTime.now (aClock) : PDTFactory.getCurrentOffsetTime ();
+  }
+
+  /**
+   * @return The current date and time with offset. Never <code>null</code>.
+   */
+  @NonNull
+  public static OffsetDateTime getCurrentOffsetDateTime ()
+  {
+    final Clock aClock = s_aClock;
+    return aClock != null ? OffsetDateTime.now (aClock) : PDTFactory.getCurrentOffsetDateTime ();
+  }
+}
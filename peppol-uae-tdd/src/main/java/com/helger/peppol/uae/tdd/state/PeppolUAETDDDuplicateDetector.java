@@ -0,0 +1,570 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.state;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+import org.jspecify.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.peppol.uae.tdd.codelist.EUAETDDDocumentTypeCode;
+
+/**
+ * A persistent set of all reported document UUIDs that were already submitted, used to decide
+ * whether a TDD must be created as {@link EUAETDDDocumentTypeCode#SUBMIT} or
+ * {@link EUAETDDDocumentTypeCode#RESUBMIT}.<br>
+ * The UUIDs are stored as 128 bit values in an open addressing hash table with linear probing. The
+ * table lives in a memory-mapped file and not on the Java heap, so hundreds of millions of entries
+ * are possible and the content survives restarts. The table is doubled when it is more than 70%
+ * full.<br>
+ * The provided file only contains a small header. The table itself is stored in a data file next to
+ * it, named after the provided file plus a generation number (e.g. <code>dedup.bin.0</code>). When
+ * growing, the entries are copied into the data file of the next generation and only afterwards the
+ * header is switched to it. So a crash while growing leaves the old table intact, and no file that
+ * is still mapped needs to be replaced, which is not possible on Windows. Data files of other
+ * generations are deleted when possible.<br>
+ * Values that are not in the canonical UUID format are mapped to a name based UUID of their UTF-8
+ * bytes.
+ *
+ * @author Philip Helger
+ */
+@ThreadSafe
+public final class PeppolUAETDDDuplicateDetector implements AutoCloseable
+{
+  /** The default number of expected entries if a new file is created */
+  public static final long DEFAULT_EXPECTED_ENTRIES = 1_000_000;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (PeppolUAETDDDuplicateDetector.class);
+
+  // "UAETDDU2"
+  private static final long MAGIC = 0x5541455444445532L;
+  private static final int HEADER_SIZE = 64;
+  private static final int OFFSET_GENERATION = 8;
+  private static final int OFFSET_SIZE = 16;
+  private static final int OFFSET_CONTAINS_ZERO = 24;
+  private static final int SLOT_SIZE = 16;
+  // One chunk has 1 GiB so that no slot crosses a mapping boundary
+  private static final int CHUNK_SLOT_BITS = 26;
+  private static final long CHUNK_SLOTS = 1L << CHUNK_SLOT_BITS;
+  private static final long MIN_CAPACITY = 1024;
+  private static final double MAX_LOAD_FACTOR = 0.7;
+
+  private final Path m_aFile;
+  private FileChannel m_aHeaderChannel;
+  private MappedByteBuffer m_aHeader;
+  private long m_nGeneration;
+  private FileChannel m_aDataChannel;
+  private MappedByteBuffer [] m_aChunks;
+  private long m_nCapacity;
+  private long m_nMask;
+  private long m_nSize;
+  private boolean m_bContainsZero;
+  private boolean m_bClosed = false;
+
+  /**
+   * Open an existing file or create a new file with the default capacity.
+   *
+   * @param aFile
+   *        The file to use. May not be <code>null</code>.
+   * @throws IOException
+   *         If the file could not be opened or is not a valid duplicate detector file.
+   */
+  public PeppolUAETDDDuplicateDetector (@NonNull final Path aFile) throws IOException
+  {
+    this (aFile, DEFAULT_EXPECTED_ENTRIES);
+  }
+
+  /**
+   * Open an existing file or create a new file.
+   *
+   * @param aFile
+   *        The file to use. May not be <code>null</code>.
+   * @param nExpectedEntries
+   *        The number of entries the table should be able to hold without growing, if a new file
+   *        is created. Ignored for existing files. Must be &gt; 0.
+   * @throws IOException
+   *         If the file could not be opened or is not a valid duplicate detector file.
+   */
+  public PeppolUAETDDDuplicateDetector (@NonNull final Path aFile, @Nonnegative final long nExpectedEntries) throws IOException
+  {
+    ValueEnforcer.notNull (aFile, "File");
+    ValueEnforcer.isGT0 (nExpectedEntries, "ExpectedEntries");
+    m_aFile = aFile;
+
+    if (!Files.exists (aFile))
+      _createFile (getCapacityForEntries (nExpectedEntries));
+    _open ();
+  }
+
+  /**
+   * @param nEntries
+   *        Number of entries.
+   * @return The table capacity needed to store the provided number of entries without growing.
+   *         Always a power of two.
+   */
+  static long getCapacityForEntries (@Nonnegative final long nEntries)
+  {
+    final long nMin = Math.max (MIN_CAPACITY, (long) Math.ceil (nEntries / MAX_LOAD_FACTOR) + 1);
+    return Long.highestOneBit (nMin - 1) << 1;
+  }
+
+  @NonNull
+  private Path _getDataFile (final long nGeneration)
+  {
+    return m_aFile.resolveSibling (m_aFile.getFileName () + "." + nGeneration);
+  }
+
+  private static void _createDataFile (@NonNull final Path aDataFile, final long nCapacity) throws IOException
+  {
+    // A left-over of a crashed growth is overwritten
+    try (final FileChannel aChannel = FileChannel.open (aDataFile,
+                                                        StandardOpenOption.CREATE,
+                                                        StandardOpenOption.TRUNCATE_EXISTING,
+                                                        StandardOpenOption.WRITE))
+    {
+      // Extend the file by writing the last byte - all slots are implicitly zero (= empty)
+      aChannel.write (ByteBuffer.allocate (1), nCapacity * SLOT_SIZE - 1);
+      aChannel.force (true);
+    }
+  }
+
+  private void _createFile (final long nCapacity) throws IOException
+  {
+    // The data file first, so that an existing header always refers to an existing data file
+    _createDataFile (_getDataFile (0), nCapacity);
+    try (final FileChannel aChannel = FileChannel.open (m_aFile,
+                                                        StandardOpenOption.CREATE_NEW,
+                                                        StandardOpenOption.READ,
+                                                        StandardOpenOption.WRITE))
+    {
+      final MappedByteBuffer aHeader = aChannel.map (FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+      aHeader.putLong (0, MAGIC);
+      aHeader.putLong (OFFSET_GENERATION, 0);
+      aHeader.putLong (OFFSET_SIZE, 0);
+      aHeader.putInt (OFFSET_CONTAINS_ZERO, 0);
+      aHeader.force ();
+    }
+  }
+
+  @NonNull
+  private static MappedByteBuffer [] _mapChunks (@NonNull final FileChannel aChannel, final long nCapacity) throws IOException
+  {
+    final int nChunks = (int) ((nCapacity + CHUNK_SLOTS - 1) >>> CHUNK_SLOT_BITS);
+    final MappedByteBuffer [] ret = new MappedByteBuffer [nChunks];
+    for (int i = 0; i < nChunks; ++i)
+    {
+      final long nSlots = Math.min (CHUNK_SLOTS, nCapacity - i * CHUNK_SLOTS);
+      ret[i] = aChannel.map (FileChannel.MapMode.READ_WRITE, i * CHUNK_SLOTS * SLOT_SIZE, nSlots * SLOT_SIZE);
+    }
+    return ret;
+  }
+
+  private static void _deleteQuietly (@NonNull final Path aPath)
+  {
+    try
+    {
+      Files.deleteIfExists (aPath);
+    }
+    catch (final IOException ex)
+    {
+      // E.g. on Windows, as long as an old mapping is not garbage collected - retried upon the next
+      // growth or open
+      LOGGER.info ("Failed to delete '" + aPath + "': " + ex.getMessage ());
+    }
+  }
+
+  private void _deleteOtherDataFiles ()
+  {
+    final String sPrefix = m_aFile.getFileName () + ".";
+    final Path aCurrent = _getDataFile (m_nGeneration);
+    try (final DirectoryStream <Path> aStream = Files.newDirectoryStream (m_aFile.toAbsolutePath ().getParent (),
+                                                                          sPrefix + "*"))
+    {
+      for (final Path aPath : aStream)
+      {
+        final String sSuffix = aPath.getFileName ().toString ().substring (sPrefix.length ());
+        if (!sSuffix.isEmpty () && sSuffix.chars ().allMatch (Character::isDigit) && !aPath.equals (aCurrent))
+          _deleteQuietly (aPath);
+      }
+    }
+    catch (final IOException ex)
+    {
+      LOGGER.info ("Failed to list the data files of TDD duplicate detector '" + m_aFile + "': " + ex.getMessage ());
+    }
+  }
+
+  private void _open () throws IOException
+  {
+    m_aHeaderChannel = FileChannel.open (m_aFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    if (m_aHeaderChannel.size () != HEADER_SIZE)
+      throw new IOException ("The file '" + m_aFile + "' is not a valid TDD duplicate detector file");
+    m_aHeader = m_aHeaderChannel.map (FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+    m_nGeneration = m_aHeader.getLong (OFFSET_GENERATION);
+    if (m_aHeader.getLong (0) != MAGIC || m_nGeneration < 0)
+      throw new IOException ("The file '" + m_aFile + "' is not a valid TDD duplicate detector file");
+
+    final Path aDataFile = _getDataFile (m_nGeneration);
+    if (!Files.exists (aDataFile))
+      throw new IOException ("The data file '" + aDataFile + "' of the TDD duplicate detector is missing");
+    m_aDataChannel = FileChannel.open (aDataFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    m_nCapacity = m_aDataChannel.size () / SLOT_SIZE;
+    if (m_nCapacity < MIN_CAPACITY ||
+        Long.bitCount (m_nCapacity) != 1 ||
+        m_aDataChannel.size () != m_nCapacity * SLOT_SIZE)
+      throw new IOException ("The file '" + aDataFile + "' is not a valid TDD duplicate detector data file");
+    m_nMask = m_nCapacity - 1;
+    m_nSize = m_aHeader.getLong (OFFSET_SIZE);
+    m_bContainsZero = m_aHeader.getInt (OFFSET_CONTAINS_ZERO) != 0;
+    m_aChunks = _mapChunks (m_aDataChannel, m_nCapacity);
+
+    _deleteOtherDataFiles ();
+  }
+
+  private static boolean _isHex (final char c)
+  {
+    return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+  }
+
+  /**
+   * Convert a reported document UUID to its 128 bit value.
+   *
+   * @param sUUID
+   *        The UUID string as used in the invoice. May not be <code>null</code>.
+   * @return The UUID itself if it is in the canonical 8-4-4-4-12 hex format (case insensitive), or
+   *         a name based UUID of the UTF-8 bytes otherwise. Never <code>null</code>.
+   */
+  @NonNull
+  public static UUID getAsUUID (@NonNull final String sUUID)
+  {
+    ValueEnforcer.notNull (sUUID, "UUID");
+
+    boolean bCanonical = sUUID.length () == 36;
+    for (int i = 0; bCanonical && i < 36; ++i)
+    {
+      final char c = sUUID.charAt (i);
+      bCanonical = i == 8 || i == 13 || i == 18 || i == 23 ? c == '-' : _isHex (c);
+    }
+    if (bCanonical)
+      return UUID.fromString (sUUID);
+    return UUID.nameUUIDFromBytes (sUUID.getBytes (StandardCharsets.UTF_8));
+  }
+
+  private static long _mix (final long nMSB, final long nLSB)
+  {
+    // MurmurHash3 finalizer
+    long h = nMSB * 31 + nLSB;
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  private static long _getMSB (@NonNull final MappedByteBuffer [] aChunks, final long nSlot)
+  {
+    return aChunks[(int) (nSlot >>> CHUNK_SLOT_BITS)].getLong ((int) ((nSlot & (CHUNK_SLOTS - 1)) * SLOT_SIZE));
+  }
+
+  private static long _getLSB (@NonNull final MappedByteBuffer [] aChunks, final long nSlot)
+  {
+    return aChunks[(int) (nSlot >>> CHUNK_SLOT_BITS)].getLong ((int) ((nSlot & (CHUNK_SLOTS - 1)) * SLOT_SIZE + 8));
+  }
+
+  private static void _setSlot (@NonNull final MappedByteBuffer [] aChunks,
+                                final long nSlot,
+                                final long nMSB,
+                                final long nLSB)
+  {
+    final MappedByteBuffer aChunk = aChunks[(int) (nSlot >>> CHUNK_SLOT_BITS)];
+    final int nOffset = (int) ((nSlot & (CHUNK_SLOTS - 1)) * SLOT_SIZE);
+    aChunk.putLong (nOffset, nMSB);
+    aChunk.putLong (nOffset + 8, nLSB);
+  }
+
+  /**
+   * @return The slot index of the provided value or of the empty slot where it would be inserted.
+   */
+  private static long _findSlot (@NonNull final MappedByteBuffer [] aChunks,
+                                 final long nMask,
+                                 final long nMSB,
+                                 final long nLSB)
+  {
+    long nSlot = _mix (nMSB, nLSB) & nMask;
+    while (true)
+    {
+      final long nSlotMSB = _getMSB (aChunks, nSlot);
+      final long nSlotLSB = _getLSB (aChunks, nSlot);
+      if ((nSlotMSB == nMSB && nSlotLSB == nLSB) || (nSlotMSB == 0 && nSlotLSB == 0))
+        return nSlot;
+      nSlot = (nSlot + 1) & nMask;
+    }
+  }
+
+  private boolean _containsNonZero (final long nMSB, final long nLSB)
+  {
+    // The found slot is either the matching or an empty one
+    final long nSlot = _findSlot (m_aChunks, m_nMask, nMSB, nLSB);
+    return _getMSB (m_aChunks, nSlot) == nMSB && _getLSB (m_aChunks, nSlot) == nLSB;
+  }
+
+  private void _checkOpen ()
+  {
+    if (m_bClosed)
+      throw new IllegalStateException ("The TDD duplicate detector is already closed");
+  }
+
+  private void _grow () throws IOException
+  {
+    final long nNewCapacity = m_nCapacity << 1;
+    final long nNewMask = nNewCapacity - 1;
+    final long nNewGeneration = m_nGeneration + 1;
+    final Path aNewDataFile = _getDataFile (nNewGeneration);
+    LOGGER.info ("Growing TDD duplicate detector '" +
+                 m_aFile +
+                 "' to " +
+                 nNewCapacity +
+                 " slots in '" +
+                 aNewDataFile +
+                 "'");
+
+    _createDataFile (aNewDataFile, nNewCapacity);
+    final FileChannel aNewChannel = FileChannel.open (aNewDataFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    final MappedByteBuffer [] aNewChunks;
+    try
+    {
+      aNewChunks = _mapChunks (aNewChannel, nNewCapacity);
+      for (long nSlot = 0; nSlot < m_nCapacity; ++nSlot)
+      {
+        final long nMSB = _getMSB (m_aChunks, nSlot);
+        final long nLSB = _getLSB (m_aChunks, nSlot);
+        if (nMSB != 0 || nLSB != 0)
+          _setSlot (aNewChunks, _findSlot (aNewChunks, nNewMask, nMSB, nLSB), nMSB, nLSB);
+      }
+      for (final MappedByteBuffer aChunk : aNewChunks)
+        aChunk.force ();
+    }
+    catch (final IOException | RuntimeException ex)
+    {
+      aNewChannel.close ();
+      _deleteQuietly (aNewDataFile);
+      throw ex;
+    }
+
+    // Switch to the new table - until here, the old one is still valid
+    m_aHeader.putLong (OFFSET_GENERATION, nNewGeneration);
+    m_aHeader.force ();
+
+    // The old mapping stays valid until it is garbage collected
+    m_aChunks = aNewChunks;
+    m_aDataChannel.close ();
+    m_aDataChannel = aNewChannel;
+    m_nGeneration = nNewGeneration;
+    m_nCapacity = nNewCapacity;
+    m_nMask = nNewMask;
+    _deleteOtherDataFiles ();
+  }
+
+  private void _insertNew (final long nMSB, final long nLSB)
+  {
+    // Count first - after a crash the size may be too large by one, but never too small
+    m_nSize++;
+    m_aHeader.putLong (OFFSET_SIZE, m_nSize);
+    if (nMSB == 0 && nLSB == 0)
+    {
+      m_bContainsZero = true;
+      m_aHeader.putInt (OFFSET_CONTAINS_ZERO, 1);
+    }
+    else
+      _setSlot (m_aChunks, _findSlot (m_aChunks, m_nMask, nMSB, nLSB), nMSB, nLSB);
+  }
+
+  /**
+   * @param aUUID
+   *        The UUID to check. May not be <code>null</code>.
+   * @return <code>true</code> if the UUID is contained.
+   */
+  public synchronized boolean contains (@NonNull final UUID aUUID)
+  {
+    ValueEnforcer.notNull (aUUID, "UUID");
+    _checkOpen ();
+
+    final long nMSB = aUUID.getMostSignificantBits ();
+    final long nLSB = aUUID.getLeastSignificantBits ();
+    if (nMSB == 0 && nLSB == 0)
+      return m_bContainsZero;
+    return _containsNonZero (nMSB, nLSB);
+  }
+
+  /**
+   * @param sUUID
+   *        The reported document UUID to check. May not be <code>null</code>.
+   * @return <code>true</code> if the UUID is contained.
+   * @see #getAsUUID(String)
+   */
+  public boolean contains (@NonNull final String sUUID)
+  {
+    return contains (getAsUUID (sUUID));
+  }
+
+  /**
+   * Add a UUID.
+   *
+   * @param aUUID
+   *        The UUID to add. May not be <code>null</code>.
+   * @return <code>true</code> if the UUID was added, <code>false</code> if it was already contained.
+   * @throws IOException
+   *         If growing the table failed
+   */
+  public synchronized boolean add (@NonNull final UUID aUUID) throws IOException
+  {
+    ValueEnforcer.notNull (aUUID, "UUID");
+    _checkOpen ();
+
+    final long nMSB = aUUID.getMostSignificantBits ();
+    final long nLSB = aUUID.getLeastSignificantBits ();
+    if (nMSB == 0 && nLSB == 0 ? m_bContainsZero : _containsNonZero (nMSB, nLSB))
+      return false;
+
+    if (m_nSize + 1 > m_nCapacity * MAX_LOAD_FACTOR)
+      _grow ();
+    _insertNew (nMSB, nLSB);
+    return true;
+  }
+
+  /**
+   * @param sUUID
+   *        The reported document UUID to add. May not be <code>null</code>.
+   * @return <code>true</code> if the UUID was added, <code>false</code> if it was already contained.
+   * @throws IOException
+   *         If growing the table failed
+   * @see #getAsUUID(String)
+   */
+  public boolean add (@NonNull final String sUUID) throws IOException
+  {
+    return add (getAsUUID (sUUID));
+  }
+
+  /**
+   * Suggest the document type code for a new TDD of the provided reported document, without
+   * remembering the UUID.
+   *
+   * @param sUUID
+   *        The reported document UUID. May not be <code>null</code>.
+   * @return {@link EUAETDDDocumentTypeCode#RESUBMIT} if the UUID was already submitted,
+   *         {@link EUAETDDDocumentTypeCode#SUBMIT} otherwise.
+   */
+  @NonNull
+  public EUAETDDDocumentTypeCode suggestDocumentTypeCode (@NonNull final String sUUID)
+  {
+    return contains (sUUID) ? EUAETDDDocumentTypeCode.RESUBMIT : EUAETDDDocumentTypeCode.SUBMIT;
+  }
+
+  /**
+   * Suggest the document type code for a new TDD of the provided reported document and remember
+   * the UUID as submitted in a single atomic step.
+   *
+   * @param sUUID
+   *        The reported document UUID. May not be <code>null</code>.
+   * @return {@link EUAETDDDocumentTypeCode#RESUBMIT} if the UUID was already submitted,
+   *         {@link EUAETDDDocumentTypeCode#SUBMIT} otherwise.
+   * @throws IOException
+   *         If growing the table failed
+   */
+  @NonNull
+  public EUAETDDDocumentTypeCode registerSubmission (@NonNull final String sUUID) throws IOException
+  {
+    return add (sUUID) ? EUAETDDDocumentTypeCode.SUBMIT : EUAETDDDocumentTypeCode.RESUBMIT;
+  }
+
+  /**
+   * @return The number of contained UUIDs.
+   */
+  @Nonnegative
+  public synchronized long getSize ()
+  {
+    return m_nSize;
+  }
+
+  /**
+   * @return The current number of slots of the hash table. Always a power of two.
+   */
+  @Nonnegative
+  public synchronized long getCapacity ()
+  {
+    return m_nCapacity;
+  }
+
+  /**
+   * Force all changes to the storage device. Without this call, changes survive a crash of the
+   * JVM, but not necessarily a crash of the operating system.
+   */
+  public synchronized void flush ()
+  {
+    _checkOpen ();
+    for (final MappedByteBuffer aChunk : m_aChunks)
+      aChunk.force ();
+    m_aHeader.force ();
+  }
+
+  private void _closeChannels () throws IOException
+  {
+    for (final MappedByteBuffer aChunk : m_aChunks)
+      aChunk.force ();
+    m_aHeader.force ();
+    // The mappings stay valid until they are garbage collected
+    m_aChunks = null;
+    m_aHeader = null;
+    m_aDataChannel.close ();
+    m_aDataChannel = null;
+    m_aHeaderChannel.close ();
+    m_aHeaderChannel = null;
+  }
+
+  public synchronized void close () throws IOException
+  {
+    if (m_bClosed)
+      return;
+    m_bClosed = true;
+    _closeChannels ();
+  }
+
+  @Override
+  public synchronized String toString ()
+  {
+    return new ToStringGenerator (null).append ("File", m_aFile)
+                                       .append ("Generation", m_nGeneration)
+                                       .append ("Capacity", m_nCapacity)
+                                       .append ("Size", m_nSize)
+                                       .append ("Closed", m_bClosed)
+                                       .getToString ();
+  }
+}
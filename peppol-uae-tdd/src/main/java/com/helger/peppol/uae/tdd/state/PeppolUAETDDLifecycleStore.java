@@ -0,0 +1,426 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.state;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.state.ESuccess;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.peppol.uae.tdd.PeppolUAETDD10ReportedTransactionBuilder;
+import com.helger.peppol.uae.tdd.codelist.EUAETDDDocumentTypeCode;
+
+/**
+ * Tracks the lifecycle state of each reported document, identified by its UUID, and ensures that
+ * only valid sequences of TDD document type codes are created. The valid transitions are:
+ * <ul>
+ * <li>unknown document: {@link EUAETDDDocumentTypeCode#SUBMIT} or
+ * {@link EUAETDDDocumentTypeCode#FAILED}</li>
+ * <li>after {@link EUAETDDDocumentTypeCode#SUBMIT} or {@link EUAETDDDocumentTypeCode#RESUBMIT}:
+ * {@link EUAETDDDocumentTypeCode#RESUBMIT} or {@link EUAETDDDocumentTypeCode#WITHDRAW}</li>
+ * <li>after {@link EUAETDDDocumentTypeCode#WITHDRAW}: nothing</li>
+ * <li>after {@link EUAETDDDocumentTypeCode#FAILED}: {@link EUAETDDDocumentTypeCode#SUBMIT} or
+ * {@link EUAETDDDocumentTypeCode#FAILED}</li>
+ * </ul>
+ * Every accepted transition is appended to a log file with fixed size records. The current state of
+ * each document is kept in an open addressing hash table made of primitive arrays, which is rebuilt
+ * by replaying the log when the store is opened.
+ *
+ * @author Philip Helger
+ */
+@ThreadSafe
+public final class PeppolUAETDDLifecycleStore implements AutoCloseable
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (PeppolUAETDDLifecycleStore.class);
+
+  // State (1 byte), UUID (16 bytes), timestamp (8 bytes)
+  private static final int RECORD_SIZE = 25;
+  private static final int REPLAY_BUFFER_SIZE = RECORD_SIZE * 40_000;
+  private static final int MIN_CAPACITY = 1024;
+  private static final double MAX_LOAD_FACTOR = 0.7;
+  private static final boolean [] [] TRANSITIONS;
+
+  static
+  {
+    // Index 0 is "unknown", all others are ordinal + 1
+    final EUAETDDDocumentTypeCode [] aCodes = EUAETDDDocumentTypeCode.values ();
+    TRANSITIONS = new boolean [aCodes.length + 1] [aCodes.length];
+    _allow (null, EUAETDDDocumentTypeCode.SUBMIT, EUAETDDDocumentTypeCode.FAILED);
+    _allow (EUAETDDDocumentTypeCode.SUBMIT, EUAETDDDocumentTypeCode.RESUBMIT, EUAETDDDocumentTypeCode.WITHDRAW);
+    _allow (EUAETDDDocumentTypeCode.RESUBMIT, EUAETDDDocumentTypeCode.RESUBMIT, EUAETDDDocumentTypeCode.WITHDRAW);
+    _allow (EUAETDDDocumentTypeCode.FAILED, EUAETDDDocumentTypeCode.SUBMIT, EUAETDDDocumentTypeCode.FAILED);
+  }
+
+  private static void _allow (@Nullable final EUAETDDDocumentTypeCode eFrom,
+                              @NonNull final EUAETDDDocumentTypeCode... aTo)
+  {
+    for (final EUAETDDDocumentTypeCode eTo : aTo)
+      TRANSITIONS[eFrom == null ? 0 : eFrom.ordinal () + 1][eTo.ordinal ()] = true;
+  }
+
+  private final Path m_aFile;
+  private final FileChannel m_aChannel;
+  // The index: state 0 means empty slot
+  private long [] m_aMSBs;
+  private long [] m_aLSBs;
+  private byte [] m_aStates;
+  private int m_nSize;
+  // The nil UUID is handled separately
+  private byte m_nNilState = 0;
+  private long m_nLogSize;
+  private boolean m_bClosed = false;
+
+  /**
+   * Open or create a lifecycle store.
+   *
+   * @param aFile
+   *        The log file to use. Created if it does not exist. May not be <code>null</code>.
+   * @throws IOException
+   *         If the log file could not be opened or read
+   */
+  public PeppolUAETDDLifecycleStore (@NonNull final Path aFile) throws IOException
+  {
+    ValueEnforcer.notNull (aFile, "File");
+    m_aFile = aFile;
+    _initIndex (MIN_CAPACITY);
+
+    m_aChannel = FileChannel.open (aFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    final long nFileSize = m_aChannel.size ();
+    m_nLogSize = nFileSize - nFileSize % RECORD_SIZE;
+    _replay ();
+    if (m_nLogSize < nFileSize)
+    {
+      LOGGER.warn ("Discarding " + (nFileSize - m_nLogSize) + " bytes of incomplete TDD lifecycle log data");
+      m_aChannel.truncate (m_nLogSize);
+    }
+  }
+
+  /**
+   * Check if a transition is valid according to the TDD lifecycle.
+   *
+   * @param eFrom
+   *        The current state. May be <code>null</code> for unknown documents.
+   * @param eTo
+   *        The state of the new TDD. May not be <code>null</code>.
+   * @return <code>true</code> if the transition is valid.
+   */
+  public static boolean isAllowedTransition (@Nullable final EUAETDDDocumentTypeCode eFrom,
+                                             @NonNull final EUAETDDDocumentTypeCode eTo)
+  {
+    ValueEnforcer.notNull (eTo, "To");
+    return TRANSITIONS[eFrom == null ? 0 : eFrom.ordinal () + 1][eTo.ordinal ()];
+  }
+
+  @Nullable
+  private static EUAETDDDocumentTypeCode _getCode (final byte nState)
+  {
+    return nState == 0 ? null : EUAETDDDocumentTypeCode.values ()[nState - 1];
+  }
+
+  private static byte _getState (@NonNull final EUAETDDDocumentTypeCode e)
+  {
+    return (byte) (e.ordinal () + 1);
+  }
+
+  private static byte _getStateOfLogID (final byte nLogID)
+  {
+    // The log contains the first character of the code ID
+    for (final EUAETDDDocumentTypeCode e : EUAETDDDocumentTypeCode.values ())
+      if (e.getID ().charAt (0) == nLogID)
+        return _getState (e);
+    return 0;
+  }
+
+  private void _initIndex (final int nCapacity)
+  {
+    m_aMSBs = new long [nCapacity];
+    m_aLSBs = new long [nCapacity];
+    m_aStates = new byte [nCapacity];
+    m_nSize = 0;
+  }
+
+  private static int _mix (final long nMSB, final long nLSB)
+  {
+    long h = nMSB * 31 + nLSB;
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    return (int) h;
+  }
+
+  private int _findSlot (final long nMSB, final long nLSB)
+  {
+    final int nMask = m_aStates.length - 1;
+    int nSlot = _mix (nMSB, nLSB) & nMask;
+    while (m_aStates[nSlot] != 0 && (m_aMSBs[nSlot] != nMSB || m_aLSBs[nSlot] != nLSB))
+      nSlot = (nSlot + 1) & nMask;
+    return nSlot;
+  }
+
+  private byte _get (final long nMSB, final long nLSB)
+  {
+    if (nMSB == 0 && nLSB == 0)
+      return m_nNilState;
+    return m_aStates[_findSlot (nMSB, nLSB)];
+  }
+
+  private void _put (final long nMSB, final long nLSB, final byte nState)
+  {
+    if (nMSB == 0 && nLSB == 0)
+    {
+      m_nNilState = nState;
+      return;
+    }
+
+    int nSlot = _findSlot (nMSB, nLSB);
+    if (m_aStates[nSlot] == 0)
+    {
+      if (m_nSize + 1 > m_aStates.length * MAX_LOAD_FACTOR)
+      {
+        final long [] aOldMSBs = m_aMSBs;
+        final long [] aOldLSBs = m_aLSBs;
+        final byte [] aOldStates = m_aStates;
+        _initIndex (aOldStates.length << 1);
+        for (int i = 0; i < aOldStates.length; ++i)
+          if (aOldStates[i] != 0)
+          {
+            final int nNewSlot = _findSlot (aOldMSBs[i], aOldLSBs[i]);
+            m_aMSBs[nNewSlot] = aOldMSBs[i];
+            m_aLSBs[nNewSlot] = aOldLSBs[i];
+            m_aStates[nNewSlot] = aOldStates[i];
+            m_nSize++;
+          }
+        nSlot = _findSlot (nMSB, nLSB);
+      }
+      m_aMSBs[nSlot] = nMSB;
+      m_aLSBs[nSlot] = nLSB;
+      m_nSize++;
+    }
+    m_aStates[nSlot] = nState;
+  }
+
+  private void _replay () throws IOException
+  {
+    final ByteBuffer aBuf = ByteBuffer.allocateDirect (REPLAY_BUFFER_SIZE);
+    long nPos = 0;
+    while (nPos < m_nLogSize)
+    {
+      aBuf.clear ();
+      aBuf.limit ((int) Math.min (REPLAY_BUFFER_SIZE, m_nLogSize - nPos));
+      while (aBuf.hasRemaining ())
+        if (m_aChannel.read (aBuf, nPos + aBuf.position ()) < 0)
+          throw new IOException ("Unexpected end of TDD lifecycle log '" + m_aFile + "'");
+      aBuf.flip ();
+      while (aBuf.remaining () >= RECORD_SIZE)
+      {
+        final byte nState = _getStateOfLogID (aBuf.get ());
+        final long nMSB = aBuf.getLong ();
+        final long nLSB = aBuf.getLong ();
+        // Timestamp is not needed for the index
+        aBuf.getLong ();
+        if (nState == 0)
+          throw new IOException ("Invalid TDD lifecycle log record at " + (nPos + aBuf.position () - RECORD_SIZE));
+        _put (nMSB, nLSB, nState);
+      }
+      nPos += aBuf.position ();
+    }
+  }
+
+  private void _checkOpen ()
+  {
+    if (m_bClosed)
+      throw new IllegalStateException ("The TDD lifecycle store is already closed");
+  }
+
+  /**
+   * Get the current lifecycle state of a reported document.
+   *
+   * @param sUUID
+   *        The reported document UUID. May not be <code>null</code>.
+   * @return The document type code of the last accepted TDD for the document or <code>null</code>
+   *         if the document is unknown.
+   * @see PeppolUAETDDDuplicateDetector#getAsUUID(String)
+   */
+  @Nullable
+  public EUAETDDDocumentTypeCode getState (@NonNull final String sUUID)
+  {
+    final UUID aUUID = PeppolUAETDDDuplicateDetector.getAsUUID (sUUID);
+    synchronized (this)
+    {
+      _checkOpen ();
+      return _getCode (_get (aUUID.getMostSignificantBits (), aUUID.getLeastSignificantBits ()));
+    }
+  }
+
+  /**
+   * Check if a TDD of the provided type may be created for the reported document.
+   *
+   * @param sUUID
+   *        The reported document UUID. May not be <code>null</code>.
+   * @param eTo
+   *        The document type code of the new TDD. May not be <code>null</code>.
+   * @return <code>true</code> if the transition is valid.
+   */
+  public boolean isValidTransition (@NonNull final String sUUID, @NonNull final EUAETDDDocumentTypeCode eTo)
+  {
+    return isAllowedTransition (getState (sUUID), eTo);
+  }
+
+  /**
+   * Check if the reported transaction of the provided builder is valid with respect to the
+   * lifecycle. A {@link EUAETDDDocumentTypeCode#FAILED} transaction without UUID is always valid,
+   * because it cannot be tracked.
+   *
+   * @param aBuilder
+   *        The builder to check. May not be <code>null</code>.
+   * @return <code>true</code> if the transition is valid.
+   */
+  public boolean isValidTransition (@NonNull final PeppolUAETDD10ReportedTransactionBuilder aBuilder)
+  {
+    ValueEnforcer.notNull (aBuilder, "Builder");
+    final String sUUID = aBuilder.uuid ();
+    if (sUUID == null)
+      return aBuilder.tddDocumentTypeCode () == EUAETDDDocumentTypeCode.FAILED;
+    return isValidTransition (sUUID, aBuilder.tddDocumentTypeCode ());
+  }
+
+  /**
+   * Record a new TDD for a reported document. The transition is checked and only written to the log
+   * if it is valid.
+   *
+   * @param sUUID
+   *        The reported document UUID. May not be <code>null</code>.
+   * @param eTo
+   *        The document type code of the new TDD. May not be <code>null</code>.
+   * @return {@link ESuccess#SUCCESS} if the transition was valid and recorded,
+   *         {@link ESuccess#FAILURE} if the transition is invalid.
+   * @throws IOException
+   *         If writing the log failed
+   */
+  @NonNull
+  public ESuccess recordTransition (@NonNull final String sUUID, @NonNull final EUAETDDDocumentTypeCode eTo) throws IOException
+  {
+    ValueEnforcer.notNull (eTo, "To");
+    final UUID aUUID = PeppolUAETDDDuplicateDetector.getAsUUID (sUUID);
+    final long nMSB = aUUID.getMostSignificantBits ();
+    final long nLSB = aUUID.getLeastSignificantBits ();
+
+    synchronized (this)
+    {
+      _checkOpen ();
+      final EUAETDDDocumentTypeCode eFrom = _getCode (_get (nMSB, nLSB));
+      if (!isAllowedTransition (eFrom, eTo))
+      {
+        LOGGER.warn ("Invalid TDD lifecycle transition from " + eFrom + " to " + eTo + " for UUID '" + sUUID + "'");
+        return ESuccess.FAILURE;
+      }
+
+      final ByteBuffer aRecord = ByteBuffer.allocate (RECORD_SIZE);
+      aRecord.put ((byte) eTo.getID ().charAt (0));
+      aRecord.putLong (nMSB);
+      aRecord.putLong (nLSB);
+      aRecord.putLong (System.currentTimeMillis ());
+      aRecord.flip ();
+      while (aRecord.hasRemaining ())
+        m_aChannel.write (aRecord, m_nLogSize + aRecord.position ());
+      m_nLogSize += RECORD_SIZE;
+
+      _put (nMSB, nLSB, _getState (eTo));
+      return ESuccess.SUCCESS;
+    }
+  }
+
+  /**
+   * Record the reported transaction of the provided builder.
+   *
+   * @param aBuilder
+   *        The builder to record. May not be <code>null</code> and must have a UUID.
+   * @return {@link ESuccess#SUCCESS} if the transition was valid and recorded,
+   *         {@link ESuccess#FAILURE} if the transition is invalid.
+   * @throws IOException
+   *         If writing the log failed
+   * @see #recordTransition(String, EUAETDDDocumentTypeCode)
+   */
+  @NonNull
+  public ESuccess recordTransition (@NonNull final PeppolUAETDD10ReportedTransactionBuilder aBuilder) throws IOException
+  {
+    ValueEnforcer.notNull (aBuilder, "Builder");
+    ValueEnforcer.notNull (aBuilder.uuid (), "Builder.UUID");
+    return recordTransition (aBuilder.uuid (), aBuilder.tddDocumentTypeCode ());
+  }
+
+  /**
+   * @return The number of tracked reported documents.
+   */
+  @Nonnegative
+  public synchronized int getDocumentCount ()
+  {
+    return m_nSize + (m_nNilState != 0 ? 1 : 0);
+  }
+
+  /**
+   * @return The number of recorded transitions in the log.
+   */
+  @Nonnegative
+  public synchronized long getTransitionCount ()
+  {
+    return m_nLogSize / RECORD_SIZE;
+  }
+
+  /**
+   * Force all written data to the storage device.
+   *
+   * @throws IOException
+   *         If flushing failed
+   */
+  public synchronized void flush () throws IOException
+  {
+    _checkOpen ();
+    m_aChannel.force (false);
+  }
+
+  public synchronized void close () throws IOException
+  {
+    if (m_bClosed)
+      return;
+    m_bClosed = true;
+    m_aChannel.force (false);
+    m_aChannel.close ();
+  }
+
+  @Override
+  public synchronized String toString ()
+  {
+    return new ToStringGenerator (null).append ("File", m_aFile)
+                                       .append ("DocumentCount", getDocumentCount ())
+                                       .append ("LogSize", m_nLogSize)
+                                       .append ("Closed", m_bClosed)
+                                       .getToString ();
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.validate;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonempty;
+import com.helger.base.id.IHasID;
+import com.helger.base.lang.EnumHelper;
+
+/**
+ * Independent groups of rules of the UAE TDD Schematron. All rules use absolute contexts and each
+ * rule belongs to exactly one group, so the groups can be evaluated independently of each other.
+ *
+ * @author Philip Helger
+ */
+public enum EUAETDDRuleGroup implements IHasID <String>
+{
+  /** The TaxData envelope and the ReportedTransaction itself */
+  ENVELOPE ("envelope"),
+  /** Reporting party, receiving party and reporters representative */
+  PARTIES ("parties"),
+  /** The ReportedDocument including its parties and totals */
+  REPORTED_DOCUMENT ("reporteddocument"),
+  /** CustomContent and SourceDocument */
+  SOURCE_DOCUMENT ("sourcedocument");
+
+  private final String m_sID;
+
+  EUAETDDRuleGroup (@NonNull @Nonempty final String sID)
+  {
+    m_sID = sID;
+  }
+
+  @NonNull
+  @Nonempty
+  public String getID ()
+  {
+    return m_sID;
+  }
+
+  /**
+   * Get the group of a Schematron rule.
+   *
+   * @param sContext
+   *        The context of the Schematron rule. May not be <code>null</code>.
+   * @return The group of the rule and never <code>null</code>. Unknown contexts belong to
+   *         {@link #ENVELOPE}.
+   */
+  @NonNull
+  public static EUAETDDRuleGroup getGroupOfRuleContext (@NonNull final String sContext)
+  {
+    if (sContext.contains ("/pxs:ReportedDocument"))
+      return REPORTED_DOCUMENT;
+    if (sContext.contains ("/pxs:CustomContent") || sContext.contains ("/pxs:SourceDocument"))
+      return SOURCE_DOCUMENT;
+    if (sContext.contains ("/pxs:ReportingParty") ||
+        sContext.contains ("/pxs:ReceivingParty") ||
+        sContext.contains ("/pxs:ReportersRepresentative"))
+      return PARTIES;
+    return ENVELOPE;
+  }
+
+  @Nullable
+  public static EUAETDDRuleGroup getFromIDOrNull (@Nullable final String sID)
+  {
+    return EnumHelper.getFromIDOrNull (EUAETDDRuleGroup.class, sID);
+  }
+}
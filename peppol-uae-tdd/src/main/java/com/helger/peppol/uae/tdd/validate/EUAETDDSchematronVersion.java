@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.validate;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonempty;
+import com.helger.base.id.IHasID;
+import com.helger.base.lang.EnumHelper;
+
+/**
+ * All known versions of the UAE TDD Schematron.
+ *
+ * @author Philip Helger
+ */
+@SuppressWarnings ("removal")
+public enum EUAETDDSchematronVersion implements IHasID <String>
+{
+  V100 ("1.0.0", 0, PeppolUAETDDValidator.SCH_UAE_TDD_100_PATH),
+  V101 ("1.0.1", 1, PeppolUAETDDValidator.SCH_UAE_TDD_101_PATH),
+  V102 ("1.0.2", 2, PeppolUAETDDValidator.SCH_UAE_TDD_102_PATH),
+  V103 ("1.0.3", 3, PeppolUAETDDValidator.SCH_UAE_TDD_103_PATH),
+  V104 ("1.0.4", 4, PeppolUAETDDValidator.SCH_UAE_TDD_104_PATH);
+
+  /** The latest version */
+  public static final EUAETDDSchematronVersion LATEST = V104;
+
+  private final String m_sID;
+  private final int m_nCompactID;
+  private final String m_sClassPathPath;
+
+  EUAETDDSchematronVersion (@NonNull @Nonempty final String sID,
+                            final int nCompactID,
+                            @NonNull @Nonempty final String sClassPathPath)
+  {
+    m_sID = sID;
+    m_nCompactID = nCompactID;
+    m_sClassPathPath = sClassPathPath;
+  }
+
+  /**
+   * @return The version number like <code>1.0.4</code>.
+   */
+  @NonNull
+  @Nonempty
+  public String getID ()
+  {
+    return m_sID;
+  }
+
+  /**
+   * @return A stable numeric ID in the range 0-255 that is used for compact binary representations.
+   */
+  public int getCompactID ()
+  {
+    return m_nCompactID;
+  }
+
+  /**
+   * @return The class path of the Schematron file.
+   */
+  @NonNull
+  @Nonempty
+  public String getClassPathPath ()
+  {
+    return m_sClassPathPath;
+  }
+
+  @Nullable
+  public static EUAETDDSchematronVersion getFromIDOrNull (@Nullable final String sID)
+  {
+    return EnumHelper.getFromIDOrNull (EUAETDDSchematronVersion.class, sID);
+  }
+
+  @Nullable
+  public static EUAETDDSchematronVersion getFromCompactIDOrNull (final int nCompactID)
+  {
+    for (final EUAETDDSchematronVersion e : values ())
+      if (e.m_nCompactID == nCompactID)
+        return e;
+    return null;
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.validate;
+
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Callback interface that is invoked for each failed Schematron assertion while the validation is
+ * running. No SVRL document is created when using this interface.
+ *
+ * @author Philip Helger
+ */
+@FunctionalInterface
+public interface IPeppolUAETDDFailedAssertionListener
+{
+  /**
+   * Invoked for every failed assertion and every successful report in document order.
+   *
+   * @param aFailedAssertion
+   *        The failed assertion. Never <code>null</code>.
+   */
+  void onFailedAssertion (@NonNull PeppolUAETDDFailedAssertion aFailedAssertion);
+
+  /**
+   * Invoked for every node matched by a Schematron rule, before the failed assertions of that rule
+   * on that node are reported.
+   *
+   * @param sContext
+   *        The context of the fired rule, as contained in the Schematron. Never <code>null</code>.
+   */
+  default void onFiredRule (@NonNull final String sContext)
+  {}
+}
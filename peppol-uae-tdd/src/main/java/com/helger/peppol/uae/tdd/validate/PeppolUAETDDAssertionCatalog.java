@@ -0,0 +1,357 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.validate;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.exception.InitializationException;
+import com.helger.base.string.StringHelper;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.CommonsHashMap;
+import com.helger.collection.commons.CommonsLinkedHashMap;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.collection.commons.ICommonsMap;
+import com.helger.collection.commons.ICommonsOrderedMap;
+import com.helger.io.resource.ClassPathResource;
+import com.helger.xml.serialize.read.DOMReader;
+
+/**
+ * The catalog of all assertions (and reports) contained in a specific version of the UAE TDD
+ * Schematron. Each assertion ID is assigned a stable index from a fixed table per Schematron
+ * version, so that validation outcomes can be represented as bit sets that may be persisted. The
+ * table is independent of the order of the assertions in the Schematron file, and reading the
+ * catalog fails if the Schematron does not contain exactly the assertions of the table.<br>
+ * The rule contexts are indexed in document order. These indices are only meant for in-memory use.
+ *
+ * @author Philip Helger
+ */
+@Immutable
+public final class PeppolUAETDDAssertionCatalog
+{
+  /** The ISO Schematron namespace URI */
+  public static final String SCHEMATRON_NS = "http://purl.oclc.org/dsdl/schematron";
+
+  // The assertion IDs of 1.0.0 to 1.0.2 in the order of their bit index - never change
+  private static final String [] IDS_100 = { "ibr-tdd-01", "ibr-tdd-02", "ibr-tdd-03", "ibr-tdd-04", "ibr-tdd-05",
+                                             "ibr-tdd-06", "ibr-tdd-07", "ibr-tdd-08", "ibr-tdd-09", "ibr-tdd-10",
+                                             "ibr-tdd-11", "ibr-tdd-12", "ibr-tdd-13", "ibr-tdd-14", "ibr-tdd-15",
+                                             "ibr-tdd-16", "ibr-tdd-17", "ibr-tdd-18", "ibr-tdd-19", "ibr-tdd-20",
+                                             "ibr-tdd-21", "ibr-tdd-22", "ibr-tdd-23", "ibr-tdd-24", "ibr-tdd-25",
+                                             "ibr-tdd-26", "ibr-tdd-27", "ibr-tdd-28", "ibr-tdd-29", "ibr-tdd-30",
+                                             "ibr-tdd-30-1", "ibr-tdd-31", "ibr-tdd-31-1", "ibr-tdd-32", "ibr-tdd-33",
+                                             "ibr-tdd-34", "ibr-tdd-35", "ibr-tdd-36", "ibr-tdd-37", "ibr-tdd-38",
+                                             "ibr-tdd-39", "ibr-tdd-40", "ibr-tdd-41", "ibr-tdd-42", "ibr-tdd-43",
+                                             "ibr-tdd-44", "ibr-tdd-45", "ibr-tdd-46", "ibr-tdd-47", "ibr-tdd-48",
+                                             "ibr-tdd-49", "ibr-tdd-50", "ibr-tdd-51", "ibr-tdd-52", "ibr-tdd-53",
+                                             "ibr-tdd-54", "ibr-tdd-55", "ibr-tdd-56", "ibr-tdd-57" };
+  // The assertion IDs of 1.0.3 and later in the order of their bit index - never change. ibr-tdd-50
+  // was removed in 1.0.3
+  private static final String [] IDS_103 = { "ibr-tdd-01", "ibr-tdd-02", "ibr-tdd-03", "ibr-tdd-04", "ibr-tdd-05",
+                                             "ibr-tdd-06", "ibr-tdd-07", "ibr-tdd-08", "ibr-tdd-09", "ibr-tdd-10",
+                                             "ibr-tdd-11", "ibr-tdd-12", "ibr-tdd-13", "ibr-tdd-14", "ibr-tdd-15",
+                                             "ibr-tdd-16", "ibr-tdd-17", "ibr-tdd-18", "ibr-tdd-19", "ibr-tdd-20",
+                                             "ibr-tdd-21", "ibr-tdd-22", "ibr-tdd-23", "ibr-tdd-24", "ibr-tdd-25",
+                                             "ibr-tdd-26", "ibr-tdd-27", "ibr-tdd-28", "ibr-tdd-29", "ibr-tdd-30",
+                                             "ibr-tdd-30-1", "ibr-tdd-31", "ibr-tdd-31-1", "ibr-tdd-32", "ibr-tdd-33",
+                                             "ibr-tdd-34", "ibr-tdd-35", "ibr-tdd-36", "ibr-tdd-37", "ibr-tdd-38",
+                                             "ibr-tdd-39", "ibr-tdd-40", "ibr-tdd-41", "ibr-tdd-42", "ibr-tdd-43",
+                                             "ibr-tdd-44", "ibr-tdd-45", "ibr-tdd-46", "ibr-tdd-47", "ibr-tdd-48",
+                                             "ibr-tdd-49", "ibr-tdd-51", "ibr-tdd-52", "ibr-tdd-53", "ibr-tdd-54",
+                                             "ibr-tdd-55", "ibr-tdd-56", "ibr-tdd-57" };
+
+  private static final Map <EUAETDDSchematronVersion, PeppolUAETDDAssertionCatalog> CACHE = new EnumMap <> (EUAETDDSchematronVersion.class);
+
+  private final EUAETDDSchematronVersion m_eVersion;
+  private final ICommonsList <String> m_aIDs;
+  private final ICommonsList <String> m_aMessages;
+  private final ICommonsMap <String, Integer> m_aIndexOfID;
+  private final ICommonsList <String> m_aRuleContexts;
+  private final ICommonsMap <String, Integer> m_aIndexOfRuleContext;
+
+  private PeppolUAETDDAssertionCatalog (@NonNull final EUAETDDSchematronVersion eVersion,
+                                        @NonNull final ICommonsList <String> aIDs,
+                                        @NonNull final ICommonsList <String> aMessages,
+                                        @NonNull final ICommonsList <String> aRuleContexts)
+  {
+    m_eVersion = eVersion;
+    m_aIDs = aIDs;
+    m_aMessages = aMessages;
+    m_aIndexOfID = new CommonsHashMap <> (aIDs.size ());
+    for (int i = 0; i < aIDs.size (); ++i)
+      m_aIndexOfID.put (aIDs.get (i), Integer.valueOf (i));
+    m_aRuleContexts = aRuleContexts;
+    m_aIndexOfRuleContext = new CommonsHashMap <> (aRuleContexts.size ());
+    for (int i = 0; i < aRuleContexts.size (); ++i)
+      m_aIndexOfRuleContext.put (aRuleContexts.get (i), Integer.valueOf (i));
+  }
+
+  @NonNull
+  private static String _getMessageTemplate (@NonNull final Element eAssert)
+  {
+    // Dynamic parts are replaced with a "{...}" placeholder
+    final StringBuilder aSB = new StringBuilder ();
+    final NodeList aChildren = eAssert.getChildNodes ();
+    for (int i = 0; i < aChildren.getLength (); ++i)
+    {
+      final Node aChild = aChildren.item (i);
+      if (aChild.getNodeType () == Node.ELEMENT_NODE)
+      {
+        final Element eChild = (Element) aChild;
+        if ("value-of".equals (eChild.getLocalName ()))
+          aSB.append ('{').append (eChild.getAttribute ("select")).append ('}');
+        else
+          if ("name".equals (eChild.getLocalName ()))
+            aSB.append ("{name()}");
+          else
+            aSB.append (eChild.getTextContent ());
+      }
+      else
+        if (aChild.getNodeType () == Node.TEXT_NODE || aChild.getNodeType () == Node.CDATA_SECTION_NODE)
+          aSB.append (aChild.getNodeValue ());
+    }
+    return aSB.toString ().replaceAll ("\\s+", " ").trim ();
+  }
+
+  /**
+   * Get the fixed table of assertion IDs of a Schematron version. The index of an ID in the
+   * returned array is its bit index.
+   *
+   * @param eVersion
+   *        The Schematron version. May not be <code>null</code>.
+   * @return A new array of all assertion IDs. Never <code>null</code>.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  static String [] getFixedAssertionIDs (@NonNull final EUAETDDSchematronVersion eVersion)
+  {
+    switch (eVersion)
+    {
+      case V100:
+      case V101:
+      case V102:
+        return IDS_100.clone ();
+      case V103:
+      case V104:
+        return IDS_103.clone ();
+      default:
+        throw new IllegalArgumentException ("No fixed assertion table for Schematron version " + eVersion);
+    }
+  }
+
+  @NonNull
+  private static PeppolUAETDDAssertionCatalog _readCatalog (@NonNull final EUAETDDSchematronVersion eVersion)
+  {
+    final ClassPathResource aRes = new ClassPathResource (eVersion.getClassPathPath (),
+                                                          PeppolUAETDDAssertionCatalog.class.getClassLoader ());
+    final Document aDoc = DOMReader.readXMLDOM (aRes);
+    if (aDoc == null)
+      throw new InitializationException ("Failed to read Schematron " + aRes.getPath ());
+
+    // Assertion ID to message template, in document order
+    final ICommonsOrderedMap <String, String> aSchematronMessages = new CommonsLinkedHashMap <> ();
+    final ICommonsList <String> aRuleContexts = new CommonsArrayList <> ();
+    // Returned in document order
+    final NodeList aNL = aDoc.getElementsByTagNameNS (SCHEMATRON_NS, "*");
+    for (int i = 0; i < aNL.getLength (); ++i)
+    {
+      final Element eElement = (Element) aNL.item (i);
+      final String sLocalName = eElement.getLocalName ();
+      if ("assert".equals (sLocalName) || "report".equals (sLocalName))
+      {
+        final String sID = eElement.getAttribute ("id");
+        if (StringHelper.isNotEmpty (sID) && !aSchematronMessages.containsKey (sID))
+          aSchematronMessages.put (sID, _getMessageTemplate (eElement));
+      }
+      else
+        if ("rule".equals (sLocalName))
+        {
+          final String sContext = eElement.getAttribute ("context");
+          if (StringHelper.isNotEmpty (sContext) && !aRuleContexts.contains (sContext))
+            aRuleContexts.add (sContext);
+        }
+    }
+
+    // The bit indices come from the fixed table and never from the document order
+    final ICommonsList <String> aIDs = new CommonsArrayList <> (getFixedAssertionIDs (eVersion));
+    final ICommonsList <String> aMessages = new CommonsArrayList <> (aIDs.size ());
+    for (final String sID : aIDs)
+    {
+      final String sMessage = aSchematronMessages.get (sID);
+      if (sMessage == null)
+        throw new InitializationException ("The assertion '" +
+                                           sID +
+                                           "' of the fixed table is missing in Schematron " +
+                                           aRes.getPath ());
+      aMessages.add (sMessage);
+    }
+    final ICommonsList <String> aUnknownIDs = new CommonsArrayList <> ();
+    for (final String sID : aSchematronMessages.keySet ())
+      if (!aIDs.contains (sID))
+        aUnknownIDs.add (sID);
+    if (aUnknownIDs.isNotEmpty ())
+      throw new InitializationException ("Schematron " +
+                                         aRes.getPath () +
+                                         " contains assertions that are not part of the fixed table: " +
+                                         aUnknownIDs);
+    return new PeppolUAETDDAssertionCatalog (eVersion, aIDs, aMessages, aRuleContexts);
+  }
+
+  /**
+   * Get the assertion catalog of the provided Schematron version. The Schematron file is read
+   * lazily upon first access.
+   *
+   * @param eVersion
+   *        The Schematron version. May not be <code>null</code>.
+   * @return The catalog and never <code>null</code>.
+   */
+  @NonNull
+  public static PeppolUAETDDAssertionCatalog getInstance (@NonNull final EUAETDDSchematronVersion eVersion)
+  {
+    ValueEnforcer.notNull (eVersion, "Version");
+
+    synchronized (CACHE)
+    {
+      return CACHE.computeIfAbsent (eVersion, PeppolUAETDDAssertionCatalog::_readCatalog);
+    }
+  }
+
+  /**
+   * @return The Schematron version this catalog belongs to. Never <code>null</code>.
+   */
+  @NonNull
+  public EUAETDDSchematronVersion getVersion ()
+  {
+    return m_eVersion;
+  }
+
+  /**
+   * @return The number of distinct assertion IDs in the Schematron.
+   */
+  @Nonnegative
+  public int getAssertionCount ()
+  {
+    return m_aIDs.size ();
+  }
+
+  /**
+   * @param sID
+   *        The assertion ID to search. May be <code>null</code>.
+   * @return The index of the assertion or -1 if the ID is unknown.
+   */
+  public int getIndexOfID (@Nullable final String sID)
+  {
+    final Integer aIndex = m_aIndexOfID.get (sID);
+    return aIndex == null ? -1 : aIndex.intValue ();
+  }
+
+  /**
+   * @param nIndex
+   *        The assertion index.
+   * @return The assertion ID at the provided index or <code>null</code> if the index is invalid.
+   */
+  @Nullable
+  public String getIDAtIndex (final int nIndex)
+  {
+    return m_aIDs.getAtIndex (nIndex);
+  }
+
+  /**
+   * @param nIndex
+   *        The assertion index.
+   * @return The message template of the assertion at the provided index or <code>null</code> if the
+   *         index is invalid. Dynamic parts of the message are contained as <code>{xpath}</code>.
+   */
+  @Nullable
+  public String getMessageAtIndex (final int nIndex)
+  {
+    return m_aMessages.getAtIndex (nIndex);
+  }
+
+  /**
+   * @param sID
+   *        The assertion ID to search. May be <code>null</code>.
+   * @return The message template of the assertion or <code>null</code> if the ID is unknown.
+   */
+  @Nullable
+  public String getMessageOfID (@Nullable final String sID)
+  {
+    return getMessageAtIndex (getIndexOfID (sID));
+  }
+
+  /**
+   * @return All assertion IDs in the order of their index. Never <code>null</code>.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <String> getAllIDs ()
+  {
+    return m_aIDs.getClone ();
+  }
+
+  /**
+   * @return The number of distinct rule contexts in the Schematron.
+   */
+  @Nonnegative
+  public int getRuleContextCount ()
+  {
+    return m_aRuleContexts.size ();
+  }
+
+  /**
+   * @param sContext
+   *        The rule context to search, as contained in the Schematron. May be <code>null</code>.
+   * @return The index of the rule context or -1 if the context is unknown.
+   */
+  public int getIndexOfRuleContext (@Nullable final String sContext)
+  {
+    final Integer aIndex = m_aIndexOfRuleContext.get (sContext);
+    return aIndex == null ? -1 : aIndex.intValue ();
+  }
+
+  /**
+   * @param nIndex
+   *        The rule context index.
+   * @return The rule context at the provided index or <code>null</code> if the index is invalid.
+   */
+  @Nullable
+  public String getRuleContextAtIndex (final int nIndex)
+  {
+    return m_aRuleContexts.getAtIndex (nIndex);
+  }
+
+  /**
+   * @return All rule contexts in document order. Never <code>null</code>.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <String> getAllRuleContexts ()
+  {
+    return m_aRuleContexts.getClone ();
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.validate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import org.jspecify.annotations.NonNull;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.io.resource.ClassPathResource;
+import com.helger.io.resource.inmemory.ReadableResourceByteArray;
+import com.helger.schematron.ISchematronResource;
+import com.helger.schematron.sch.SchematronResourceSCH;
+import com.helger.xml.serialize.read.DOMReader;
+import com.helger.xml.serialize.write.XMLWriter;
+
+/**
+ * Helper class to create Schematrons that contain only a subset of the rules of a UAE TDD
+ * Schematron version. Namespace declarations, functions and variables are always retained.
+ *
+ * @author Philip Helger
+ */
+@Immutable
+public final class PeppolUAETDDDerivedSchematron
+{
+  private PeppolUAETDDDerivedSchematron ()
+  {}
+
+  /**
+   * Read the Schematron of the provided version as a new DOM document.
+   *
+   * @param eVersion
+   *        The Schematron version. May not be <code>null</code>.
+   * @return The new DOM document and never <code>null</code>.
+   * @throws IllegalStateException
+   *         If the Schematron could not be read
+   */
+  @NonNull
+  public static Document readSchematronDocument (@NonNull final EUAETDDSchematronVersion eVersion)
+  {
+    ValueEnforcer.notNull (eVersion, "Version");
+
+    final ClassPathResource aRes = new ClassPathResource (eVersion.getClassPathPath (),
+                                                          PeppolUAETDDDerivedSchematron.class.getClassLoader ());
+    final Document aDoc = DOMReader.readXMLDOM (aRes);
+    if (aDoc == null)
+      throw new IllegalStateException ("Failed to read Schematron " + aRes.getPath ());
+    return aDoc;
+  }
+
+  /**
+   * Create a new Schematron that only contains the rules matching the provided filter.
+   *
+   * @param eVersion
+   *        The source Schematron version. May not be <code>null</code>.
+   * @param sDerivedID
+   *        The ID of the derived Schematron. It is appended to the path of the source Schematron
+   *        to build a unique resource ID. May neither be <code>null</code> nor empty.
+   * @param aRuleFilter
+   *        The filter to decide which <code>rule</code> elements to retain. May not be
+   *        <code>null</code>.
+   * @return The compiled Schematron and never <code>null</code>.
+   * @throws IllegalStateException
+   *         If the derived Schematron is invalid
+   */
+  @NonNull
+  public static ISchematronResource createDerivedSchematron (@NonNull final EUAETDDSchematronVersion eVersion,
+                                                             @NonNull @Nonempty final String sDerivedID,
+                                                             @NonNull final Predicate <? super Element> aRuleFilter)
+  {
+    ValueEnforcer.notNull (aRuleFilter, "RuleFilter");
+
+    return createModifiedSchematron (eVersion, sDerivedID, aDoc -> {
+      // The NodeList is live, so collect first and remove afterwards
+      final ICommonsList <Element> aRulesToRemove = new CommonsArrayList <> ();
+      final NodeList aRules = aDoc.getElementsByTagNameNS (PeppolUAETDDAssertionCatalog.SCHEMATRON_NS, "rule");
+      for (int i = 0; i < aRules.getLength (); ++i)
+      {
+        final Element eRule = (Element) aRules.item (i);
+        if (!aRuleFilter.test (eRule))
+          aRulesToRemove.add (eRule);
+      }
+      for (final Element eRule : aRulesToRemove)
+        eRule.getParentNode ().removeChild (eRule);
+    });
+  }
+
+  /**
+   * Create a new Schematron from an arbitrarily modified copy of the Schematron of the provided
+   * version.
+   *
+   * @param eVersion
+   *        The source Schematron version. May not be <code>null</code>.
+   * @param sDerivedID
+   *        The ID of the derived Schematron. It is appended to the path of the source Schematron
+   *        to build a unique resource ID. May neither be <code>null</code> nor empty.
+   * @param aModifier
+   *        The modifier that is invoked with a fresh copy of the Schematron DOM. May not be
+   *        <code>null</code>.
+   * @return The compiled Schematron and never <code>null</code>. It is not put into the global
+   *         Schematron cache, so it can be garbage collected once the caller drops it.
+   * @throws IllegalStateException
+   *         If the derived Schematron is invalid
+   */
+  @NonNull
+  public static ISchematronResource createModifiedSchematron (@NonNull final EUAETDDSchematronVersion eVersion,
+                                                              @NonNull @Nonempty final String sDerivedID,
+                                                              @NonNull final Consumer <? super Document> aModifier)
+  {
+    ValueEnforcer.notEmpty (sDerivedID, "DerivedID");
+    ValueEnforcer.notNull (aModifier, "Modifier");
+
+    final Document aDoc = readSchematronDocument (eVersion);
+    aModifier.accept (aDoc);
+
+    final byte [] aBytes = XMLWriter.getNodeAsString (aDoc).getBytes (StandardCharsets.UTF_8);
+    final SchematronResourceSCH ret = new SchematronResourceSCH (new ReadableResourceByteArray (eVersion.getClassPathPath () +
+                                                                                                "#" +
+                                                                                                sDerivedID,
+                                                                                                aBytes));
+    // The caller owns the result, and the same derived ID may be used with different modifiers
+    ret.setUseCache (false);
+    if (!ret.isValidSchematron ())
+      throw new IllegalStateException ("Derived Schematron '" + sDerivedID + "' of " + eVersion.getID () + " is invalid");
+    return ret;
+  }
+}
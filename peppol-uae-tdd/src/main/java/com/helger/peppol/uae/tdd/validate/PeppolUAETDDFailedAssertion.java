@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.validate;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.base.equals.EqualsHelper;
+import com.helger.base.hashcode.HashCodeGenerator;
+import com.helger.base.tostring.ToStringGenerator;
+
+/**
+ * A single failed Schematron assertion (or successful report) as delivered to an
+ * {@link IPeppolUAETDDFailedAssertionListener}. This is a lightweight alternative to the SVRL JAXB
+ * objects.
+ *
+ * @author Philip Helger
+ */
+@Immutable
+public final class PeppolUAETDDFailedAssertion
+{
+  private final String m_sID;
+  private final String m_sFlag;
+  private final String m_sLocation;
+  private final String m_sTest;
+  private final String m_sText;
+
+  public PeppolUAETDDFailedAssertion (@Nullable final String sID,
+                                      @Nullable final String sFlag,
+                                      @Nullable final String sLocation,
+                                      @Nullable final String sTest,
+                                      @Nullable final String sText)
+  {
+    m_sID = sID;
+    m_sFlag = sFlag;
+    m_sLocation = sLocation;
+    m_sTest = sTest;
+    m_sText = sText;
+  }
+
+  /**
+   * @return The assertion ID (like <code>ibr-tdd-01</code>). May be <code>null</code>.
+   */
+  @Nullable
+  public String getID ()
+  {
+    return m_sID;
+  }
+
+  /**
+   * @return The assertion flag (like <code>fatal</code>). May be <code>null</code>.
+   */
+  @Nullable
+  public String getFlag ()
+  {
+    return m_sFlag;
+  }
+
+  /**
+   * @return <code>true</code> if the flag is <code>fatal</code> or <code>error</code>,
+   *         <code>false</code> otherwise.
+   */
+  public boolean isError ()
+  {
+    return "fatal".equalsIgnoreCase (m_sFlag) || "error".equalsIgnoreCase (m_sFlag);
+  }
+
+  /**
+   * @return The XPath location of the node that failed. May be <code>null</code>.
+   */
+  @Nullable
+  public String getLocation ()
+  {
+    return m_sLocation;
+  }
+
+  /**
+   * @return The XPath test expression that failed. May be <code>null</code>.
+   */
+  @Nullable
+  public String getTest ()
+  {
+    return m_sTest;
+  }
+
+  /**
+   * @return The assertion text with normalized whitespaces. May be <code>null</code>.
+   */
+  @Nullable
+  public String getText ()
+  {
+    return m_sText;
+  }
+
+  @Override
+  public boolean equals (final Object o)
+  {
+    if (o == this)
+      return true;
+    if (o == null || !getClass ().equals (o.getClass ()))
+      return false;
+    final PeppolUAETDDFailedAssertion rhs = (PeppolUAETDDFailedAssertion) o;
+    return EqualsHelper.equals (m_sID, rhs.m_sID) &&
+           EqualsHelper.equals (m_sFlag, rhs.m_sFlag) &&
+           EqualsHelper.equals (m_sLocation, rhs.m_sLocation) &&
+           EqualsHelper.equals (m_sTest, rhs.m_sTest) &&
+           EqualsHelper.equals (m_sText, rhs.m_sText);
+  }
+
+  @Override
+  public int hashCode ()
+  {
+    return new HashCodeGenerator (this).append (m_sID)
+                                       .append (m_sFlag)
+                                       .append (m_sLocation)
+                                       .append (m_sTest)
+                                       .append (m_sText)
+                                       .getHashCode ();
+  }
+
+  @Override
+  @NonNull
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("ID", m_sID)
+                                       .append ("Flag", m_sFlag)
+                                       .append ("Location", m_sLocation)
+                                       .append ("Test", m_sTest)
+                                       .append ("Text", m_sText)
+                                       .getToString ();
+  }
+}
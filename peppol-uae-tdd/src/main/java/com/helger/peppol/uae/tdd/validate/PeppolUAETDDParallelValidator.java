@@ -0,0 +1,281 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.validate;
+
+import java.io.InputStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.dom.DOMSource;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.w3c.dom.Document;
+
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.io.resource.IReadableResource;
+import com.helger.schematron.ISchematronResource;
+import com.helger.schematron.xslt.AbstractSchematronXSLTBasedResource;
+import com.helger.schematron.xslt.ISchematronXSLTBasedProvider;
+import com.helger.xml.serialize.read.DOMReader;
+
+import net.sf.saxon.Configuration;
+import net.sf.saxon.jaxp.TransformerImpl;
+import net.sf.saxon.om.NodeInfo;
+import net.sf.saxon.s9api.Processor;
+import net.sf.saxon.s9api.SaxonApiException;
+
+/**
+ * A validator that evaluates the independent rule groups (see {@link EUAETDDRuleGroup}) of a UAE
+ * TDD Schematron version concurrently on a single document. This reduces the latency of the
+ * validation of large documents. The results are merged in the order of the groups, so they are
+ * deterministic.<br>
+ * The document is converted only once into a Saxon TinyTree, which is immutable and can be read by
+ * all rule groups concurrently. A DOM is not safe for concurrent reading, so if the Schematrons are
+ * not executed by Saxon, the rule groups are evaluated one after the other on the calling thread.
+ *
+ * @author Philip Helger
+ */
+@ThreadSafe
+public final class PeppolUAETDDParallelValidator
+{
+  private final EUAETDDSchematronVersion m_eVersion;
+  private final ExecutorService m_aExecutor;
+  private final Map <EUAETDDRuleGroup, ISchematronResource> m_aSchematrons = new EnumMap <> (EUAETDDRuleGroup.class);
+  // The Saxon processor all group Schematrons are executed with, or null
+  private final Processor m_aProcessor;
+
+  /**
+   * Constructor. All rule group Schematrons are compiled in here.
+   *
+   * @param eVersion
+   *        The Schematron version to use. May not be <code>null</code>.
+   * @param aExecutor
+   *        The executor to run the rule groups on. It should provide at least as many threads as
+   *        there are rule groups. It is not shut down by this class. May not be <code>null</code>.
+   */
+  public PeppolUAETDDParallelValidator (@NonNull final EUAETDDSchematronVersion eVersion,
+                                        @NonNull final ExecutorService aExecutor)
+  {
+    ValueEnforcer.notNull (eVersion, "Version");
+    ValueEnforcer.notNull (aExecutor, "Executor");
+
+    m_eVersion = eVersion;
+    m_aExecutor = aExecutor;
+    for (final EUAETDDRuleGroup eGroup : EUAETDDRuleGroup.values ())
+      m_aSchematrons.put (eGroup,
+                          PeppolUAETDDDerivedSchematron.createDerivedSchematron (eVersion,
+                                                                                 eGroup.getID (),
+                                                                                 eRule -> EUAETDDRuleGroup.getGroupOfRuleContext (eRule.getAttribute ("context")) == eGroup));
+    m_aProcessor = _findSharedProcessor (m_aSchematrons.values ());
+  }
+
+  /**
+   * Find the Saxon configuration all provided Schematrons are executed with. Nodes of a TinyTree
+   * can only be used with transformers of the same configuration.
+   */
+  @Nullable
+  private static Processor _findSharedProcessor (@NonNull final Iterable <ISchematronResource> aSchematrons)
+  {
+    Configuration aSharedConfig = null;
+    for (final ISchematronResource aSchematron : aSchematrons)
+    {
+      if (!(aSchematron instanceof AbstractSchematronXSLTBasedResource <?>))
+        return null;
+      final ISchematronXSLTBasedProvider aXSLTProvider = ((AbstractSchematronXSLTBasedResource <?>) aSchematron).getXSLTProvider ();
+      if (aXSLTProvider == null || !aXSLTProvider.isValidSchematron ())
+        return null;
+      final Transformer aTransformer = aXSLTProvider.getXSLTTransformer ();
+      if (!(aTransformer instanceof TransformerImpl))
+        return null;
+
+      final Configuration aConfig = ((TransformerImpl) aTransformer).getUnderlyingXsltTransformer ()
+                                                                     .getUnderlyingController ()
+                                                                     .getConfiguration ();
+      if (aSharedConfig == null)
+        aSharedConfig = aConfig;
+      else
+        if (aSharedConfig != aConfig)
+          return null;
+    }
+    return aSharedConfig == null ? null : new Processor (aSharedConfig);
+  }
+
+  /**
+   * @return The Schematron version used. Never <code>null</code>.
+   */
+  @NonNull
+  public EUAETDDSchematronVersion getVersion ()
+  {
+    return m_eVersion;
+  }
+
+  /**
+   * @param eGroup
+   *        The rule group. May not be <code>null</code>.
+   * @return The Schematron containing only the rules of the provided group. Never
+   *         <code>null</code>.
+   */
+  @NonNull
+  public ISchematronResource getSchematronOfGroup (@NonNull final EUAETDDRuleGroup eGroup)
+  {
+    ValueEnforcer.notNull (eGroup, "Group");
+    return m_aSchematrons.get (eGroup);
+  }
+
+  /**
+   * @return <code>true</code> if the rule groups are evaluated concurrently on a shared TinyTree,
+   *         <code>false</code> if they are evaluated one after the other because the Schematrons
+   *         are not executed by Saxon.
+   */
+  public boolean isConcurrent ()
+  {
+    return m_aProcessor != null;
+  }
+
+  @NonNull
+  private ICommonsList <PeppolUAETDDFailedAssertion> _getAllFailedAssertionsConcurrently (@NonNull final NodeInfo aTree) throws Exception
+  {
+    final EUAETDDRuleGroup [] aGroups = EUAETDDRuleGroup.values ();
+    final ICommonsList <Future <ICommonsList <PeppolUAETDDFailedAssertion>>> aFutures = new CommonsArrayList <> (aGroups.length);
+    for (final EUAETDDRuleGroup eGroup : aGroups)
+    {
+      final ISchematronResource aSchematron = m_aSchematrons.get (eGroup);
+      aFutures.add (m_aExecutor.submit ( () -> {
+        final ICommonsList <PeppolUAETDDFailedAssertion> ret = new CommonsArrayList <> ();
+        // A TinyTree can be read concurrently
+        PeppolUAETDDValidator.validate (aSchematron, aTree, ret::add);
+        return ret;
+      }));
+    }
+
+    final ICommonsList <PeppolUAETDDFailedAssertion> ret = new CommonsArrayList <> ();
+    try
+    {
+      for (final Future <ICommonsList <PeppolUAETDDFailedAssertion>> aFuture : aFutures)
+        ret.addAll (aFuture.get ());
+    }
+    catch (final ExecutionException ex)
+    {
+      // Cancel the remaining tasks
+      for (final Future <?> aFuture : aFutures)
+        aFuture.cancel (true);
+      if (ex.getCause () instanceof Exception)
+        throw (Exception) ex.getCause ();
+      throw ex;
+    }
+    return ret;
+  }
+
+  @NonNull
+  private ICommonsList <PeppolUAETDDFailedAssertion> _getAllFailedAssertionsSequentially (@NonNull final Document aDoc) throws Exception
+  {
+    final ICommonsList <PeppolUAETDDFailedAssertion> ret = new CommonsArrayList <> ();
+    for (final EUAETDDRuleGroup eGroup : EUAETDDRuleGroup.values ())
+      PeppolUAETDDValidator.validate (m_aSchematrons.get (eGroup), aDoc, ret::add);
+    return ret;
+  }
+
+  @NonNull
+  private NodeInfo _buildTree (@NonNull final Source aSource) throws SaxonApiException
+  {
+    // The default tree model of Saxon is the TinyTree
+    return m_aProcessor.newDocumentBuilder ().build (aSource).getUnderlyingNode ();
+  }
+
+  /**
+   * Validate the provided document with all rule groups concurrently.
+   *
+   * @param aDoc
+   *        The TDD document to validate. It is converted to a TinyTree once and is not modified.
+   *        May not be <code>null</code>.
+   * @return A non-<code>null</code> but maybe empty list of all failed assertions. The failed
+   *         assertions are ordered by rule group first and by document order second.
+   * @throws Exception
+   *         In case of an internal Schematron error
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <PeppolUAETDDFailedAssertion> getAllFailedAssertions (@NonNull final Document aDoc) throws Exception
+  {
+    ValueEnforcer.notNull (aDoc, "Document");
+
+    if (m_aProcessor == null)
+      return _getAllFailedAssertionsSequentially (aDoc);
+    return _getAllFailedAssertionsConcurrently (_buildTree (new DOMSource (aDoc)));
+  }
+
+  /**
+   * Read the provided resource and validate it with all rule groups concurrently.
+   *
+   * @param aRes
+   *        The resource to read the TDD from. May not be <code>null</code>.
+   * @return A non-<code>null</code> but maybe empty list of all failed assertions.
+   * @throws Exception
+   *         In case of an internal Schematron error
+   * @throws IllegalArgumentException
+   *         If the resource could not be parsed
+   * @see #getAllFailedAssertions(Document)
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <PeppolUAETDDFailedAssertion> getAllFailedAssertions (@NonNull final IReadableResource aRes) throws Exception
+  {
+    ValueEnforcer.notNull (aRes, "Resource");
+
+    if (m_aProcessor == null)
+    {
+      final Document aDoc = DOMReader.readXMLDOM (aRes);
+      if (aDoc == null)
+        throw new IllegalArgumentException ("Failed to parse '" + aRes.getPath () + "' as XML");
+      return _getAllFailedAssertionsSequentially (aDoc);
+    }
+
+    // Parse directly into the TinyTree, without an intermediate DOM
+    final NodeInfo aTree;
+    try (final InputStream aIS = aRes.getInputStream ())
+    {
+      if (aIS == null)
+        throw new IllegalArgumentException ("Failed to open '" + aRes.getPath () + "' for reading");
+      aTree = _buildTree (PeppolUAETDDValidator.createSecureSource (aIS, aRes.getResourceID ()));
+    }
+    catch (final SaxonApiException ex)
+    {
+      throw new IllegalArgumentException ("Failed to parse '" + aRes.getPath () + "' as XML", ex);
+    }
+    return _getAllFailedAssertionsConcurrently (aTree);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("Version", m_eVersion)
+                                       .append ("Executor", m_aExecutor)
+                                       .append ("Concurrent", isConcurrent ())
+                                       .getToString ();
+  }
+}
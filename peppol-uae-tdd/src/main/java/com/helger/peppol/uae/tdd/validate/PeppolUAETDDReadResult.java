@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.validate;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.diagnostics.error.list.IErrorList;
+import com.helger.peppol.uae.tdd.v100.TaxDataType;
+import com.helger.schematron.svrl.SVRLHelper;
+import com.helger.schematron.svrl.jaxb.SchematronOutputType;
+
+/**
+ * The result of {@link PeppolUAETDDValidator#readAndValidate(com.helger.schematron.ISchematronResource, com.helger.io.resource.IReadableResource)}
+ * containing the XSD errors, the JAXB domain object and the Schematron validation result of a single
+ * parsing run.
+ *
+ * @author Philip Helger
+ */
+@Immutable
+public final class PeppolUAETDDReadResult
+{
+  private final IErrorList m_aXSDErrors;
+  private final TaxDataType m_aTaxData;
+  private final SchematronOutputType m_aSVRL;
+
+  public PeppolUAETDDReadResult (@NonNull final IErrorList aXSDErrors,
+                                 @Nullable final TaxDataType aTaxData,
+                                 @Nullable final SchematronOutputType aSVRL)
+  {
+    ValueEnforcer.notNull (aXSDErrors, "XSDErrors");
+    m_aXSDErrors = aXSDErrors;
+    m_aTaxData = aTaxData;
+    m_aSVRL = aSVRL;
+  }
+
+  /**
+   * @return All errors and warnings that occurred while parsing and XSD validating the document.
+   *         Never <code>null</code> but maybe empty.
+   */
+  @NonNull
+  public IErrorList getXSDErrors ()
+  {
+    return m_aXSDErrors;
+  }
+
+  /**
+   * @return <code>true</code> if the document could be parsed and is XSD compliant.
+   */
+  public boolean isXSDValid ()
+  {
+    return m_aTaxData != null && !m_aXSDErrors.containsAtLeastOneError ();
+  }
+
+  /**
+   * @return The JAXB domain object of the TDD. Is <code>null</code> if the document could not be
+   *         parsed or is not XSD compliant.
+   */
+  @Nullable
+  public TaxDataType getTaxData ()
+  {
+    return m_aTaxData;
+  }
+
+  /**
+   * @return The Schematron validation result. Is <code>null</code> if the document could not be
+   *         parsed or is not XSD compliant.
+   */
+  @Nullable
+  public SchematronOutputType getSVRL ()
+  {
+    return m_aSVRL;
+  }
+
+  /**
+   * @return <code>true</code> if the document is XSD compliant and no Schematron assertion failed.
+   */
+  public boolean isValid ()
+  {
+    return isXSDValid () && m_aSVRL != null && SVRLHelper.getAllFailedAssertions (m_aSVRL).isEmpty ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("XSDErrors", m_aXSDErrors)
+                                       .append ("TaxData", m_aTaxData)
+                                       .append ("SVRL", m_aSVRL)
+                                       .getToString ();
+  }
+}
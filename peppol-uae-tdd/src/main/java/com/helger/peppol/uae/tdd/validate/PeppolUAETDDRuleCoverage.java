@@ -0,0 +1,269 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.validate;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.w3c.dom.Node;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.CommonsLinkedHashMap;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.collection.commons.ICommonsOrderedMap;
+import com.helger.io.resource.IReadableResource;
+
+/**
+ * Aggregates over many validations of the same Schematron version how often each rule context
+ * fired and how often each assertion failed. All counters are lock-free {@link LongAdder} objects,
+ * so that a single instance can be shared by all concurrently running validations, e.g. to observe
+ * the rule coverage of the production traffic.<br>
+ * Rule contexts are counted once per matched node, assertions once per failure. Unknown rule
+ * contexts and assertion IDs are counted separately.
+ *
+ * @author Philip Helger
+ */
+@ThreadSafe
+public final class PeppolUAETDDRuleCoverage implements IPeppolUAETDDFailedAssertionListener
+{
+  private final PeppolUAETDDAssertionCatalog m_aCatalog;
+  // One more for "unknown"
+  private final LongAdder [] m_aFiredCounts;
+  // One more for "unknown"
+  private final LongAdder [] m_aFailureCounts;
+  private final LongAdder m_aDocumentCount = new LongAdder ();
+
+  public PeppolUAETDDRuleCoverage (@NonNull final EUAETDDSchematronVersion eVersion)
+  {
+    m_aCatalog = PeppolUAETDDAssertionCatalog.getInstance (eVersion);
+    m_aFiredCounts = _createCounters (m_aCatalog.getRuleContextCount () + 1);
+    m_aFailureCounts = _createCounters (m_aCatalog.getAssertionCount () + 1);
+  }
+
+  @NonNull
+  private static LongAdder [] _createCounters (final int nCount)
+  {
+    final LongAdder [] ret = new LongAdder [nCount];
+    for (int i = 0; i < nCount; ++i)
+      ret[i] = new LongAdder ();
+    return ret;
+  }
+
+  /**
+   * @return The Schematron version of this coverage. Never <code>null</code>.
+   */
+  @NonNull
+  public EUAETDDSchematronVersion getVersion ()
+  {
+    return m_aCatalog.getVersion ();
+  }
+
+  public void onFiredRule (@NonNull final String sContext)
+  {
+    final int nIndex = m_aCatalog.getIndexOfRuleContext (sContext);
+    m_aFiredCounts[nIndex >= 0 ? nIndex : m_aCatalog.getRuleContextCount ()].increment ();
+  }
+
+  public void onFailedAssertion (@NonNull final PeppolUAETDDFailedAssertion aFailedAssertion)
+  {
+    final int nIndex = m_aCatalog.getIndexOfID (aFailedAssertion.getID ());
+    m_aFailureCounts[nIndex >= 0 ? nIndex : m_aCatalog.getAssertionCount ()].increment ();
+  }
+
+  /**
+   * Count a validated document. This is only needed if this object is used as a listener directly
+   * and is done automatically by the <code>validate</code> methods of this class.
+   */
+  public void onDocumentValidated ()
+  {
+    m_aDocumentCount.increment ();
+  }
+
+  /**
+   * Validate a single document with the Schematron of this coverage and count the results.
+   *
+   * @param aNode
+   *        The TDD DOM node to validate. May not be <code>null</code>.
+   * @return The number of failed assertions. 0 means the document is valid.
+   * @throws Exception
+   *         In case of an internal Schematron error
+   * @see PeppolUAETDDValidator#validate(com.helger.schematron.ISchematronResource, Node,
+   *      IPeppolUAETDDFailedAssertionListener)
+   */
+  public int validate (@NonNull final Node aNode) throws Exception
+  {
+    final int ret = PeppolUAETDDValidator.validate (PeppolUAETDDValidator.getSchematron (getVersion ()),
+                                                    aNode,
+                                                    this);
+    onDocumentValidated ();
+    return ret;
+  }
+
+  /**
+   * Validate a single document with the Schematron of this coverage and count the results.
+   *
+   * @param aRes
+   *        The TDD resource to validate. May not be <code>null</code>.
+   * @return The number of failed assertions. 0 means the document is valid.
+   * @throws Exception
+   *         In case of an internal Schematron error
+   * @see PeppolUAETDDValidator#validate(com.helger.schematron.ISchematronResource, IReadableResource,
+   *      IPeppolUAETDDFailedAssertionListener)
+   */
+  public int validate (@NonNull final IReadableResource aRes) throws Exception
+  {
+    final int ret = PeppolUAETDDValidator.validate (PeppolUAETDDValidator.getSchematron (getVersion ()),
+                                                    aRes,
+                                                    this);
+    onDocumentValidated ();
+    return ret;
+  }
+
+  /**
+   * @return The number of validated documents.
+   */
+  @Nonnegative
+  public long getDocumentCount ()
+  {
+    return m_aDocumentCount.sum ();
+  }
+
+  /**
+   * @param sContext
+   *        The rule context to query. May be <code>null</code>.
+   * @return The number of nodes the provided rule fired on. 0 for unknown rule contexts.
+   */
+  @Nonnegative
+  public long getFiredCount (@Nullable final String sContext)
+  {
+    final int nIndex = m_aCatalog.getIndexOfRuleContext (sContext);
+    return nIndex < 0 ? 0 : m_aFiredCounts[nIndex].sum ();
+  }
+
+  /**
+   * @return The number of fired rules with a context that is not part of the Schematron version.
+   */
+  @Nonnegative
+  public long getUnknownFiredCount ()
+  {
+    return m_aFiredCounts[m_aCatalog.getRuleContextCount ()].sum ();
+  }
+
+  /**
+   * @param sID
+   *        The assertion ID to query. May be <code>null</code>.
+   * @return The number of times the provided assertion failed. 0 for unknown IDs.
+   */
+  @Nonnegative
+  public long getFailureCount (@Nullable final String sID)
+  {
+    final int nIndex = m_aCatalog.getIndexOfID (sID);
+    return nIndex < 0 ? 0 : m_aFailureCounts[nIndex].sum ();
+  }
+
+  /**
+   * @return The number of failed assertions with an ID that is not part of the Schematron version.
+   */
+  @Nonnegative
+  public long getUnknownFailureCount ()
+  {
+    return m_aFailureCounts[m_aCatalog.getAssertionCount ()].sum ();
+  }
+
+  /**
+   * @return A map from rule context to fired count for all rules of the Schematron version, in
+   *         Schematron order. Never <code>null</code>.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsOrderedMap <String, Long> getAllFiredCounts ()
+  {
+    final ICommonsOrderedMap <String, Long> ret = new CommonsLinkedHashMap <> ();
+    for (int i = 0; i < m_aCatalog.getRuleContextCount (); ++i)
+      ret.put (m_aCatalog.getRuleContextAtIndex (i), Long.valueOf (m_aFiredCounts[i].sum ()));
+    return ret;
+  }
+
+  /**
+   * @return A map from assertion ID to failure count for all assertions of the Schematron version,
+   *         in Schematron order. Never <code>null</code>.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsOrderedMap <String, Long> getAllFailureCounts ()
+  {
+    final ICommonsOrderedMap <String, Long> ret = new CommonsLinkedHashMap <> ();
+    for (int i = 0; i < m_aCatalog.getAssertionCount (); ++i)
+      ret.put (m_aCatalog.getIDAtIndex (i), Long.valueOf (m_aFailureCounts[i].sum ()));
+    return ret;
+  }
+
+  /**
+   * @return All rule contexts that never fired, in Schematron order. Never <code>null</code>.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <String> getAllNeverFiredRuleContexts ()
+  {
+    final ICommonsList <String> ret = new CommonsArrayList <> ();
+    for (int i = 0; i < m_aCatalog.getRuleContextCount (); ++i)
+      if (m_aFiredCounts[i].sum () == 0)
+        ret.add (m_aCatalog.getRuleContextAtIndex (i));
+    return ret;
+  }
+
+  /**
+   * @return All assertion IDs that never failed, in Schematron order. Never <code>null</code>.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <String> getAllNeverFailedAssertionIDs ()
+  {
+    final ICommonsList <String> ret = new CommonsArrayList <> ();
+    for (int i = 0; i < m_aCatalog.getAssertionCount (); ++i)
+      if (m_aFailureCounts[i].sum () == 0)
+        ret.add (m_aCatalog.getIDAtIndex (i));
+    return ret;
+  }
+
+  /**
+   * Reset all counters. Validations running concurrently may be partially counted.
+   */
+  public void reset ()
+  {
+    for (final LongAdder aCounter : m_aFiredCounts)
+      aCounter.reset ();
+    for (final LongAdder aCounter : m_aFailureCounts)
+      aCounter.reset ();
+    m_aDocumentCount.reset ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("Version", getVersion ())
+                                       .append ("DocumentCount", getDocumentCount ())
+                                       .append ("FiredCounts", getAllFiredCounts ())
+                                       .append ("FailureCounts", getAllFailureCounts ())
+                                       .getToString ();
+  }
+}
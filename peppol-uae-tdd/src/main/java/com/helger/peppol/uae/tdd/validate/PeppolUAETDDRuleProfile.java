@@ -0,0 +1,284 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.validate;
+
+import java.util.Comparator;
+import java.util.Locale;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+
+/**
+ * The result of a {@link PeppolUAETDDRuleProfiler} run. All costs are the average number of
+ * nanoseconds per validated document, after subtracting the baseline cost of a Schematron without
+ * any effective rule.
+ *
+ * @author Philip Helger
+ */
+@Immutable
+public final class PeppolUAETDDRuleProfile
+{
+  /**
+   * The type of a profile entry.
+   *
+   * @author Philip Helger
+   */
+  public enum EEntryType
+  {
+    /** A complete rule with all its assertions */
+    RULE,
+    /** Only the context of a rule, with a constant assertion */
+    CONTEXT,
+    /** A single assertion, excluding the cost of the rule context */
+    ASSERTION
+  }
+
+  /**
+   * A single profile entry.
+   *
+   * @author Philip Helger
+   */
+  @Immutable
+  public static final class Entry
+  {
+    private final EEntryType m_eType;
+    private final int m_nRuleIndex;
+    private final String m_sContext;
+    private final String m_sAssertionID;
+    private final long m_nNanosPerDocument;
+
+    Entry (@NonNull final EEntryType eType,
+           @Nonnegative final int nRuleIndex,
+           @NonNull final String sContext,
+           @Nullable final String sAssertionID,
+           @Nonnegative final long nNanosPerDocument)
+    {
+      m_eType = eType;
+      m_nRuleIndex = nRuleIndex;
+      m_sContext = sContext;
+      m_sAssertionID = sAssertionID;
+      m_nNanosPerDocument = nNanosPerDocument;
+    }
+
+    @NonNull
+    public EEntryType getType ()
+    {
+      return m_eType;
+    }
+
+    /**
+     * @return The 0-based index of the rule in Schematron document order.
+     */
+    @Nonnegative
+    public int getRuleIndex ()
+    {
+      return m_nRuleIndex;
+    }
+
+    /**
+     * @return The context of the rule. Never <code>null</code>.
+     */
+    @NonNull
+    public String getContext ()
+    {
+      return m_sContext;
+    }
+
+    /**
+     * @return The ID of the assertion for entries of type {@link EEntryType#ASSERTION},
+     *         <code>null</code> otherwise.
+     */
+    @Nullable
+    public String getAssertionID ()
+    {
+      return m_sAssertionID;
+    }
+
+    /**
+     * @return The average cost in nanoseconds per document.
+     */
+    @Nonnegative
+    public long getNanosPerDocument ()
+    {
+      return m_nNanosPerDocument;
+    }
+
+    @Override
+    public String toString ()
+    {
+      return new ToStringGenerator (null).append ("Type", m_eType)
+                                         .append ("RuleIndex", m_nRuleIndex)
+                                         .append ("Context", m_sContext)
+                                         .appendIfNotNull ("AssertionID", m_sAssertionID)
+                                         .append ("NanosPerDocument", m_nNanosPerDocument)
+                                         .getToString ();
+    }
+  }
+
+  private final EUAETDDSchematronVersion m_eVersion;
+  private final int m_nDocumentCount;
+  private final int m_nIterations;
+  private final long m_nBaselineNanosPerDocument;
+  private final ICommonsList <Entry> m_aEntries;
+
+  PeppolUAETDDRuleProfile (@NonNull final EUAETDDSchematronVersion eVersion,
+                           @Nonnegative final int nDocumentCount,
+                           @Nonnegative final int nIterations,
+                           @Nonnegative final long nBaselineNanosPerDocument,
+                           @NonNull final ICommonsList <Entry> aEntries)
+  {
+    ValueEnforcer.notNull (eVersion, "Version");
+    ValueEnforcer.notNull (aEntries, "Entries");
+    m_eVersion = eVersion;
+    m_nDocumentCount = nDocumentCount;
+    m_nIterations = nIterations;
+    m_nBaselineNanosPerDocument = nBaselineNanosPerDocument;
+    m_aEntries = aEntries;
+  }
+
+  /**
+   * @return The profiled Schematron version. Never <code>null</code>.
+   */
+  @NonNull
+  public EUAETDDSchematronVersion getVersion ()
+  {
+    return m_eVersion;
+  }
+
+  /**
+   * @return The number of documents in the corpus.
+   */
+  @Nonnegative
+  public int getDocumentCount ()
+  {
+    return m_nDocumentCount;
+  }
+
+  /**
+   * @return The number of measured iterations over the corpus.
+   */
+  @Nonnegative
+  public int getIterations ()
+  {
+    return m_nIterations;
+  }
+
+  /**
+   * @return The average cost of a Schematron without any effective rule in nanoseconds per
+   *         document. This is the fixed overhead of the Schematron engine and is already subtracted
+   *         from all entries.
+   */
+  @Nonnegative
+  public long getBaselineNanosPerDocument ()
+  {
+    return m_nBaselineNanosPerDocument;
+  }
+
+  /**
+   * @param eType
+   *        The entry type to filter. May be <code>null</code> to get all entries.
+   * @return All matching entries in Schematron order. Never <code>null</code>.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <Entry> getAllEntries (@Nullable final EEntryType eType)
+  {
+    return m_aEntries.getAll (x -> eType == null || x.getType () == eType);
+  }
+
+  /**
+   * @param eType
+   *        The entry type to filter. May not be <code>null</code>.
+   * @return All matching entries, the most expensive first. Never <code>null</code>.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <Entry> getAllEntriesRanked (@NonNull final EEntryType eType)
+  {
+    ValueEnforcer.notNull (eType, "Type");
+    final ICommonsList <Entry> ret = getAllEntries (eType);
+    ret.sort (Comparator.comparingLong (Entry::getNanosPerDocument).reversed ());
+    return ret;
+  }
+
+  private static void _appendSection (@NonNull final StringBuilder aSB,
+                                      @NonNull final String sTitle,
+                                      @NonNull final ICommonsList <Entry> aEntries)
+  {
+    long nTotal = 0;
+    for (final Entry aEntry : aEntries)
+      nTotal += aEntry.getNanosPerDocument ();
+
+    aSB.append ('\n').append (sTitle).append ('\n');
+    aSB.append (String.format (Locale.ROOT, "%4s %12s %6s  %-12s %s%n", "Rank", "us/document", "%", "ID", "Context"));
+    int nRank = 1;
+    for (final Entry aEntry : aEntries)
+    {
+      aSB.append (String.format (Locale.ROOT,
+                                 "%4d %12.1f %6.1f  %-12s %s%n",
+                                 Integer.valueOf (nRank++),
+                                 Double.valueOf (aEntry.getNanosPerDocument () / 1_000d),
+                                 Double.valueOf (nTotal == 0 ? 0 : aEntry.getNanosPerDocument () * 100d / nTotal),
+                                 aEntry.getAssertionID () == null ? "-" : aEntry.getAssertionID (),
+                                 aEntry.getContext ()));
+    }
+  }
+
+  /**
+   * @return A human readable report with the rules and assertions ranked by their cost. Never
+   *         <code>null</code>.
+   */
+  @NonNull
+  public String getAsReport ()
+  {
+    final StringBuilder aSB = new StringBuilder ();
+    aSB.append ("Schematron ")
+       .append (m_eVersion.getID ())
+       .append (": ")
+       .append (m_nDocumentCount)
+       .append (" document(s), ")
+       .append (m_nIterations)
+       .append (" iteration(s), baseline ")
+       .append (String.format (Locale.ROOT, "%.1f", Double.valueOf (m_nBaselineNanosPerDocument / 1_000d)))
+       .append (" us/document\n");
+    _appendSection (aSB, "Rules", getAllEntriesRanked (EEntryType.RULE));
+    if (m_aEntries.containsAny (x -> x.getType () == EEntryType.CONTEXT))
+      _appendSection (aSB, "Rule contexts", getAllEntriesRanked (EEntryType.CONTEXT));
+    if (m_aEntries.containsAny (x -> x.getType () == EEntryType.ASSERTION))
+      _appendSection (aSB, "Assertions", getAllEntriesRanked (EEntryType.ASSERTION));
+    return aSB.toString ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("Version", m_eVersion)
+                                       .append ("DocumentCount", m_nDocumentCount)
+                                       .append ("Iterations", m_nIterations)
+                                       .append ("BaselineNanosPerDocument", m_nBaselineNanosPerDocument)
+                                       .append ("Entries", m_aEntries)
+                                       .getToString ();
+  }
+}
@@ -0,0 +1,378 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.validate;
+
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.NotThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.io.resource.IReadableResource;
+import com.helger.peppol.uae.tdd.validate.PeppolUAETDDRuleProfile.EEntryType;
+import com.helger.schematron.ISchematronResource;
+import com.helger.xml.serialize.read.DOMReader;
+
+/**
+ * Measures the cost of each rule context and each assertion of a UAE TDD Schematron version across
+ * a corpus of TDDs. For every rule (and optionally every assertion) a Schematron containing only
+ * that part is derived via {@link PeppolUAETDDDerivedSchematron} and timed separately. The cost of
+ * a Schematron without any effective rule is measured as the baseline and subtracted from all
+ * results:
+ * <ul>
+ * <li>{@link EEntryType#RULE}: the rule with all its assertions</li>
+ * <li>{@link EEntryType#CONTEXT}: the rule with all assertions replaced by a constant one</li>
+ * <li>{@link EEntryType#ASSERTION}: the rule with only that assertion, minus the context cost</li>
+ * </ul>
+ * Rule variables are only evaluated when an assertion uses them, so their cost is attributed to
+ * the assertions using them. The minimum time of all iterations is used, to reduce the noise of GC
+ * and JIT. As each variant needs to be compiled, this is meant for offline analysis only.
+ *
+ * @author Philip Helger
+ */
+@NotThreadSafe
+public final class PeppolUAETDDRuleProfiler
+{
+  public static final int DEFAULT_WARMUP_ITERATIONS = 2;
+  public static final int DEFAULT_ITERATIONS = 5;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (PeppolUAETDDRuleProfiler.class);
+  private static final IPeppolUAETDDFailedAssertionListener NO_OP_LISTENER = x -> {};
+  private static final String NO_MATCH_CONTEXT = "/ph-profiler-no-match";
+
+  private final EUAETDDSchematronVersion m_eVersion;
+  private int m_nWarmupIterations = DEFAULT_WARMUP_ITERATIONS;
+  private int m_nIterations = DEFAULT_ITERATIONS;
+  private boolean m_bIncludeAssertions = true;
+  private Predicate <? super String> m_aRuleContextFilter;
+
+  public PeppolUAETDDRuleProfiler (@NonNull final EUAETDDSchematronVersion eVersion)
+  {
+    ValueEnforcer.notNull (eVersion, "Version");
+    m_eVersion = eVersion;
+  }
+
+  @NonNull
+  public EUAETDDSchematronVersion getVersion ()
+  {
+    return m_eVersion;
+  }
+
+  @Nonnegative
+  public int getWarmupIterations ()
+  {
+    return m_nWarmupIterations;
+  }
+
+  /**
+   * @param nWarmupIterations
+   *        The number of iterations over the corpus per variant that are not measured. Must be
+   *        &ge; 0.
+   * @return this for chaining
+   */
+  @NonNull
+  public PeppolUAETDDRuleProfiler setWarmupIterations (@Nonnegative final int nWarmupIterations)
+  {
+    ValueEnforcer.isGE0 (nWarmupIterations, "WarmupIterations");
+    m_nWarmupIterations = nWarmupIterations;
+    return this;
+  }
+
+  @Nonnegative
+  public int getIterations ()
+  {
+    return m_nIterations;
+  }
+
+  /**
+   * @param nIterations
+   *        The number of measured iterations over the corpus per variant. Must be &gt; 0.
+   * @return this for chaining
+   */
+  @NonNull
+  public PeppolUAETDDRuleProfiler setIterations (@Nonnegative final int nIterations)
+  {
+    ValueEnforcer.isGT0 (nIterations, "Iterations");
+    m_nIterations = nIterations;
+    return this;
+  }
+
+  public boolean isIncludeAssertions ()
+  {
+    return m_bIncludeAssertions;
+  }
+
+  /**
+   * @param bIncludeAssertions
+   *        <code>true</code> to also measure each rule context and each assertion separately,
+   *        <code>false</code> to only measure complete rules.
+   * @return this for chaining
+   */
+  @NonNull
+  public PeppolUAETDDRuleProfiler setIncludeAssertions (final boolean bIncludeAssertions)
+  {
+    m_bIncludeAssertions = bIncludeAssertions;
+    return this;
+  }
+
+  @Nullable
+  public Predicate <? super String> getRuleContextFilter ()
+  {
+    return m_aRuleContextFilter;
+  }
+
+  /**
+   * @param aRuleContextFilter
+   *        An optional filter on the rule context, to only profile some rules. May be
+   *        <code>null</code> to profile all rules.
+   * @return this for chaining
+   */
+  @NonNull
+  public PeppolUAETDDRuleProfiler setRuleContextFilter (@Nullable final Predicate <? super String> aRuleContextFilter)
+  {
+    m_aRuleContextFilter = aRuleContextFilter;
+    return this;
+  }
+
+  @NonNull
+  private static ICommonsList <Element> _getAllChildElements (@NonNull final Element eParent,
+                                                              @NonNull final String sLocalName)
+  {
+    final ICommonsList <Element> ret = new CommonsArrayList <> ();
+    for (Node aChild = eParent.getFirstChild (); aChild != null; aChild = aChild.getNextSibling ())
+      if (aChild.getNodeType () == Node.ELEMENT_NODE &&
+          PeppolUAETDDAssertionCatalog.SCHEMATRON_NS.equals (aChild.getNamespaceURI ()) &&
+          sLocalName.equals (aChild.getLocalName ()))
+        ret.add ((Element) aChild);
+    return ret;
+  }
+
+  @NonNull
+  private static ICommonsList <Element> _getAllAssertsAndReports (@NonNull final Element eRule)
+  {
+    final ICommonsList <Element> ret = new CommonsArrayList <> ();
+    for (Node aChild = eRule.getFirstChild (); aChild != null; aChild = aChild.getNextSibling ())
+      if (aChild.getNodeType () == Node.ELEMENT_NODE &&
+          PeppolUAETDDAssertionCatalog.SCHEMATRON_NS.equals (aChild.getNamespaceURI ()) &&
+          ("assert".equals (aChild.getLocalName ()) || "report".equals (aChild.getLocalName ())))
+        ret.add ((Element) aChild);
+    return ret;
+  }
+
+  @NonNull
+  private static ICommonsList <Element> _getAllRules (@NonNull final Document aDoc)
+  {
+    final ICommonsList <Element> ret = new CommonsArrayList <> ();
+    final NodeList aNL = aDoc.getElementsByTagNameNS (PeppolUAETDDAssertionCatalog.SCHEMATRON_NS, "rule");
+    for (int i = 0; i < aNL.getLength (); ++i)
+      ret.add ((Element) aNL.item (i));
+    return ret;
+  }
+
+  @NonNull
+  private static Element _createConstantAssert (@NonNull final Document aDoc)
+  {
+    final Element ret = aDoc.createElementNS (PeppolUAETDDAssertionCatalog.SCHEMATRON_NS, "assert");
+    ret.setAttribute ("id", "ph-profiler-constant");
+    ret.setAttribute ("test", "true()");
+    ret.setTextContent ("Always true");
+    return ret;
+  }
+
+  /**
+   * Remove all rules except the one with the provided index.
+   */
+  private static void _retainOnlyRule (@NonNull final Document aDoc, final int nRuleIndex)
+  {
+    final ICommonsList <Element> aRules = _getAllRules (aDoc);
+    for (int i = 0; i < aRules.size (); ++i)
+      if (i != nRuleIndex)
+      {
+        final Element eRule = aRules.get (i);
+        eRule.getParentNode ().removeChild (eRule);
+      }
+  }
+
+  private static void _modifyBaseline (@NonNull final Document aDoc)
+  {
+    // Keep the patterns, so that pattern variables are still declared
+    _retainOnlyRule (aDoc, -1);
+    final Element ePattern = (Element) aDoc.getElementsByTagNameNS (PeppolUAETDDAssertionCatalog.SCHEMATRON_NS,
+                                                                    "pattern")
+                                           .item (0);
+    final Element eRule = aDoc.createElementNS (PeppolUAETDDAssertionCatalog.SCHEMATRON_NS, "rule");
+    eRule.setAttribute ("context", NO_MATCH_CONTEXT);
+    eRule.appendChild (_createConstantAssert (aDoc));
+    ePattern.appendChild (eRule);
+  }
+
+  private static void _modifyContextOnly (@NonNull final Document aDoc, final int nRuleIndex)
+  {
+    _retainOnlyRule (aDoc, nRuleIndex);
+    final Element eRule = _getAllRules (aDoc).getFirstOrNull ();
+    for (final Element eAssert : _getAllAssertsAndReports (eRule))
+      eRule.removeChild (eAssert);
+    eRule.appendChild (_createConstantAssert (aDoc));
+  }
+
+  private static void _modifySingleAssertion (@NonNull final Document aDoc,
+                                              final int nRuleIndex,
+                                              final int nAssertIndex)
+  {
+    _retainOnlyRule (aDoc, nRuleIndex);
+    final Element eRule = _getAllRules (aDoc).getFirstOrNull ();
+    final ICommonsList <Element> aAsserts = _getAllAssertsAndReports (eRule);
+    for (int i = 0; i < aAsserts.size (); ++i)
+      if (i != nAssertIndex)
+        eRule.removeChild (aAsserts.get (i));
+  }
+
+  @Nonnegative
+  private long _measure (@NonNull final ISchematronResource aSch,
+                         @NonNull final ICommonsList <? extends Node> aDocs) throws Exception
+  {
+    for (int i = 0; i < m_nWarmupIterations; ++i)
+      for (final Node aDoc : aDocs)
+        PeppolUAETDDValidator.validate (aSch, aDoc, NO_OP_LISTENER);
+
+    long nMin = Long.MAX_VALUE;
+    for (int i = 0; i < m_nIterations; ++i)
+    {
+      final long nStart = System.nanoTime ();
+      for (final Node aDoc : aDocs)
+        PeppolUAETDDValidator.validate (aSch, aDoc, NO_OP_LISTENER);
+      nMin = Math.min (nMin, System.nanoTime () - nStart);
+    }
+    return nMin / aDocs.size ();
+  }
+
+  @Nonnegative
+  private long _measure (@NonNull final String sDerivedID,
+                         @NonNull final Consumer <? super Document> aModifier,
+                         @NonNull final ICommonsList <? extends Node> aDocs) throws Exception
+  {
+    final ISchematronResource aSch = PeppolUAETDDDerivedSchematron.createModifiedSchematron (m_eVersion,
+                                                                                             "profile-" + sDerivedID,
+                                                                                             aModifier);
+    return _measure (aSch, aDocs);
+  }
+
+  /**
+   * Profile the Schematron on the provided corpus.
+   *
+   * @param aDocuments
+   *        The TDD documents to validate. They are validated as is and should therefore be
+   *        {@link Document} nodes. May neither be <code>null</code> nor empty.
+   * @return The profile and never <code>null</code>.
+   * @throws Exception
+   *         In case of an internal Schematron error
+   */
+  @NonNull
+  public PeppolUAETDDRuleProfile profile (@NonNull final Iterable <? extends Node> aDocuments) throws Exception
+  {
+    ValueEnforcer.notNull (aDocuments, "Documents");
+    final ICommonsList <Node> aDocs = new CommonsArrayList <> (aDocuments);
+    ValueEnforcer.notEmpty (aDocs, "Documents");
+
+    final long nBaseline = _measure ("baseline", PeppolUAETDDRuleProfiler::_modifyBaseline, aDocs);
+    LOGGER.info ("Baseline of Schematron " + m_eVersion.getID () + " is " + nBaseline + " ns/document");
+
+    final ICommonsList <PeppolUAETDDRuleProfile.Entry> aEntries = new CommonsArrayList <> ();
+    final ICommonsList <Element> aRules = _getAllRules (PeppolUAETDDDerivedSchematron.readSchematronDocument (m_eVersion));
+    for (int nRuleIndex = 0; nRuleIndex < aRules.size (); ++nRuleIndex)
+    {
+      final Element eRule = aRules.get (nRuleIndex);
+      final String sContext = eRule.getAttribute ("context");
+      if (m_aRuleContextFilter != null && !m_aRuleContextFilter.test (sContext))
+        continue;
+
+      final int nFinalRuleIndex = nRuleIndex;
+      final long nRule = _measure ("rule-" + nRuleIndex, aDoc -> _retainOnlyRule (aDoc, nFinalRuleIndex), aDocs);
+      aEntries.add (new PeppolUAETDDRuleProfile.Entry (EEntryType.RULE,
+                                                       nRuleIndex,
+                                                       sContext,
+                                                       null,
+                                                       Math.max (0, nRule - nBaseline)));
+      if (m_bIncludeAssertions)
+      {
+        final long nContext = _measure ("context-" + nRuleIndex,
+                                        aDoc -> _modifyContextOnly (aDoc, nFinalRuleIndex),
+                                        aDocs);
+        aEntries.add (new PeppolUAETDDRuleProfile.Entry (EEntryType.CONTEXT,
+                                                         nRuleIndex,
+                                                         sContext,
+                                                         null,
+                                                         Math.max (0, nContext - nBaseline)));
+
+        final ICommonsList <Element> aAsserts = _getAllAssertsAndReports (eRule);
+        for (int nAssertIndex = 0; nAssertIndex < aAsserts.size (); ++nAssertIndex)
+        {
+          final int nFinalAssertIndex = nAssertIndex;
+          final long nAssert = _measure ("assert-" + nRuleIndex + "-" + nAssertIndex,
+                                         aDoc -> _modifySingleAssertion (aDoc, nFinalRuleIndex, nFinalAssertIndex),
+                                         aDocs);
+          aEntries.add (new PeppolUAETDDRuleProfile.Entry (EEntryType.ASSERTION,
+                                                           nRuleIndex,
+                                                           sContext,
+                                                           aAsserts.get (nAssertIndex).getAttribute ("id"),
+                                                           Math.max (0, nAssert - nContext)));
+        }
+      }
+      LOGGER.info ("Profiled rule " + (nRuleIndex + 1) + "/" + aRules.size () + ": " + sContext);
+    }
+    return new PeppolUAETDDRuleProfile (m_eVersion, aDocs.size (), m_nIterations, nBaseline, aEntries);
+  }
+
+  /**
+   * Read all provided resources into DOM documents and profile the Schematron on them.
+   *
+   * @param aResources
+   *        The TDD resources to read. May neither be <code>null</code> nor empty.
+   * @return The profile and never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If a resource cannot be read as XML
+   * @throws Exception
+   *         In case of an internal Schematron error
+   * @see #profile(Iterable)
+   */
+  @NonNull
+  public PeppolUAETDDRuleProfile profileResources (@NonNull final Iterable <? extends IReadableResource> aResources) throws Exception
+  {
+    ValueEnforcer.notNull (aResources, "Resources");
+
+    final ICommonsList <Document> aDocs = new CommonsArrayList <> ();
+    for (final IReadableResource aRes : aResources)
+    {
+      final Document aDoc = DOMReader.readXMLDOM (aRes);
+      if (aDoc == null)
+        throw new IllegalArgumentException ("Failed to read '" + aRes.getPath () + "' as XML");
+      aDocs.add (aDoc);
+    }
+    return profile (aDocs);
+  }
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.validate;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.CommonsLinkedHashMap;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.collection.commons.ICommonsOrderedMap;
+import com.helger.peppol.uae.tdd.v100.TaxDataType;
+import com.helger.schematron.ISchematronResource;
+import com.helger.schematron.svrl.jaxb.SchematronOutputType;
+
+/**
+ * A registry that selects the Schematron version to be used based on the issue date of a TDD. Each
+ * version is effective from a certain date on, until the effective date of the next version. For
+ * dates before the first configured effective date, the default version is used.<br>
+ * The Schematron resources are compiled lazily and only a configurable number of versions is kept
+ * in memory. If more versions are needed, the least recently used one is evicted.
+ *
+ * @author Philip Helger
+ */
+@ThreadSafe
+public final class PeppolUAETDDSchematronRegistry
+{
+  public static final int DEFAULT_MAX_CACHED_VERSIONS = 2;
+  public static final EUAETDDSchematronVersion DEFAULT_VERSION = EUAETDDSchematronVersion.LATEST;
+
+  private final int m_nMaxCachedVersions;
+  private final NavigableMap <LocalDate, EUAETDDSchematronVersion> m_aEffectiveFrom = new TreeMap <> ();
+  private EUAETDDSchematronVersion m_eDefaultVersion = DEFAULT_VERSION;
+  // Access order for LRU eviction
+  private final LinkedHashMap <EUAETDDSchematronVersion, ISchematronResource> m_aCache;
+
+  public PeppolUAETDDSchematronRegistry ()
+  {
+    this (DEFAULT_MAX_CACHED_VERSIONS);
+  }
+
+  public PeppolUAETDDSchematronRegistry (@Nonnegative final int nMaxCachedVersions)
+  {
+    ValueEnforcer.isGT0 (nMaxCachedVersions, "MaxCachedVersions");
+    m_nMaxCachedVersions = nMaxCachedVersions;
+    m_aCache = new LinkedHashMap <> (nMaxCachedVersions + 1, 0.75f, true)
+    {
+      @Override
+      protected boolean removeEldestEntry (final Map.Entry <EUAETDDSchematronVersion, ISchematronResource> aEldest)
+      {
+        return size () > m_nMaxCachedVersions;
+      }
+    };
+  }
+
+  /**
+   * @return The maximum number of compiled Schematron versions kept in memory. Always &gt; 0.
+   */
+  @Nonnegative
+  public int getMaxCachedVersions ()
+  {
+    return m_nMaxCachedVersions;
+  }
+
+  /**
+   * @return The version used for all dates before the first effective date. Never
+   *         <code>null</code>.
+   */
+  @NonNull
+  public synchronized EUAETDDSchematronVersion getDefaultVersion ()
+  {
+    return m_eDefaultVersion;
+  }
+
+  /**
+   * Set the version to be used for all dates before the first effective date.
+   *
+   * @param eVersion
+   *        The version to use. May not be <code>null</code>.
+   * @return this for chaining
+   */
+  @NonNull
+  public synchronized PeppolUAETDDSchematronRegistry setDefaultVersion (@NonNull final EUAETDDSchematronVersion eVersion)
+  {
+    ValueEnforcer.notNull (eVersion, "Version");
+    m_eDefaultVersion = eVersion;
+    return this;
+  }
+
+  /**
+   * Define that the provided version is effective from the provided date (inclusive) on. An
+   * existing mapping for the same date is overwritten.
+   *
+   * @param aEffectiveFrom
+   *        The first date on which the version should be used. May not be <code>null</code>.
+   * @param eVersion
+   *        The version to use. May not be <code>null</code>.
+   * @return this for chaining
+   */
+  @NonNull
+  public synchronized PeppolUAETDDSchematronRegistry setEffectiveFrom (@NonNull final LocalDate aEffectiveFrom,
+                                                                       @NonNull final EUAETDDSchematronVersion eVersion)
+  {
+    ValueEnforcer.notNull (aEffectiveFrom, "EffectiveFrom");
+    ValueEnforcer.notNull (eVersion, "Version");
+    m_aEffectiveFrom.put (aEffectiveFrom, eVersion);
+    return this;
+  }
+
+  /**
+   * @return A copy of all configured effective dates and their versions, ordered by date. Never
+   *         <code>null</code>.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public synchronized ICommonsOrderedMap <LocalDate, EUAETDDSchematronVersion> getAllEffectiveDates ()
+  {
+    return new CommonsLinkedHashMap <> (m_aEffectiveFrom);
+  }
+
+  /**
+   * Get the Schematron version effective at the provided date.
+   *
+   * @param aDate
+   *        The date to check. May be <code>null</code> in which case the default version is
+   *        returned.
+   * @return The effective version and never <code>null</code>.
+   */
+  @NonNull
+  public synchronized EUAETDDSchematronVersion getVersionForDate (@Nullable final LocalDate aDate)
+  {
+    if (aDate == null)
+      return m_eDefaultVersion;
+    final Map.Entry <LocalDate, EUAETDDSchematronVersion> aEntry = m_aEffectiveFrom.floorEntry (aDate);
+    return aEntry != null ? aEntry.getValue () : m_eDefaultVersion;
+  }
+
+  /**
+   * Get the Schematron version to be used for the provided TDD, based on its issue date.
+   *
+   * @param aTDD
+   *        The TDD to check. May not be <code>null</code>.
+   * @return The effective version and never <code>null</code>.
+   */
+  @NonNull
+  public EUAETDDSchematronVersion getVersionForTDD (@NonNull final TaxDataType aTDD)
+  {
+    ValueEnforcer.notNull (aTDD, "TDD");
+    return getVersionForDate (aTDD.getIssueDate () == null ? null : aTDD.getIssueDateValueLocal ());
+  }
+
+  /**
+   * Get the compiled Schematron of the provided version. If the version is not in the cache, it is
+   * compiled and added to the cache, potentially evicting the least recently used version.
+   *
+   * @param eVersion
+   *        The version to get. May not be <code>null</code>.
+   * @return The Schematron resource and never <code>null</code>.
+   */
+  @NonNull
+  public ISchematronResource getSchematron (@NonNull final EUAETDDSchematronVersion eVersion)
+  {
+    ValueEnforcer.notNull (eVersion, "Version");
+
+    synchronized (this)
+    {
+      final ISchematronResource ret = m_aCache.get (eVersion);
+      if (ret != null)
+        return ret;
+    }
+
+    // Compile outside of the lock, so that other versions are not blocked. The global Schematron
+    // cache is bypassed, as it would otherwise keep evicted versions alive
+    final ISchematronResource aNew = PeppolUAETDDValidator.createSchematron (eVersion, false);
+    synchronized (this)
+    {
+      // Another thread may have been faster
+      final ISchematronResource aOld = m_aCache.putIfAbsent (eVersion, aNew);
+      return aOld != null ? aOld : aNew;
+    }
+  }
+
+  /**
+   * @param aDate
+   *        The date to check. May be <code>null</code>.
+   * @return The Schematron effective at the provided date. Never <code>null</code>.
+   * @see #getVersionForDate(LocalDate)
+   */
+  @NonNull
+  public ISchematronResource getSchematronForDate (@Nullable final LocalDate aDate)
+  {
+    return getSchematron (getVersionForDate (aDate));
+  }
+
+  /**
+   * @param aTDD
+   *        The TDD to check. May not be <code>null</code>.
+   * @return The Schematron to be used for the provided TDD. Never <code>null</code>.
+   * @see #getVersionForTDD(TaxDataType)
+   */
+  @NonNull
+  public ISchematronResource getSchematronForTDD (@NonNull final TaxDataType aTDD)
+  {
+    return getSchematron (getVersionForTDD (aTDD));
+  }
+
+  /**
+   * Validate an in-memory TDD with the Schematron version effective at its issue date.
+   *
+   * @param aTDD
+   *        The TDD to validate. May not be <code>null</code>.
+   * @return The SVRL of the validation. May be <code>null</code> if the TDD could not be converted
+   *         to a DOM or in case of an error.
+   * @throws Exception
+   *         In case of an internal Schematron error
+   * @see PeppolUAETDDValidator#validate(ISchematronResource, TaxDataType)
+   */
+  @Nullable
+  public SchematronOutputType validate (@NonNull final TaxDataType aTDD) throws Exception
+  {
+    return PeppolUAETDDValidator.validate (getSchematronForTDD (aTDD), aTDD);
+  }
+
+  /**
+   * @return The versions currently kept in memory, from the least to the most recently used. Never
+   *         <code>null</code>.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public synchronized ICommonsList <EUAETDDSchematronVersion> getAllCachedVersions ()
+  {
+    return new CommonsArrayList <> (m_aCache.keySet ());
+  }
+
+  /**
+   * Remove all compiled Schematrons from the cache.
+   */
+  public synchronized void clearCache ()
+  {
+    m_aCache.clear ();
+  }
+
+  @Override
+  public synchronized String toString ()
+  {
+    return new ToStringGenerator (null).append ("MaxCachedVersions", m_nMaxCachedVersions)
+                                       .append ("EffectiveFrom", m_aEffectiveFrom)
+                                       .append ("DefaultVersion", m_eDefaultVersion)
+                                       .append ("CachedVersions", m_aCache.keySet ())
+                                       .getToString ();
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.validate;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.ICommonsList;
+
+/**
+ * A single document for which the active and the candidate Schematron version of a
+ * {@link PeppolUAETDDShadowValidator} produced different failed assertions.
+ *
+ * @author Philip Helger
+ */
+@Immutable
+public final class PeppolUAETDDShadowDisagreement
+{
+  private final String m_sDocumentID;
+  private final PeppolUAETDDValidationOutcome m_aActiveOutcome;
+  private final PeppolUAETDDValidationOutcome m_aCandidateOutcome;
+
+  public PeppolUAETDDShadowDisagreement (@Nullable final String sDocumentID,
+                                         @NonNull final PeppolUAETDDValidationOutcome aActiveOutcome,
+                                         @NonNull final PeppolUAETDDValidationOutcome aCandidateOutcome)
+  {
+    ValueEnforcer.notNull (aActiveOutcome, "ActiveOutcome");
+    ValueEnforcer.notNull (aCandidateOutcome, "CandidateOutcome");
+    m_sDocumentID = sDocumentID;
+    m_aActiveOutcome = aActiveOutcome;
+    m_aCandidateOutcome = aCandidateOutcome;
+  }
+
+  /**
+   * @return The document ID as provided to the validator. May be <code>null</code>.
+   */
+  @Nullable
+  public String getDocumentID ()
+  {
+    return m_sDocumentID;
+  }
+
+  /**
+   * @return The outcome of the active Schematron version. Never <code>null</code>.
+   */
+  @NonNull
+  public PeppolUAETDDValidationOutcome getActiveOutcome ()
+  {
+    return m_aActiveOutcome;
+  }
+
+  /**
+   * @return The outcome of the candidate Schematron version. Never <code>null</code>.
+   */
+  @NonNull
+  public PeppolUAETDDValidationOutcome getCandidateOutcome ()
+  {
+    return m_aCandidateOutcome;
+  }
+
+  /**
+   * @return The IDs of all assertions that only failed with the active version. Never
+   *         <code>null</code>.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <String> getAllOnlyActiveFailedIDs ()
+  {
+    final ICommonsList <String> ret = m_aActiveOutcome.getAllFailedAssertionIDs ();
+    ret.removeAll (m_aCandidateOutcome.getAllFailedAssertionIDs ());
+    return ret;
+  }
+
+  /**
+   * @return The IDs of all assertions that only failed with the candidate version. Never
+   *         <code>null</code>.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <String> getAllOnlyCandidateFailedIDs ()
+  {
+    final ICommonsList <String> ret = m_aCandidateOutcome.getAllFailedAssertionIDs ();
+    ret.removeAll (m_aActiveOutcome.getAllFailedAssertionIDs ());
+    return ret;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("DocumentID", m_sDocumentID)
+                                       .append ("ActiveOutcome", m_aActiveOutcome)
+                                       .append ("CandidateOutcome", m_aCandidateOutcome)
+                                       .getToString ();
+  }
+}
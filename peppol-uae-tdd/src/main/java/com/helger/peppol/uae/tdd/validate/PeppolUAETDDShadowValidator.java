@@ -0,0 +1,329 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.validate;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.CommonsHashSet;
+import com.helger.schematron.ISchematronResource;
+
+/**
+ * A validator that validates each document with an active Schematron version and additionally
+ * validates a sample of the documents with a candidate Schematron version. The candidate
+ * validation runs asynchronously on a separate bounded executor, so it does not add latency to the
+ * caller. If the queue of the executor is full, the candidate validation of a document is skipped
+ * and counted as dropped.<br>
+ * If the active and the candidate version report different failed assertions, this is counted as a
+ * disagreement and forwarded to the optional disagreement handler. That handler is invoked on the
+ * executor threads.
+ *
+ * @author Philip Helger
+ */
+@ThreadSafe
+public final class PeppolUAETDDShadowValidator implements AutoCloseable
+{
+  public static final int DEFAULT_THREAD_COUNT = 1;
+  public static final int DEFAULT_QUEUE_CAPACITY = 100;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (PeppolUAETDDShadowValidator.class);
+  private static final AtomicInteger THREAD_INDEX = new AtomicInteger (0);
+
+  private final EUAETDDSchematronVersion m_eActiveVersion;
+  private final EUAETDDSchematronVersion m_eCandidateVersion;
+  private final ISchematronResource m_aActiveSchematron;
+  private final ISchematronResource m_aCandidateSchematron;
+  private final double m_dSampleRate;
+  private final Consumer <? super PeppolUAETDDShadowDisagreement> m_aDisagreementHandler;
+  private final ThreadPoolExecutor m_aExecutor;
+
+  private final LongAdder m_aValidatedCount = new LongAdder ();
+  private final LongAdder m_aSampledCount = new LongAdder ();
+  private final LongAdder m_aDroppedCount = new LongAdder ();
+  private final LongAdder m_aComparedCount = new LongAdder ();
+  private final LongAdder m_aDisagreementCount = new LongAdder ();
+  private final LongAdder m_aErrorCount = new LongAdder ();
+
+  public PeppolUAETDDShadowValidator (@NonNull final EUAETDDSchematronVersion eActiveVersion,
+                                      @NonNull final EUAETDDSchematronVersion eCandidateVersion,
+                                      final double dSampleRate,
+                                      @Nullable final Consumer <? super PeppolUAETDDShadowDisagreement> aDisagreementHandler)
+  {
+    this (eActiveVersion,
+          eCandidateVersion,
+          dSampleRate,
+          DEFAULT_THREAD_COUNT,
+          DEFAULT_QUEUE_CAPACITY,
+          aDisagreementHandler);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param eActiveVersion
+   *        The Schematron version whose results are returned to the caller. May not be
+   *        <code>null</code>.
+   * @param eCandidateVersion
+   *        The Schematron version to be evaluated in the background. May not be <code>null</code>.
+   * @param dSampleRate
+   *        The share of documents to be validated with the candidate version. Must be between 0
+   *        (none) and 1 (all).
+   * @param nThreadCount
+   *        The number of threads for the candidate validation. Must be &gt; 0.
+   * @param nQueueCapacity
+   *        The maximum number of documents waiting for the candidate validation. Must be &gt; 0.
+   * @param aDisagreementHandler
+   *        The optional handler to be invoked for each disagreement. May be <code>null</code>.
+   */
+  public PeppolUAETDDShadowValidator (@NonNull final EUAETDDSchematronVersion eActiveVersion,
+                                      @NonNull final EUAETDDSchematronVersion eCandidateVersion,
+                                      final double dSampleRate,
+                                      @Nonnegative final int nThreadCount,
+                                      @Nonnegative final int nQueueCapacity,
+                                      @Nullable final Consumer <? super PeppolUAETDDShadowDisagreement> aDisagreementHandler)
+  {
+    ValueEnforcer.notNull (eActiveVersion, "ActiveVersion");
+    ValueEnforcer.notNull (eCandidateVersion, "CandidateVersion");
+    ValueEnforcer.isBetweenInclusive (dSampleRate, "SampleRate", 0d, 1d);
+    ValueEnforcer.isGT0 (nThreadCount, "ThreadCount");
+    ValueEnforcer.isGT0 (nQueueCapacity, "QueueCapacity");
+
+    m_eActiveVersion = eActiveVersion;
+    m_eCandidateVersion = eCandidateVersion;
+    m_aActiveSchematron = PeppolUAETDDValidator.getSchematron (eActiveVersion);
+    m_aCandidateSchematron = PeppolUAETDDValidator.getSchematron (eCandidateVersion);
+    m_dSampleRate = dSampleRate;
+    m_aDisagreementHandler = aDisagreementHandler;
+    m_aExecutor = new ThreadPoolExecutor (nThreadCount,
+                                          nThreadCount,
+                                          0L,
+                                          TimeUnit.MILLISECONDS,
+                                          new ArrayBlockingQueue <> (nQueueCapacity),
+                                          r -> {
+                                            final Thread t = new Thread (r,
+                                                                         "peppol-uae-tdd-shadow-" +
+                                                                            THREAD_INDEX.incrementAndGet ());
+                                            t.setDaemon (true);
+                                            return t;
+                                          },
+                                          (r, aExecutor) -> m_aDroppedCount.increment ());
+  }
+
+  @NonNull
+  private static PeppolUAETDDValidationOutcome _validate (@NonNull final ISchematronResource aSchematron,
+                                                          @NonNull final EUAETDDSchematronVersion eVersion,
+                                                          @NonNull final byte [] aTDDBytes,
+                                                          @Nullable final String sDocumentID) throws Exception
+  {
+    final PeppolUAETDDValidationOutcome.Collector aCollector = new PeppolUAETDDValidationOutcome.Collector (eVersion);
+    PeppolUAETDDValidator.validate (aSchematron,
+                                    PeppolUAETDDValidator.createSecureSource (new ByteArrayInputStream (aTDDBytes),
+                                                                              sDocumentID),
+                                    aCollector);
+    return aCollector.getOutcome ();
+  }
+
+  private static boolean _isSameResult (@NonNull final PeppolUAETDDValidationOutcome aActive,
+                                        @NonNull final PeppolUAETDDValidationOutcome aCandidate)
+  {
+    // The two versions have different catalogs, so compare the IDs and not the bits
+    return aActive.hasUnknownFailedAssertion () == aCandidate.hasUnknownFailedAssertion () &&
+           new CommonsHashSet <> (aActive.getAllFailedAssertionIDs ()).equals (new CommonsHashSet <> (aCandidate.getAllFailedAssertionIDs ()));
+  }
+
+  private void _validateCandidate (@NonNull final byte [] aTDDBytes,
+                                   @Nullable final String sDocumentID,
+                                   @NonNull final PeppolUAETDDValidationOutcome aActiveOutcome)
+  {
+    try
+    {
+      final PeppolUAETDDValidationOutcome aCandidateOutcome = _validate (m_aCandidateSchematron,
+                                                                         m_eCandidateVersion,
+                                                                         aTDDBytes,
+                                                                         sDocumentID);
+      m_aComparedCount.increment ();
+      if (!_isSameResult (aActiveOutcome, aCandidateOutcome))
+      {
+        m_aDisagreementCount.increment ();
+        if (m_aDisagreementHandler != null)
+          m_aDisagreementHandler.accept (new PeppolUAETDDShadowDisagreement (sDocumentID,
+                                                                             aActiveOutcome,
+                                                                             aCandidateOutcome));
+      }
+    }
+    catch (final Exception ex)
+    {
+      m_aErrorCount.increment ();
+      LOGGER.warn ("Shadow validation of '" + sDocumentID + "' with Schematron " + m_eCandidateVersion.getID () + " failed", ex);
+    }
+  }
+
+  /**
+   * Validate the provided TDD with the active Schematron version. Depending on the sample rate, the
+   * same document is additionally queued for the validation with the candidate version.
+   *
+   * @param aTDDBytes
+   *        The serialized TDD. May not be <code>null</code>. The array is shared with the
+   *        background validation and must therefore not be modified afterwards.
+   * @param sDocumentID
+   *        An optional document ID used as the system ID and for reporting disagreements. May be
+   *        <code>null</code>.
+   * @return The outcome of the active Schematron version. Never <code>null</code>.
+   * @throws Exception
+   *         In case of an internal Schematron error of the active version
+   */
+  @NonNull
+  public PeppolUAETDDValidationOutcome validate (@NonNull final byte [] aTDDBytes,
+                                                 @Nullable final String sDocumentID) throws Exception
+  {
+    ValueEnforcer.notNull (aTDDBytes, "TDDBytes");
+
+    final PeppolUAETDDValidationOutcome aActiveOutcome = _validate (m_aActiveSchematron,
+                                                                    m_eActiveVersion,
+                                                                    aTDDBytes,
+                                                                    sDocumentID);
+    m_aValidatedCount.increment ();
+
+    if (m_dSampleRate > 0 && (m_dSampleRate >= 1 || ThreadLocalRandom.current ().nextDouble () < m_dSampleRate))
+    {
+      m_aSampledCount.increment ();
+      // A rejection is counted as dropped
+      m_aExecutor.execute ( () -> _validateCandidate (aTDDBytes, sDocumentID, aActiveOutcome));
+    }
+    return aActiveOutcome;
+  }
+
+  @NonNull
+  public EUAETDDSchematronVersion getActiveVersion ()
+  {
+    return m_eActiveVersion;
+  }
+
+  @NonNull
+  public EUAETDDSchematronVersion getCandidateVersion ()
+  {
+    return m_eCandidateVersion;
+  }
+
+  public double getSampleRate ()
+  {
+    return m_dSampleRate;
+  }
+
+  /**
+   * @return The number of documents validated with the active version.
+   */
+  @Nonnegative
+  public long getValidatedCount ()
+  {
+    return m_aValidatedCount.sum ();
+  }
+
+  /**
+   * @return The number of documents selected for the candidate validation.
+   */
+  @Nonnegative
+  public long getSampledCount ()
+  {
+    return m_aSampledCount.sum ();
+  }
+
+  /**
+   * @return The number of sampled documents that were not validated with the candidate version,
+   *         because the queue was full or the validator was already closed.
+   */
+  @Nonnegative
+  public long getDroppedCount ()
+  {
+    return m_aDroppedCount.sum ();
+  }
+
+  /**
+   * @return The number of documents validated with both versions.
+   */
+  @Nonnegative
+  public long getComparedCount ()
+  {
+    return m_aComparedCount.sum ();
+  }
+
+  /**
+   * @return The number of documents for which the two versions reported different failed
+   *         assertions.
+   */
+  @Nonnegative
+  public long getDisagreementCount ()
+  {
+    return m_aDisagreementCount.sum ();
+  }
+
+  /**
+   * @return The number of documents for which the candidate validation failed with an exception.
+   */
+  @Nonnegative
+  public long getErrorCount ()
+  {
+    return m_aErrorCount.sum ();
+  }
+
+  /**
+   * Stop accepting new candidate validations and wait for the queued ones to finish.
+   */
+  public void close ()
+  {
+    m_aExecutor.shutdown ();
+    try
+    {
+      if (!m_aExecutor.awaitTermination (1, TimeUnit.MINUTES))
+        LOGGER.warn ("Not all shadow validations finished within the timeout");
+    }
+    catch (final InterruptedException ex)
+    {
+      Thread.currentThread ().interrupt ();
+    }
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("ActiveVersion", m_eActiveVersion)
+                                       .append ("CandidateVersion", m_eCandidateVersion)
+                                       .append ("SampleRate", m_dSampleRate)
+                                       .append ("ValidatedCount", getValidatedCount ())
+                                       .append ("SampledCount", getSampledCount ())
+                                       .append ("DroppedCount", getDroppedCount ())
+                                       .append ("ComparedCount", getComparedCount ())
+                                       .append ("DisagreementCount", getDisagreementCount ())
+                                       .append ("ErrorCount", getErrorCount ())
+                                       .getToString ();
+  }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.validate;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.annotation.concurrent.NotThreadSafe;
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.hashcode.HashCodeGenerator;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+
+/**
+ * A compact representation of the outcome of a TDD Schematron validation. Each failed assertion of
+ * the respective Schematron version is represented as a single bit, using the indices of the
+ * {@link PeppolUAETDDAssertionCatalog}. One additional bit (at index
+ * {@link PeppolUAETDDAssertionCatalog#getAssertionCount()}) indicates that at least one failed
+ * assertion with an unknown ID was encountered.<br>
+ * The binary representation consists of one byte for the Schematron version followed by the bytes
+ * of the bit set. A valid document therefore needs a single byte.
+ *
+ * @author Philip Helger
+ */
+@Immutable
+public final class PeppolUAETDDValidationOutcome
+{
+  /**
+   * A failed assertion listener that collects the outcome.
+   *
+   * @author Philip Helger
+   */
+  @NotThreadSafe
+  public static final class Collector implements IPeppolUAETDDFailedAssertionListener
+  {
+    private final PeppolUAETDDAssertionCatalog m_aCatalog;
+    private final BitSet m_aBits = new BitSet ();
+
+    public Collector (@NonNull final EUAETDDSchematronVersion eVersion)
+    {
+      m_aCatalog = PeppolUAETDDAssertionCatalog.getInstance (eVersion);
+    }
+
+    public void onFailedAssertion (@NonNull final PeppolUAETDDFailedAssertion aFailedAssertion)
+    {
+      final int nIndex = m_aCatalog.getIndexOfID (aFailedAssertion.getID ());
+      m_aBits.set (nIndex >= 0 ? nIndex : m_aCatalog.getAssertionCount ());
+    }
+
+    @NonNull
+    public PeppolUAETDDValidationOutcome getOutcome ()
+    {
+      return new PeppolUAETDDValidationOutcome (m_aCatalog, (BitSet) m_aBits.clone ());
+    }
+  }
+
+  private final PeppolUAETDDAssertionCatalog m_aCatalog;
+  private final BitSet m_aBits;
+
+  private PeppolUAETDDValidationOutcome (@NonNull final PeppolUAETDDAssertionCatalog aCatalog,
+                                         @NonNull final BitSet aBits)
+  {
+    m_aCatalog = aCatalog;
+    m_aBits = aBits;
+  }
+
+  /**
+   * @return The Schematron version of this outcome. Never <code>null</code>.
+   */
+  @NonNull
+  public EUAETDDSchematronVersion getVersion ()
+  {
+    return m_aCatalog.getVersion ();
+  }
+
+  /**
+   * @return <code>true</code> if no assertion failed.
+   */
+  public boolean isValid ()
+  {
+    return m_aBits.isEmpty ();
+  }
+
+  /**
+   * @return The number of distinct failed assertions.
+   */
+  @Nonnegative
+  public int getFailedAssertionCount ()
+  {
+    return m_aBits.cardinality ();
+  }
+
+  /**
+   * @return <code>true</code> if at least one failed assertion had an ID that is not part of the
+   *         Schematron version.
+   */
+  public boolean hasUnknownFailedAssertion ()
+  {
+    return m_aBits.get (m_aCatalog.getAssertionCount ());
+  }
+
+  /**
+   * @param sID
+   *        The assertion ID to check. May be <code>null</code>.
+   * @return <code>true</code> if the assertion with the provided ID failed.
+   */
+  public boolean hasFailed (@Nullable final String sID)
+  {
+    final int nIndex = m_aCatalog.getIndexOfID (sID);
+    return nIndex >= 0 && m_aBits.get (nIndex);
+  }
+
+  /**
+   * @return A copy of the underlying bit set. Never <code>null</code>.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public BitSet getAsBitSet ()
+  {
+    return (BitSet) m_aBits.clone ();
+  }
+
+  /**
+   * @return The IDs of all failed assertions in Schematron order. Never <code>null</code>.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <String> getAllFailedAssertionIDs ()
+  {
+    final ICommonsList <String> ret = new CommonsArrayList <> ();
+    for (int i = m_aBits.nextSetBit (0); i >= 0 && i < m_aCatalog.getAssertionCount (); i = m_aBits.nextSetBit (i + 1))
+      ret.add (m_aCatalog.getIDAtIndex (i));
+    return ret;
+  }
+
+  /**
+   * @return The message templates of all failed assertions in Schematron order. Never
+   *         <code>null</code>.
+   * @see PeppolUAETDDAssertionCatalog#getMessageAtIndex(int)
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <String> getAllFailedAssertionMessages ()
+  {
+    final ICommonsList <String> ret = new CommonsArrayList <> ();
+    for (int i = m_aBits.nextSetBit (0); i >= 0 && i < m_aCatalog.getAssertionCount (); i = m_aBits.nextSetBit (i + 1))
+      ret.add (m_aCatalog.getMessageAtIndex (i));
+    return ret;
+  }
+
+  /**
+   * @return The compact binary representation of this outcome. Never <code>null</code>.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public byte [] getAsBytes ()
+  {
+    final byte [] aBits = m_aBits.toByteArray ();
+    final byte [] ret = new byte [1 + aBits.length];
+    ret[0] = (byte) getVersion ().getCompactID ();
+    System.arraycopy (aBits, 0, ret, 1, aBits.length);
+    return ret;
+  }
+
+  /**
+   * Create an outcome from the binary representation.
+   *
+   * @param aBytes
+   *        The bytes as created by {@link #getAsBytes()}. May not be <code>null</code>.
+   * @return The decoded outcome and never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the bytes are empty or refer to an unknown Schematron version
+   */
+  @NonNull
+  public static PeppolUAETDDValidationOutcome createFromBytes (@NonNull final byte [] aBytes)
+  {
+    ValueEnforcer.notEmpty (aBytes, "Bytes");
+
+    final EUAETDDSchematronVersion eVersion = EUAETDDSchematronVersion.getFromCompactIDOrNull (aBytes[0] & 0xff);
+    if (eVersion == null)
+      throw new IllegalArgumentException ("Unknown Schematron version " + (aBytes[0] & 0xff));
+    return new PeppolUAETDDValidationOutcome (PeppolUAETDDAssertionCatalog.getInstance (eVersion),
+                                              BitSet.valueOf (Arrays.copyOfRange (aBytes, 1, aBytes.length)));
+  }
+
+  /**
+   * Create an outcome from a list of failed assertion IDs.
+   *
+   * @param eVersion
+   *        The Schematron version the IDs belong to. May not be <code>null</code>.
+   * @param aFailedIDs
+   *        The failed assertion IDs. May not be <code>null</code>.
+   * @return The new outcome and never <code>null</code>.
+   */
+  @NonNull
+  public static PeppolUAETDDValidationOutcome createFromFailedAssertionIDs (@NonNull final EUAETDDSchematronVersion eVersion,
+                                                                           @NonNull final Iterable <String> aFailedIDs)
+  {
+    ValueEnforcer.notNull (aFailedIDs, "FailedIDs");
+
+    final Collector aCollector = new Collector (eVersion);
+    for (final String sID : aFailedIDs)
+      aCollector.onFailedAssertion (new PeppolUAETDDFailedAssertion (sID, null, null, null, null));
+    return aCollector.getOutcome ();
+  }
+
+  @Override
+  public boolean equals (final Object o)
+  {
+    if (o == this)
+      return true;
+    if (o == null || !getClass ().equals (o.getClass ()))
+      return false;
+    final PeppolUAETDDValidationOutcome rhs = (PeppolUAETDDValidationOutcome) o;
+    return getVersion () == rhs.getVersion () && m_aBits.equals (rhs.m_aBits);
+  }
+
+  @Override
+  public int hashCode ()
+  {
+    return new HashCodeGenerator (this).append (getVersion ()).append (m_aBits).getHashCode ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("Version", getVersion ())
+                                       .append ("Bits", m_aBits)
+                                       .getToString ();
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.validate;
+
+import java.util.BitSet;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.NotThreadSafe;
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.collection.commons.CommonsLinkedHashMap;
+import com.helger.collection.commons.ICommonsOrderedMap;
+
+/**
+ * Aggregates many {@link PeppolUAETDDValidationOutcome} objects of the same Schematron version, e.g.
+ * to count the number of failures per rule.
+ *
+ * @author Philip Helger
+ */
+@NotThreadSafe
+public final class PeppolUAETDDValidationOutcomeAggregator
+{
+  private final PeppolUAETDDAssertionCatalog m_aCatalog;
+  // One more for "unknown"
+  private final long [] m_aFailureCounts;
+  private long m_nDocumentCount = 0;
+  private long m_nValidDocumentCount = 0;
+
+  public PeppolUAETDDValidationOutcomeAggregator (@NonNull final EUAETDDSchematronVersion eVersion)
+  {
+    m_aCatalog = PeppolUAETDDAssertionCatalog.getInstance (eVersion);
+    m_aFailureCounts = new long [m_aCatalog.getAssertionCount () + 1];
+  }
+
+  /**
+   * @return The Schematron version of this aggregator. Never <code>null</code>.
+   */
+  @NonNull
+  public EUAETDDSchematronVersion getVersion ()
+  {
+    return m_aCatalog.getVersion ();
+  }
+
+  /**
+   * Add a single outcome.
+   *
+   * @param aOutcome
+   *        The outcome to add. May not be <code>null</code> and must use the same Schematron version
+   *        as this aggregator.
+   * @return this for chaining
+   */
+  @NonNull
+  public PeppolUAETDDValidationOutcomeAggregator add (@NonNull final PeppolUAETDDValidationOutcome aOutcome)
+  {
+    ValueEnforcer.notNull (aOutcome, "Outcome");
+    ValueEnforcer.isTrue (aOutcome.getVersion () == getVersion (),
+                          () -> "Outcome version " + aOutcome.getVersion () + " does not match " + getVersion ());
+
+    m_nDocumentCount++;
+    final BitSet aBits = aOutcome.getAsBitSet ();
+    if (aBits.isEmpty ())
+      m_nValidDocumentCount++;
+    else
+      for (int i = aBits.nextSetBit (0); i >= 0 && i < m_aFailureCounts.length; i = aBits.nextSetBit (i + 1))
+        m_aFailureCounts[i]++;
+    return this;
+  }
+
+  /**
+   * Add a single outcome in its binary representation. This works directly on the bytes and does
+   * not create any objects.
+   *
+   * @param aBytes
+   *        The bytes as created by {@link PeppolUAETDDValidationOutcome#getAsBytes()}. May not be
+   *        <code>null</code> and must use the same Schematron version as this aggregator.
+   * @return this for chaining
+   */
+  @NonNull
+  public PeppolUAETDDValidationOutcomeAggregator add (@NonNull final byte [] aBytes)
+  {
+    ValueEnforcer.notEmpty (aBytes, "Bytes");
+    if ((aBytes[0] & 0xff) != getVersion ().getCompactID ())
+      throw new IllegalArgumentException ("Outcome version " + (aBytes[0] & 0xff) + " does not match " + getVersion ());
+
+    m_nDocumentCount++;
+    boolean bAnyFailure = false;
+    for (int nByte = 1; nByte < aBytes.length; ++nByte)
+    {
+      int nValue = aBytes[nByte] & 0xff;
+      while (nValue != 0)
+      {
+        // Same bit order as BitSet.toByteArray
+        final int nBit = Integer.numberOfTrailingZeros (nValue);
+        final int nIndex = (nByte - 1) * 8 + nBit;
+        if (nIndex < m_aFailureCounts.length)
+          m_aFailureCounts[nIndex]++;
+        bAnyFailure = true;
+        nValue &= nValue - 1;
+      }
+    }
+    if (!bAnyFailure)
+      m_nValidDocumentCount++;
+    return this;
+  }
+
+  /**
+   * @return The number of outcomes added.
+   */
+  @Nonnegative
+  public long getDocumentCount ()
+  {
+    return m_nDocumentCount;
+  }
+
+  /**
+   * @return The number of outcomes without a failed assertion.
+   */
+  @Nonnegative
+  public long getValidDocumentCount ()
+  {
+    return m_nValidDocumentCount;
+  }
+
+  /**
+   * @param sID
+   *        The assertion ID to query. May be <code>null</code>.
+   * @return The number of outcomes in which the provided assertion failed. 0 for unknown IDs.
+   */
+  @Nonnegative
+  public long getFailureCount (@Nullable final String sID)
+  {
+    final int nIndex = m_aCatalog.getIndexOfID (sID);
+    return nIndex < 0 ? 0 : m_aFailureCounts[nIndex];
+  }
+
+  /**
+   * @return The number of outcomes with at least one failed assertion with an unknown ID.
+   */
+  @Nonnegative
+  public long getUnknownFailureCount ()
+  {
+    return m_aFailureCounts[m_aCatalog.getAssertionCount ()];
+  }
+
+  /**
+   * @return A map from assertion ID to failure count for all assertions of the Schematron version,
+   *         in Schematron order. Never <code>null</code>.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsOrderedMap <String, Long> getAllFailureCounts ()
+  {
+    final ICommonsOrderedMap <String, Long> ret = new CommonsLinkedHashMap <> ();
+    for (int i = 0; i < m_aCatalog.getAssertionCount (); ++i)
+      ret.put (m_aCatalog.getIDAtIndex (i), Long.valueOf (m_aFailureCounts[i]));
+    return ret;
+  }
+}
@@ -16,12 +16,54 @@
  */
 package com.helger.peppol.uae.tdd.validate;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.sax.SAXSource;
+
 import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
 
 import com.helger.annotation.concurrent.Immutable;
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.base.enforce.ValueEnforcer;
 import com.helger.base.exception.InitializationException;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.io.resource.IReadableResource;
+import com.helger.peppol.uae.tdd.jaxb.PeppolUAETDD10FileInput;
+import com.helger.peppol.uae.tdd.jaxb.PeppolUAETDD10Marshaller;
+import com.helger.peppol.uae.tdd.jfr.AbstractPeppolUAETDDEvent;
+import com.helger.peppol.uae.tdd.jfr.PeppolUAETDDSchematronEvent;
+import com.helger.peppol.uae.tdd.metrics.EUAETDDMetricsStage;
+import com.helger.peppol.uae.tdd.metrics.PeppolUAETDDMetrics;
+import com.helger.peppol.uae.tdd.v100.TaxDataType;
 import com.helger.schematron.ISchematronResource;
 import com.helger.schematron.sch.SchematronResourceSCH;
+import com.helger.schematron.svrl.jaxb.FailedAssert;
+import com.helger.schematron.svrl.jaxb.SchematronOutputType;
+import com.helger.schematron.xslt.AbstractSchematronXSLTBasedResource;
+import com.helger.schematron.xslt.ISchematronXSLTBasedProvider;
+import com.helger.xml.sax.CollectingSAXErrorHandler;
+import com.helger.xml.schema.XMLSchemaCache;
+import com.helger.xml.serialize.read.DOMReader;
+import com.helger.xml.serialize.read.DOMReaderSettings;
+import com.helger.xml.transform.XMLTransformerFactory;
 
 /**
  * This class contains the Schematron resources for validating Peppol UAE TDD documents.
@@ -41,32 +83,147 @@ public final class PeppolUAETDDValidator
   public static final String SCH_UAE_TDD_103_PATH = "external/schematron/old/peppol-ae-tdd-1.0.3.sch";
   public static final String SCH_UAE_TDD_104_PATH = "external/schematron/peppol-ae-tdd-1.0.4.sch";
 
-  @Deprecated (forRemoval = true, since = "0.9.1")
-  private static final ISchematronResource UAE_TDD_100 = SchematronResourceSCH.builderFromClassPath (SCH_UAE_TDD_100_PATH)
-                                                                              .build ();
-  @Deprecated (forRemoval = true, since = "0.9.2")
-  private static final ISchematronResource UAE_TDD_101 = SchematronResourceSCH.builderFromClassPath (SCH_UAE_TDD_101_PATH)
-                                                                              .build ();
-  @Deprecated (forRemoval = true, since = "1.0.0")
-  private static final ISchematronResource UAE_TDD_102 = SchematronResourceSCH.builderFromClassPath (SCH_UAE_TDD_102_PATH)
-                                                                              .build ();
-  @Deprecated (forRemoval = true, since = "1.1.1")
-  private static final ISchematronResource UAE_TDD_103 = SchematronResourceSCH.builderFromClassPath (SCH_UAE_TDD_103_PATH)
-                                                                              .build ();
-  private static final ISchematronResource UAE_TDD_104 = SchematronResourceSCH.builderFromClassPath (SCH_UAE_TDD_104_PATH)
-                                                                              .build ();
+  // Compiled lazily, so that only the versions actually used need to be compiled
+  private static final Map <EUAETDDSchematronVersion, ISchematronResource> SCHEMATRONS = new EnumMap <> (EUAETDDSchematronVersion.class);
 
+  // No DTDs and no external entities for untrusted input
+  private static final SAXParserFactory SAX_PARSER_FACTORY;
   static
   {
-    for (final ISchematronResource aSch : new ISchematronResource [] { UAE_TDD_100, UAE_TDD_101, UAE_TDD_102,
-                                                                       UAE_TDD_103, UAE_TDD_104 })
-      if (!aSch.isValidSchematron ())
-        throw new InitializationException ("Schematron in " + aSch.getResource ().getPath () + " is invalid");
+    try
+    {
+      SAX_PARSER_FACTORY = SAXParserFactory.newInstance ();
+      SAX_PARSER_FACTORY.setNamespaceAware (true);
+      SAX_PARSER_FACTORY.setXIncludeAware (false);
+      SAX_PARSER_FACTORY.setFeature (XMLConstants.FEATURE_SECURE_PROCESSING, true);
+      SAX_PARSER_FACTORY.setFeature ("http://apache.org/xml/features/disallow-doctype-decl", true);
+      SAX_PARSER_FACTORY.setFeature ("http://xml.org/sax/features/external-general-entities", false);
+      SAX_PARSER_FACTORY.setFeature ("http://xml.org/sax/features/external-parameter-entities", false);
+      SAX_PARSER_FACTORY.setFeature ("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+    }
+    catch (final ParserConfigurationException | SAXException ex)
+    {
+      throw new InitializationException ("Failed to configure the secure SAX parser factory", ex);
+    }
   }
 
   private PeppolUAETDDValidator ()
   {}
 
+  /**
+   * Create a {@link Source} for untrusted XML content. The content is parsed with a SAX parser
+   * that rejects DOCTYPE declarations and does not resolve any external entities, so that it is
+   * safe against XXE attacks. The parsing happens while the Schematron is applied, so the content
+   * is still streamed.
+   *
+   * @param aIS
+   *        The input stream to read from. May not be <code>null</code>.
+   * @param sSystemID
+   *        The system ID of the content. May be <code>null</code>.
+   * @return The new source and never <code>null</code>.
+   * @throws IllegalStateException
+   *         If no SAX parser could be created
+   */
+  @NonNull
+  public static Source createSecureSource (@NonNull final InputStream aIS, @Nullable final String sSystemID)
+  {
+    ValueEnforcer.notNull (aIS, "InputStream");
+
+    final XMLReader aXMLReader;
+    try
+    {
+      // SAXParserFactory is not guaranteed to be thread-safe
+      synchronized (SAX_PARSER_FACTORY)
+      {
+        aXMLReader = SAX_PARSER_FACTORY.newSAXParser ().getXMLReader ();
+      }
+    }
+    catch (final ParserConfigurationException | SAXException ex)
+    {
+      throw new IllegalStateException ("Failed to create secure SAX parser", ex);
+    }
+    final InputSource aInputSource = new InputSource (aIS);
+    aInputSource.setSystemId (sSystemID);
+    return new SAXSource (aXMLReader, aInputSource);
+  }
+
+  /**
+   * Create and check a new Schematron resource for the provided version. The compiled XSLT is kept
+   * in the global Schematron cache.
+   *
+   * @param eVersion
+   *        The Schematron version. May not be <code>null</code>.
+   * @return The new resource and never <code>null</code>.
+   * @throws InitializationException
+   *         If the Schematron is invalid
+   * @see #createSchematron(EUAETDDSchematronVersion, boolean)
+   */
+  @NonNull
+  static ISchematronResource createSchematron (@NonNull final EUAETDDSchematronVersion eVersion)
+  {
+    return createSchematron (eVersion, true);
+  }
+
+  /**
+   * Create and check a new Schematron resource for the provided version.
+   *
+   * @param eVersion
+   *        The Schematron version. May not be <code>null</code>.
+   * @param bUseCache
+   *        <code>true</code> to keep the compiled XSLT in the global Schematron cache,
+   *        <code>false</code> if the caller owns the lifecycle of the returned resource, so that it
+   *        can be garbage collected once the caller drops it.
+   * @return The new resource and never <code>null</code>.
+   * @throws InitializationException
+   *         If the Schematron is invalid
+   */
+  @NonNull
+  static ISchematronResource createSchematron (@NonNull final EUAETDDSchematronVersion eVersion,
+                                               final boolean bUseCache)
+  {
+    final SchematronResourceSCH aSch = SchematronResourceSCH.builderFromClassPath (eVersion.getClassPathPath ())
+                                                            .build ();
+    aSch.setUseCache (bUseCache);
+    if (!aSch.isValidSchematron ())
+      throw new InitializationException ("Schematron in " + aSch.getResource ().getPath () + " is invalid");
+    return aSch;
+  }
+
+  /**
+   * Get the Schematron resource of the provided version. Each version is compiled upon first
+   * access and kept afterwards. The compilation happens outside of the lock, so that a slow
+   * compilation of one version does not block the access to the other versions.
+   *
+   * @param eVersion
+   *        The Schematron version. May not be <code>null</code>.
+   * @return The Schematron resource and never <code>null</code>.
+   * @see PeppolUAETDDSchematronRegistry for a version selection by date
+   */
+  @NonNull
+  public static ISchematronResource getSchematron (@NonNull final EUAETDDSchematronVersion eVersion)
+  {
+    ValueEnforcer.notNull (eVersion, "Version");
+
+    ISchematronResource ret;
+    synchronized (SCHEMATRONS)
+    {
+      ret = SCHEMATRONS.get (eVersion);
+    }
+    if (ret == null)
+    {
+      // Compile outside of the lock, so that the access to other versions is not blocked. If two
+      // threads compile the same version concurrently, the first one wins.
+      final ISchematronResource aNew = createSchematron (eVersion);
+      synchronized (SCHEMATRONS)
+      {
+        ret = SCHEMATRONS.putIfAbsent (eVersion, aNew);
+        if (ret == null)
+          ret = aNew;
+      }
+    }
+    return ret;
+  }
+
   /**
    * @return Schematron UAE TDD v1.0.0
    */
@@ -74,7 +231,7 @@ public final class PeppolUAETDDValidator
   @Deprecated (forRemoval = true, since = "0.9.1")
   public static ISchematronResource getSchematronUAE_TDD_100 ()
   {
-    return UAE_TDD_100;
+    return getSchematron (EUAETDDSchematronVersion.V100);
   }
 
   /**
@@ -84,7 +241,7 @@ public final class PeppolUAETDDValidator
   @Deprecated (forRemoval = true, since = "0.9.2")
   public static ISchematronResource getSchematronUAE_TDD_101 ()
   {
-    return UAE_TDD_101;
+    return getSchematron (EUAETDDSchematronVersion.V101);
   }
 
   /**
@@ -94,7 +251,7 @@ public final class PeppolUAETDDValidator
   @Deprecated (forRemoval = true, since = "1.0.0")
   public static ISchematronResource getSchematronUAE_TDD_102 ()
   {
-    return UAE_TDD_102;
+    return getSchematron (EUAETDDSchematronVersion.V102);
   }
 
   /**
@@ -104,7 +261,7 @@ public final class PeppolUAETDDValidator
   @Deprecated (forRemoval = true, since = "1.1.1")
   public static ISchematronResource getSchematronUAE_TDD_103 ()
   {
-    return UAE_TDD_103;
+    return getSchematron (EUAETDDSchematronVersion.V103);
   }
 
   /**
@@ -113,7 +270,7 @@ public final class PeppolUAETDDValidator
   @NonNull
   public static ISchematronResource getSchematronUAE_TDD_104 ()
   {
-    return UAE_TDD_104;
+    return getSchematron (EUAETDDSchematronVersion.V104);
   }
 
   /**
@@ -124,4 +281,506 @@ public final class PeppolUAETDDValidator
   {
     return getSchematronUAE_TDD_104 ();
   }
+
+  private static void _commitEvent (@NonNull final PeppolUAETDDSchematronEvent aEvent,
+                                    @NonNull final ISchematronResource aSchematron,
+                                    @Nullable final Node aNode,
+                                    final long nSourceSize,
+                                    final int nFailedAssertionCount)
+  {
+    aEvent.end ();
+    if (aEvent.shouldCommit ())
+    {
+      aEvent.setSchematronID (aSchematron.getID ());
+      if (aNode != null)
+        aEvent.setFromTDDNode (aNode);
+      aEvent.setSourceSize (nSourceSize);
+      aEvent.setFailedAssertionCount (Math.max (nFailedAssertionCount, 0));
+      aEvent.setOutcome (nFailedAssertionCount < 0 ? AbstractPeppolUAETDDEvent.OUTCOME_FAILURE
+                                                   : nFailedAssertionCount == 0 ? PeppolUAETDDSchematronEvent.OUTCOME_VALID
+                                                                                : PeppolUAETDDSchematronEvent.OUTCOME_INVALID);
+      aEvent.commit ();
+    }
+  }
+
+  private static int _getFailedAssertionCount (@Nullable final SchematronOutputType aSVRL)
+  {
+    if (aSVRL == null)
+      return -1;
+    int ret = 0;
+    for (final Object aObj : aSVRL.getActivePatternOrActiveGroupAndFiredRule ())
+      if (aObj instanceof FailedAssert)
+        ret++;
+    return ret;
+  }
+
+  /**
+   * The common recording path of all SVRL based validations. The latency and the failed assertions
+   * are recorded upon success, the stage failure if the Schematron throws or delivers no SVRL. The
+   * JFR event is committed in any case.
+   */
+  @Nullable
+  private static SchematronOutputType _validateToSVRL (@NonNull final ISchematronResource aSchematron,
+                                                       @NonNull final Source aSource,
+                                                       final long nSourceSize) throws Exception
+  {
+    final long nStart = PeppolUAETDDMetrics.startTimer ();
+    final PeppolUAETDDSchematronEvent aEvent = new PeppolUAETDDSchematronEvent ();
+    aEvent.begin ();
+    SchematronOutputType aSVRL = null;
+    try
+    {
+      aSVRL = aSchematron.applySchematronValidationToSVRL (aSource);
+      if (aSVRL != null)
+      {
+        PeppolUAETDDMetrics.recordLatency (EUAETDDMetricsStage.SCHEMATRON_VALIDATION, nStart);
+        if (PeppolUAETDDMetrics.isEnabled ())
+          for (final Object aObj : aSVRL.getActivePatternOrActiveGroupAndFiredRule ())
+            if (aObj instanceof FailedAssert)
+              PeppolUAETDDMetrics.onFailedAssertion (((FailedAssert) aObj).getId ());
+      }
+      return aSVRL;
+    }
+    finally
+    {
+      if (aSVRL == null)
+        PeppolUAETDDMetrics.onStageFailed (EUAETDDMetricsStage.SCHEMATRON_VALIDATION);
+      if (aEvent.isEnabled ())
+        _commitEvent (aEvent,
+                      aSchematron,
+                      aSource instanceof DOMSource ? ((DOMSource) aSource).getNode () : null,
+                      nSourceSize,
+                      _getFailedAssertionCount (aSVRL));
+    }
+  }
+
+  /**
+   * Validate an existing DOM node with the provided Schematron. The node is handed to the XSLT
+   * engine as is, so no serialization and re-parsing is needed.
+   *
+   * @param aSchematron
+   *        The Schematron to validate against. May not be <code>null</code>.
+   * @param aNode
+   *        The DOM node to validate. Should be a {@link Document} or the document element of a
+   *        TDD, because the TDD Schematron rules use absolute paths. May not be <code>null</code>.
+   * @return The SVRL of the validation. May be <code>null</code> in case of an error.
+   * @throws Exception
+   *         In case of an internal Schematron error
+   */
+  @Nullable
+  public static SchematronOutputType validate (@NonNull final ISchematronResource aSchematron,
+                                               @NonNull final Node aNode) throws Exception
+  {
+    ValueEnforcer.notNull (aSchematron, "Schematron");
+    ValueEnforcer.notNull (aNode, "Node");
+
+    return _validateToSVRL (aSchematron, new DOMSource (aNode), AbstractPeppolUAETDDEvent.SOURCE_SIZE_UNKNOWN);
+  }
+
+  /**
+   * Validate an in-memory TDD with the provided Schematron. The JAXB object is directly converted
+   * into a DOM that is used as the input of the XSLT engine, so no serialization to a String and
+   * re-parsing is needed.<br>
+   * A <code>JAXBSource</code> that pipes the SAX events of the marshaller directly into the XSLT
+   * engine is deliberately not used: the XSLT engine builds a complete tree of the input anyway,
+   * because the Schematron rules navigate freely in the document, so the pipe would only save the
+   * intermediate DOM. In exchange it would bypass the XML Schema check of
+   * {@link PeppolUAETDD10Marshaller} and the DOM would no longer be available to determine the
+   * document ID for the JFR event.
+   *
+   * @param aSchematron
+   *        The Schematron to validate against. May not be <code>null</code>.
+   * @param aTDD
+   *        The TDD to validate. May not be <code>null</code>.
+   * @return The SVRL of the validation. May be <code>null</code> if the TDD could not be converted
+   *         to a DOM (e.g. because it is not XSD compliant) or in case of an error.
+   * @throws Exception
+   *         In case of an internal Schematron error
+   */
+  @Nullable
+  public static SchematronOutputType validate (@NonNull final ISchematronResource aSchematron,
+                                               @NonNull final TaxDataType aTDD) throws Exception
+  {
+    ValueEnforcer.notNull (aSchematron, "Schematron");
+    ValueEnforcer.notNull (aTDD, "TDD");
+
+    final Document aDoc = new PeppolUAETDD10Marshaller ().getAsDocument (aTDD);
+    if (aDoc == null)
+      return null;
+    return validate (aSchematron, aDoc);
+  }
+
+  /**
+   * Validate an in-memory TDD with the latest TDD 1.0.x Schematron.
+   *
+   * @param aTDD
+   *        The TDD to validate. May not be <code>null</code>.
+   * @return The SVRL of the validation. May be <code>null</code> if the TDD could not be converted
+   *         to a DOM or in case of an error.
+   * @throws Exception
+   *         In case of an internal Schematron error
+   * @see #getSchematronUAE_TDD_10()
+   */
+  @Nullable
+  public static SchematronOutputType validate (@NonNull final TaxDataType aTDD) throws Exception
+  {
+    return validate (getSchematronUAE_TDD_10 (), aTDD);
+  }
+
+  /**
+   * Validate a local TDD file with the provided Schematron. The file content is provided via
+   * {@link PeppolUAETDD10FileInput} and parsed via {@link #createSecureSource(InputStream, String)},
+   * so DOCTYPE declarations are rejected.
+   *
+   * @param aSchematron
+   *        The Schematron to validate against. May not be <code>null</code>.
+   * @param aPath
+   *        The file to read the TDD from. May not be <code>null</code>.
+   * @return The SVRL of the validation. May be <code>null</code> in case of an error.
+   * @throws IOException
+   *         If the file cannot be read
+   * @throws Exception
+   *         In case of an internal Schematron error
+   */
+  @Nullable
+  public static SchematronOutputType validate (@NonNull final ISchematronResource aSchematron,
+                                               @NonNull final Path aPath) throws Exception
+  {
+    ValueEnforcer.notNull (aSchematron, "Schematron");
+    ValueEnforcer.notNull (aPath, "Path");
+
+    return PeppolUAETDD10FileInput.apply (aPath,
+                                          (aIS, nSize) -> _validateToSVRL (aSchematron,
+                                                                           createSecureSource (aIS,
+                                                                                               aPath.toUri ()
+                                                                                                    .toString ()),
+                                                                           nSize));
+  }
+
+  /**
+   * Read, XSD validate, JAXB bind and Schematron validate a TDD with a single parsing run. The XSD
+   * validation is performed while parsing and the resulting DOM is shared between the JAXB binding
+   * and the Schematron validation. This is more efficient than calling
+   * <code>PeppolUAETDD10Marshaller.read</code> and
+   * <code>ISchematronResource.applySchematronValidationToSVRL</code> on the same resource, which
+   * parses it twice.
+   *
+   * @param aSchematron
+   *        The Schematron to validate against. May not be <code>null</code>.
+   * @param aRes
+   *        The resource to read the TDD from. May not be <code>null</code>.
+   * @return The combined result and never <code>null</code>. If parsing or XSD validation fails,
+   *         neither the JAXB binding nor the Schematron validation are executed.
+   * @throws Exception
+   *         In case of an internal Schematron error
+   */
+  @NonNull
+  public static PeppolUAETDDReadResult readAndValidate (@NonNull final ISchematronResource aSchematron,
+                                                        @NonNull final IReadableResource aRes) throws Exception
+  {
+    ValueEnforcer.notNull (aSchematron, "Schematron");
+    ValueEnforcer.notNull (aRes, "Resource");
+
+    // Parse once with XSD validation
+    final CollectingSAXErrorHandler aErrorHdl = new CollectingSAXErrorHandler ();
+    final Document aDoc = DOMReader.readXMLDOM (aRes, _createXSDValidatingSettings (aErrorHdl));
+    return _bindAndValidate (aSchematron, aDoc, aErrorHdl);
+  }
+
+  @NonNull
+  private static DOMReaderSettings _createXSDValidatingSettings (@NonNull final CollectingSAXErrorHandler aErrorHdl)
+  {
+    return new DOMReaderSettings ().setSchema (XMLSchemaCache.getInstance ()
+                                                             .getSchema (PeppolUAETDD10Marshaller.getAllXSDs ()))
+                                   .setErrorHandler (aErrorHdl);
+  }
+
+  @NonNull
+  private static PeppolUAETDDReadResult _bindAndValidate (@NonNull final ISchematronResource aSchematron,
+                                                          @Nullable final Document aDoc,
+                                                          @NonNull final CollectingSAXErrorHandler aErrorHdl) throws Exception
+  {
+    if (aDoc == null || aErrorHdl.getErrorList ().containsAtLeastOneError ())
+      return new PeppolUAETDDReadResult (aErrorHdl.getErrorList (), null, null);
+
+    // The document is already XSD validated
+    final TaxDataType aTDD = new PeppolUAETDD10Marshaller ().setUseSchema (false).read (aDoc);
+    if (aTDD == null)
+      return new PeppolUAETDDReadResult (aErrorHdl.getErrorList (), null, null);
+
+    // Run the Schematron on the same tree
+    final SchematronOutputType aSVRL = validate (aSchematron, aDoc);
+    return new PeppolUAETDDReadResult (aErrorHdl.getErrorList (), aTDD, aSVRL);
+  }
+
+  /**
+   * Read, XSD validate, JAXB bind and Schematron validate a TDD with a single parsing run, using
+   * the latest TDD 1.0.x Schematron.
+   *
+   * @param aRes
+   *        The resource to read the TDD from. May not be <code>null</code>.
+   * @return The combined result and never <code>null</code>.
+   * @throws Exception
+   *         In case of an internal Schematron error
+   * @see #readAndValidate(ISchematronResource, IReadableResource)
+   */
+  @NonNull
+  public static PeppolUAETDDReadResult readAndValidate (@NonNull final IReadableResource aRes) throws Exception
+  {
+    return readAndValidate (getSchematronUAE_TDD_10 (), aRes);
+  }
+
+  /**
+   * Read, XSD validate, JAXB bind and Schematron validate a local TDD file with a single parsing
+   * run. The file content is provided via {@link PeppolUAETDD10FileInput}.
+   *
+   * @param aSchematron
+   *        The Schematron to validate against. May not be <code>null</code>.
+   * @param aPath
+   *        The file to read the TDD from. May not be <code>null</code>.
+   * @return The combined result and never <code>null</code>.
+   * @throws IOException
+   *         If the file cannot be read
+   * @throws Exception
+   *         In case of an internal Schematron error
+   * @see #readAndValidate(ISchematronResource, IReadableResource)
+   */
+  @NonNull
+  public static PeppolUAETDDReadResult readAndValidate (@NonNull final ISchematronResource aSchematron,
+                                                        @NonNull final Path aPath) throws Exception
+  {
+    ValueEnforcer.notNull (aSchematron, "Schematron");
+    ValueEnforcer.notNull (aPath, "Path");
+
+    return PeppolUAETDD10FileInput.apply (aPath, (aIS, nSize) -> {
+      final CollectingSAXErrorHandler aErrorHdl = new CollectingSAXErrorHandler ();
+      final Document aDoc = DOMReader.readXMLDOM (aIS, _createXSDValidatingSettings (aErrorHdl));
+      return _bindAndValidate (aSchematron, aDoc, aErrorHdl);
+    });
+  }
+
+  /**
+   * Validate the provided source with the provided Schematron and only forward the failed
+   * assertions to the provided listener, while the validation is running. For XSLT based Schematron
+   * resources, the XSLT output is directly consumed as a stream of SAX events, so that neither an
+   * SVRL DOM nor SVRL JAXB objects are created.
+   *
+   * @param aSchematron
+   *        The Schematron to validate against. May not be <code>null</code>.
+   * @param aSource
+   *        The XML source to validate. May not be <code>null</code>. The source is passed to the
+   *        XSLT engine as is, so it must either be trusted or be created via
+   *        {@link #createSecureSource(InputStream, String)}. A plain <code>StreamSource</code> on
+   *        untrusted content is open to XXE attacks.
+   * @param aListener
+   *        The listener to be invoked for each failed assertion. May not be <code>null</code>.
+   * @return The number of failed assertions. 0 means the document is valid.
+   * @throws Exception
+   *         In case of an internal Schematron error
+   */
+  public static int validate (@NonNull final ISchematronResource aSchematron,
+                              @NonNull final Source aSource,
+                              @NonNull final IPeppolUAETDDFailedAssertionListener aListener) throws Exception
+  {
+    return _validate (aSchematron, aSource, aListener, AbstractPeppolUAETDDEvent.SOURCE_SIZE_UNKNOWN);
+  }
+
+  private static int _validate (@NonNull final ISchematronResource aSchematron,
+                                @NonNull final Source aSource,
+                                @NonNull final IPeppolUAETDDFailedAssertionListener aListener,
+                                final long nSourceSize) throws Exception
+  {
+    ValueEnforcer.notNull (aSchematron, "Schematron");
+    ValueEnforcer.notNull (aSource, "Source");
+    ValueEnforcer.notNull (aListener, "Listener");
+
+    final long nStart = PeppolUAETDDMetrics.startTimer ();
+    final PeppolUAETDDSchematronEvent aEvent = new PeppolUAETDDSchematronEvent ();
+    aEvent.begin ();
+    // Only wrap the listener if metrics are enabled, to avoid the allocation otherwise
+    final SVRLFailedAssertionSAXHandler aHandler = new SVRLFailedAssertionSAXHandler (PeppolUAETDDMetrics.isEnabled () ? new IPeppolUAETDDFailedAssertionListener ()
+    {
+      public void onFailedAssertion (@NonNull final PeppolUAETDDFailedAssertion aFailedAssertion)
+      {
+        PeppolUAETDDMetrics.onFailedAssertion (aFailedAssertion.getID ());
+        aListener.onFailedAssertion (aFailedAssertion);
+      }
+
+      public void onFiredRule (@NonNull final String sContext)
+      {
+        aListener.onFiredRule (sContext);
+      }
+    } : aListener);
+    boolean bSuccess = false;
+    try
+    {
+      if (aSchematron instanceof AbstractSchematronXSLTBasedResource <?>)
+      {
+        final ISchematronXSLTBasedProvider aXSLTProvider = ((AbstractSchematronXSLTBasedResource <?>) aSchematron).getXSLTProvider ();
+        if (aXSLTProvider == null || !aXSLTProvider.isValidSchematron ())
+          throw new IllegalStateException ("The Schematron '" + aSchematron.getID () + "' is invalid");
+
+        // Stream the SVRL events into the handler
+        final Transformer aTransformer = aXSLTProvider.getXSLTTransformer ();
+        aTransformer.transform (aSource, new SAXResult (aHandler));
+      }
+      else
+      {
+        // Fallback for non-XSLT based Schematrons
+        final Document aSVRL = aSchematron.applySchematronValidation (aSource);
+        if (aSVRL == null)
+          throw new IllegalStateException ("Failed to apply Schematron '" + aSchematron.getID () + "'");
+        XMLTransformerFactory.newTransformer ().transform (new DOMSource (aSVRL), new SAXResult (aHandler));
+      }
+      PeppolUAETDDMetrics.recordLatency (EUAETDDMetricsStage.SCHEMATRON_VALIDATION, nStart);
+      bSuccess = true;
+      return aHandler.getFailedAssertionCount ();
+    }
+    finally
+    {
+      if (!bSuccess)
+        PeppolUAETDDMetrics.onStageFailed (EUAETDDMetricsStage.SCHEMATRON_VALIDATION);
+      if (aEvent.isEnabled ())
+        _commitEvent (aEvent,
+                      aSchematron,
+                      aSource instanceof DOMSource ? ((DOMSource) aSource).getNode () : null,
+                      nSourceSize,
+                      bSuccess ? aHandler.getFailedAssertionCount () : -1);
+    }
+  }
+
+  /**
+   * Validate an existing DOM node and forward only the failed assertions to the provided listener.
+   *
+   * @param aSchematron
+   *        The Schematron to validate against. May not be <code>null</code>.
+   * @param aNode
+   *        The DOM node to validate. May not be <code>null</code>.
+   * @param aListener
+   *        The listener to be invoked for each failed assertion. May not be <code>null</code>.
+   * @return The number of failed assertions. 0 means the document is valid.
+   * @throws Exception
+   *         In case of an internal Schematron error
+   * @see #validate(ISchematronResource, Source, IPeppolUAETDDFailedAssertionListener)
+   */
+  public static int validate (@NonNull final ISchematronResource aSchematron,
+                              @NonNull final Node aNode,
+                              @NonNull final IPeppolUAETDDFailedAssertionListener aListener) throws Exception
+  {
+    ValueEnforcer.notNull (aNode, "Node");
+    return validate (aSchematron, new DOMSource (aNode), aListener);
+  }
+
+  /**
+   * Validate an in-memory TDD and forward only the failed assertions to the provided listener.
+   *
+   * @param aSchematron
+   *        The Schematron to validate against. May not be <code>null</code>.
+   * @param aTDD
+   *        The TDD to validate. May not be <code>null</code>.
+   * @param aListener
+   *        The listener to be invoked for each failed assertion. May not be <code>null</code>.
+   * @return The number of failed assertions. 0 means the document is valid.
+   * @throws Exception
+   *         In case of an internal Schematron error
+   * @throws IllegalArgumentException
+   *         If the TDD could not be converted to a DOM
+   * @see #validate(ISchematronResource, Source, IPeppolUAETDDFailedAssertionListener)
+   */
+  public static int validate (@NonNull final ISchematronResource aSchematron,
+                              @NonNull final TaxDataType aTDD,
+                              @NonNull final IPeppolUAETDDFailedAssertionListener aListener) throws Exception
+  {
+    ValueEnforcer.notNull (aTDD, "TDD");
+
+    final Document aDoc = new PeppolUAETDD10Marshaller ().getAsDocument (aTDD);
+    if (aDoc == null)
+      throw new IllegalArgumentException ("The provided TDD could not be converted to a DOM");
+    return validate (aSchematron, aDoc, aListener);
+  }
+
+  /**
+   * Validate the provided resource and forward only the failed assertions to the provided
+   * listener. The resource is parsed via {@link #createSecureSource(InputStream, String)}, so
+   * DOCTYPE declarations are rejected.
+   *
+   * @param aSchematron
+   *        The Schematron to validate against. May not be <code>null</code>.
+   * @param aRes
+   *        The resource to read the TDD from. May not be <code>null</code>.
+   * @param aListener
+   *        The listener to be invoked for each failed assertion. May not be <code>null</code>.
+   * @return The number of failed assertions. 0 means the document is valid.
+   * @throws Exception
+   *         In case of an internal Schematron error
+   * @throws IllegalArgumentException
+   *         If the resource could not be opened
+   * @see #validate(ISchematronResource, Source, IPeppolUAETDDFailedAssertionListener)
+   */
+  public static int validate (@NonNull final ISchematronResource aSchematron,
+                              @NonNull final IReadableResource aRes,
+                              @NonNull final IPeppolUAETDDFailedAssertionListener aListener) throws Exception
+  {
+    ValueEnforcer.notNull (aRes, "Resource");
+
+    try (final InputStream aIS = aRes.getInputStream ())
+    {
+      if (aIS == null)
+        throw new IllegalArgumentException ("Failed to open '" + aRes.getPath () + "' for reading");
+      return validate (aSchematron, createSecureSource (aIS, aRes.getResourceID ()), aListener);
+    }
+  }
+
+  /**
+   * Validate a local TDD file and forward only the failed assertions to the provided listener. The
+   * file content is provided via {@link PeppolUAETDD10FileInput} and parsed via
+   * {@link #createSecureSource(InputStream, String)}, so DOCTYPE declarations are rejected.
+   *
+   * @param aSchematron
+   *        The Schematron to validate against. May not be <code>null</code>.
+   * @param aPath
+   *        The file to read the TDD from. May not be <code>null</code>.
+   * @param aListener
+   *        The listener to be invoked for each failed assertion. May not be <code>null</code>.
+   * @return The number of failed assertions. 0 means the document is valid.
+   * @throws IOException
+   *         If the file cannot be read
+   * @throws Exception
+   *         In case of an internal Schematron error
+   * @see #validate(ISchematronResource, Source, IPeppolUAETDDFailedAssertionListener)
+   */
+  public static int validate (@NonNull final ISchematronResource aSchematron,
+                              @NonNull final Path aPath,
+                              @NonNull final IPeppolUAETDDFailedAssertionListener aListener) throws Exception
+  {
+    ValueEnforcer.notNull (aPath, "Path");
+
+    return PeppolUAETDD10FileInput.apply (aPath,
+                                          (aIS, nSize) -> _validate (aSchematron,
+                                                                     createSecureSource (aIS, aPath.toUri ().toString ()),
+                                                                     aListener,
+                                                                     nSize));
+  }
+
+  /**
+   * Get all failed assertions of the provided resource, without creating an SVRL document.
+   *
+   * @param aSchematron
+   *        The Schematron to validate against. May not be <code>null</code>.
+   * @param aRes
+   *        The resource to read the TDD from. May not be <code>null</code>.
+   * @return A non-<code>null</code> but maybe empty list of all failed assertions in document
+   *         order.
+   * @throws Exception
+   *         In case of an internal Schematron error
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public static ICommonsList <PeppolUAETDDFailedAssertion> getAllFailedAssertions (@NonNull final ISchematronResource aSchematron,
+                                                                                  @NonNull final IReadableResource aRes) throws Exception
+  {
+    final ICommonsList <PeppolUAETDDFailedAssertion> ret = new CommonsArrayList <> ();
+    validate (aSchematron, aRes, ret::add);
+    return ret;
+  }
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.validate;
+
+import org.jspecify.annotations.NonNull;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+import com.helger.annotation.concurrent.NotThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+
+/**
+ * A SAX handler that receives the SVRL events created by the Schematron XSLT and only forwards the
+ * fired rules, failed assertions and successful reports to an
+ * {@link IPeppolUAETDDFailedAssertionListener}.
+ * Everything else is discarded, so no SVRL tree is ever built.
+ *
+ * @author Philip Helger
+ */
+@NotThreadSafe
+final class SVRLFailedAssertionSAXHandler extends DefaultHandler
+{
+  static final String SVRL_NS = "http://purl.oclc.org/dsdl/svrl";
+
+  private final IPeppolUAETDDFailedAssertionListener m_aListener;
+  private int m_nCount = 0;
+
+  // State of the current failed-assert or successful-report
+  private boolean m_bInAssert = false;
+  private boolean m_bInText = false;
+  private String m_sID;
+  private String m_sFlag;
+  private String m_sLocation;
+  private String m_sTest;
+  private final StringBuilder m_aText = new StringBuilder ();
+
+  SVRLFailedAssertionSAXHandler (@NonNull final IPeppolUAETDDFailedAssertionListener aListener)
+  {
+    ValueEnforcer.notNull (aListener, "Listener");
+    m_aListener = aListener;
+  }
+
+  private static boolean _isAssert (final String sNamespaceURI, final String sLocalName)
+  {
+    return SVRL_NS.equals (sNamespaceURI) &&
+           ("failed-assert".equals (sLocalName) || "successful-report".equals (sLocalName));
+  }
+
+  @Override
+  public void startElement (final String sNamespaceURI,
+                            final String sLocalName,
+                            final String sQName,
+                            final Attributes aAttrs)
+  {
+    if (_isAssert (sNamespaceURI, sLocalName))
+    {
+      m_bInAssert = true;
+      m_sID = aAttrs.getValue ("id");
+      m_sFlag = aAttrs.getValue ("flag");
+      m_sLocation = aAttrs.getValue ("location");
+      m_sTest = aAttrs.getValue ("test");
+      m_aText.setLength (0);
+    }
+    else
+      if (SVRL_NS.equals (sNamespaceURI) && "fired-rule".equals (sLocalName))
+      {
+        final String sContext = aAttrs.getValue ("context");
+        m_aListener.onFiredRule (sContext == null ? "" : sContext);
+      }
+      else
+        if (m_bInAssert && SVRL_NS.equals (sNamespaceURI) && "text".equals (sLocalName))
+          m_bInText = true;
+  }
+
+  @Override
+  public void characters (final char [] aChars, final int nStart, final int nLength)
+  {
+    if (m_bInText)
+      m_aText.append (aChars, nStart, nLength);
+  }
+
+  @Override
+  public void endElement (final String sNamespaceURI, final String sLocalName, final String sQName)
+  {
+    if (m_bInText && SVRL_NS.equals (sNamespaceURI) && "text".equals (sLocalName))
+      m_bInText = false;
+    else
+      if (_isAssert (sNamespaceURI, sLocalName))
+      {
+        m_bInAssert = false;
+        m_nCount++;
+        final String sText = m_aText.toString ().replaceAll ("\\s+", " ").trim ();
+        m_aListener.onFailedAssertion (new PeppolUAETDDFailedAssertion (m_sID,
+                                                                        m_sFlag,
+                                                                        m_sLocation,
+                                                                        m_sTest,
+                                                                        sText));
+      }
+  }
+
+  /**
+   * @return The number of failed assertions and successful reports that were forwarded.
+   */
+  int getFailedAssertionCount ()
+  {
+    return m_nCount;
+  }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import com.helger.base.io.stream.StreamHelper;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.io.resource.ClassPathResource;
+import com.helger.peppol.uae.tdd.codelist.EUAETDDDocumentScope;
+import com.helger.peppol.uae.tdd.codelist.EUAETDDDocumentTypeCode;
+import com.helger.peppol.uae.tdd.codelist.EUAETDDReporterRole;
+import com.helger.peppol.uae.tdd.jaxb.PeppolUAETDD10HeaderReader;
+import com.helger.peppol.uae.tdd.jaxb.PeppolUAETDD10Marshaller;
+import com.helger.peppol.uae.tdd.jaxb.PeppolUAETDD10SourceDocumentExtractor;
+import com.helger.peppol.uae.tdd.testfiles.PeppolUAETestFiles;
+import com.helger.peppol.uae.tdd.v100.ReportedDocumentType;
+import com.helger.peppol.uae.tdd.v100.ReportedTransactionType;
+import com.helger.peppol.uae.tdd.v100.TaxDataType;
+import com.helger.peppol.uae.tdd.validate.PeppolUAETDDValidator;
+import com.helger.peppolid.factory.IIdentifierFactory;
+import com.helger.peppolid.factory.PeppolIdentifierFactory;
+import com.helger.schematron.svrl.SVRLHelper;
+import com.helger.schematron.svrl.jaxb.SchematronOutputType;
+import com.helger.ubl21.UBL21Marshaller;
+import com.helger.xml.serialize.read.DOMReader;
+
+import oasis.names.specification.ubl.schema.xsd.creditnote_21.CreditNoteType;
+import oasis.names.specification.ubl.schema.xsd.invoice_21.InvoiceType;
+
+/**
+ * Test class for class {@link PeppolUAETDD10FailedTDDCreator}.
+ *
+ * @author Philip Helger
+ */
+public final class PeppolUAETDD10FailedTDDCreatorTest
+{
+  private static PeppolUAETDD10Builder _createBuilder ()
+  {
+    final IIdentifierFactory aIF = PeppolIdentifierFactory.INSTANCE;
+    return new PeppolUAETDD10Builder ().documentTypeCode (EUAETDDDocumentTypeCode.FAILED)
+                                       .documentScope (EUAETDDDocumentScope.DOMESTIC)
+                                       .reporterRole (EUAETDDReporterRole.SENDER)
+                                       .reportingParty (aIF.createParticipantIdentifierWithDefaultScheme ("0235:c1id"))
+                                       .receivingParty (aIF.createParticipantIdentifierWithDefaultScheme ("0242:c5id"))
+                                       .reportersRepresentative (aIF.createParticipantIdentifierWithDefaultScheme ("0242:987654"));
+  }
+
+  private static void _assertSchematronValid (final TaxDataType aTDD) throws Exception
+  {
+    final SchematronOutputType aSVRL = PeppolUAETDDValidator.validate (PeppolUAETDDValidator.getSchematronUAE_TDD_10 (),
+                                                                       aTDD);
+    assertNotNull (aSVRL);
+    assertEquals (new CommonsArrayList <> (), SVRLHelper.getAllFailedAssertions (aSVRL));
+  }
+
+  private static void _assertSameReportedDocument (final ReportedDocumentType aExpected,
+                                                   final ReportedDocumentType aActual)
+  {
+    assertEquals (aExpected.getCustomizationIDValue (), aActual.getCustomizationIDValue ());
+    assertEquals (aExpected.getProfileIDValue (), aActual.getProfileIDValue ());
+    assertEquals (aExpected.getIDValue (), aActual.getIDValue ());
+    assertEquals (aExpected.getUUIDValue (), aActual.getUUIDValue ());
+    assertEquals (aExpected.getIssueDateValueLocal (), aActual.getIssueDateValueLocal ());
+    assertEquals (aExpected.getDocumentCurrencyCodeValue (), aActual.getDocumentCurrencyCodeValue ());
+    assertEquals (aExpected.getTaxCurrencyCodeValue (), aActual.getTaxCurrencyCodeValue ());
+    assertEquals (aExpected.getTaxTotalCount (), aActual.getTaxTotalCount ());
+  }
+
+  private static void _testWellFormed (final byte [] aSourceBytes,
+                                       final ReportedTransactionType aExpectedRT) throws Exception
+  {
+    final PeppolUAETDD10RawSourceDocument aRaw = PeppolUAETDD10RawSourceDocument.scan (aSourceBytes);
+    assertTrue (aRaw.isWellFormed ());
+    assertTrue (aRaw.isEmbeddable ());
+
+    final byte [] aTDDBytes = PeppolUAETDD10FailedTDDCreator.createFailedTDD (_createBuilder (),
+                                                                              aRaw,
+                                                                              rt -> rt.transportHeaderID ("my-sbdh-uuid-12345678"));
+    assertNotNull (aTDDBytes);
+    assertFalse (new String (aTDDBytes, StandardCharsets.UTF_8).contains (PeppolUAETDD10FailedTDDCreator.PLACEHOLDER_ATTR));
+
+    final TaxDataType aTDD = new PeppolUAETDD10Marshaller ().read (aTDDBytes);
+    assertNotNull (aTDD);
+    final ReportedTransactionType aRT = aTDD.getReportedTransactionAtIndex (0);
+    assertEquals ("my-sbdh-uuid-12345678", aRT.getTransportHeaderIDValue ());
+    _assertSameReportedDocument (aExpectedRT.getReportedDocument (), aRT.getReportedDocument ());
+    _assertSchematronValid (aTDD);
+
+    // The embedded source document is the original one
+    final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+    assertTrue (new PeppolUAETDD10SourceDocumentExtractor ().extract (new ByteArrayInputStream (aTDDBytes), aBAOS)
+                                                           .isSuccess ());
+    final Document aExtracted = DOMReader.readXMLDOM (aBAOS.toByteArray ());
+    final Document aOriginal = DOMReader.readXMLDOM (aSourceBytes);
+    assertNotNull (aExtracted);
+    assertNotNull (aOriginal);
+    final Element eOriginal = aOriginal.getDocumentElement ();
+    final Element eExtracted = aExtracted.getDocumentElement ();
+    assertEquals (eOriginal.getNamespaceURI (), eExtracted.getNamespaceURI ());
+    assertEquals (eOriginal.getLocalName (), eExtracted.getLocalName ());
+    assertEquals (eOriginal.getElementsByTagNameNS ("*", "*").getLength (),
+                  eExtracted.getElementsByTagNameNS ("*", "*").getLength ());
+    assertEquals (eOriginal.getTextContent (), eExtracted.getTextContent ());
+  }
+
+  @Test
+  public void testGoodInvoices () throws Exception
+  {
+    for (final ClassPathResource aRes : PeppolUAETestFiles.getAllGoodBillingInvoiceFiles ())
+    {
+      final byte [] aBytes = StreamHelper.getAllBytes (aRes);
+      assertNotNull (aBytes);
+      final InvoiceType aInvoice = UBL21Marshaller.invoice ().read (aBytes);
+      assertNotNull (aRes.getPath (), aInvoice);
+
+      final ReportedTransactionType aExpectedRT = new PeppolUAETDD10ReportedTransactionBuilder (EUAETDDDocumentTypeCode.FAILED).initFromInvoice (aInvoice)
+                                                                                                                              .build ();
+      assertNotNull (aExpectedRT);
+      _testWellFormed (aBytes, aExpectedRT);
+    }
+  }
+
+  @Test
+  public void testGoodCreditNotes () throws Exception
+  {
+    for (final ClassPathResource aRes : PeppolUAETestFiles.getAllGoodBillingCreditNoteFiles ())
+    {
+      final byte [] aBytes = StreamHelper.getAllBytes (aRes);
+      assertNotNull (aBytes);
+      final CreditNoteType aCreditNote = UBL21Marshaller.creditNote ().read (aBytes);
+      assertNotNull (aRes.getPath (), aCreditNote);
+
+      final ReportedTransactionType aExpectedRT = new PeppolUAETDD10ReportedTransactionBuilder (EUAETDDDocumentTypeCode.FAILED).initFromCreditNote (aCreditNote)
+                                                                                                                              .build ();
+      assertNotNull (aExpectedRT);
+      _testWellFormed (aBytes, aExpectedRT);
+    }
+  }
+
+  @Test
+  public void testTruncatedInvoices () throws Exception
+  {
+    for (final ClassPathResource aRes : PeppolUAETestFiles.getAllGoodBillingInvoiceFiles ())
+    {
+      final byte [] aFullBytes = StreamHelper.getAllBytes (aRes);
+      assertNotNull (aFullBytes);
+      final byte [] aBytes = Arrays.copyOf (aFullBytes, aFullBytes.length / 2);
+
+      final PeppolUAETDD10RawSourceDocument aRaw = PeppolUAETDD10RawSourceDocument.scan (aBytes);
+      assertFalse (aRaw.isWellFormed ());
+      assertFalse (aRaw.isEmbeddable ());
+      assertNull (aRaw.getEmbeddableXML ());
+      assertEquals ("Invoice", aRaw.getRootElementName ().getLocalPart ());
+      // The header fields are at the beginning
+      assertNotNull (aRaw.getField ("ID"));
+      assertNotNull (aRaw.getField ("IssueDate"));
+
+      final byte [] aTDDBytes = PeppolUAETDD10FailedTDDCreator.createFailedTDD (_createBuilder (), aBytes, null);
+      assertNotNull (aRes.getPath (), aTDDBytes);
+
+      final TaxDataType aTDD = new PeppolUAETDD10Marshaller ().read (aTDDBytes);
+      assertNotNull (aTDD);
+      final ReportedTransactionType aRT = aTDD.getReportedTransactionAtIndex (0);
+      if (aRT.getReportedDocument () != null)
+        assertEquals (aRaw.getField ("ID"), aRT.getReportedDocument ().getIDValue ());
+
+      // The raw bytes are contained as an embedded document
+      final Element eSource = (Element) aRT.getSourceDocument ().getExtensionContent ().getAny ();
+      assertEquals ("Invoice", eSource.getLocalName ());
+      final Element eBinary = (Element) eSource.getElementsByTagNameNS (PeppolUAETDD10HeaderReader.NS_CBC,
+                                                                        "EmbeddedDocumentBinaryObject")
+                                               .item (0);
+      assertNotNull (eBinary);
+      assertArrayEquals (aBytes, Base64.getMimeDecoder ().decode (eBinary.getTextContent ()));
+    }
+  }
+
+  @Test
+  public void testNotXML () throws Exception
+  {
+    final byte [] aBytes = "This is not XML <at> all".getBytes (StandardCharsets.UTF_8);
+    final PeppolUAETDD10RawSourceDocument aRaw = PeppolUAETDD10RawSourceDocument.scan (aBytes);
+    assertFalse (aRaw.isWellFormed ());
+    assertNull (aRaw.getRootElementName ());
+
+    final byte [] aTDDBytes = PeppolUAETDD10FailedTDDCreator.createFailedTDD (_createBuilder (), aRaw, null);
+    assertNotNull (aTDDBytes);
+    final TaxDataType aTDD = new PeppolUAETDD10Marshaller ().read (aTDDBytes);
+    assertNotNull (aTDD);
+    assertNull (aTDD.getReportedTransactionAtIndex (0).getReportedDocument ());
+    _assertSchematronValid (aTDD);
+  }
+
+  @Test
+  public void testNotEmbeddable ()
+  {
+    // DTDs cannot be embedded
+    final String sDTD = "<?xml version='1.0'?><!DOCTYPE Invoice []><Invoice xmlns='urn:oasis:names:specification:ubl:schema:xsd:Invoice-2'/>";
+    PeppolUAETDD10RawSourceDocument aRaw = PeppolUAETDD10RawSourceDocument.scan (sDTD.getBytes (StandardCharsets.UTF_8));
+    assertFalse (aRaw.isEmbeddable ());
+
+    // Elements without a namespace cannot be embedded
+    final String sNoNS = "<Invoice xmlns='urn:oasis:names:specification:ubl:schema:xsd:Invoice-2'><ID xmlns=''>1</ID></Invoice>";
+    aRaw = PeppolUAETDD10RawSourceDocument.scan (sNoNS.getBytes (StandardCharsets.UTF_8));
+    assertTrue (aRaw.isWellFormed ());
+    assertFalse (aRaw.isEmbeddable ());
+    assertEquals ("1", aRaw.getField ("ID"));
+
+    // Other root elements cannot be embedded
+    aRaw = PeppolUAETDD10RawSourceDocument.scan ("<Order xmlns='urn:oasis:names:specification:ubl:schema:xsd:Order-2'/>".getBytes (StandardCharsets.UTF_8));
+    assertTrue (aRaw.isWellFormed ());
+    assertFalse (aRaw.isEmbeddable ());
+  }
+}
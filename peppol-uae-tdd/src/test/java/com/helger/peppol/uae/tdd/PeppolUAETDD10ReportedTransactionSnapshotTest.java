@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Test;
+
+import com.helger.base.io.stream.StreamHelper;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.io.resource.ClassPathResource;
+import com.helger.peppol.uae.tdd.codelist.EUAETDDDocumentScope;
+import com.helger.peppol.uae.tdd.codelist.EUAETDDDocumentTypeCode;
+import com.helger.peppol.uae.tdd.codelist.EUAETDDReporterRole;
+import com.helger.peppol.uae.tdd.testfiles.PeppolUAETestFiles;
+import com.helger.peppol.uae.tdd.v100.ReportedDocumentType;
+import com.helger.peppol.uae.tdd.v100.ReportedTransactionType;
+import com.helger.peppol.uae.tdd.v100.TaxDataType;
+import com.helger.peppol.uae.tdd.validate.PeppolUAETDDValidator;
+import com.helger.peppolid.factory.IIdentifierFactory;
+import com.helger.peppolid.factory.PeppolIdentifierFactory;
+import com.helger.schematron.svrl.SVRLHelper;
+import com.helger.schematron.svrl.jaxb.SchematronOutputType;
+import com.helger.ubl21.UBL21Marshaller;
+
+import oasis.names.specification.ubl.schema.xsd.invoice_21.InvoiceType;
+
+/**
+ * Test class for class {@link PeppolUAETDD10ReportedTransactionSnapshot}.
+ *
+ * @author Philip Helger
+ */
+public final class PeppolUAETDD10ReportedTransactionSnapshotTest
+{
+  private static void _assertSameReportedDocument (final ReportedTransactionType aExpected,
+                                                   final ReportedTransactionType aActual)
+  {
+    final ReportedDocumentType aExpectedRD = aExpected.getReportedDocument ();
+    final ReportedDocumentType aActualRD = aActual.getReportedDocument ();
+    assertNotNull (aExpectedRD);
+    assertNotNull (aActualRD);
+    assertEquals (aExpectedRD.getIDValue (), aActualRD.getIDValue ());
+    assertEquals (aExpectedRD.getUUIDValue (), aActualRD.getUUIDValue ());
+    assertEquals (aExpectedRD.getIssueDateValueLocal (), aActualRD.getIssueDateValueLocal ());
+    assertEquals (aExpectedRD.getDocumentCurrencyCodeValue (), aActualRD.getDocumentCurrencyCodeValue ());
+    assertEquals (aExpectedRD.getTaxTotalCount (), aActualRD.getTaxTotalCount ());
+    assertEquals (aExpected.getCustomContentCount (), aActual.getCustomContentCount ());
+  }
+
+  @Test
+  public void testWithdrawFromAllInvoices () throws Exception
+  {
+    final IIdentifierFactory aIF = PeppolIdentifierFactory.INSTANCE;
+
+    for (final ClassPathResource aRes : PeppolUAETestFiles.getAllGoodBillingInvoiceFiles ())
+    {
+      final byte [] aInvoiceBytes = StreamHelper.getAllBytes (aRes);
+      assertNotNull (aInvoiceBytes);
+      final InvoiceType aInvoice = UBL21Marshaller.invoice ().read (aInvoiceBytes);
+      assertNotNull (aInvoice);
+
+      final PeppolUAETDD10ReportedTransactionBuilder aSubmitBuilder = new PeppolUAETDD10ReportedTransactionBuilder (EUAETDDDocumentTypeCode.SUBMIT).initFromInvoice (aInvoice);
+      final ReportedTransactionType aSubmitRT = aSubmitBuilder.build ();
+      assertNotNull (aSubmitRT);
+
+      // Binary round trip
+      final PeppolUAETDD10ReportedTransactionSnapshot aSnapshot;
+      {
+        final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+        try (final DataOutputStream aDOS = new DataOutputStream (aBAOS))
+        {
+          PeppolUAETDD10ReportedTransactionSnapshot.createFrom (aSubmitBuilder, aRes.getPath ()).writeTo (aDOS);
+        }
+        try (final DataInputStream aDIS = new DataInputStream (new ByteArrayInputStream (aBAOS.toByteArray ())))
+        {
+          aSnapshot = PeppolUAETDD10ReportedTransactionSnapshot.readFrom (aDIS);
+        }
+      }
+      assertEquals (EUAETDDDocumentTypeCode.SUBMIT, aSnapshot.getOriginalDocumentTypeCode ());
+      assertEquals (aRes.getPath (), aSnapshot.getSourceDocumentReference ());
+      assertEquals (aSubmitBuilder.uuid (), aSnapshot.getUUID ());
+
+      final PeppolUAETDD10ReportedTransactionBuilder aWithdrawBuilder = aSnapshot.createBuilder (EUAETDDDocumentTypeCode.WITHDRAW,
+                                                                                                  aInvoiceBytes);
+      assertEquals (EUAETDDDocumentTypeCode.WITHDRAW, aWithdrawBuilder.tddDocumentTypeCode ());
+      final ReportedTransactionType aWithdrawRT = aWithdrawBuilder.build ();
+      assertNotNull (aWithdrawRT);
+      _assertSameReportedDocument (aSubmitRT, aWithdrawRT);
+
+      // Create a complete TDD and validate it
+      final TaxDataType aTDD = new PeppolUAETDD10Builder ().documentTypeCode (EUAETDDDocumentTypeCode.WITHDRAW)
+                                                           .documentScope (EUAETDDDocumentScope.DOMESTIC)
+                                                           .reporterRole (EUAETDDReporterRole.SENDER)
+                                                           .reportingParty (aIF.createParticipantIdentifierWithDefaultScheme ("0235:c1id"))
+                                                           .receivingParty (aIF.createParticipantIdentifierWithDefaultScheme ("0242:c5id"))
+                                                           .reportersRepresentative (aIF.createParticipantIdentifierWithDefaultScheme ("0242:987654"))
+                                                           .reportedTransaction (rt -> aSnapshot.applyTo (rt,
+                                                                                                          aInvoiceBytes))
+                                                           .build ();
+      assertNotNull (aTDD);
+      final SchematronOutputType aSVRL = PeppolUAETDDValidator.validate (PeppolUAETDDValidator.getSchematronUAE_TDD_10 (),
+                                                                         aTDD);
+      assertNotNull (aSVRL);
+      assertEquals (new CommonsArrayList <> (), SVRLHelper.getAllFailedAssertions (aSVRL));
+    }
+  }
+
+  @Test
+  public void testJavaSerialization () throws Exception
+  {
+    final PeppolUAETDD10ReportedTransactionBuilder aBuilder = new PeppolUAETDD10ReportedTransactionBuilder (EUAETDDDocumentTypeCode.SUBMIT).id ("inv1")
+                                                                                                                                        .uuid ("19e2c9a3-b000-4fb0-9bd5-a9c4ebda2358")
+                                                                                                                                        .addCustomContent (new PeppolUAETDD10ReportedTransactionBuilder.CustomContent ("ID1",
+                                                                                                                                                                                                                       "val1"));
+    final PeppolUAETDD10ReportedTransactionSnapshot aSnapshot = PeppolUAETDD10ReportedTransactionSnapshot.createFrom (aBuilder,
+                                                                                                                      "ref1");
+
+    final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+    try (final ObjectOutputStream aOOS = new ObjectOutputStream (aBAOS))
+    {
+      aOOS.writeObject (aSnapshot);
+    }
+    final PeppolUAETDD10ReportedTransactionSnapshot aRead;
+    try (final ObjectInputStream aOIS = new ObjectInputStream (new ByteArrayInputStream (aBAOS.toByteArray ())))
+    {
+      aRead = (PeppolUAETDD10ReportedTransactionSnapshot) aOIS.readObject ();
+    }
+    assertEquals ("inv1", aRead.getID ());
+    assertEquals ("ref1", aRead.getSourceDocumentReference ());
+
+    final PeppolUAETDD10ReportedTransactionBuilder aNewBuilder = aRead.applyTo (new PeppolUAETDD10ReportedTransactionBuilder (EUAETDDDocumentTypeCode.RESUBMIT));
+    assertEquals ("inv1", aNewBuilder.id ());
+    assertEquals ("19e2c9a3-b000-4fb0-9bd5-a9c4ebda2358", aNewBuilder.uuid ());
+    assertEquals (1, aNewBuilder.customContents ().size ());
+    assertTrue (aNewBuilder.sourceDocument () == null);
+  }
+
+  @Test
+  public void testBinaryLongStrings () throws Exception
+  {
+    // Exceeds the 64 KB limit of DataOutput.writeUTF
+    final String sLongValue = "\u00e4".repeat (40_000);
+    final PeppolUAETDD10ReportedTransactionBuilder aBuilder = new PeppolUAETDD10ReportedTransactionBuilder (EUAETDDDocumentTypeCode.SUBMIT).id ("inv1")
+                                                                                                                                        .addCustomContent (new PeppolUAETDD10ReportedTransactionBuilder.CustomContent ("ID1",
+                                                                                                                                                                                                                       sLongValue));
+    final PeppolUAETDD10ReportedTransactionSnapshot aSnapshot = PeppolUAETDD10ReportedTransactionSnapshot.createFrom (aBuilder,
+                                                                                                                      null);
+
+    final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+    try (final DataOutputStream aDOS = new DataOutputStream (aBAOS))
+    {
+      aSnapshot.writeTo (aDOS);
+    }
+    final PeppolUAETDD10ReportedTransactionSnapshot aRead;
+    try (final DataInputStream aDIS = new DataInputStream (new ByteArrayInputStream (aBAOS.toByteArray ())))
+    {
+      aRead = PeppolUAETDD10ReportedTransactionSnapshot.readFrom (aDIS);
+    }
+    assertEquals ("inv1", aRead.getID ());
+    assertNull (aRead.getSourceDocumentReference ());
+
+    final PeppolUAETDD10ReportedTransactionBuilder aNewBuilder = aRead.applyTo (new PeppolUAETDD10ReportedTransactionBuilder (EUAETDDDocumentTypeCode.RESUBMIT));
+    assertEquals (1, aNewBuilder.customContents ().size ());
+    assertEquals (sLongValue, aNewBuilder.customContents ().getFirstOrNull ().getValue ());
+  }
+}
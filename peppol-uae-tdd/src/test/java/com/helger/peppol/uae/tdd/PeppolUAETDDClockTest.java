@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.TimeZone;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.helger.datetime.helper.PDTConfig;
+
+/**
+ * Test class for class {@link PeppolUAETDDClock}.
+ *
+ * @author Philip Helger
+ */
+public final class PeppolUAETDDClockTest
+{
+  @After
+  public void after ()
+  {
+    PeppolUAETDDClock.setCustomClock (null);
+  }
+
+  @Test
+  public void testCustomClock ()
+  {
+    assertTrue (PeppolUAETDDClock.isSystemClock ());
+    assertNull (PeppolUAETDDClock.getCustomClock ());
+
+    final Clock aFixed = Clock.fixed (Instant.parse ("2020-02-29T10:15:30.123456Z"), ZoneOffset.ofHours (4));
+    PeppolUAETDDClock.setCustomClock (aFixed);
+    assertFalse (PeppolUAETDDClock.isSystemClock ());
+    assertEquals (LocalDate.of (2020, 2, 29), PeppolUAETDDClock.getCurrentLocalDate ());
+    assertEquals (14, PeppolUAETDDClock.getCurrentOffsetTime ().getHour ());
+    assertEquals (ZoneOffset.ofHours (4), PeppolUAETDDClock.getCurrentOffsetDateTime ().getOffset ());
+
+    // Used by the builder
+    final PeppolUAETDD10Builder aBuilder = new PeppolUAETDD10Builder ();
+    assertEquals (LocalDate.of (2020, 2, 29), aBuilder.issueDate ());
+    // Only milliseconds are kept
+    assertEquals (123_000_000, aBuilder.issueTime ().getNano ());
+
+    // A restore keeps the custom clock
+    PeppolUAETDDClock.refreshDefaultZone (false);
+    assertSame (aFixed, PeppolUAETDDClock.getCustomClock ());
+
+    PeppolUAETDDClock.setCustomClock (null);
+    assertTrue (PeppolUAETDDClock.isSystemClock ());
+    assertNotEquals (LocalDate.of (2020, 2, 29), new PeppolUAETDD10Builder ().issueDate ());
+  }
+
+  @Test
+  public void testRefreshDefaultZone ()
+  {
+    final TimeZone aOldTimeZone = TimeZone.getDefault ();
+    final String sOldProperty = System.getProperty ("user.timezone");
+    final ZoneId aOldPDTZone = PDTConfig.getDefaultZoneId ();
+    final boolean bPDTFollowsSystem = aOldPDTZone.equals (aOldTimeZone.toZoneId ());
+    final ZoneId aNewZone = ZoneId.of (aOldTimeZone.getID ().equals ("Asia/Dubai") ? "America/New_York"
+                                                                                   : "Asia/Dubai");
+    try
+    {
+      // Simulates a restore with a different zone
+      System.setProperty ("user.timezone", aNewZone.getId ());
+      assertEquals (aOldTimeZone.toZoneId (), ZoneId.systemDefault ());
+
+      PeppolUAETDDClock.refreshDefaultZone (false);
+      assertEquals (aNewZone, ZoneId.systemDefault ());
+      assertEquals (bPDTFollowsSystem ? aNewZone : aOldPDTZone, PDTConfig.getDefaultZoneId ());
+    }
+    finally
+    {
+      if (sOldProperty == null)
+        System.clearProperty ("user.timezone");
+      else
+        System.setProperty ("user.timezone", sOldProperty);
+      TimeZone.setDefault (aOldTimeZone);
+      PDTConfig.setDefaultDateTimeZoneID (aOldPDTZone.getId ());
+    }
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.state;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.peppol.uae.tdd.codelist.EUAETDDDocumentTypeCode;
+
+/**
+ * Test class for class {@link PeppolUAETDDDuplicateDetector}.
+ *
+ * @author Philip Helger
+ */
+public final class PeppolUAETDDDuplicateDetectorTest
+{
+  @Rule
+  public final TemporaryFolder m_aTempFolder = new TemporaryFolder ();
+
+  @Test
+  public void testCapacity ()
+  {
+    assertEquals (1024, PeppolUAETDDDuplicateDetector.getCapacityForEntries (1));
+    assertEquals (1024, PeppolUAETDDDuplicateDetector.getCapacityForEntries (700));
+    assertEquals (2048, PeppolUAETDDDuplicateDetector.getCapacityForEntries (800));
+    assertEquals (1L << 30, PeppolUAETDDDuplicateDetector.getCapacityForEntries (500_000_000));
+  }
+
+  @Test
+  public void testAsUUID ()
+  {
+    final String s = "19e2c9a3-b000-4fb0-9bd5-a9c4ebda2358";
+    assertEquals (UUID.fromString (s), PeppolUAETDDDuplicateDetector.getAsUUID (s));
+    assertEquals (UUID.fromString (s), PeppolUAETDDDuplicateDetector.getAsUUID (s.toUpperCase ()));
+    // Not a canonical UUID
+    assertEquals (PeppolUAETDDDuplicateDetector.getAsUUID ("inv1"), PeppolUAETDDDuplicateDetector.getAsUUID ("inv1"));
+    assertFalse (PeppolUAETDDDuplicateDetector.getAsUUID ("inv1")
+                                              .equals (PeppolUAETDDDuplicateDetector.getAsUUID ("inv2")));
+  }
+
+  @Test
+  public void testBasic () throws Exception
+  {
+    final Path aFile = new File (m_aTempFolder.getRoot (), "dedup.bin").toPath ();
+    final String sUUID = "19e2c9a3-b000-4fb0-9bd5-a9c4ebda2358";
+
+    try (final PeppolUAETDDDuplicateDetector aDD = new PeppolUAETDDDuplicateDetector (aFile, 10))
+    {
+      assertEquals (0, aDD.getSize ());
+      assertFalse (aDD.contains (sUUID));
+      assertEquals (EUAETDDDocumentTypeCode.SUBMIT, aDD.suggestDocumentTypeCode (sUUID));
+      // Suggesting does not register
+      assertEquals (EUAETDDDocumentTypeCode.SUBMIT, aDD.suggestDocumentTypeCode (sUUID));
+
+      assertEquals (EUAETDDDocumentTypeCode.SUBMIT, aDD.registerSubmission (sUUID));
+      assertEquals (EUAETDDDocumentTypeCode.RESUBMIT, aDD.registerSubmission (sUUID));
+      assertEquals (EUAETDDDocumentTypeCode.RESUBMIT, aDD.suggestDocumentTypeCode (sUUID.toUpperCase ()));
+      assertEquals (1, aDD.getSize ());
+
+      // The nil UUID is the empty slot marker internally
+      assertTrue (aDD.add (new UUID (0, 0)));
+      assertFalse (aDD.add (new UUID (0, 0)));
+      assertTrue (aDD.contains (new UUID (0, 0)));
+      assertTrue (aDD.add ("any non UUID value"));
+      assertTrue (aDD.contains ("any non UUID value"));
+      assertEquals (3, aDD.getSize ());
+    }
+
+    // Reopen
+    try (final PeppolUAETDDDuplicateDetector aDD = new PeppolUAETDDDuplicateDetector (aFile))
+    {
+      assertEquals (3, aDD.getSize ());
+      assertEquals (1024, aDD.getCapacity ());
+      assertTrue (aDD.contains (sUUID));
+      assertTrue (aDD.contains (new UUID (0, 0)));
+      assertTrue (aDD.contains ("any non UUID value"));
+      assertFalse (aDD.contains (UUID.randomUUID ()));
+    }
+  }
+
+  @Test
+  public void testGrow () throws Exception
+  {
+    final Path aFile = new File (m_aTempFolder.getRoot (), "dedup-grow.bin").toPath ();
+    final ICommonsList <UUID> aUUIDs = new CommonsArrayList <> ();
+    for (int i = 0; i < 5000; ++i)
+      aUUIDs.add (UUID.randomUUID ());
+
+    try (final PeppolUAETDDDuplicateDetector aDD = new PeppolUAETDDDuplicateDetector (aFile, 10))
+    {
+      for (final UUID aUUID : aUUIDs)
+        assertTrue (aDD.add (aUUID));
+      assertEquals (aUUIDs.size (), aDD.getSize ());
+      assertTrue (aDD.getCapacity () >= 8192);
+      for (final UUID aUUID : aUUIDs)
+        assertTrue (aDD.contains (aUUID));
+    }
+
+    // Only the data file of the current generation is left
+    final String [] aDataFiles = m_aTempFolder.getRoot ().list ( (d, n) -> n.startsWith ("dedup-grow.bin."));
+    assertEquals (1, aDataFiles.length);
+    assertTrue (new File (m_aTempFolder.getRoot (), "dedup-grow.bin").length () < 1024);
+
+    try (final PeppolUAETDDDuplicateDetector aDD = new PeppolUAETDDDuplicateDetector (aFile))
+    {
+      assertEquals (aUUIDs.size (), aDD.getSize ());
+      for (final UUID aUUID : aUUIDs)
+        assertFalse (aDD.add (aUUID));
+    }
+  }
+}
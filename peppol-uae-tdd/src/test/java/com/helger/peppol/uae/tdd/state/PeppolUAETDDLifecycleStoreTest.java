@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.state;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.peppol.uae.tdd.PeppolUAETDD10ReportedTransactionBuilder;
+import com.helger.peppol.uae.tdd.codelist.EUAETDDDocumentTypeCode;
+
+/**
+ * Test class for class {@link PeppolUAETDDLifecycleStore}.
+ *
+ * @author Philip Helger
+ */
+public final class PeppolUAETDDLifecycleStoreTest
+{
+  private static final String UUID1 = "19e2c9a3-b000-4fb0-9bd5-a9c4ebda2358";
+
+  @Rule
+  public final TemporaryFolder m_aTempFolder = new TemporaryFolder ();
+
+  @Test
+  public void testAllowedTransitions ()
+  {
+    assertTrue (PeppolUAETDDLifecycleStore.isAllowedTransition (null, EUAETDDDocumentTypeCode.SUBMIT));
+    assertTrue (PeppolUAETDDLifecycleStore.isAllowedTransition (null, EUAETDDDocumentTypeCode.FAILED));
+    assertFalse (PeppolUAETDDLifecycleStore.isAllowedTransition (null, EUAETDDDocumentTypeCode.RESUBMIT));
+    assertFalse (PeppolUAETDDLifecycleStore.isAllowedTransition (null, EUAETDDDocumentTypeCode.WITHDRAW));
+
+    assertFalse (PeppolUAETDDLifecycleStore.isAllowedTransition (EUAETDDDocumentTypeCode.SUBMIT,
+                                                                 EUAETDDDocumentTypeCode.SUBMIT));
+    assertTrue (PeppolUAETDDLifecycleStore.isAllowedTransition (EUAETDDDocumentTypeCode.SUBMIT,
+                                                                EUAETDDDocumentTypeCode.RESUBMIT));
+    assertTrue (PeppolUAETDDLifecycleStore.isAllowedTransition (EUAETDDDocumentTypeCode.SUBMIT,
+                                                                EUAETDDDocumentTypeCode.WITHDRAW));
+    assertTrue (PeppolUAETDDLifecycleStore.isAllowedTransition (EUAETDDDocumentTypeCode.RESUBMIT,
+                                                                EUAETDDDocumentTypeCode.WITHDRAW));
+    assertTrue (PeppolUAETDDLifecycleStore.isAllowedTransition (EUAETDDDocumentTypeCode.FAILED,
+                                                                EUAETDDDocumentTypeCode.SUBMIT));
+    for (final EUAETDDDocumentTypeCode e : EUAETDDDocumentTypeCode.values ())
+      assertFalse (PeppolUAETDDLifecycleStore.isAllowedTransition (EUAETDDDocumentTypeCode.WITHDRAW, e));
+  }
+
+  @Test
+  public void testBasic () throws Exception
+  {
+    final Path aFile = new File (m_aTempFolder.getRoot (), "lifecycle.log").toPath ();
+    final ICommonsList <String> aUUIDs = new CommonsArrayList <> ();
+    for (int i = 0; i < 5000; ++i)
+      aUUIDs.add (UUID.randomUUID ().toString ());
+
+    try (final PeppolUAETDDLifecycleStore aStore = new PeppolUAETDDLifecycleStore (aFile))
+    {
+      assertNull (aStore.getState (UUID1));
+      assertFalse (aStore.isValidTransition (UUID1, EUAETDDDocumentTypeCode.WITHDRAW));
+      assertTrue (aStore.recordTransition (UUID1, EUAETDDDocumentTypeCode.WITHDRAW).isFailure ());
+      assertTrue (aStore.recordTransition (UUID1, EUAETDDDocumentTypeCode.SUBMIT).isSuccess ());
+      assertTrue (aStore.recordTransition (UUID1, EUAETDDDocumentTypeCode.SUBMIT).isFailure ());
+      assertTrue (aStore.recordTransition (UUID1, EUAETDDDocumentTypeCode.WITHDRAW).isSuccess ());
+      assertEquals (EUAETDDDocumentTypeCode.WITHDRAW, aStore.getState (UUID1));
+      assertTrue (aStore.recordTransition (UUID1, EUAETDDDocumentTypeCode.RESUBMIT).isFailure ());
+
+      for (final String sUUID : aUUIDs)
+        assertTrue (aStore.recordTransition (sUUID, EUAETDDDocumentTypeCode.SUBMIT).isSuccess ());
+      for (final String sUUID : aUUIDs)
+        assertTrue (aStore.recordTransition (sUUID, EUAETDDDocumentTypeCode.RESUBMIT).isSuccess ());
+      assertEquals (aUUIDs.size () + 1, aStore.getDocumentCount ());
+      assertEquals (2 * aUUIDs.size () + 2, aStore.getTransitionCount ());
+    }
+
+    // Simulate a crash during the last write
+    try (final FileChannel aFC = FileChannel.open (aFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND))
+    {
+      aFC.write (ByteBuffer.wrap (new byte [] { 'S', 1, 2 }));
+    }
+
+    // Replay the log
+    try (final PeppolUAETDDLifecycleStore aStore = new PeppolUAETDDLifecycleStore (aFile))
+    {
+      assertEquals (aUUIDs.size () + 1, aStore.getDocumentCount ());
+      assertEquals (2 * aUUIDs.size () + 2, aStore.getTransitionCount ());
+      assertEquals (EUAETDDDocumentTypeCode.WITHDRAW, aStore.getState (UUID1));
+      for (final String sUUID : aUUIDs)
+        assertEquals (EUAETDDDocumentTypeCode.RESUBMIT, aStore.getState (sUUID));
+    }
+    assertEquals (25L * (2 * aUUIDs.size () + 2), Files.size (aFile));
+  }
+
+  @Test
+  public void testBuilder () throws Exception
+  {
+    try (final PeppolUAETDDLifecycleStore aStore = new PeppolUAETDDLifecycleStore (m_aTempFolder.newFile ().toPath ()))
+    {
+      final PeppolUAETDD10ReportedTransactionBuilder aSubmit = new PeppolUAETDD10ReportedTransactionBuilder (EUAETDDDocumentTypeCode.SUBMIT).uuid (UUID1);
+      final PeppolUAETDD10ReportedTransactionBuilder aWithdraw = new PeppolUAETDD10ReportedTransactionBuilder (EUAETDDDocumentTypeCode.WITHDRAW).uuid (UUID1);
+      assertFalse (aStore.isValidTransition (aWithdraw));
+      assertTrue (aStore.isValidTransition (aSubmit));
+      assertTrue (aStore.recordTransition (aSubmit).isSuccess ());
+      assertTrue (aStore.isValidTransition (aWithdraw));
+
+      // Untracked
+      assertTrue (aStore.isValidTransition (new PeppolUAETDD10ReportedTransactionBuilder (EUAETDDDocumentTypeCode.FAILED)));
+    }
+  }
+}
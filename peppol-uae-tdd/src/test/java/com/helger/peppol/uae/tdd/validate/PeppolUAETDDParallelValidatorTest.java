@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.validate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import com.helger.collection.commons.ICommonsList;
+import com.helger.io.resource.ClassPathResource;
+import com.helger.peppol.uae.tdd.testfiles.PeppolUAETestFiles;
+
+/**
+ * Test class for class {@link PeppolUAETDDParallelValidator}.
+ *
+ * @author Philip Helger
+ */
+public final class PeppolUAETDDParallelValidatorTest
+{
+  @Test
+  public void testRuleGroups ()
+  {
+    assertEquals (EUAETDDRuleGroup.ENVELOPE, EUAETDDRuleGroup.getGroupOfRuleContext ("/pxs:TaxData"));
+    assertEquals (EUAETDDRuleGroup.ENVELOPE,
+                  EUAETDDRuleGroup.getGroupOfRuleContext ("/pxs:TaxData/pxs:ReportedTransaction"));
+    assertEquals (EUAETDDRuleGroup.PARTIES,
+                  EUAETDDRuleGroup.getGroupOfRuleContext ("/pxs:TaxData/pxs:ReportersRepresentative/cac:PartyIdentification"));
+    assertEquals (EUAETDDRuleGroup.REPORTED_DOCUMENT,
+                  EUAETDDRuleGroup.getGroupOfRuleContext ("/pxs:TaxData/pxs:ReportedTransaction/pxs:ReportedDocument/cac:TaxTotal"));
+    assertEquals (EUAETDDRuleGroup.SOURCE_DOCUMENT,
+                  EUAETDDRuleGroup.getGroupOfRuleContext ("/pxs:TaxData/pxs:ReportedTransaction/pxs:SourceDocument/cec:ExtensionContent"));
+  }
+
+  @Test
+  public void testSameResultAsSequential () throws Exception
+  {
+    final ExecutorService aExecutor = Executors.newFixedThreadPool (EUAETDDRuleGroup.values ().length);
+    try
+    {
+      final PeppolUAETDDParallelValidator aValidator = new PeppolUAETDDParallelValidator (EUAETDDSchematronVersion.V104,
+                                                                                          aExecutor);
+      // All group Schematrons are executed by the same Saxon configuration
+      assertTrue (aValidator.isConcurrent ());
+
+      for (final ClassPathResource aRes : PeppolUAETestFiles.getAllGoodTDD10Files ())
+        assertTrue (aRes.getPath (), aValidator.getAllFailedAssertions (aRes).isEmpty ());
+
+      for (final ClassPathResource aRes : PeppolUAETestFiles.getAllSchematronBadTDD10Files ())
+      {
+        final ICommonsList <String> aExpected = PeppolUAETDDValidator.getAllFailedAssertions (PeppolUAETDDValidator.getSchematronUAE_TDD_104 (),
+                                                                                              aRes)
+                                                                     .getAllMapped (PeppolUAETDDFailedAssertion::getID);
+        final ICommonsList <String> aParallel = aValidator.getAllFailedAssertions (aRes)
+                                                          .getAllMapped (PeppolUAETDDFailedAssertion::getID);
+        assertEquals (aRes.getPath (), aExpected.getSorted (String::compareTo), aParallel.getSorted (String::compareTo));
+
+        // Deterministic order
+        assertEquals (aRes.getPath (),
+                      aParallel,
+                      aValidator.getAllFailedAssertions (aRes).getAllMapped (PeppolUAETDDFailedAssertion::getID));
+      }
+    }
+    finally
+    {
+      aExecutor.shutdownNow ();
+    }
+  }
+}
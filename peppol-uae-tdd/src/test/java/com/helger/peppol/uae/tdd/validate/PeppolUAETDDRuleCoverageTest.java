@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.validate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.io.resource.ClassPathResource;
+import com.helger.peppol.uae.tdd.testfiles.PeppolUAETestFiles;
+
+/**
+ * Test class for class {@link PeppolUAETDDRuleCoverage}.
+ *
+ * @author Philip Helger
+ */
+public final class PeppolUAETDDRuleCoverageTest
+{
+  private static final String RULE_CONTEXT_NOT_COVERED = "/pxs:TaxData/pxs:ReportedTransaction/pxs:ReportedDocument/cac:AccountingCustomerParty/cac:Party/cac:PartyIdentification";
+
+  @Test
+  public void testGoodFiles () throws Exception
+  {
+    final PeppolUAETDDRuleCoverage aCoverage = new PeppolUAETDDRuleCoverage (EUAETDDSchematronVersion.V104);
+    for (final ClassPathResource aRes : PeppolUAETestFiles.getAllGoodTDD10Files ())
+      assertEquals (aRes.getPath (), 0, aCoverage.validate (aRes));
+
+    assertEquals (PeppolUAETestFiles.getAllGoodTDD10Files ().size (), aCoverage.getDocumentCount ());
+    assertEquals (aCoverage.getDocumentCount (), aCoverage.getFiredCount ("/pxs:TaxData"));
+    assertEquals (0, aCoverage.getUnknownFiredCount ());
+    assertEquals (0, aCoverage.getUnknownFailureCount ());
+    for (final Long aCount : aCoverage.getAllFailureCounts ().values ())
+      assertEquals (0, aCount.longValue ());
+
+    aCoverage.reset ();
+    assertEquals (0, aCoverage.getDocumentCount ());
+    assertEquals (0, aCoverage.getFiredCount ("/pxs:TaxData"));
+  }
+
+  @Test
+  public void testTestFilesCoverAllRules () throws Exception
+  {
+    final PeppolUAETDDRuleCoverage aCoverage = new PeppolUAETDDRuleCoverage (EUAETDDSchematronVersion.V104);
+    final ICommonsList <ClassPathResource> aFiles = new CommonsArrayList <> ();
+    aFiles.addAll (PeppolUAETestFiles.getAllGoodTDD10Files ());
+    aFiles.addAll (PeppolUAETestFiles.getAllSchematronBadTDD10Files ());
+
+    // Validate concurrently with the same coverage
+    final ExecutorService aES = Executors.newFixedThreadPool (4);
+    try
+    {
+      final ICommonsList <Future <Integer>> aFutures = new CommonsArrayList <> ();
+      for (final ClassPathResource aRes : aFiles)
+        aFutures.add (aES.submit ( () -> Integer.valueOf (aCoverage.validate (aRes))));
+      for (final Future <Integer> aFuture : aFutures)
+        aFuture.get ();
+    }
+    finally
+    {
+      aES.shutdown ();
+    }
+
+    assertEquals (aFiles.size (), aCoverage.getDocumentCount ());
+    assertEquals (aFiles.size (), aCoverage.getFiredCount ("/pxs:TaxData"));
+    assertEquals (0, aCoverage.getUnknownFiredCount ());
+    assertEquals (0, aCoverage.getUnknownFailureCount ());
+
+    // Every assertion failed at least once
+    assertTrue (aCoverage.getAllNeverFailedAssertionIDs ().toString (),
+                aCoverage.getAllNeverFailedAssertionIDs ().isEmpty ());
+
+    // Every rule fired at least once, except the buyer party identification rule, that has no
+    // assertions and is not contained in any test file
+    assertEquals (new CommonsArrayList <> (RULE_CONTEXT_NOT_COVERED), aCoverage.getAllNeverFiredRuleContexts ());
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.validate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.helger.collection.commons.ICommonsList;
+import com.helger.peppol.uae.tdd.testfiles.PeppolUAETestFiles;
+import com.helger.peppol.uae.tdd.validate.PeppolUAETDDRuleProfile.EEntryType;
+
+/**
+ * Test class for class {@link PeppolUAETDDRuleProfiler}.
+ *
+ * @author Philip Helger
+ */
+public final class PeppolUAETDDRuleProfilerTest
+{
+  private static final String RULE_CONTEXT = "/pxs:TaxData/pxs:ReportedTransaction";
+
+  @Test
+  public void testSingleRule () throws Exception
+  {
+    final PeppolUAETDDRuleProfile aProfile = new PeppolUAETDDRuleProfiler (EUAETDDSchematronVersion.V104).setWarmupIterations (0)
+                                                                                                        .setIterations (1)
+                                                                                                        .setRuleContextFilter (RULE_CONTEXT::equals)
+                                                                                                        .profileResources (PeppolUAETestFiles.getAllGoodTDD10Files ());
+    assertEquals (EUAETDDSchematronVersion.V104, aProfile.getVersion ());
+    assertEquals (PeppolUAETestFiles.getAllGoodTDD10Files ().size (), aProfile.getDocumentCount ());
+    assertEquals (1, aProfile.getIterations ());
+    assertTrue (aProfile.getBaselineNanosPerDocument () >= 0);
+
+    final ICommonsList <PeppolUAETDDRuleProfile.Entry> aRules = aProfile.getAllEntries (EEntryType.RULE);
+    assertEquals (1, aRules.size ());
+    assertEquals (RULE_CONTEXT, aRules.getFirstOrNull ().getContext ());
+    assertNull (aRules.getFirstOrNull ().getAssertionID ());
+    assertEquals (1, aProfile.getAllEntries (EEntryType.CONTEXT).size ());
+
+    // ibr-tdd-22 and ibr-tdd-23
+    final ICommonsList <PeppolUAETDDRuleProfile.Entry> aAssertions = aProfile.getAllEntries (EEntryType.ASSERTION);
+    assertEquals (2, aAssertions.size ());
+    assertEquals ("ibr-tdd-22", aAssertions.get (0).getAssertionID ());
+    assertEquals ("ibr-tdd-23", aAssertions.get (1).getAssertionID ());
+    for (final PeppolUAETDDRuleProfile.Entry aEntry : aProfile.getAllEntries (null))
+      assertTrue (aEntry.getNanosPerDocument () >= 0);
+
+    final String sReport = aProfile.getAsReport ();
+    assertTrue (sReport, sReport.contains ("ibr-tdd-22"));
+    assertTrue (sReport, sReport.contains (RULE_CONTEXT));
+  }
+
+  @Test
+  public void testRulesOnly () throws Exception
+  {
+    final PeppolUAETDDRuleProfile aProfile = new PeppolUAETDDRuleProfiler (EUAETDDSchematronVersion.V104).setWarmupIterations (0)
+                                                                                                        .setIterations (1)
+                                                                                                        .setIncludeAssertions (false)
+                                                                                                        .setRuleContextFilter (x -> x.endsWith ("cac:Party"))
+                                                                                                        .profileResources (PeppolUAETestFiles.getAllGoodTDD10Files ());
+    assertEquals (2, aProfile.getAllEntries (EEntryType.RULE).size ());
+    assertTrue (aProfile.getAllEntries (EEntryType.CONTEXT).isEmpty ());
+    assertTrue (aProfile.getAllEntries (EEntryType.ASSERTION).isEmpty ());
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.validate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+
+import org.junit.Test;
+
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.io.resource.ClassPathResource;
+import com.helger.peppol.uae.tdd.jaxb.PeppolUAETDD10Marshaller;
+import com.helger.peppol.uae.tdd.testfiles.PeppolUAETestFiles;
+import com.helger.peppol.uae.tdd.v100.TaxDataType;
+import com.helger.schematron.ISchematronResource;
+import com.helger.schematron.svrl.SVRLHelper;
+import com.helger.schematron.svrl.jaxb.SchematronOutputType;
+import com.helger.schematron.xslt.AbstractSchematronXSLTBasedResource;
+
+/**
+ * Test class for class {@link PeppolUAETDDSchematronRegistry}.
+ *
+ * @author Philip Helger
+ */
+public final class PeppolUAETDDSchematronRegistryTest
+{
+  @Test
+  public void testVersionSelection ()
+  {
+    final PeppolUAETDDSchematronRegistry aRegistry = new PeppolUAETDDSchematronRegistry ().setDefaultVersion (EUAETDDSchematronVersion.V102)
+                                                                                           .setEffectiveFrom (LocalDate.of (2025,
+                                                                                                                            6,
+                                                                                                                            1),
+                                                                                                              EUAETDDSchematronVersion.V103)
+                                                                                           .setEffectiveFrom (LocalDate.of (2026,
+                                                                                                                            1,
+                                                                                                                            1),
+                                                                                                              EUAETDDSchematronVersion.V104);
+    assertEquals (EUAETDDSchematronVersion.V102, aRegistry.getVersionForDate (null));
+    assertEquals (EUAETDDSchematronVersion.V102, aRegistry.getVersionForDate (LocalDate.of (2025, 5, 31)));
+    assertEquals (EUAETDDSchematronVersion.V103, aRegistry.getVersionForDate (LocalDate.of (2025, 6, 1)));
+    assertEquals (EUAETDDSchematronVersion.V103, aRegistry.getVersionForDate (LocalDate.of (2025, 12, 31)));
+    assertEquals (EUAETDDSchematronVersion.V104, aRegistry.getVersionForDate (LocalDate.of (2026, 1, 1)));
+    assertEquals (EUAETDDSchematronVersion.V104, aRegistry.getVersionForDate (LocalDate.of (2099, 1, 1)));
+    assertEquals (2, aRegistry.getAllEffectiveDates ().size ());
+
+    // Default: always the latest version
+    assertEquals (EUAETDDSchematronVersion.LATEST,
+                  new PeppolUAETDDSchematronRegistry ().getVersionForDate (LocalDate.of (2025, 1, 1)));
+  }
+
+  @Test
+  public void testCache ()
+  {
+    final PeppolUAETDDSchematronRegistry aRegistry = new PeppolUAETDDSchematronRegistry (2);
+    assertTrue (aRegistry.getAllCachedVersions ().isEmpty ());
+
+    final ISchematronResource a104 = aRegistry.getSchematron (EUAETDDSchematronVersion.V104);
+    assertSame (a104, aRegistry.getSchematron (EUAETDDSchematronVersion.V104));
+    aRegistry.getSchematron (EUAETDDSchematronVersion.V103);
+    assertEquals (new CommonsArrayList <> (EUAETDDSchematronVersion.V104, EUAETDDSchematronVersion.V103),
+                  aRegistry.getAllCachedVersions ());
+
+    // Touch 1.0.4 so that 1.0.3 is evicted
+    aRegistry.getSchematron (EUAETDDSchematronVersion.V104);
+    aRegistry.getSchematron (EUAETDDSchematronVersion.V102);
+    assertEquals (new CommonsArrayList <> (EUAETDDSchematronVersion.V104, EUAETDDSchematronVersion.V102),
+                  aRegistry.getAllCachedVersions ());
+    assertSame (a104, aRegistry.getSchematron (EUAETDDSchematronVersion.V104));
+
+    aRegistry.clearCache ();
+    assertTrue (aRegistry.getAllCachedVersions ().isEmpty ());
+  }
+
+  @Test
+  public void testEvictedVersionIsRecompiled ()
+  {
+    final PeppolUAETDDSchematronRegistry aRegistry = new PeppolUAETDDSchematronRegistry (1);
+    final ISchematronResource a104 = aRegistry.getSchematron (EUAETDDSchematronVersion.V104);
+    final Object aXSLT104 = ((AbstractSchematronXSLTBasedResource <?>) a104).getXSLTProvider ();
+    assertNotNull (aXSLT104);
+
+    // Evict 1.0.4
+    aRegistry.getSchematron (EUAETDDSchematronVersion.V103);
+    assertEquals (new CommonsArrayList <> (EUAETDDSchematronVersion.V103), aRegistry.getAllCachedVersions ());
+
+    // Must not be served from the global Schematron cache
+    final ISchematronResource aNew104 = aRegistry.getSchematron (EUAETDDSchematronVersion.V104);
+    assertNotSame (a104, aNew104);
+    assertNotSame (aXSLT104, ((AbstractSchematronXSLTBasedResource <?>) aNew104).getXSLTProvider ());
+  }
+
+  @Test
+  public void testValidateGood () throws Exception
+  {
+    final PeppolUAETDDSchematronRegistry aRegistry = new PeppolUAETDDSchematronRegistry ();
+    for (final ClassPathResource aRes : PeppolUAETestFiles.getAllGoodTDD10Files ())
+    {
+      final TaxDataType aTDD = new PeppolUAETDD10Marshaller ().read (aRes);
+      assertNotNull (aRes.getPath (), aTDD);
+
+      assertEquals (EUAETDDSchematronVersion.LATEST, aRegistry.getVersionForTDD (aTDD));
+      final SchematronOutputType aSVRL = aRegistry.validate (aTDD);
+      assertNotNull (aRes.getPath (), aSVRL);
+      assertTrue (aRes.getPath () + ": " + SVRLHelper.getAllFailedAssertions (aSVRL),
+                  SVRLHelper.getAllFailedAssertions (aSVRL).isEmpty ());
+    }
+  }
+}
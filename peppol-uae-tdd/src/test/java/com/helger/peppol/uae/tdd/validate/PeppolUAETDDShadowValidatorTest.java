@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.validate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.helger.base.io.stream.StreamHelper;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.io.resource.ClassPathResource;
+import com.helger.peppol.uae.tdd.testfiles.PeppolUAETestFiles;
+
+/**
+ * Test class for class {@link PeppolUAETDDShadowValidator}.
+ *
+ * @author Philip Helger
+ */
+public final class PeppolUAETDDShadowValidatorTest
+{
+  @Test
+  public void testSameVersion () throws Exception
+  {
+    final ICommonsList <PeppolUAETDDShadowDisagreement> aDisagreements = new CommonsArrayList <> ();
+    final ICommonsList <ClassPathResource> aFiles = PeppolUAETestFiles.getAllSchematronBadTDD10Files ();
+    try (final PeppolUAETDDShadowValidator aValidator = new PeppolUAETDDShadowValidator (EUAETDDSchematronVersion.V104,
+                                                                                         EUAETDDSchematronVersion.V104,
+                                                                                         1,
+                                                                                         2,
+                                                                                         aFiles.size (),
+                                                                                         aDisagreements::add))
+    {
+      for (final ClassPathResource aRes : aFiles)
+      {
+        final byte [] aBytes = StreamHelper.getAllBytes (aRes);
+        assertNotNull (aBytes);
+        final PeppolUAETDDValidationOutcome aOutcome = aValidator.validate (aBytes, aRes.getPath ());
+        assertFalse (aRes.getPath (), aOutcome.isValid ());
+      }
+      aValidator.close ();
+
+      assertEquals (aFiles.size (), aValidator.getValidatedCount ());
+      assertEquals (aFiles.size (), aValidator.getSampledCount ());
+      assertEquals (0, aValidator.getDroppedCount ());
+      assertEquals (aFiles.size (), aValidator.getComparedCount ());
+      assertEquals (0, aValidator.getErrorCount ());
+      // Same version - no disagreements
+      assertEquals (0, aValidator.getDisagreementCount ());
+      assertTrue (aDisagreements.isEmpty ());
+    }
+  }
+
+  @Test
+  public void testDifferentVersions () throws Exception
+  {
+    // ibr-tdd-17 accepts a missing schemeID in 1.0.3 but requires it in 1.0.4
+    final ClassPathResource aBad17 = new ClassPathResource ("external/tdd/10/bad-sch/bad-ibr-tdd-17.xml");
+    final String sBad17 = new String (StreamHelper.getAllBytes (aBad17), StandardCharsets.UTF_8);
+    final String sNoSchemeID = sBad17.replace ("<cbc:EndpointID schemeID=\"0241\">dummy-receiver</cbc:EndpointID>",
+                                               "<cbc:EndpointID>dummy-receiver</cbc:EndpointID>");
+    assertNotEquals (sBad17, sNoSchemeID);
+
+    final ICommonsList <PeppolUAETDDShadowDisagreement> aDisagreements = new CommonsArrayList <> ();
+    try (final PeppolUAETDDShadowValidator aValidator = new PeppolUAETDDShadowValidator (EUAETDDSchematronVersion.V103,
+                                                                                         EUAETDDSchematronVersion.V104,
+                                                                                         1,
+                                                                                         1,
+                                                                                         20,
+                                                                                         x -> {
+                                                                                           synchronized (aDisagreements)
+                                                                                           {
+                                                                                             aDisagreements.add (x);
+                                                                                           }
+                                                                                         }))
+    {
+      // Judged the same by both versions
+      for (final ClassPathResource aRes : PeppolUAETestFiles.getAllGoodTDD10Files ())
+        assertTrue (aValidator.validate (StreamHelper.getAllBytes (aRes), aRes.getPath ()).isValid ());
+      assertFalse (aValidator.validate (sBad17.getBytes (StandardCharsets.UTF_8), "bad-17").isValid ());
+
+      // Valid in 1.0.3 only
+      assertTrue (aValidator.validate (sNoSchemeID.getBytes (StandardCharsets.UTF_8), "no-scheme-id").isValid ());
+      aValidator.close ();
+
+      assertEquals (0, aValidator.getErrorCount ());
+      assertEquals (PeppolUAETestFiles.getAllGoodTDD10Files ().size () + 2, aValidator.getComparedCount ());
+      assertEquals (1, aValidator.getDisagreementCount ());
+      assertEquals (1, aDisagreements.size ());
+
+      final PeppolUAETDDShadowDisagreement aDisagreement = aDisagreements.getFirstOrNull ();
+      assertEquals ("no-scheme-id", aDisagreement.getDocumentID ());
+      assertTrue (aDisagreement.getActiveOutcome ().isValid ());
+      assertFalse (aDisagreement.getCandidateOutcome ().isValid ());
+      assertTrue (aDisagreement.getAllOnlyActiveFailedIDs ().isEmpty ());
+      assertEquals (new CommonsArrayList <> ("ibr-tdd-17"), aDisagreement.getAllOnlyCandidateFailedIDs ());
+    }
+  }
+
+  @Test
+  public void testNoSampling () throws Exception
+  {
+    try (final PeppolUAETDDShadowValidator aValidator = new PeppolUAETDDShadowValidator (EUAETDDSchematronVersion.V104,
+                                                                                         EUAETDDSchematronVersion.V103,
+                                                                                         0,
+                                                                                         null))
+    {
+      for (final ClassPathResource aRes : PeppolUAETestFiles.getAllGoodTDD10Files ())
+        assertTrue (aValidator.validate (StreamHelper.getAllBytes (aRes), aRes.getPath ()).isValid ());
+      assertEquals (0, aValidator.getSampledCount ());
+      assertEquals (0, aValidator.getComparedCount ());
+    }
+  }
+}
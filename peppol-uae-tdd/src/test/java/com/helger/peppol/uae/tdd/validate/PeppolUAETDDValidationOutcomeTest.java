@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.validate;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import com.helger.base.string.StringHelper;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.CommonsHashSet;
+import com.helger.collection.commons.ICommonsSet;
+import com.helger.io.file.FilenameHelper;
+import com.helger.io.resource.ClassPathResource;
+import com.helger.peppol.uae.tdd.testfiles.PeppolUAETestFiles;
+import com.helger.schematron.ISchematronResource;
+import com.helger.xml.serialize.read.DOMReader;
+
+/**
+ * Test class for class {@link PeppolUAETDDValidationOutcome}.
+ *
+ * @author Philip Helger
+ */
+public final class PeppolUAETDDValidationOutcomeTest
+{
+  @Test
+  public void testCatalog ()
+  {
+    final PeppolUAETDDAssertionCatalog aCatalog = PeppolUAETDDAssertionCatalog.getInstance (EUAETDDSchematronVersion.V104);
+    // 01-57 without 50 plus 30-1 and 31-1
+    assertEquals (58, aCatalog.getAssertionCount ());
+    for (int i = 1; i <= 57; ++i)
+      if (i != 50)
+        assertTrue (aCatalog.getIndexOfID ("ibr-tdd-" + StringHelper.getLeadingZero (i, 2)) >= 0);
+    assertTrue (aCatalog.getIndexOfID ("ibr-tdd-30-1") >= 0);
+    assertTrue (aCatalog.getIndexOfID ("ibr-tdd-31-1") >= 0);
+    assertEquals (-1, aCatalog.getIndexOfID ("ibr-tdd-50"));
+    assertEquals ("[ibr-tdd-06] The Tax Data Document type code (tdt-006) ({$dtc}) MUST be coded according to the code list",
+                  aCatalog.getMessageOfID ("ibr-tdd-06"));
+  }
+
+  @Test
+  public void testFixedAssertionIndices ()
+  {
+    for (final EUAETDDSchematronVersion eVersion : EUAETDDSchematronVersion.values ())
+    {
+      // Read all assertion IDs directly from the Schematron
+      final ClassPathResource aRes = new ClassPathResource (eVersion.getClassPathPath ());
+      final Document aDoc = DOMReader.readXMLDOM (aRes);
+      assertNotNull (aDoc);
+      final ICommonsSet <String> aSchematronIDs = new CommonsHashSet <> ();
+      for (final String sLocalName : new String [] { "assert", "report" })
+      {
+        final NodeList aNL = aDoc.getElementsByTagNameNS (PeppolUAETDDAssertionCatalog.SCHEMATRON_NS, sLocalName);
+        for (int i = 0; i < aNL.getLength (); ++i)
+          aSchematronIDs.add (((Element) aNL.item (i)).getAttribute ("id"));
+      }
+
+      // The fixed table must match exactly, otherwise persisted outcomes change their meaning
+      final String [] aFixedIDs = PeppolUAETDDAssertionCatalog.getFixedAssertionIDs (eVersion);
+      assertEquals (eVersion.getID (), aSchematronIDs, new CommonsHashSet <> (aFixedIDs));
+      assertEquals (eVersion.getID (), aFixedIDs.length, aSchematronIDs.size ());
+      assertEquals (new CommonsArrayList <> (aFixedIDs),
+                    PeppolUAETDDAssertionCatalog.getInstance (eVersion).getAllIDs ());
+    }
+
+    // Some well-known indices
+    final PeppolUAETDDAssertionCatalog aCatalog = PeppolUAETDDAssertionCatalog.getInstance (EUAETDDSchematronVersion.V104);
+    assertEquals (0, aCatalog.getIndexOfID ("ibr-tdd-01"));
+    assertEquals (30, aCatalog.getIndexOfID ("ibr-tdd-30-1"));
+    assertEquals (32, aCatalog.getIndexOfID ("ibr-tdd-31-1"));
+    assertEquals (57, aCatalog.getIndexOfID ("ibr-tdd-57"));
+    assertEquals (51, PeppolUAETDDAssertionCatalog.getInstance (EUAETDDSchematronVersion.V102)
+                                                  .getIndexOfID ("ibr-tdd-50"));
+  }
+
+  @Test
+  public void testValid ()
+  {
+    final PeppolUAETDDValidationOutcome aOutcome = PeppolUAETDDValidationOutcome.createFromFailedAssertionIDs (EUAETDDSchematronVersion.V104,
+                                                                                                              new CommonsArrayList <> ());
+    assertTrue (aOutcome.isValid ());
+    assertEquals (0, aOutcome.getFailedAssertionCount ());
+    final byte [] aBytes = aOutcome.getAsBytes ();
+    assertEquals (1, aBytes.length);
+    assertEquals (aOutcome, PeppolUAETDDValidationOutcome.createFromBytes (aBytes));
+  }
+
+  @Test
+  public void testRoundTrip ()
+  {
+    final PeppolUAETDDValidationOutcome aOutcome = PeppolUAETDDValidationOutcome.createFromFailedAssertionIDs (EUAETDDSchematronVersion.V104,
+                                                                                                              new CommonsArrayList <> ("ibr-tdd-57",
+                                                                                                                                       "ibr-tdd-01",
+                                                                                                                                       "ibr-tdd-31-1"));
+    assertFalse (aOutcome.isValid ());
+    assertEquals (3, aOutcome.getFailedAssertionCount ());
+    assertTrue (aOutcome.hasFailed ("ibr-tdd-01"));
+    assertFalse (aOutcome.hasFailed ("ibr-tdd-02"));
+    assertFalse (aOutcome.hasUnknownFailedAssertion ());
+    // Schematron order
+    assertEquals (new CommonsArrayList <> ("ibr-tdd-01", "ibr-tdd-31-1", "ibr-tdd-57"),
+                  aOutcome.getAllFailedAssertionIDs ());
+    assertEquals (3, aOutcome.getAllFailedAssertionMessages ().size ());
+
+    final byte [] aBytes = aOutcome.getAsBytes ();
+    assertTrue (aBytes.length <= 9);
+    final PeppolUAETDDValidationOutcome aOutcome2 = PeppolUAETDDValidationOutcome.createFromBytes (aBytes);
+    assertEquals (aOutcome, aOutcome2);
+    assertArrayEquals (aBytes, aOutcome2.getAsBytes ());
+
+    // Unknown ID
+    final PeppolUAETDDValidationOutcome aOutcome3 = PeppolUAETDDValidationOutcome.createFromFailedAssertionIDs (EUAETDDSchematronVersion.V104,
+                                                                                                               new CommonsArrayList <> ("foo"));
+    assertFalse (aOutcome3.isValid ());
+    assertTrue (aOutcome3.hasUnknownFailedAssertion ());
+    assertTrue (aOutcome3.getAllFailedAssertionIDs ().isEmpty ());
+  }
+
+  @Test
+  public void testAggregateBadFiles () throws Exception
+  {
+    final ISchematronResource aSCHRes = PeppolUAETDDValidator.getSchematronUAE_TDD_104 ();
+    final PeppolUAETDDValidationOutcomeAggregator aAggr1 = new PeppolUAETDDValidationOutcomeAggregator (EUAETDDSchematronVersion.V104);
+    final PeppolUAETDDValidationOutcomeAggregator aAggr2 = new PeppolUAETDDValidationOutcomeAggregator (EUAETDDSchematronVersion.V104);
+    int nFiles = 0;
+    for (final ClassPathResource aRes : PeppolUAETestFiles.getAllSchematronBadTDD10Files ())
+    {
+      final PeppolUAETDDValidationOutcome.Collector aCollector = new PeppolUAETDDValidationOutcome.Collector (EUAETDDSchematronVersion.V104);
+      PeppolUAETDDValidator.validate (aSCHRes, aRes, aCollector);
+      final PeppolUAETDDValidationOutcome aOutcome = aCollector.getOutcome ();
+      assertNotNull (aOutcome);
+      assertFalse (aOutcome.isValid ());
+
+      final String sBaseName = FilenameHelper.getBaseName (aRes.getPath ());
+      assertTrue (aOutcome.hasFailed (sBaseName.substring (sBaseName.indexOf ('-') + 1)));
+
+      aAggr1.add (aOutcome);
+      aAggr2.add (aOutcome.getAsBytes ());
+      nFiles++;
+    }
+    assertEquals (nFiles, aAggr1.getDocumentCount ());
+    assertEquals (0, aAggr1.getValidDocumentCount ());
+    assertEquals (0, aAggr1.getUnknownFailureCount ());
+    assertEquals (aAggr1.getAllFailureCounts (), aAggr2.getAllFailureCounts ());
+    assertTrue (aAggr1.getFailureCount ("ibr-tdd-01") > 0);
+  }
+}
@@ -17,19 +17,31 @@
 package com.helger.peppol.uae.tdd.validate;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Locale;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
 
+import com.helger.base.io.stream.StreamHelper;
 import com.helger.collection.commons.CommonsArrayList;
 import com.helger.collection.commons.ICommonsList;
 import com.helger.io.file.FilenameHelper;
+import com.helger.io.resource.ClassPathResource;
 import com.helger.io.resource.IReadableResource;
+import com.helger.io.resource.inmemory.ReadableResourceString;
 import com.helger.peppol.uae.tdd.jaxb.PeppolUAETDD10Marshaller;
 import com.helger.peppol.uae.tdd.testfiles.PeppolUAETestFiles;
 import com.helger.peppol.uae.tdd.v100.TaxDataType;
@@ -37,6 +49,7 @@ import com.helger.schematron.ISchematronResource;
 import com.helger.schematron.svrl.SVRLHelper;
 import com.helger.schematron.svrl.SVRLMarshaller;
 import com.helger.schematron.svrl.jaxb.SchematronOutputType;
+import com.helger.xml.serialize.read.DOMReader;
 
 /**
  * Test class for class {@link PeppolUAETDDValidator}.
@@ -48,6 +61,9 @@ public final class PeppolUAETDDValidatorTest
 
   private static final Logger LOGGER = LoggerFactory.getLogger (PeppolUAETDDValidatorTest.class);
 
+  @Rule
+  public final TemporaryFolder m_aTempFolder = new TemporaryFolder ();
+
   @Test
   public void testReadTDD10Good () throws Exception
   {
@@ -103,4 +119,159 @@ public final class PeppolUAETDDValidatorTest
     }
   }
 
+  @Test
+  public void testValidateInMemory () throws Exception
+  {
+    final PeppolUAETDD10Marshaller aMarshaller = new PeppolUAETDD10Marshaller ();
+
+    for (final IReadableResource aRes : PeppolUAETestFiles.getAllGoodTDD10Files ())
+    {
+      final TaxDataType tdd = aMarshaller.read (aRes);
+      assertNotNull (tdd);
+
+      // No serialization and re-parsing
+      final SchematronOutputType aSVRL = PeppolUAETDDValidator.validate (tdd);
+      assertNotNull (aSVRL);
+      assertEquals (new CommonsArrayList <> (), SVRLHelper.getAllFailedAssertions (aSVRL));
+    }
+
+    final ISchematronResource aSCHRes = PeppolUAETDDValidator.getSchematronUAE_TDD_10 ();
+    for (final IReadableResource aRes : PeppolUAETestFiles.getAllSchematronBadTDD10Files ())
+    {
+      // Use an existing DOM
+      final Document aDoc = DOMReader.readXMLDOM (aRes);
+      assertNotNull (aDoc);
+
+      final SchematronOutputType aSVRL = PeppolUAETDDValidator.validate (aSCHRes, aDoc);
+      assertNotNull (aSVRL);
+      assertEquals (SVRLHelper.getAllFailedAssertions (aSCHRes.applySchematronValidationToSVRL (aRes))
+                              .getAllMapped (x -> x.getID ()),
+                    SVRLHelper.getAllFailedAssertions (aSVRL).getAllMapped (x -> x.getID ()));
+    }
+  }
+
+  @Test
+  public void testReadAndValidate () throws Exception
+  {
+    for (final IReadableResource aRes : PeppolUAETestFiles.getAllGoodTDD10Files ())
+    {
+      final PeppolUAETDDReadResult aResult = PeppolUAETDDValidator.readAndValidate (aRes);
+      assertNotNull (aResult);
+      assertTrue (aResult.isXSDValid ());
+      assertNotNull (aResult.getTaxData ());
+      assertNotNull (aResult.getSVRL ());
+      assertTrue (aRes.getPath (), aResult.isValid ());
+    }
+
+    for (final IReadableResource aRes : PeppolUAETestFiles.getAllSchematronBadTDD10Files ())
+    {
+      final PeppolUAETDDReadResult aResult = PeppolUAETDDValidator.readAndValidate (aRes);
+      assertNotNull (aResult);
+      assertTrue (aResult.isXSDValid ());
+      assertNotNull (aResult.getTaxData ());
+      assertNotNull (aResult.getSVRL ());
+      assertFalse (aRes.getPath (), aResult.isValid ());
+    }
+
+    // Not XSD compliant
+    final PeppolUAETDDReadResult aResult = PeppolUAETDDValidator.readAndValidate (new ReadableResourceString ("<pxs:TaxData xmlns:pxs='urn:peppol:schema:taxdata:1.0' />",
+                                                                                                             StandardCharsets.UTF_8));
+    assertFalse (aResult.isXSDValid ());
+    assertTrue (aResult.getXSDErrors ().containsAtLeastOneError ());
+    assertNull (aResult.getTaxData ());
+    assertNull (aResult.getSVRL ());
+  }
+
+  @Test
+  public void testFailedAssertionListener () throws Exception
+  {
+    final ISchematronResource aSCHRes = PeppolUAETDDValidator.getSchematronUAE_TDD_10 ();
+
+    for (final IReadableResource aRes : PeppolUAETestFiles.getAllGoodTDD10Files ())
+    {
+      final ICommonsList <PeppolUAETDDFailedAssertion> aFailed = new CommonsArrayList <> ();
+      assertEquals (0, PeppolUAETDDValidator.validate (aSCHRes, aRes, aFailed::add));
+      assertTrue (aFailed.isEmpty ());
+    }
+
+    for (final IReadableResource aRes : PeppolUAETestFiles.getAllSchematronBadTDD10Files ())
+    {
+      final ICommonsList <PeppolUAETDDFailedAssertion> aFailed = PeppolUAETDDValidator.getAllFailedAssertions (aSCHRes,
+                                                                                                             aRes);
+      assertTrue (aFailed.isNotEmpty ());
+      assertTrue (aFailed.stream ().allMatch (x -> x.isError () && x.getText () != null && x.getLocation () != null));
+
+      // Must be identical to the SVRL based approach
+      final SchematronOutputType aSVRL = aSCHRes.applySchematronValidationToSVRL (aRes);
+      assertEquals (SVRLHelper.getAllFailedAssertions (aSVRL).getAllMapped (x -> x.getID ()),
+                    aFailed.getAllMapped (PeppolUAETDDFailedAssertion::getID));
+    }
+  }
+
+  @Test
+  public void testValidatePath () throws Exception
+  {
+    final ISchematronResource aSCHRes = PeppolUAETDDValidator.getSchematronUAE_TDD_10 ();
+    for (final ClassPathResource aRes : PeppolUAETestFiles.getAllGoodTDD10Files ())
+    {
+      final Path aPath = m_aTempFolder.newFile ().toPath ();
+      Files.write (aPath, StreamHelper.getAllBytes (aRes));
+
+      final PeppolUAETDDReadResult aResult = PeppolUAETDDValidator.readAndValidate (aSCHRes, aPath);
+      assertTrue (aRes.getPath () + ": " + aResult, aResult.isValid ());
+      assertEquals (0, PeppolUAETDDValidator.validate (aSCHRes, aPath, x -> {}));
+      assertTrue (SVRLHelper.getAllFailedAssertions (PeppolUAETDDValidator.validate (aSCHRes, aPath)).isEmpty ());
+    }
+
+    for (final ClassPathResource aRes : PeppolUAETestFiles.getAllSchematronBadTDD10Files ())
+    {
+      final Path aPath = m_aTempFolder.newFile ().toPath ();
+      Files.write (aPath, StreamHelper.getAllBytes (aRes));
+
+      final ICommonsList <PeppolUAETDDFailedAssertion> aExpected = PeppolUAETDDValidator.getAllFailedAssertions (aSCHRes,
+                                                                                                                aRes);
+      final ICommonsList <PeppolUAETDDFailedAssertion> aFromPath = new CommonsArrayList <> ();
+      PeppolUAETDDValidator.validate (aSCHRes, aPath, aFromPath::add);
+      assertEquals (aRes.getPath (),
+                    aExpected.getAllMapped (PeppolUAETDDFailedAssertion::getID),
+                    aFromPath.getAllMapped (PeppolUAETDDFailedAssertion::getID));
+    }
+  }
+
+  @Test
+  public void testValidateRejectsExternalEntities () throws Exception
+  {
+    final Path aSecret = m_aTempFolder.newFile ().toPath ();
+    Files.write (aSecret, "xxe-secret-content".getBytes (StandardCharsets.UTF_8));
+    final String sXML = "<!DOCTYPE x [<!ENTITY e SYSTEM '" +
+                        aSecret.toUri () +
+                        "'>]>" +
+                        "<pxs:TaxData xmlns:pxs='urn:peppol:schema:taxdata:1.0'>&e;</pxs:TaxData>";
+
+    final ISchematronResource aSCHRes = PeppolUAETDDValidator.getSchematronUAE_TDD_10 ();
+    final ICommonsList <PeppolUAETDDFailedAssertion> aFailed = new CommonsArrayList <> ();
+    try
+    {
+      PeppolUAETDDValidator.validate (aSCHRes, new ReadableResourceString (sXML, StandardCharsets.UTF_8), aFailed::add);
+      fail ();
+    }
+    catch (final Exception ex)
+    {
+      // expected - DOCTYPE is not allowed
+    }
+    for (final PeppolUAETDDFailedAssertion aItem : aFailed)
+      assertFalse (aItem.toString ().contains ("xxe-secret-content"));
+
+    final Path aPath = m_aTempFolder.newFile ().toPath ();
+    Files.write (aPath, sXML.getBytes (StandardCharsets.UTF_8));
+    try
+    {
+      PeppolUAETDDValidator.validate (aSCHRes, aPath, x -> {});
+      fail ();
+    }
+    catch (final Exception ex)
+    {
+      // expected - DOCTYPE is not allowed
+    }
+  }
 }
@@ -0,0 +1,797 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.testfiles;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Random;
+import java.util.UUID;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.Namespace;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.NotThreadSafe;
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.CommonsHashMap;
+import com.helger.collection.commons.CommonsHashSet;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.collection.commons.ICommonsMap;
+import com.helger.collection.commons.ICommonsSet;
+import com.helger.io.resource.IReadableResource;
+
+/**
+ * A deterministic generator for large synthetic billing documents, based on the billing test files
+ * of {@link PeppolUAETestFiles}. A template document is scaled by
+ * <ul>
+ * <li>the number of invoice or credit note lines - the lines of the template are repeated as a
+ * whole and all document level amounts are multiplied by the same factor, so that the totals stay
+ * consistent</li>
+ * <li>the size of an additional embedded attachment with seeded random content</li>
+ * <li>the usage of a tax currency - AED documents are converted to a foreign document currency
+ * with AED as the tax currency</li>
+ * </ul>
+ * Each generated document gets a new ID and UUID derived from the seed, so that the same seed
+ * always creates the same bytes. The template is read into memory, but the output is streamed, so
+ * that documents and corpora of arbitrary size can be created.
+ *
+ * @author Philip Helger
+ */
+@NotThreadSafe
+public final class PeppolUAETestFileGenerator
+{
+  public static final long DEFAULT_SEED = 0;
+  public static final int DEFAULT_LINE_COUNT = 0;
+  public static final long DEFAULT_ATTACHMENT_SIZE = 0;
+  public static final boolean DEFAULT_TAX_CURRENCY = false;
+  public static final String DEFAULT_FOREIGN_CURRENCY = "USD";
+  public static final BigDecimal DEFAULT_EXCHANGE_RATE = new BigDecimal ("3.6725");
+
+  public static final String ATTACHMENT_ID = "generated-attachment";
+  public static final String ATTACHMENT_FILENAME = ATTACHMENT_ID + ".pdf";
+
+  private static final String NS_CAC = "urn:oasis:names:specification:ubl:schema:xsd:CommonAggregateComponents-2";
+  private static final String NS_CBC = "urn:oasis:names:specification:ubl:schema:xsd:CommonBasicComponents-2";
+  private static final String TAX_CURRENCY = "AED";
+  private static final QName QNAME_CURRENCY_ID = new QName ("currencyID");
+  // Must be a multiple of 3, so that no Base64 padding occurs in between
+  private static final int ATTACHMENT_CHUNK_SIZE = 3 * 16 * 1024;
+  private static final long SEED_INCREMENT = 0x9E3779B97F4A7C15L;
+
+  // The meaning of a text event of the template
+  private static final int TEXT_ROOT_ID = 0;
+  private static final int TEXT_ROOT_UUID = 1;
+  private static final int TEXT_DOC_CURRENCY = 2;
+  private static final int TEXT_LINE_ID = 3;
+  private static final int TEXT_AMOUNT = 4;
+  private static final int TEXT_TAX_AMOUNT = 5;
+
+  // The root elements in front of which the attachment is inserted, if no AdditionalDocumentReference
+  // is present
+  private static final ICommonsSet <String> INVOICE_AFTER_ADR = new CommonsHashSet <> ("ProjectReference",
+                                                                                "Signature",
+                                                                                "AccountingSupplierParty");
+  private static final ICommonsSet <String> CREDIT_NOTE_AFTER_ADR = new CommonsHashSet <> ("StatementDocumentReference",
+                                                                                    "OriginatorDocumentReference",
+                                                                                    "Signature",
+                                                                                    "AccountingSupplierParty");
+
+  private static final XMLInputFactory XML_INPUT_FACTORY = _createXMLInputFactory ();
+  private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newFactory ();
+  private static final XMLEventFactory XML_EVENT_FACTORY = XMLEventFactory.newFactory ();
+
+  /**
+   * The pre-scanned events of a single template document.
+   *
+   * @author Philip Helger
+   */
+  private static final class Template
+  {
+    private final ICommonsList <XMLEvent> m_aEvents = new CommonsArrayList <> ();
+    private boolean m_bIsCreditNote = false;
+    private int m_nLineCount = 0;
+    private int m_nLinesStart = -1;
+    private int m_nLinesEnd = -1;
+    private int m_nRootIDText = -1;
+    private int m_nRootUUIDText = -1;
+    private int m_nDocCurrencyText = -1;
+    private int m_nDocCurrencyEnd = -1;
+    private String m_sDocCurrency;
+    private boolean m_bHasTaxCurrency = false;
+    private int m_nFirstTaxTotalEnd = -1;
+    private BigDecimal m_aTaxAmount;
+    private int m_nLastADREnd = -1;
+    private int m_nFirstAfterADR = -1;
+    private final BitSet m_aLineIDTexts = new BitSet ();
+    private final BitSet m_aAmountTexts = new BitSet ();
+
+    int getAttachmentInsertIndex ()
+    {
+      return m_nLastADREnd >= 0 ? m_nLastADREnd + 1 : m_nFirstAfterADR;
+    }
+  }
+
+  private long m_nSeed = DEFAULT_SEED;
+  private int m_nLineCount = DEFAULT_LINE_COUNT;
+  private long m_nAttachmentSize = DEFAULT_ATTACHMENT_SIZE;
+  private boolean m_bTaxCurrency = DEFAULT_TAX_CURRENCY;
+  private String m_sForeignCurrency = DEFAULT_FOREIGN_CURRENCY;
+  private BigDecimal m_aExchangeRate = DEFAULT_EXCHANGE_RATE;
+
+  public PeppolUAETestFileGenerator ()
+  {}
+
+  @NonNull
+  private static XMLInputFactory _createXMLInputFactory ()
+  {
+    final XMLInputFactory ret = XMLInputFactory.newFactory ();
+    ret.setProperty (XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    ret.setProperty (XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    ret.setProperty (XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+    // Each text content is a single event
+    ret.setProperty (XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+    return ret;
+  }
+
+  /**
+   * @return The seed used for all random values. Defaults to {@link #DEFAULT_SEED}.
+   */
+  public long getSeed ()
+  {
+    return m_nSeed;
+  }
+
+  /**
+   * @param nSeed
+   *        The seed used for all random values.
+   * @return this for chaining
+   */
+  @NonNull
+  public PeppolUAETestFileGenerator setSeed (final long nSeed)
+  {
+    m_nSeed = nSeed;
+    return this;
+  }
+
+  /**
+   * @return The minimum number of lines per generated document. 0 means that the number of lines of
+   *         the template is used.
+   */
+  @Nonnegative
+  public int getLineCount ()
+  {
+    return m_nLineCount;
+  }
+
+  /**
+   * Set the minimum number of lines per generated document. As the lines of the template are
+   * repeated as a whole, the effective number of lines is rounded up to a multiple of the number of
+   * template lines.
+   *
+   * @param nLineCount
+   *        The minimum number of lines. Must be &ge; 0. 0 means that the number of lines of the
+   *        template is used.
+   * @return this for chaining
+   */
+  @NonNull
+  public PeppolUAETestFileGenerator setLineCount (@Nonnegative final int nLineCount)
+  {
+    ValueEnforcer.isGE0 (nLineCount, "LineCount");
+    m_nLineCount = nLineCount;
+    return this;
+  }
+
+  /**
+   * @return The number of bytes of the additional attachment, before Base64 encoding. 0 means that
+   *         no attachment is added.
+   */
+  @Nonnegative
+  public long getAttachmentSize ()
+  {
+    return m_nAttachmentSize;
+  }
+
+  /**
+   * @param nAttachmentSize
+   *        The number of bytes of the additional attachment, before Base64 encoding. Must be &ge; 0.
+   *        0 means that no attachment is added.
+   * @return this for chaining
+   */
+  @NonNull
+  public PeppolUAETestFileGenerator setAttachmentSize (@Nonnegative final long nAttachmentSize)
+  {
+    ValueEnforcer.isGE0 (nAttachmentSize, "AttachmentSize");
+    m_nAttachmentSize = nAttachmentSize;
+    return this;
+  }
+
+  /**
+   * @return <code>true</code> if templates without a tax currency should be converted to use a
+   *         foreign document currency with AED as the tax currency.
+   */
+  public boolean isTaxCurrency ()
+  {
+    return m_bTaxCurrency;
+  }
+
+  /**
+   * @param bTaxCurrency
+   *        <code>true</code> to convert templates without a tax currency to use a foreign document
+   *        currency with AED as the tax currency. Templates that already have a tax currency are not
+   *        changed.
+   * @return this for chaining
+   */
+  @NonNull
+  public PeppolUAETestFileGenerator setTaxCurrency (final boolean bTaxCurrency)
+  {
+    m_bTaxCurrency = bTaxCurrency;
+    return this;
+  }
+
+  /**
+   * @return The document currency used instead of AED if the tax currency is enabled. Defaults to
+   *         {@link #DEFAULT_FOREIGN_CURRENCY}.
+   */
+  @NonNull
+  public String getForeignCurrency ()
+  {
+    return m_sForeignCurrency;
+  }
+
+  /**
+   * @param sForeignCurrency
+   *        The document currency used instead of AED if the tax currency is enabled. May neither be
+   *        <code>null</code> nor empty.
+   * @return this for chaining
+   */
+  @NonNull
+  public PeppolUAETestFileGenerator setForeignCurrency (@NonNull final String sForeignCurrency)
+  {
+    ValueEnforcer.notEmpty (sForeignCurrency, "ForeignCurrency");
+    m_sForeignCurrency = sForeignCurrency;
+    return this;
+  }
+
+  /**
+   * @return The number of AED per unit of the document currency, used to calculate the tax amount
+   *         in tax currency. Defaults to {@link #DEFAULT_EXCHANGE_RATE}.
+   */
+  @NonNull
+  public BigDecimal getExchangeRate ()
+  {
+    return m_aExchangeRate;
+  }
+
+  /**
+   * @param aExchangeRate
+   *        The number of AED per unit of the document currency. Must be &gt; 0.
+   * @return this for chaining
+   */
+  @NonNull
+  public PeppolUAETestFileGenerator setExchangeRate (@NonNull final BigDecimal aExchangeRate)
+  {
+    ValueEnforcer.isGT0 (aExchangeRate, "ExchangeRate");
+    m_aExchangeRate = aExchangeRate;
+    return this;
+  }
+
+  private static boolean _isLine (@NonNull final QName aName)
+  {
+    return NS_CAC.equals (aName.getNamespaceURI ()) &&
+           ("InvoiceLine".equals (aName.getLocalPart ()) || "CreditNoteLine".equals (aName.getLocalPart ()));
+  }
+
+  private static boolean _is (@NonNull final QName aName,
+                              @NonNull final String sNamespaceURI,
+                              @NonNull final String sLocalName)
+  {
+    return sNamespaceURI.equals (aName.getNamespaceURI ()) && sLocalName.equals (aName.getLocalPart ());
+  }
+
+  @NonNull
+  private static Template _readTemplate (@NonNull final IReadableResource aTemplate) throws IOException
+  {
+    final Template ret = new Template ();
+    try (final InputStream aIS = aTemplate.getInputStream ())
+    {
+      if (aIS == null)
+        throw new IOException ("Failed to open template " + aTemplate.getPath ());
+
+      final XMLEventReader aReader = XML_INPUT_FACTORY.createXMLEventReader (aIS);
+      try
+      {
+        int nDepth = 0;
+        boolean bInLine = false;
+        boolean bInFirstTaxTotal = false;
+        // What to do with the next text event
+        int nPendingText = -1;
+
+        while (aReader.hasNext ())
+        {
+          final XMLEvent aEvent = aReader.nextEvent ();
+          final int nIndex = ret.m_aEvents.size ();
+          ret.m_aEvents.add (aEvent);
+
+          if (aEvent.isStartElement ())
+          {
+            final StartElement aSE = aEvent.asStartElement ();
+            final QName aName = aSE.getName ();
+            nDepth++;
+            nPendingText = -1;
+            if (nDepth == 1)
+              ret.m_bIsCreditNote = "CreditNote".equals (aName.getLocalPart ());
+            else
+              if (nDepth == 2)
+              {
+                final String sLocalName = aName.getLocalPart ();
+                if (_isLine (aName))
+                {
+                  if (ret.m_nLinesStart < 0)
+                    ret.m_nLinesStart = nIndex;
+                  ret.m_nLineCount++;
+                  bInLine = true;
+                }
+                else
+                  if (_is (aName, NS_CBC, "ID"))
+                    nPendingText = TEXT_ROOT_ID;
+                  else
+                    if (_is (aName, NS_CBC, "UUID"))
+                      nPendingText = TEXT_ROOT_UUID;
+                    else
+                      if (_is (aName, NS_CBC, "DocumentCurrencyCode"))
+                        nPendingText = TEXT_DOC_CURRENCY;
+                      else
+                        if (_is (aName, NS_CBC, "TaxCurrencyCode"))
+                          ret.m_bHasTaxCurrency = true;
+                        else
+                          if (_is (aName, NS_CAC, "TaxTotal") && ret.m_nFirstTaxTotalEnd < 0)
+                            bInFirstTaxTotal = true;
+                          else
+                            if (NS_CAC.equals (aName.getNamespaceURI ()) &&
+                                ret.m_nFirstAfterADR < 0 &&
+                                (ret.m_bIsCreditNote ? CREDIT_NOTE_AFTER_ADR : INVOICE_AFTER_ADR).contains (sLocalName))
+                              ret.m_nFirstAfterADR = nIndex;
+              }
+              else
+                if (nDepth == 3 && bInLine && _is (aName, NS_CBC, "ID"))
+                  nPendingText = TEXT_LINE_ID;
+                else
+                  if (nDepth == 3 && bInFirstTaxTotal && _is (aName, NS_CBC, "TaxAmount"))
+                    nPendingText = TEXT_TAX_AMOUNT;
+
+            if (nPendingText < 0 && !bInLine && aSE.getAttributeByName (QNAME_CURRENCY_ID) != null)
+              nPendingText = TEXT_AMOUNT;
+          }
+          else
+            if (aEvent.isCharacters ())
+            {
+              if (nPendingText >= 0)
+              {
+                final String sText = aEvent.asCharacters ().getData ().trim ();
+                switch (nPendingText)
+                {
+                  case TEXT_ROOT_ID:
+                    ret.m_nRootIDText = nIndex;
+                    break;
+                  case TEXT_ROOT_UUID:
+                    ret.m_nRootUUIDText = nIndex;
+                    break;
+                  case TEXT_DOC_CURRENCY:
+                    ret.m_nDocCurrencyText = nIndex;
+                    ret.m_sDocCurrency = sText;
+                    break;
+                  case TEXT_LINE_ID:
+                    ret.m_aLineIDTexts.set (nIndex);
+                    break;
+                  case TEXT_TAX_AMOUNT:
+                    ret.m_aTaxAmount = new BigDecimal (sText);
+                    ret.m_aAmountTexts.set (nIndex);
+                    break;
+                  default:
+                    ret.m_aAmountTexts.set (nIndex);
+                    break;
+                }
+                nPendingText = -1;
+              }
+            }
+            else
+              if (aEvent.isEndElement ())
+              {
+                nPendingText = -1;
+                if (nDepth == 2)
+                {
+                  final QName aName = aEvent.asEndElement ().getName ();
+                  if (_isLine (aName))
+                  {
+                    ret.m_nLinesEnd = nIndex;
+                    bInLine = false;
+                  }
+                  else
+                    if (_is (aName, NS_CBC, "DocumentCurrencyCode"))
+                      ret.m_nDocCurrencyEnd = nIndex;
+                    else
+                      if (_is (aName, NS_CAC, "TaxTotal") && bInFirstTaxTotal)
+                      {
+                        ret.m_nFirstTaxTotalEnd = nIndex;
+                        bInFirstTaxTotal = false;
+                      }
+                      else
+                        if (_is (aName, NS_CAC, "AdditionalDocumentReference"))
+                          ret.m_nLastADREnd = nIndex;
+                }
+                nDepth--;
+              }
+        }
+      }
+      finally
+      {
+        aReader.close ();
+      }
+    }
+    catch (final XMLStreamException | NumberFormatException ex)
+    {
+      throw new IOException ("Failed to read template " + aTemplate.getPath (), ex);
+    }
+    return ret;
+  }
+
+  @NonNull
+  private static Iterator <Namespace> _getUBLNamespaces ()
+  {
+    return new CommonsArrayList <> (XML_EVENT_FACTORY.createNamespace ("cac", NS_CAC),
+                                    XML_EVENT_FACTORY.createNamespace ("cbc", NS_CBC)).iterator ();
+  }
+
+  private static void _writeStart (@NonNull final XMLEventWriter aWriter,
+                                   @NonNull final String sPrefix,
+                                   @NonNull final String sNamespaceURI,
+                                   @NonNull final String sLocalName,
+                                   @Nullable final Iterator <Attribute> aAttrs,
+                                   @Nullable final Iterator <Namespace> aNamespaces) throws XMLStreamException
+  {
+    aWriter.add (XML_EVENT_FACTORY.createStartElement (sPrefix,
+                                                       sNamespaceURI,
+                                                       sLocalName,
+                                                       aAttrs != null ? aAttrs : Collections.emptyIterator (),
+                                                       aNamespaces != null ? aNamespaces : Collections.emptyIterator ()));
+  }
+
+  private static void _writeEnd (@NonNull final XMLEventWriter aWriter,
+                                 @NonNull final String sPrefix,
+                                 @NonNull final String sNamespaceURI,
+                                 @NonNull final String sLocalName) throws XMLStreamException
+  {
+    aWriter.add (XML_EVENT_FACTORY.createEndElement (sPrefix, sNamespaceURI, sLocalName));
+  }
+
+  private static void _writeText (@NonNull final XMLEventWriter aWriter,
+                                  @NonNull final String sText) throws XMLStreamException
+  {
+    aWriter.add (XML_EVENT_FACTORY.createCharacters (sText));
+  }
+
+  private void _writeAttachment (@NonNull final XMLEventWriter aWriter,
+                                 @NonNull final Random aRandom,
+                                 @NonNull final OutputStream aOS) throws XMLStreamException, IOException
+  {
+    _writeStart (aWriter, "cac", NS_CAC, "AdditionalDocumentReference", null, _getUBLNamespaces ());
+    _writeStart (aWriter, "cbc", NS_CBC, "ID", null, null);
+    _writeText (aWriter, ATTACHMENT_ID);
+    _writeEnd (aWriter, "cbc", NS_CBC, "ID");
+    _writeStart (aWriter, "cac", NS_CAC, "Attachment", null, null);
+    _writeStart (aWriter,
+                 "cbc",
+                 NS_CBC,
+                 "EmbeddedDocumentBinaryObject",
+                 new CommonsArrayList <> (XML_EVENT_FACTORY.createAttribute ("mimeCode", "application/pdf"),
+                                          XML_EVENT_FACTORY.createAttribute ("filename", ATTACHMENT_FILENAME)).iterator (),
+                 null);
+
+    // Stream the Base64 encoded content chunk by chunk. The first chunk closes the start tag, all
+    // further chunks are written directly, as Base64 never needs escaping
+    final Base64.Encoder aEncoder = Base64.getEncoder ();
+    final byte [] aBuf = new byte [(int) Math.min (ATTACHMENT_CHUNK_SIZE, m_nAttachmentSize)];
+    long nRemaining = m_nAttachmentSize;
+    boolean bFirst = true;
+    while (nRemaining > 0)
+    {
+      final int nChunk = (int) Math.min (aBuf.length, nRemaining);
+      aRandom.nextBytes (aBuf);
+      final byte [] aEncoded = aEncoder.encode (nChunk == aBuf.length ? aBuf : Arrays.copyOf (aBuf, nChunk));
+      if (bFirst)
+      {
+        _writeText (aWriter, new String (aEncoded, StandardCharsets.ISO_8859_1));
+        aWriter.flush ();
+        bFirst = false;
+      }
+      else
+        aOS.write (aEncoded);
+      nRemaining -= nChunk;
+    }
+
+    _writeEnd (aWriter, "cbc", NS_CBC, "EmbeddedDocumentBinaryObject");
+    _writeEnd (aWriter, "cac", NS_CAC, "Attachment");
+    _writeEnd (aWriter, "cac", NS_CAC, "AdditionalDocumentReference");
+  }
+
+  @NonNull
+  private static StartElement _getWithCurrency (@NonNull final StartElement aSE, @NonNull final String sCurrency)
+  {
+    final ICommonsList <Attribute> aAttrs = new CommonsArrayList <> ();
+    final Iterator <Attribute> it = aSE.getAttributes ();
+    while (it.hasNext ())
+    {
+      final Attribute aAttr = it.next ();
+      if (QNAME_CURRENCY_ID.equals (aAttr.getName ()))
+        aAttrs.add (XML_EVENT_FACTORY.createAttribute (QNAME_CURRENCY_ID, sCurrency));
+      else
+        aAttrs.add (aAttr);
+    }
+    final QName aName = aSE.getName ();
+    return XML_EVENT_FACTORY.createStartElement (aName.getPrefix (),
+                                                 aName.getNamespaceURI (),
+                                                 aName.getLocalPart (),
+                                                 aAttrs.iterator (),
+                                                 aSE.getNamespaces (),
+                                                 aSE.getNamespaceContext ());
+  }
+
+  private void _generate (@NonNull final Template aTemplate,
+                          final long nSeed,
+                          @NonNull final OutputStream aOS) throws IOException
+  {
+    final Random aRandom = new Random (nSeed);
+    final ICommonsList <XMLEvent> aEvents = aTemplate.m_aEvents;
+
+    // Lines are always repeated as a whole, so that all amounts scale by the same factor
+    final int nTemplateLines = aTemplate.m_nLineCount;
+    final int nFactor = nTemplateLines > 0 && m_nLineCount > nTemplateLines ? (m_nLineCount + nTemplateLines - 1) /
+                                                                              nTemplateLines : 1;
+    final BigDecimal aFactor = BigDecimal.valueOf (nFactor);
+    final boolean bAddTaxCurrency = m_bTaxCurrency && !aTemplate.m_bHasTaxCurrency && aTemplate.m_nDocCurrencyEnd >= 0;
+    final String sReplaceCurrency = bAddTaxCurrency && TAX_CURRENCY.equals (aTemplate.m_sDocCurrency) ? m_sForeignCurrency
+                                                                                                       : null;
+    final int nAttachmentIndex = m_nAttachmentSize > 0 ? aTemplate.getAttachmentInsertIndex () : -1;
+    final String sIDSuffix = String.format (Locale.ROOT, "-%016x", Long.valueOf (aRandom.nextLong ()));
+    final UUID aUUID = new UUID ((aRandom.nextLong () & ~0xf000L) | 0x4000L,
+                                 (aRandom.nextLong () & 0x3fffffffffffffffL) | 0x8000000000000000L);
+    int nNextLineID = 1;
+
+    try
+    {
+      final XMLEventWriter aWriter = XML_OUTPUT_FACTORY.createXMLEventWriter (aOS, "UTF-8");
+      try
+      {
+        int i = 0;
+        while (i < aEvents.size ())
+        {
+          if (i == nAttachmentIndex)
+            _writeAttachment (aWriter, aRandom, aOS);
+
+          final boolean bLines = i == aTemplate.m_nLinesStart;
+          final int nRepeat = bLines ? nFactor : 1;
+          final int nLast = bLines ? aTemplate.m_nLinesEnd : i;
+          for (int nRun = 0; nRun < nRepeat; ++nRun)
+            for (int j = i; j <= nLast; ++j)
+            {
+              final XMLEvent aEvent = aEvents.get (j);
+              if (aEvent.isStartElement ())
+              {
+                final StartElement aSE = aEvent.asStartElement ();
+                if (sReplaceCurrency != null)
+                {
+                  final Attribute aCurrency = aSE.getAttributeByName (QNAME_CURRENCY_ID);
+                  if (aCurrency != null && TAX_CURRENCY.equals (aCurrency.getValue ()))
+                  {
+                    aWriter.add (_getWithCurrency (aSE, sReplaceCurrency));
+                    continue;
+                  }
+                }
+                aWriter.add (aEvent);
+              }
+              else
+                if (j == aTemplate.m_nRootIDText)
+                  _writeText (aWriter, aEvent.asCharacters ().getData ().trim () + sIDSuffix);
+                else
+                  if (j == aTemplate.m_nRootUUIDText)
+                    _writeText (aWriter, aUUID.toString ());
+                  else
+                    if (j == aTemplate.m_nDocCurrencyText && sReplaceCurrency != null)
+                      _writeText (aWriter, sReplaceCurrency);
+                    else
+                      if (aTemplate.m_aLineIDTexts.get (j))
+                        _writeText (aWriter, Integer.toString (nNextLineID++));
+                      else
+                        if (aTemplate.m_aAmountTexts.get (j) && nFactor > 1)
+                          _writeText (aWriter,
+                                      new BigDecimal (aEvent.asCharacters ().getData ().trim ()).multiply (aFactor)
+                                                                                                   .toPlainString ());
+                        else
+                          aWriter.add (aEvent);
+            }
+
+          if (bAddTaxCurrency && nLast == aTemplate.m_nDocCurrencyEnd)
+          {
+            _writeStart (aWriter, "cbc", NS_CBC, "TaxCurrencyCode", null, _getUBLNamespaces ());
+            _writeText (aWriter, TAX_CURRENCY);
+            _writeEnd (aWriter, "cbc", NS_CBC, "TaxCurrencyCode");
+          }
+          if (bAddTaxCurrency && nLast == aTemplate.m_nFirstTaxTotalEnd && aTemplate.m_aTaxAmount != null)
+          {
+            // The tax total in tax currency contains only the tax amount
+            final BigDecimal aTaxAmount = aTemplate.m_aTaxAmount.multiply (aFactor)
+                                                                .multiply (m_aExchangeRate)
+                                                                .setScale (2, RoundingMode.HALF_UP);
+            _writeStart (aWriter, "cac", NS_CAC, "TaxTotal", null, _getUBLNamespaces ());
+            _writeStart (aWriter,
+                         "cbc",
+                         NS_CBC,
+                         "TaxAmount",
+                         new CommonsArrayList <> (XML_EVENT_FACTORY.createAttribute (QNAME_CURRENCY_ID,
+                                                                                     TAX_CURRENCY)).iterator (),
+                         null);
+            _writeText (aWriter, aTaxAmount.toPlainString ());
+            _writeEnd (aWriter, "cbc", NS_CBC, "TaxAmount");
+            _writeEnd (aWriter, "cac", NS_CAC, "TaxTotal");
+          }
+          i = nLast + 1;
+        }
+        aWriter.flush ();
+      }
+      finally
+      {
+        // Does not close the output stream
+        aWriter.close ();
+      }
+    }
+    catch (final XMLStreamException ex)
+    {
+      throw new IOException ("Failed to write generated document", ex);
+    }
+  }
+
+  /**
+   * Generate a single document based on the provided template, using the seed of this generator.
+   *
+   * @param aTemplate
+   *        The billing document to use as the template. May not be <code>null</code>.
+   * @param aOS
+   *        The output stream to write to, encoded in UTF-8. May not be <code>null</code>. It is not
+   *        closed.
+   * @throws IOException
+   *         If the template cannot be read or the output cannot be written
+   */
+  public void generate (@NonNull final IReadableResource aTemplate, @NonNull final OutputStream aOS) throws IOException
+  {
+    ValueEnforcer.notNull (aTemplate, "Template");
+    ValueEnforcer.notNull (aOS, "OutputStream");
+
+    _generate (_readTemplate (aTemplate), m_nSeed, aOS);
+  }
+
+  /**
+   * Generate a single document based on the provided template into a file, using the seed of this
+   * generator.
+   *
+   * @param aTemplate
+   *        The billing document to use as the template. May not be <code>null</code>.
+   * @param aFile
+   *        The file to write to. May not be <code>null</code>. An existing file is overwritten.
+   * @throws IOException
+   *         If the template cannot be read or the file cannot be written
+   */
+  public void generate (@NonNull final IReadableResource aTemplate, @NonNull final Path aFile) throws IOException
+  {
+    ValueEnforcer.notNull (aTemplate, "Template");
+    ValueEnforcer.notNull (aFile, "File");
+
+    try (final OutputStream aOS = new BufferedOutputStream (Files.newOutputStream (aFile)))
+    {
+      _generate (_readTemplate (aTemplate), m_nSeed, aOS);
+    }
+  }
+
+  /**
+   * Generate a corpus of documents into a directory. The templates are all good billing invoices
+   * and credit notes of {@link PeppolUAETestFiles} in a round-robin manner. Each document uses its
+   * own seed, derived from the seed of this generator and the document index, so that every
+   * document of the corpus is different and the same corpus can be recreated at any time.
+   *
+   * @param aDir
+   *        The directory to write to. May not be <code>null</code>. It is created if it does not
+   *        exist.
+   * @param nCount
+   *        The number of documents to create. Must be &ge; 0.
+   * @return The created files in the order of creation. Never <code>null</code>.
+   * @throws IOException
+   *         If a template cannot be read or a file cannot be written
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <Path> generateCorpus (@NonNull final Path aDir, @Nonnegative final int nCount) throws IOException
+  {
+    ValueEnforcer.notNull (aDir, "Dir");
+    ValueEnforcer.isGE0 (nCount, "Count");
+
+    final ICommonsList <IReadableResource> aTemplates = new CommonsArrayList <> ();
+    aTemplates.addAll (PeppolUAETestFiles.getAllGoodBillingInvoiceFiles ());
+    aTemplates.addAll (PeppolUAETestFiles.getAllGoodBillingCreditNoteFiles ());
+    // The templates are small, so keep them pre-scanned
+    final ICommonsMap <Integer, Template> aCache = new CommonsHashMap <> ();
+
+    Files.createDirectories (aDir);
+    final ICommonsList <Path> ret = new CommonsArrayList <> (nCount);
+    for (int i = 0; i < nCount; ++i)
+    {
+      final int nTemplateIndex = i % aTemplates.size ();
+      Template aTemplate = aCache.get (Integer.valueOf (nTemplateIndex));
+      if (aTemplate == null)
+      {
+        aTemplate = _readTemplate (aTemplates.get (nTemplateIndex));
+        aCache.put (Integer.valueOf (nTemplateIndex), aTemplate);
+      }
+
+      final Path aFile = aDir.resolve (String.format (Locale.ROOT, "generated-%06d.xml", Integer.valueOf (i)));
+      try (final OutputStream aOS = new BufferedOutputStream (Files.newOutputStream (aFile)))
+      {
+        _generate (aTemplate, m_nSeed + i * SEED_INCREMENT, aOS);
+      }
+      ret.add (aFile);
+    }
+    return ret;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("Seed", m_nSeed)
+                                       .append ("LineCount", m_nLineCount)
+                                       .append ("AttachmentSize", m_nAttachmentSize)
+                                       .append ("TaxCurrency", m_bTaxCurrency)
+                                       .append ("ForeignCurrency", m_sForeignCurrency)
+                                       .append ("ExchangeRate", m_aExchangeRate)
+                                       .getToString ();
+  }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2025-2026 Philip Helger
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.peppol.uae.tdd.testfiles;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Base64;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import com.helger.collection.commons.ICommonsList;
+import com.helger.io.resource.ClassPathResource;
+
+/**
+ * Test class for class {@link PeppolUAETestFileGenerator}.
+ *
+ * @author Philip Helger
+ */
+public final class PeppolUAETestFileGeneratorTest
+{
+  private static final String NS_CAC = "urn:oasis:names:specification:ubl:schema:xsd:CommonAggregateComponents-2";
+  private static final String NS_CBC = "urn:oasis:names:specification:ubl:schema:xsd:CommonBasicComponents-2";
+
+  @Rule
+  public final TemporaryFolder m_aTempFolder = new TemporaryFolder ();
+
+  private static ClassPathResource _getTemplate ()
+  {
+    return new ClassPathResource ("external/billing/inv/Standard tax invoice.xml",
+                                  PeppolUAETestFileGeneratorTest.class.getClassLoader ());
+  }
+
+  private static byte [] _generate (final PeppolUAETestFileGenerator aGenerator) throws Exception
+  {
+    final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+    aGenerator.generate (_getTemplate (), aBAOS);
+    return aBAOS.toByteArray ();
+  }
+
+  private static Document _parse (final byte [] aBytes) throws Exception
+  {
+    final DocumentBuilderFactory aDBF = DocumentBuilderFactory.newInstance ();
+    aDBF.setNamespaceAware (true);
+    return aDBF.newDocumentBuilder ().parse (new ByteArrayInputStream (aBytes));
+  }
+
+  private static String _getChildText (final Element aParent, final String sNamespaceURI, final String sLocalName)
+  {
+    final NodeList aNL = aParent.getElementsByTagNameNS (sNamespaceURI, sLocalName);
+    for (int i = 0; i < aNL.getLength (); ++i)
+      if (aNL.item (i).getParentNode () == aParent)
+        return aNL.item (i).getTextContent ();
+    return null;
+  }
+
+  @Test
+  public void testDeterministic () throws Exception
+  {
+    final PeppolUAETestFileGenerator aGenerator = new PeppolUAETestFileGenerator ().setSeed (4711)
+                                                                                   .setLineCount (10)
+                                                                                   .setAttachmentSize (1000)
+                                                                                   .setTaxCurrency (true);
+    final byte [] aFirst = _generate (aGenerator);
+    assertArrayEquals (aFirst, _generate (aGenerator));
+
+    final byte [] aOther = _generate (aGenerator.setSeed (4712));
+    assertFalse (Arrays.equals (aFirst, aOther));
+
+    // The ID and UUID depend on the seed
+    final Element aRoot1 = _parse (aFirst).getDocumentElement ();
+    final Element aRoot2 = _parse (aOther).getDocumentElement ();
+    assertTrue (_getChildText (aRoot1, NS_CBC, "ID").startsWith ("AE-01TEST-"));
+    assertNotEquals (_getChildText (aRoot1, NS_CBC, "ID"), _getChildText (aRoot2, NS_CBC, "ID"));
+    assertNotEquals (_getChildText (aRoot1, NS_CBC, "UUID"), _getChildText (aRoot2, NS_CBC, "UUID"));
+  }
+
+  @Test
+  public void testLineCount () throws Exception
+  {
+    final Element aRoot = _parse (_generate (new PeppolUAETestFileGenerator ().setLineCount (250))).getDocumentElement ();
+
+    final NodeList aLines = aRoot.getElementsByTagNameNS (NS_CAC, "InvoiceLine");
+    assertEquals (250, aLines.getLength ());
+    for (int i = 0; i < aLines.getLength (); ++i)
+      assertEquals (Integer.toString (i + 1), _getChildText ((Element) aLines.item (i), NS_CBC, "ID"));
+
+    // Document level amounts are scaled by the same factor
+    final Element aLMT = (Element) aRoot.getElementsByTagNameNS (NS_CAC, "LegalMonetaryTotal").item (0);
+    assertEquals ("2621500", _getChildText (aLMT, NS_CBC, "LineExtensionAmount"));
+    assertEquals ("2793875.0", _getChildText (aLMT, NS_CBC, "PayableAmount"));
+  }
+
+  @Test
+  public void testAttachmentSize () throws Exception
+  {
+    final int nSize = 200_000;
+    final Element aRoot = _parse (_generate (new PeppolUAETestFileGenerator ().setAttachmentSize (nSize))).getDocumentElement ();
+
+    final NodeList aObjects = aRoot.getElementsByTagNameNS (NS_CBC, "EmbeddedDocumentBinaryObject");
+    boolean bFound = false;
+    for (int i = 0; i < aObjects.getLength (); ++i)
+    {
+      final Element aObject = (Element) aObjects.item (i);
+      if (PeppolUAETestFileGenerator.ATTACHMENT_FILENAME.equals (aObject.getAttribute ("filename")))
+      {
+        assertEquals (nSize, Base64.getDecoder ().decode (aObject.getTextContent ()).length);
+        bFound = true;
+      }
+    }
+    assertTrue (bFound);
+  }
+
+  @Test
+  public void testTaxCurrency () throws Exception
+  {
+    final Element aRoot = _parse (_generate (new PeppolUAETestFileGenerator ().setLineCount (5)
+                                                                              .setTaxCurrency (true))).getDocumentElement ();
+    assertEquals ("USD", _getChildText (aRoot, NS_CBC, "DocumentCurrencyCode"));
+    assertEquals ("AED", _getChildText (aRoot, NS_CBC, "TaxCurrencyCode"));
+
+    // Second tax total in tax currency: 532.16 * 5 * 3.6725
+    final NodeList aTaxTotals = aRoot.getElementsByTagNameNS (NS_CAC, "TaxTotal");
+    int nAED = 0;
+    for (int i = 0; i < aTaxTotals.getLength (); ++i)
+    {
+      final Element aTaxAmount = (Element) ((Element) aTaxTotals.item (i)).getElementsByTagNameNS (NS_CBC, "TaxAmount")
+                                                                          .item (0);
+      if ("AED".equals (aTaxAmount.getAttribute ("currencyID")))
+      {
+        assertEquals ("9771.79", aTaxAmount.getTextContent ());
+        nAED++;
+      }
+    }
+    assertEquals (1, nAED);
+  }
+
+  @Test
+  public void testCorpus () throws Exception
+  {
+    final int nTemplates = PeppolUAETestFiles.getAllGoodBillingInvoiceFiles ().size () +
+                           PeppolUAETestFiles.getAllGoodBillingCreditNoteFiles ().size ();
+    final Path aDir = m_aTempFolder.newFolder ().toPath ();
+    final ICommonsList <Path> aFiles = new PeppolUAETestFileGenerator ().setLineCount (20)
+                                                                       .setAttachmentSize (10_000)
+                                                                       .setTaxCurrency (true)
+                                                                       .generateCorpus (aDir, nTemplates + 2);
+    assertEquals (nTemplates + 2, aFiles.size ());
+    for (final Path aFile : aFiles)
+    {
+      final Element aRoot = _parse (Files.readAllBytes (aFile)).getDocumentElement ();
+      assertTrue (aRoot.getLocalName ().equals ("Invoice") || aRoot.getLocalName ().equals ("CreditNote"));
+      assertTrue (aRoot.getElementsByTagNameNS (NS_CAC, "InvoiceLine").getLength () +
+                  aRoot.getElementsByTagNameNS (NS_CAC, "CreditNoteLine").getLength () >= 20);
+      assertEquals ("AED", _getChildText (aRoot, NS_CBC, "TaxCurrencyCode"));
+    }
+
+    // Same template, but different seed
+    final String sUUID1 = _getChildText (_parse (Files.readAllBytes (aFiles.get (0))).getDocumentElement (),
+                                         NS_CBC,
+                                         "UUID");
+    final String sUUID2 = _getChildText (_parse (Files.readAllBytes (aFiles.get (nTemplates))).getDocumentElement (),
+                                         NS_CBC,
+                                         "UUID");
+    assertNotEquals (sUUID1, sUUID2);
+  }
+}